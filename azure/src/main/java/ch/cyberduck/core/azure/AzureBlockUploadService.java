@@ -0,0 +1,339 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.exception.UnsupportedException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.ThrottledInputStream;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.lang3.concurrent.ConcurrentUtils;
+import org.apache.log4j.Logger;
+import org.bouncycastle.util.encoders.Base64;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlobType;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.BlockSearchMode;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.blob.CloudBlobContainer;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+
+/**
+ * Upload to block blob staging blocks concurrently with Put Block and committing them with Put Block List. Blocks
+ * not yet committed from a previous attempt are reused when resuming.
+ */
+public class AzureBlockUploadService implements Upload<Void> {
+    private static final Logger log = Logger.getLogger(AzureBlockUploadService.class);
+
+    /**
+     * Maximum number of blocks in a block blob
+     */
+    public static final int MAXIMUM_UPLOAD_BLOCKS = 50000;
+
+    /**
+     * Maximum size of block with service version of client library
+     */
+    public static final long MAXIMUM_BLOCK_SIZE = 100L * 1024L * 1024L;
+
+    private final AzureSession session;
+    private final OperationContext context;
+
+    private final PathContainerService containerService
+        = new AzurePathContainerService();
+
+    private Write<Void> writer;
+
+    private final Long partsize;
+    private final Integer concurrency;
+
+    public AzureBlockUploadService(final AzureSession session, final OperationContext context, final Write<Void> writer) {
+        this(session, context, writer, PreferencesFactory.get().getLong("azure.upload.blockblob.size"),
+            PreferencesFactory.get().getInteger("azure.upload.blockblob.concurrency"));
+    }
+
+    public AzureBlockUploadService(final AzureSession session, final OperationContext context, final Write<Void> writer,
+                                   final Long partsize, final Integer concurrency) {
+        this.session = session;
+        this.context = context;
+        this.writer = writer;
+        this.partsize = partsize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @return Size of blocks not yet committed from previous attempt or append status of existing blob
+     */
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        try {
+            final Map<String, Long> uncommitted = this.uncommitted(this.blob(file));
+            if(!uncommitted.isEmpty()) {
+                long size = 0L;
+                for(Long block : uncommitted.values()) {
+                    size += block;
+                }
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Found %d uncommitted blocks for %s", uncommitted.size(), file));
+                }
+                return new Write.Append(size);
+            }
+        }
+        catch(StorageException e) {
+            log.warn(String.format("Failure listing uncommitted blocks for %s. %s", file, e.getMessage()));
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        // Full size of file
+        final long size = status.getLength() + status.getOffset();
+        // Fail prior submitting any block
+        final long length = blocksize(size, partsize);
+        // Share limit for concurrent blocks with other files in transfer if available
+        final ThreadPool pool = null == status.getScheduler() ? ThreadPoolFactory.get("block", concurrency) : status.getScheduler().pool(file);
+        try {
+            final CloudBlockBlob blob = this.blob(file);
+            if(status.isExists()) {
+                final CloudBlob existing = blob.getContainer().getBlobReferenceFromServer(containerService.getKey(file));
+                if(existing.getProperties().getBlobType() != BlobType.BLOCK_BLOB) {
+                    // Blocks cannot be staged for blob of different type
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Delete existing %s blob %s", existing.getProperties().getBlobType(), file));
+                    }
+                    existing.delete();
+                }
+            }
+            final Map<String, Long> uncommitted = status.isAppend() ? this.uncommitted(blob) : new HashMap<String, Long>();
+            // Ordered list of blocks to commit
+            final List<Future<BlockEntry>> blocks = new ArrayList<Future<BlockEntry>>();
+            long offset = 0;
+            for(int blockNumber = 1; offset < size; blockNumber++) {
+                // Last block can be smaller
+                final long blocksize = Math.min(length, size - offset);
+                final String id = this.id(blockNumber, offset);
+                if(uncommitted.containsKey(id) && uncommitted.get(id) == blocksize) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Skip uncommitted block number %d", blockNumber));
+                    }
+                    blocks.add(ConcurrentUtils.constantFuture(new BlockEntry(id, BlockSearchMode.UNCOMMITTED)));
+                }
+                else {
+                    // Submit to queue
+                    blocks.add(this.submit(pool, file, local, throttle, listener, status, blob, id, offset, blocksize));
+                }
+                offset += blocksize;
+            }
+            final List<BlockEntry> completed = new ArrayList<BlockEntry>();
+            for(Future<BlockEntry> future : blocks) {
+                try {
+                    completed.add(future.get());
+                }
+                catch(InterruptedException e) {
+                    log.error("Block upload failed with interrupt failure");
+                    status.setCanceled();
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    log.warn(String.format("Block upload failed with execution failure %s", e.getMessage()));
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+            }
+            AzureWriteFeature.setProperties(blob, status);
+            blob.commitBlockList(completed, AccessCondition.generateEmptyCondition(), new BlobRequestOptions(), context);
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Committed %d blocks for %s", completed.size(), file));
+            }
+            // Mark parent status as complete
+            status.setComplete();
+            return null;
+        }
+        catch(StorageException e) {
+            throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+        finally {
+            // Cancel future tasks
+            pool.shutdown(false);
+        }
+    }
+
+    private Future<BlockEntry> submit(final ThreadPool pool, final Path file, final Local local,
+                                      final BandwidthThrottle throttle, final StreamListener listener,
+                                      final TransferStatus overall, final CloudBlockBlob blob,
+                                      final String id, final long offset, final long length) {
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Submit block %s of %s to queue with offset %d and length %d", id, file, offset, length));
+        }
+        return pool.execute(new DefaultRetryCallable<BlockEntry>(new BackgroundExceptionCallable<BlockEntry>() {
+            @Override
+            public BlockEntry call() throws BackgroundException {
+                if(overall.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                final TransferStatus status = new TransferStatus()
+                    .segment(true)
+                    .length(length)
+                    .skip(offset);
+                final InputStream in = new ThrottledInputStream(new BoundedInputStream(
+                    StreamCopier.skip(local.getInputStream(), offset), length), throttle);
+                final ProgressInputStream progress = new ProgressInputStream(in, status, overall, listener);
+                try {
+                    blob.uploadBlock(id, progress, length, AccessCondition.generateEmptyCondition(), new BlobRequestOptions(), context);
+                    status.setComplete();
+                }
+                catch(StorageException e) {
+                    // Discard sent bytes in overall progress if there is an error reply for block
+                    overall.progress(-progress.sent);
+                    throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+                }
+                catch(IOException e) {
+                    overall.progress(-progress.sent);
+                    throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
+                }
+                finally {
+                    IOUtils.closeQuietly(progress);
+                }
+                return new BlockEntry(id, BlockSearchMode.UNCOMMITTED);
+            }
+        }, overall));
+    }
+
+    /**
+     * @param size     Size of file
+     * @param partsize Preferred size of blocks
+     * @return Size of blocks not exceeding maximum block size to upload file with maximum number of blocks
+     * @throws UnsupportedException File exceeds maximum number of blocks with maximum block size
+     */
+    protected static long blocksize(final long size, final long partsize) throws UnsupportedException {
+        if(size > MAXIMUM_BLOCK_SIZE * MAXIMUM_UPLOAD_BLOCKS) {
+            throw new UnsupportedException(String.format("File size %d exceeds maximum of %d blocks with %d bytes",
+                size, MAXIMUM_UPLOAD_BLOCKS, MAXIMUM_BLOCK_SIZE));
+        }
+        return Math.min(Math.max((size + MAXIMUM_UPLOAD_BLOCKS - 1) / MAXIMUM_UPLOAD_BLOCKS, partsize), MAXIMUM_BLOCK_SIZE);
+    }
+
+    /**
+     * @return Block identifiers of same length for all blocks of blob
+     */
+    private String id(final int blockNumber, final long offset) {
+        return Base64.toBase64String(String.format("%06d-%019d", blockNumber, offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Size of blocks not yet committed by block identifier
+     */
+    private Map<String, Long> uncommitted(final CloudBlockBlob blob) throws StorageException {
+        final Map<String, Long> blocks = new HashMap<String, Long>();
+        try {
+            for(BlockEntry block : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED, AccessCondition.generateEmptyCondition(), null, context)) {
+                blocks.put(block.getId(), block.getSize());
+            }
+        }
+        catch(StorageException e) {
+            if(e.getHttpStatusCode() == 404) {
+                // No blob with blocks
+                return blocks;
+            }
+            throw e;
+        }
+        return blocks;
+    }
+
+    private CloudBlockBlob blob(final Path file) throws URISyntaxException, StorageException {
+        final CloudBlobContainer container = session.getClient().getContainerReference(containerService.getContainer(file).getName());
+        return container.getBlockBlobReference(containerService.getKey(file));
+    }
+
+    /**
+     * Report bytes read by client library from local file
+     */
+    private static final class ProgressInputStream extends ProxyInputStream {
+        private final TransferStatus status;
+        private final TransferStatus overall;
+        private final StreamListener listener;
+        private long sent;
+
+        private ProgressInputStream(final InputStream proxy, final TransferStatus status, final TransferStatus overall, final StreamListener listener) {
+            super(proxy);
+            this.status = status;
+            this.overall = overall;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void afterRead(final int n) {
+            if(n > 0) {
+                sent += n;
+                status.progress(n);
+                overall.progress(n);
+                listener.sent(n);
+            }
+        }
+    }
+
+    @Override
+    public Upload<Void> withWriter(final Write<Void> writer) {
+        this.writer = writer;
+        return this;
+    }
+}
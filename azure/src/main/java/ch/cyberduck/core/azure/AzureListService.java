@@ -44,6 +44,16 @@ public class AzureListService implements ListService {
         }
     }
 
+    @Override
+    public boolean isRecursive(final Path directory) {
+        return !directory.isRoot();
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        return new AzureObjectListService(session, context).listRecursive(directory, listener);
+    }
+
     @Override
     public ListService withCache(final Cache<Path> cache) {
         return this;
@@ -66,6 +66,23 @@ public class AzureObjectListService implements ListService {
 
     @Override
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        return this.list(directory, listener, false);
+    }
+
+    @Override
+    public boolean isRecursive(final Path directory) {
+        return true;
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        return this.list(directory, listener, true);
+    }
+
+    /**
+     * @param flat List all blobs with prefix of directory instead of virtual directories
+     */
+    protected AttributedList<Path> list(final Path directory, final ListProgressListener listener, final boolean flat) throws BackgroundException {
         try {
             final CloudBlobContainer container = session.getClient().getContainerReference(containerService.getContainer(directory).getName());
             final AttributedList<Path> children = new AttributedList<Path>();
@@ -82,7 +99,7 @@ public class AzureObjectListService implements ListService {
             do {
                 final BlobRequestOptions options = new BlobRequestOptions();
                 result = container.listBlobsSegmented(
-                        prefix, false, EnumSet.noneOf(BlobListingDetails.class),
+                        prefix, flat, EnumSet.noneOf(BlobListingDetails.class),
                         PreferencesFactory.get().getInteger("azure.listing.chunksize"), token, options, context);
                 for(ListBlobItem object : result.getResults()) {
                     if(new Path(object.getUri().getPath(), EnumSet.of(Path.Type.directory)).equals(directory)) {
@@ -101,8 +118,15 @@ public class AzureObjectListService implements ListService {
                     }
                     // A directory is designated by a delimiter character.
                     final EnumSet<AbstractPath.Type> types = object instanceof CloudBlobDirectory
+                        || object.getUri().getPath().endsWith(String.valueOf(Path.DELIMITER))
                             ? EnumSet.of(Path.Type.directory, Path.Type.placeholder) : EnumSet.of(Path.Type.file);
-                    final Path child = new Path(directory, PathNormalizer.name(object.getUri().getPath()), types, attributes);
+                    final Path child;
+                    if(flat) {
+                        child = new Path(object.getUri().getPath(), types, attributes);
+                    }
+                    else {
+                        child = new Path(directory, PathNormalizer.name(object.getUri().getPath()), types, attributes);
+                    }
                     children.add(child);
                 }
                 listener.chunk(directory, children);
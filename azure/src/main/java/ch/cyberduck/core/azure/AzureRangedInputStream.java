@@ -0,0 +1,176 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.CloudBlob;
+
+/**
+ * Read blob with ranges of fixed size fetched concurrently ahead of the current position. Ranges are requested
+ * with the ETag of the blob as a precondition to fail if the blob is modified while reading.
+ */
+public class AzureRangedInputStream extends InputStream {
+    private static final Logger log = Logger.getLogger(AzureRangedInputStream.class);
+
+    private final CloudBlob blob;
+    private final OperationContext context;
+    private final AccessCondition condition;
+    private final ThreadPool pool;
+    private final long size;
+    private final int concurrency;
+    /**
+     * Ranges requested in order of offset
+     */
+    private final Deque<Future<byte[]>> ranges = new ArrayDeque<Future<byte[]>>();
+
+    /**
+     * Offset of next range to request
+     */
+    private long offset;
+    /**
+     * Exclusive end of content to read
+     */
+    private final long end;
+
+    private byte[] buffer = new byte[0];
+    private int position;
+    private boolean closed;
+
+    /**
+     * @param blob        Blob with properties loaded
+     * @param offset      Offset to start reading
+     * @param length      Number of bytes to read
+     * @param size        Size of ranges to request
+     * @param concurrency Number of ranges to request concurrently
+     */
+    public AzureRangedInputStream(final CloudBlob blob, final OperationContext context,
+                                  final long offset, final long length, final long size, final int concurrency) {
+        this.blob = blob;
+        this.context = context;
+        this.condition = AccessCondition.generateIfMatchCondition(blob.getProperties().getEtag());
+        this.pool = ThreadPoolFactory.get("range", concurrency);
+        this.offset = offset;
+        this.end = offset + length;
+        this.size = size;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int n = this.read(b, 0, 1);
+        if(-1 == n) {
+            return -1;
+        }
+        return b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+        if(0 == len) {
+            return 0;
+        }
+        if(position == buffer.length) {
+            if(!this.next()) {
+                return -1;
+            }
+        }
+        final int n = Math.min(len, buffer.length - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - position;
+    }
+
+    /**
+     * Wait for next range and submit further ranges up to the concurrency limit
+     *
+     * @return False if end of content is reached
+     */
+    private boolean next() throws IOException {
+        while(ranges.size() < concurrency && offset < end) {
+            final long start = offset;
+            final int length = (int) Math.min(size, end - start);
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Submit range %d-%d of %s", start, start + length - 1, blob.getName()));
+            }
+            ranges.add(pool.execute(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws StorageException {
+                    final byte[] range = new byte[length];
+                    blob.downloadRangeToByteArray(start, (long) length, range, 0, condition, new BlobRequestOptions(), context);
+                    return range;
+                }
+            }));
+            offset += length;
+        }
+        final Future<byte[]> range = ranges.poll();
+        if(null == range) {
+            return false;
+        }
+        try {
+            buffer = range.get();
+            position = 0;
+            return true;
+        }
+        catch(InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof StorageException) {
+                throw new IOException(e.getCause().getMessage(), new AzureExceptionMappingService().map((StorageException) e.getCause()));
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        for(Future<byte[]> range : ranges) {
+            range.cancel(true);
+        }
+        ranges.clear();
+        pool.shutdown(false);
+    }
+}
@@ -25,6 +25,8 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
@@ -55,6 +57,9 @@ public class AzureReadFeature implements Read {
     private final PathContainerService containerService
             = new AzurePathContainerService();
 
+    private final Preferences preferences
+            = PreferencesFactory.get();
+
     public AzureReadFeature(final AzureSession session, final OperationContext context) {
         this.session = session;
         this.context = context;
@@ -70,6 +75,13 @@ public class AzureReadFeature implements Read {
         try {
             final CloudBlob blob = session.getClient().getContainerReference(containerService.getContainer(file).getName())
                     .getBlobReferenceFromServer(containerService.getKey(file));
+            if(status.getLength() >= preferences.getLong("azure.download.range.threshold")
+                && preferences.getInteger("azure.download.range.concurrency") > 1) {
+                // Request ranges of large blob concurrently
+                final long offset = status.isAppend() ? status.getOffset() : 0L;
+                return new AzureRangedInputStream(blob, context, offset, status.getLength(),
+                    preferences.getLong("azure.download.range.size"), preferences.getInteger("azure.download.range.concurrency"));
+            }
             final BlobRequestOptions options = new BlobRequestOptions();
             options.setConcurrentRequestCount(1);
             final BlobInputStream in = blob.openInputStream(AccessCondition.generateEmptyCondition(), options, context);
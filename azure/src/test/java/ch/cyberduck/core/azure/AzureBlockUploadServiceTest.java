@@ -0,0 +1,172 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Credentials;
+import ch.cyberduck.core.DisabledCancelCallback;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.DisabledHostKeyCallback;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.DisabledPasswordStore;
+import ch.cyberduck.core.DisabledProgressListener;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LoginConnectionService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.UnsupportedException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.DisabledStreamListener;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.test.IntegrationTest;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.UUID;
+
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.blob.BlobType;
+
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class AzureBlockUploadServiceTest {
+
+    @Test
+    public void testBlocksize() throws Exception {
+        assertEquals(4L * 1024L * 1024L, AzureBlockUploadService.blocksize(1000L, 4L * 1024L * 1024L));
+        // Increase block size to stay within maximum number of blocks
+        final long size = AzureBlockUploadService.MAXIMUM_UPLOAD_BLOCKS * 4L * 1024L * 1024L + 1L;
+        final long blocksize = AzureBlockUploadService.blocksize(size, 4L * 1024L * 1024L);
+        assertEquals(4L * 1024L * 1024L + 1L, blocksize);
+        assertTrue((size + blocksize - 1) / blocksize <= AzureBlockUploadService.MAXIMUM_UPLOAD_BLOCKS);
+        // Never exceed maximum block size
+        assertEquals(AzureBlockUploadService.MAXIMUM_BLOCK_SIZE, AzureBlockUploadService.blocksize(1000L, 1024L * 1024L * 1024L));
+        assertEquals(AzureBlockUploadService.MAXIMUM_BLOCK_SIZE, AzureBlockUploadService.blocksize(
+            AzureBlockUploadService.MAXIMUM_UPLOAD_BLOCKS * AzureBlockUploadService.MAXIMUM_BLOCK_SIZE, 4L * 1024L * 1024L));
+    }
+
+    @Test(expected = UnsupportedException.class)
+    public void testBlocksizeExceedsMaximumBlocks() throws Exception {
+        AzureBlockUploadService.blocksize(AzureBlockUploadService.MAXIMUM_UPLOAD_BLOCKS * AzureBlockUploadService.MAXIMUM_BLOCK_SIZE + 1L,
+            4L * 1024L * 1024L);
+    }
+
+    @Test
+    public void testUploadMultipleBlocks() throws Exception {
+        final OperationContext context
+                = new OperationContext();
+        final Host host = new Host(new AzureProtocol(), "kahy9boj3eib.blob.core.windows.net", new Credentials(
+                System.getProperties().getProperty("azure.account"), System.getProperties().getProperty("azure.key")
+        ));
+        final AzureSession session = new AzureSession(host);
+        new LoginConnectionService(new DisabledLoginCallback(), new DisabledHostKeyCallback(),
+                new DisabledPasswordStore(), new DisabledProgressListener()).connect(session, PathCache.empty(), new DisabledCancelCallback());
+        final AzureBlockUploadService service = new AzureBlockUploadService(session, context, new AzureWriteFeature(session, context), 1024L, 4);
+        final Path container = new Path("cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final String name = UUID.randomUUID().toString();
+        final Path test = new Path(container, name, EnumSet.of(Path.Type.file));
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), name);
+        final byte[] content = RandomUtils.nextBytes(5000);
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        final TransferStatus status = new TransferStatus();
+        status.setLength(content.length);
+        service.upload(test, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED),
+                new DisabledStreamListener(), status, new DisabledConnectionCallback());
+        assertTrue(status.isComplete());
+        assertEquals(content.length, status.getOffset());
+        assertEquals(BlobType.BLOCK_BLOB, session.getClient().getContainerReference(container.getName())
+                .getBlobReferenceFromServer(name).getProperties().getBlobType());
+        assertEquals(content.length, new AzureAttributesFinderFeature(session, context).find(test).getSize());
+        assertArrayEquals(content, this.read(session, context, test, content.length));
+        new AzureDeleteFeature(session, context).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+        session.close();
+    }
+
+    @Test
+    public void testUploadResumeUncommittedBlocks() throws Exception {
+        final OperationContext context
+                = new OperationContext();
+        final Host host = new Host(new AzureProtocol(), "kahy9boj3eib.blob.core.windows.net", new Credentials(
+                System.getProperties().getProperty("azure.account"), System.getProperties().getProperty("azure.key")
+        ));
+        final AzureSession session = new AzureSession(host);
+        new LoginConnectionService(new DisabledLoginCallback(), new DisabledHostKeyCallback(),
+                new DisabledPasswordStore(), new DisabledProgressListener()).connect(session, PathCache.empty(), new DisabledCancelCallback());
+        final AzureBlockUploadService service = new AzureBlockUploadService(session, context, new AzureWriteFeature(session, context), 1024L, 1);
+        final Path container = new Path("cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final String name = UUID.randomUUID().toString();
+        final Path test = new Path(container, name, EnumSet.of(Path.Type.file));
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), name);
+        final byte[] content = RandomUtils.nextBytes(3000);
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        final TransferStatus interrupted = new TransferStatus();
+        interrupted.setLength(content.length);
+        try {
+            service.upload(test, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED),
+                    new DisabledStreamListener() {
+                        @Override
+                        public void sent(final long bytes) {
+                            // Cancel while first block is uploaded
+                            interrupted.setCanceled();
+                        }
+                    }, interrupted, new DisabledConnectionCallback());
+            fail();
+        }
+        catch(ConnectionCanceledException e) {
+            // Expected
+        }
+        final Write.Append append = service.append(test, (long) content.length, PathCache.empty());
+        assertTrue(append.append);
+        assertEquals(1024L, append.size, 0L);
+        final TransferStatus status = new TransferStatus();
+        status.setAppend(true);
+        status.setOffset(append.size);
+        status.setLength(content.length - append.size);
+        service.upload(test, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED),
+                new DisabledStreamListener(), status, new DisabledConnectionCallback());
+        assertTrue(status.isComplete());
+        assertEquals(content.length, status.getOffset());
+        assertArrayEquals(content, this.read(session, context, test, content.length));
+        new AzureDeleteFeature(session, context).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+        session.close();
+    }
+
+    private byte[] read(final AzureSession session, final OperationContext context, final Path file, final int length) throws Exception {
+        final InputStream in = new AzureReadFeature(session, context).read(file, new TransferStatus().length(length), new DisabledConnectionCallback());
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(length);
+        IOUtils.copy(in, buffer);
+        in.close();
+        return buffer.toByteArray();
+    }
+}
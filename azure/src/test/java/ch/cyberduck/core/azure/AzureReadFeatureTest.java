@@ -14,23 +14,34 @@ import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.test.IntegrationTest;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.UUID;
 
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.blob.CloudBlob;
+
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @Category(IntegrationTest.class)
 public class AzureReadFeatureTest {
@@ -80,4 +91,80 @@ public class AzureReadFeatureTest {
         new AzureDeleteFeature(session, null).delete(Collections.<Path>singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
         session.close();
     }
+
+    @Test
+    public void testReadRangesConcurrently() throws Exception {
+        final Host host = new Host(new AzureProtocol(), "kahy9boj3eib.blob.core.windows.net", new Credentials(
+                System.getProperties().getProperty("azure.account"), System.getProperties().getProperty("azure.key")
+        ));
+        final AzureSession session = new AzureSession(host);
+        new LoginConnectionService(new DisabledLoginCallback(), new DisabledHostKeyCallback(),
+                new DisabledPasswordStore(), new DisabledProgressListener()).connect(session, PathCache.empty(), new DisabledCancelCallback());
+        final Path container = new Path("cyberduck", EnumSet.of(Path.Type.volume));
+        final Path test = new Path(container, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final OutputStream out = new AzureWriteFeature(session, null).write(test, new TransferStatus().length(content.length), new DisabledConnectionCallback());
+        new StreamCopier(new TransferStatus(), new TransferStatus()).transfer(new ByteArrayInputStream(content), out);
+        final Preferences preferences = PreferencesFactory.get();
+        final long threshold = preferences.getLong("azure.download.range.threshold");
+        final long size = preferences.getLong("azure.download.range.size");
+        preferences.setProperty("azure.download.range.threshold", 1L);
+        preferences.setProperty("azure.download.range.size", 64L);
+        try {
+            final TransferStatus status = new TransferStatus();
+            status.setAppend(true);
+            status.setOffset(100L);
+            status.setLength(content.length - 100L);
+            final InputStream in = new AzureReadFeature(session, null).read(test, status, new DisabledConnectionCallback());
+            assertTrue(in instanceof AzureRangedInputStream);
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length - 100);
+            new StreamCopier(status, status).transfer(in, buffer);
+            final byte[] reference = new byte[content.length - 100];
+            System.arraycopy(content, 100, reference, 0, content.length - 100);
+            assertArrayEquals(reference, buffer.toByteArray());
+            in.close();
+        }
+        finally {
+            preferences.setProperty("azure.download.range.threshold", threshold);
+            preferences.setProperty("azure.download.range.size", size);
+        }
+        new AzureDeleteFeature(session, null).delete(Collections.<Path>singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        session.close();
+    }
+
+    @Test
+    public void testReadRangesModified() throws Exception {
+        final OperationContext context
+                = new OperationContext();
+        final Host host = new Host(new AzureProtocol(), "kahy9boj3eib.blob.core.windows.net", new Credentials(
+                System.getProperties().getProperty("azure.account"), System.getProperties().getProperty("azure.key")
+        ));
+        final AzureSession session = new AzureSession(host);
+        new LoginConnectionService(new DisabledLoginCallback(), new DisabledHostKeyCallback(),
+                new DisabledPasswordStore(), new DisabledProgressListener()).connect(session, PathCache.empty(), new DisabledCancelCallback());
+        final Path container = new Path("cyberduck", EnumSet.of(Path.Type.volume));
+        final Path test = new Path(container, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final byte[] content = RandomUtils.nextBytes(1000);
+        final OutputStream out = new AzureWriteFeature(session, context).write(test, new TransferStatus().length(content.length), new DisabledConnectionCallback());
+        new StreamCopier(new TransferStatus(), new TransferStatus()).transfer(new ByteArrayInputStream(content), out);
+        final CloudBlob blob = session.getClient().getContainerReference(container.getName()).getBlobReferenceFromServer(test.getName());
+        final InputStream in = new AzureRangedInputStream(blob, context, 0L, content.length, 100L, 2);
+        // Read first range with second range requested ahead
+        final byte[] range = new byte[100];
+        assertEquals(100, IOUtils.read(in, range));
+        // Replace blob while reading
+        final byte[] modified = RandomUtils.nextBytes(1000);
+        final OutputStream replace = new AzureWriteFeature(session, context).write(test, new TransferStatus().exists(true).length(modified.length), new DisabledConnectionCallback());
+        new StreamCopier(new TransferStatus(), new TransferStatus()).transfer(new ByteArrayInputStream(modified), replace);
+        try {
+            IOUtils.copy(in, new ByteArrayOutputStream());
+            fail();
+        }
+        catch(IOException e) {
+            // Precondition on ETag failed
+        }
+        in.close();
+        new AzureDeleteFeature(session, context).delete(Collections.<Path>singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        session.close();
+    }
 }
@@ -88,6 +88,7 @@ public class B2DeleteFeature implements Delete {
                     }
                 }
             }
+            fileid.cache(file, null);
         }
         for(Path file : files) {
             try {
@@ -95,6 +96,7 @@ public class B2DeleteFeature implements Delete {
                     callback.delete(file);
                     // Finally delete bucket itself
                     session.getClient().deleteBucket(fileid.getFileid(file, new DisabledListProgressListener()));
+                    fileid.cache(file, null);
                 }
             }
             catch(B2ApiException e) {
@@ -18,6 +18,7 @@ package ch.cyberduck.core.b2;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.FileidCache;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
@@ -42,10 +43,13 @@ public class B2FileidProvider implements IdProvider {
 
     private final B2Session session;
 
+    private final FileidCache index;
+
     private Cache<Path> cache = PathCache.empty();
 
     public B2FileidProvider(final B2Session session) {
         this.session = session;
+        this.index = FileidCache.get(session.getHost());
     }
 
     @Override
@@ -63,11 +67,19 @@ public class B2FileidProvider implements IdProvider {
                 }
             }
         }
+        // Bucket identifiers do not change. Identifier of file from saved index may reference a previous version
+        final String cached = index.get(file, containerService.isContainer(file));
+        if(StringUtils.isNotBlank(cached)) {
+            // Cache in file attributes
+            return this.set(file, cached);
+        }
         if(containerService.isContainer(file)) {
             final AttributedList<Path> list = new B2ListService(session, this).list(file.getParent(), listener);
             cache.put(file.getParent(), list);
+            index.put(list);
             final Path found = list.find(new SimplePathPredicate(file));
             if(null == found) {
+                index.remove(file);
                 throw new NotfoundException(file.getAbsolute());
             }
             // Cache in file attributes
@@ -93,6 +105,7 @@ public class B2FileidProvider implements IdProvider {
                     return this.set(file, info.getFileId());
                 }
             }
+            index.remove(file);
             throw new NotfoundException(file.getAbsolute());
         }
         catch(B2ApiException e) {
@@ -105,9 +118,22 @@ public class B2FileidProvider implements IdProvider {
 
     protected String set(final Path file, final String id) {
         file.attributes().setVersionId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
+    /**
+     * Save index of identifiers for bookmark if enabled
+     */
+    public void save() {
+        index.save();
+    }
+
     @Override
     public B2FileidProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
@@ -94,7 +94,8 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                                  final StreamListener listener,
                                  final TransferStatus status,
                                  final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("largeupload", concurrency);
+        // Share limit for concurrent parts with other files in transfer if available
+        final ThreadPool pool = null == status.getScheduler() ? ThreadPoolFactory.get("largeupload", concurrency) : status.getScheduler().pool(file);
         try {
             final String fileid;
             // Get the results of the uploads in the order they were submitted
@@ -198,6 +199,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
             if(log.isInfoEnabled()) {
                 log.info(String.format("Finished large file upload %s with %d parts", file, completed.size()));
             }
+            this.fileid.cache(file, fileid);
             // Mark parent status as complete
             status.setComplete();
             return response;
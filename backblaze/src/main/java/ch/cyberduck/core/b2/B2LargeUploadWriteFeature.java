@@ -152,6 +152,7 @@ public class B2LargeUploadWriteFeature implements MultipartWrite<VersionId> {
                         log.debug(String.format("Upload finished for %s with response %s", file, response));
                     }
                     version = new VersionId(response.getFileId());
+                    fileid.cache(file, version.id);
                 }
                 else {
                     if(0 == partNumber) {
@@ -226,6 +227,8 @@ public class B2LargeUploadWriteFeature implements MultipartWrite<VersionId> {
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Finished large file upload %s with %d parts", file, completed.size()));
                     }
+                    // Large file identifier is kept when finished
+                    fileid.cache(file, version.id);
                 }
             }
             catch(BackgroundException e) {
@@ -26,8 +26,10 @@ public class B2ListService implements ListService {
 
     private final B2BucketListService buckets;
     private final B2ObjectListService objects;
+    private final B2FileidProvider fileid;
 
     public B2ListService(final B2Session session, final B2FileidProvider fileid) {
+        this.fileid = fileid;
         buckets = new B2BucketListService(session);
         objects = new B2ObjectListService(session, fileid);
     }
@@ -35,13 +37,27 @@ public class B2ListService implements ListService {
     @Override
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
         if(directory.isRoot()) {
-            return buckets.list(directory, listener);
+            final AttributedList<Path> list = buckets.list(directory, listener);
+            for(Path bucket : list) {
+                fileid.cache(bucket, bucket.attributes().getVersionId());
+            }
+            return list;
         }
         else {
             return objects.list(directory, listener);
         }
     }
 
+    @Override
+    public boolean isRecursive(final Path directory) {
+        return !directory.isRoot();
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        return objects.listRecursive(directory, listener);
+    }
+
     @Override
     public ListService withCache(final Cache<Path> cache) {
         buckets.withCache(cache);
@@ -69,6 +69,21 @@ public class B2ObjectListService implements ListService {
 
     @Override
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        return this.list(directory, listener, String.valueOf(Path.DELIMITER));
+    }
+
+    @Override
+    public boolean isRecursive(final Path directory) {
+        return true;
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        // Omit delimiter to list all files with prefix
+        return this.list(directory, listener, null);
+    }
+
+    protected AttributedList<Path> list(final Path directory, final ListProgressListener listener, final String delimiter) throws BackgroundException {
         try {
             final AttributedList<Path> objects = new AttributedList<Path>();
             Marker marker;
@@ -92,8 +107,13 @@ public class B2ObjectListService implements ListService {
                     containerId,
                     marker.nextFilename, marker.nextFileId, chunksize,
                     containerService.isContainer(directory) ? null : String.format("%s%s", containerService.getKey(directory), String.valueOf(Path.DELIMITER)),
-                    String.valueOf(Path.DELIMITER));
-                marker = this.parse(directory, objects, response, revisions);
+                    delimiter);
+                if(null == delimiter) {
+                    marker = this.parse(containerService.getContainer(directory), directory, objects, response, revisions);
+                }
+                else {
+                    marker = this.parse(directory, objects, response, revisions);
+                }
                 if(null == marker.nextFileId) {
                     if(!response.getFiles().isEmpty()) {
                         hasDirectoryPlaceholder = true;
@@ -105,6 +125,15 @@ public class B2ObjectListService implements ListService {
             if(!hasDirectoryPlaceholder && objects.isEmpty()) {
                 throw new NotfoundException(directory.getAbsolute());
             }
+            if(null != delimiter) {
+                for(Path f : objects) {
+                    if(f.attributes().isDuplicate()) {
+                        // Previous version
+                        continue;
+                    }
+                    fileid.cache(f, f.attributes().getVersionId());
+                }
+            }
             return objects;
         }
         catch(B2ApiException e) {
@@ -148,6 +177,42 @@ public class B2ObjectListService implements ListService {
         return new Marker(response.getNextFileName(), response.getNextFileId());
     }
 
+    /**
+     * Parse response of listing without delimiter
+     *
+     * @param container Bucket
+     * @param directory Directory listed
+     */
+    protected Marker parse(final Path container, final Path directory, final AttributedList<Path> objects,
+                           final B2ListFilesResponse response, final Map<String, Long> revisions) {
+        for(B2FileInfoResponse info : response.getFiles()) {
+            final Path file = new Path(String.format("%s%s", container.getAbsolute(), PathNormalizer.normalize(info.getFileName())),
+                info.getAction() == Action.start ? EnumSet.of(Path.Type.file, Path.Type.upload) : EnumSet.of(Path.Type.file));
+            if(StringUtils.equals(file.getName(), B2PathContainerService.PLACEHOLDER)) {
+                if(!file.getParent().equals(directory)) {
+                    // Include directories without any files
+                    objects.add(new Path(file.getParent().getAbsolute(), EnumSet.of(Path.Type.directory, Path.Type.placeholder)));
+                }
+                continue;
+            }
+            final PathAttributes attributes = this.parse(info);
+            final Long revision;
+            if(revisions.keySet().contains(info.getFileName())) {
+                // Later version already found
+                attributes.setDuplicate(true);
+                revision = revisions.get(info.getFileName()) + 1L;
+            }
+            else {
+                revision = 1L;
+            }
+            revisions.put(info.getFileName(), revision);
+            attributes.setRevision(revision);
+            file.setAttributes(attributes);
+            objects.add(file);
+        }
+        return new Marker(response.getNextFileName(), response.getNextFileId());
+    }
+
     /**
      * @param response List filenames response from server
      * @return Null when respone filename is not child of working directory directory
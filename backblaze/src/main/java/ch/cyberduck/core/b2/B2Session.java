@@ -64,6 +64,7 @@ public class B2Session extends HttpSession<B2ApiClient> {
 
     @Override
     public void logout() throws BackgroundException {
+        fileid.save();
         try {
             client.close();
         }
@@ -39,6 +39,7 @@ import ch.cyberduck.core.local.Application;
 import ch.cyberduck.core.local.ApplicationFinder;
 import ch.cyberduck.core.local.ApplicationFinderFactory;
 import ch.cyberduck.core.local.ApplicationQuitCallback;
+import ch.cyberduck.core.local.LocalChecksumIndex;
 import ch.cyberduck.core.local.TemporaryFileServiceFactory;
 import ch.cyberduck.core.manta.MantaProtocol;
 import ch.cyberduck.core.nio.LocalProtocol;
@@ -67,6 +68,7 @@ import ch.cyberduck.core.transfer.TransferOptions;
 import ch.cyberduck.core.transfer.TransferPrompt;
 import ch.cyberduck.core.transfer.TransferSpeedometer;
 import ch.cyberduck.core.vault.VaultRegistryFactory;
+import ch.cyberduck.core.worker.ConcurrentDeleteWorker;
 import ch.cyberduck.core.worker.CreateDirectoryWorker;
 import ch.cyberduck.core.worker.DeleteWorker;
 import ch.cyberduck.core.worker.SessionListWorker;
@@ -133,7 +135,7 @@ public class Terminal {
             log.info(String.format("Parsed options %s from input %s", options, input));
         }
         this.input = input;
-        this.cache = new PathCache(preferences.getInteger("browser.cache.size"));
+        this.cache = new PathCache(preferences.getInteger("browser.cache.size"), preferences.getLong("browser.cache.memory"));
         this.progress = input.hasOption(TerminalOptionsBuilder.Params.quiet.name())
             ? new DisabledListProgressListener() : new TerminalProgressListener();
         this.transcript = input.hasOption(TerminalOptionsBuilder.Params.verbose.name())
@@ -186,6 +188,8 @@ public class Terminal {
         finally {
             // Clear temporary files
             TemporaryFileServiceFactory.get().shutdown();
+            // Close checksum index
+            LocalChecksumIndex.get().shutdown();
         }
     }
 
@@ -398,10 +402,10 @@ public class Terminal {
         }
         final DeleteWorker worker;
         if(StringUtils.containsAny(remote.getName(), '*')) {
-            worker = new DeleteWorker(new TerminalLoginCallback(reader), files, cache, new DownloadGlobFilter(remote.getName()), progress);
+            worker = new ConcurrentDeleteWorker(session, new TerminalLoginCallback(reader), files, cache, new DownloadGlobFilter(remote.getName()), progress);
         }
         else {
-            worker = new DeleteWorker(new TerminalLoginCallback(reader), files, cache, progress);
+            worker = new ConcurrentDeleteWorker(session, new TerminalLoginCallback(reader), files, cache, progress);
         }
         final SessionBackgroundAction<List<Path>> action = new TerminalBackgroundAction<List<Path>>(controller, session, worker);
         if(!this.execute(action)) {
@@ -80,6 +80,9 @@ public class TerminalPreferences extends Preferences {
         this.setDefault("queue.copy.reload.action", TransferAction.comparison.name());
 
         this.setDefault("keychain.secure", String.valueOf(false));
+
+        // Bound cache for long running synchronization
+        this.setDefault("browser.cache.memory", String.valueOf(256L * 1024L * 1024L));
     }
 
     public TerminalPreferences withDefaults(final CommandLine input) {
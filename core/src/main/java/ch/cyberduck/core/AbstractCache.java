@@ -19,38 +19,112 @@ package ch.cyberduck.core;
  */
 
 import ch.cyberduck.core.cache.LRUCache;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.log4j.Logger;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 
 public abstract class AbstractCache<T extends Referenceable> implements Cache<T> {
     private static final Logger log = Logger.getLogger(AbstractCache.class);
 
     private final LRUCache<T, AttributedList<T>> impl;
 
+    /**
+     * Reverse index from reference of cached child to the key of the directory listing it is contained in
+     */
+    private final Map<CacheReference<?>, T> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Number of children of directory listings when last weighed
+     */
+    private final Map<T, Integer> weights = new ConcurrentHashMap<>();
+
     public AbstractCache(int size) {
-        if(size == Integer.MAX_VALUE) {
+        this(size, -1L);
+    }
+
+    /**
+     * @param size   Maximum number of cached directory listings
+     * @param memory Approximate limit in bytes for all cached directory listings weighted by their number of children.
+     *               Applies in addition to the limit on the number of directory listings if set. Listings are
+     *               weighed again when retrieved with a different number of children than when last weighed.
+     */
+    public AbstractCache(final int size, final long memory) {
+        final RemovalListener<T, AttributedList<T>> listener = new RemovalListener<T, AttributedList<T>>() {
+            @Override
+            public void onRemoval(final RemovalNotification<T, AttributedList<T>> notification) {
+                if(notification.getCause() == RemovalCause.REPLACED) {
+                    // Handled in put
+                    return;
+                }
+                if(null != notification.getKey()) {
+                    weights.remove(notification.getKey());
+                }
+                unindex(notification.getKey(), notification.getValue());
+            }
+        };
+        if(memory > 0) {
+            final long entry = PreferencesFactory.get().getLong("cache.memory.entry");
+            impl = LRUCache.build(listener, size == Integer.MAX_VALUE ? -1L : size, (key, children) -> {
+                weights.put(key, children.size());
+                return children.size() + 1;
+            }, Math.max(1L, memory / entry));
+        }
+        else if(size == Integer.MAX_VALUE) {
             // Unlimited
-            impl = LRUCache.build();
+            impl = LRUCache.build(listener, -1L);
         }
         else {
             // Will inflate to the given size
-            impl = LRUCache.build(size);
+            impl = LRUCache.build(listener, size);
         }
     }
 
+    /**
+     * Lookup the directory listing containing the reference in the reverse index instead of searching all cached
+     * directory listings. The index is updated when directory listings are put, removed or evicted. Children added to
+     * or with their reference changed in a cached directory listing are found after the listing is put again.
+     *
+     * @param reference Key for item in cached list
+     * @return Null if not found
+     */
     @Override
     public T lookup(final CacheReference<T> reference) {
-        for(AttributedList<T> entry : impl.asMap().values()) {
-            final T f = entry.find(reference);
-            if(null == f) {
-                continue;
+        final T owner = owners.get(reference);
+        if(null == owner) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Lookup failed for %s in cache", reference));
             }
-            return f;
+            return null;
+        }
+        final AttributedList<T> entry = impl.peek(owner);
+        if(null == entry) {
+            return null;
+        }
+        return entry.find(reference);
+    }
+
+    private void index(final T key, final AttributedList<T> children) {
+        for(T child : children) {
+            owners.put(this.reference(child), key);
+        }
+    }
+
+    private void unindex(final T key, final AttributedList<T> children) {
+        if(null == key || null == children) {
+            return;
+        }
+        for(T child : children) {
+            // Only remove if not meanwhile indexed for another directory listing
+            owners.remove(this.reference(child), key);
         }
-        log.warn(String.format("Lookup failed for %s in cache", reference));
-        return null;
     }
 
     @Override
@@ -83,7 +157,7 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
      * @return The previously cached directory listing
      */
     public AttributedList<T> remove(final T reference) {
-        final AttributedList<T> removed = impl.get(reference);
+        final AttributedList<T> removed = impl.peek(reference);
         impl.remove(reference);
         if(null == removed) {
             // Not previously in cache
@@ -109,6 +183,14 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
             }
             return AttributedList.emptyList();
         }
+        final Integer weighed = weights.get(reference);
+        if(null != weighed && weighed != children.size()) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Weigh %s again with %d children", reference, children.size()));
+            }
+            // Listing changed after added to cache. Replace to update weight and evict if exceeding limit.
+            impl.put(reference, children);
+        }
         return children;
     }
 
@@ -121,8 +203,12 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
         if(log.isDebugEnabled()) {
             log.debug(String.format("Caching %s", reference));
         }
-        final AttributedList<T> replaced = impl.get(reference);
+        final AttributedList<T> replaced = impl.peek(reference);
         impl.put(reference, children);
+        if(null != reference && null != children) {
+            this.unindex(reference, replaced);
+            this.index(reference, children);
+        }
         if(null == replaced) {
             // Not previously in cache
             return AttributedList.emptyList();
@@ -145,6 +231,8 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
     }
 
     /**
+     * Invalidated directory listings remain cached and indexed for lookup until replaced or removed.
+     *
      * @param reference Path reference
      */
     public void invalidate(final T reference) {
@@ -169,12 +257,22 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
             log.info(String.format("Clear cache %s", this));
         }
         impl.clear();
+        owners.clear();
+        weights.clear();
+    }
+
+    /**
+     * @return Hit, miss and eviction counts for directory listings
+     */
+    public CacheStats stats() {
+        return impl.stats();
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("Cache{");
         sb.append("size=").append(impl.size());
+        sb.append(", stats=").append(impl.stats());
         sb.append('}');
         return sb.toString();
     }
@@ -18,15 +18,17 @@ package ch.cyberduck.core;
  *  dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.collections.IndexedCopyOnWriteList;
+
 import org.apache.log4j.Logger;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 
 /**
@@ -52,8 +54,11 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         }
     };
 
-    private final List<E> impl
-        = new CopyOnWriteArrayList<>();
+    /**
+     * Snapshot iteration with hash index on the key of elements
+     */
+    private final IndexedCopyOnWriteList<E> impl
+        = new IndexedCopyOnWriteList<>(AttributedList::key);
 
     /**
      * Metadata of file listing
@@ -72,9 +77,18 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
      * @param collection Default content
      */
     public AttributedList(final Iterable<E> collection) {
-        for(E e : collection) {
-            this.add(e);
+        this.addAll(collection);
+    }
+
+    /**
+     * @param e Element to lookup
+     * @return Key in lookup index. Paths are indexed by their absolute path not changing with attributes.
+     */
+    private static Object key(final Object e) {
+        if(e instanceof Path) {
+            return ((Path) e).getAbsolute();
         }
+        return e;
     }
 
     @SuppressWarnings("unchecked")
@@ -100,8 +114,15 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public boolean addAll(final Iterable<? extends E> c) {
-        for(E file : c) {
-            this.add(file);
+        if(c instanceof Collection) {
+            impl.addAll((Collection<? extends E>) c);
+        }
+        else {
+            final List<E> append = new ArrayList<>();
+            for(E file : c) {
+                append.add(file);
+            }
+            impl.addAll(append);
         }
         return true;
     }
@@ -111,11 +132,7 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public E get(final E reference) {
-        final int index = impl.indexOf(reference);
-        if(-1 == index) {
-            return null;
-        }
-        return impl.get(index);
+        return impl.lookup(AttributedList.key(reference), reference::equals);
     }
 
     public void set(final int i, final E e) {
@@ -128,13 +145,8 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     /**
-     * The CopyOnWriteArrayList iterator does not support remove but the sort implementation
-     * makes use of it. Provide our own implementation here to circumvent.
-     *
      * @param copy       The list copy to sort
      * @param comparator The comparator to use
-     * @see java.util.Collections#sort(java.util.List, java.util.Comparator)
-     * @see java.util.concurrent.CopyOnWriteArrayList#iterator()
      */
     private void doSort(final List<E> copy, final Comparator<E> comparator) {
         if(null == comparator) {
@@ -143,7 +155,7 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Sort list %s with comparator %s", this, comparator));
         }
-        Collections.sort(copy, comparator);
+        copy.sort(comparator);
     }
 
     /**
@@ -201,14 +213,19 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         return impl.contains(e);
     }
 
+    @SuppressWarnings("unchecked")
     public E find(final Predicate<E> predicate) {
+        if(predicate instanceof DefaultPathPredicate) {
+            // Lookup candidates with same path in index
+            return impl.lookup(((DefaultPathPredicate) predicate).getAbsolute(), e -> predicate.test((E) e));
+        }
         final Optional<E> optional = impl.stream().filter(predicate).findFirst();
         return optional.orElse(null);
     }
 
     @SuppressWarnings("unchecked")
     public E[] toArray() {
-        return (E[]) impl.toArray(new Referenceable[impl.size()]);
+        return (E[]) impl.toArray(new Referenceable[0]);
     }
 
     public List<E> toList() {
@@ -26,6 +26,7 @@ import org.apache.commons.lang3.StringUtils;
 public class DefaultPathPredicate implements CacheReference<Path> {
 
     private final String reference;
+    private final String path;
 
     public DefaultPathPredicate(final Path file) {
         final Path.Type type = file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
@@ -40,10 +41,17 @@ public class DefaultPathPredicate implements CacheReference<Path> {
                 qualifier += file.attributes().getVersionId();
             }
         }
-        final String path = file.getAbsolute();
+        path = file.getAbsolute();
         reference = "[" + type + "]" + "-" + qualifier + path;
     }
 
+    /**
+     * @return Absolute path of file
+     */
+    public String getAbsolute() {
+        return path;
+    }
+
     /**
      * Obtain a string representation of the path that is unique for versioned files.
      *
@@ -0,0 +1,275 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.cache.LRUCache;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded index of file identifiers by path for protocols addressing files by identifier. Shared by all sessions
+ * of a bookmark and filled from listings, writes and moves such that resolving the identifier of a path seen before
+ * does not require listing its parent directory. Optionally saved in the application support directory to be
+ * reused for the bookmark after reconnecting. Identifiers read from the saved index are not confirmed until found
+ * again in this session and may no longer be current.
+ */
+public class FileidCache {
+    private static final Logger log = Logger.getLogger(FileidCache.class);
+
+    private static final Map<String, FileidCache> bookmarks = new HashMap<>();
+
+    /**
+     * @param bookmark Bookmark
+     * @return Index shared by all sessions for bookmark
+     */
+    public static synchronized FileidCache get(final Host bookmark) {
+        return bookmarks.computeIfAbsent(bookmark.getUuid(), uuid -> {
+            final Preferences preferences = PreferencesFactory.get();
+            if(preferences.getBoolean("fileid.cache.persist")) {
+                return new FileidCache(LocalFactory.get(LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Fileids"),
+                    String.format("%s.index", uuid)), preferences.getLong("fileid.cache.size"));
+            }
+            return new FileidCache(null, preferences.getLong("fileid.cache.size"));
+        });
+    }
+
+    /**
+     * Saved index or null if not persisted
+     */
+    private final Local file;
+
+    private final LRUCache<Key, Entry> index;
+
+    private boolean loaded;
+
+    public FileidCache(final Local file, final long size) {
+        this.file = file;
+        this.index = LRUCache.build(size);
+    }
+
+    /**
+     * @param file Remote file
+     * @return Identifier or null if not found in index
+     */
+    public synchronized String get(final Path file) {
+        return this.get(file, true);
+    }
+
+    /**
+     * @param file  Remote file
+     * @param saved Include identifiers read from saved index not confirmed in this session
+     * @return Identifier or null if not found in index
+     */
+    public synchronized String get(final Path file, final boolean saved) {
+        this.load();
+        final Entry entry = index.get(new Key(file));
+        if(null == entry) {
+            return null;
+        }
+        if(entry.saved && !saved) {
+            return null;
+        }
+        return entry.id;
+    }
+
+    /**
+     * @param file Remote file
+     * @param id   Identifier or null to invalidate
+     */
+    public synchronized void put(final Path file, final String id) {
+        if(StringUtils.isBlank(id)) {
+            this.remove(file);
+            return;
+        }
+        this.load();
+        index.put(new Key(file), new Entry(id, false));
+    }
+
+    /**
+     * Add identifiers of all current files in directory listing
+     *
+     * @param list Directory listing
+     */
+    public synchronized void put(final AttributedList<Path> list) {
+        this.load();
+        for(Path file : list) {
+            if(file.attributes().isDuplicate()) {
+                // Skip previous versions and trashed files
+                continue;
+            }
+            if(StringUtils.isNotBlank(file.attributes().getVersionId())) {
+                index.put(new Key(file), new Entry(file.attributes().getVersionId(), false));
+            }
+        }
+    }
+
+    /**
+     * Invalidate identifier of file and of all files contained if a directory
+     *
+     * @param file Remote file deleted or renamed
+     */
+    public synchronized void remove(final Path file) {
+        this.load();
+        index.remove(new Key(file));
+        if(file.isDirectory()) {
+            final String prefix = file.isRoot() ? file.getAbsolute() : String.format("%s%s", file.getAbsolute(), Path.DELIMITER);
+            for(Key key : index.asMap().keySet()) {
+                if(StringUtils.startsWith(key.path, prefix)) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        index.clear();
+    }
+
+    public synchronized long size() {
+        this.load();
+        return index.size();
+    }
+
+    /**
+     * Save index if enabled
+     */
+    public synchronized void save() {
+        if(null == file) {
+            return;
+        }
+        if(!loaded) {
+            // No changes
+            return;
+        }
+        try {
+            new DefaultLocalDirectoryFeature().mkdir(file.getParent());
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(file.getOutputStream(false), StandardCharsets.UTF_8))) {
+                for(Map.Entry<Key, Entry> entry : index.asMap().entrySet()) {
+                    if(StringUtils.containsAny(entry.getKey().path, '\t', '\n', '\r')) {
+                        continue;
+                    }
+                    out.write(String.format("%s\t%s\t%s\n", entry.getKey().type.name(), entry.getValue().id, entry.getKey().path));
+                }
+            }
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Saved %d file identifiers to %s", index.size(), file.getAbsolute()));
+            }
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure saving file identifiers to %s. %s", file.getAbsolute(), e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure saving file identifiers to %s. %s", file.getAbsolute(), e.getMessage()));
+        }
+    }
+
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        loaded = true;
+        if(null == file || !file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                final String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+                if(fields.length != 3) {
+                    log.warn(String.format("Skip invalid line %s in file identifier index", line));
+                    continue;
+                }
+                try {
+                    index.put(new Key(Path.Type.valueOf(fields[0]), fields[2]), new Entry(fields[1], true));
+                }
+                catch(IllegalArgumentException e) {
+                    log.warn(String.format("Skip invalid line %s in file identifier index", line));
+                }
+            }
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure reading file identifiers from %s. %s", file.getAbsolute(), e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading file identifiers from %s. %s", file.getAbsolute(), e.getMessage()));
+        }
+    }
+
+    private static final class Entry {
+        private final String id;
+        /**
+         * Read from saved index
+         */
+        private final boolean saved;
+
+        private Entry(final String id, final boolean saved) {
+            this.id = id;
+            this.saved = saved;
+        }
+    }
+
+    /**
+     * Path and type as the same name can be used for a file and a directory
+     */
+    private static final class Key {
+        private final Path.Type type;
+        private final String path;
+
+        private Key(final Path file) {
+            this(file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory,
+                file.getAbsolute());
+        }
+
+        private Key(final Path.Type type, final String path) {
+            this.type = type;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return type == key.type && Objects.equals(path, key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, path);
+        }
+    }
+}
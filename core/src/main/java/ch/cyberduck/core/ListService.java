@@ -18,9 +18,31 @@ package ch.cyberduck.core;
  */
 
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.UnsupportedException;
 
 public interface ListService {
     AttributedList<Path> list(Path directory, ListProgressListener listener) throws BackgroundException;
 
+    /**
+     * @param directory Directory
+     * @return True if all descendants of directory can be listed with a single enumeration
+     */
+    default boolean isRecursive(final Path directory) {
+        return false;
+    }
+
+    /**
+     * List all descendants of directory with a single enumeration not using a delimiter
+     *
+     * @param directory Directory
+     * @param listener  Notified with descendants found so far
+     * @return Files and directories at any depth below directory. Intermediate directories are only included
+     * when a placeholder exists.
+     * @throws UnsupportedException When descendants must be listed per directory
+     */
+    default AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        throw new UnsupportedException();
+    }
+
     ListService withCache(Cache<Path> cache);
 }
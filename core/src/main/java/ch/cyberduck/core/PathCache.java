@@ -34,6 +34,14 @@ public class PathCache extends AbstractCache<Path> {
         super(size);
     }
 
+    /**
+     * @param size   Maximum number of cached directory listings
+     * @param memory Approximate limit in bytes for cached directory listings or -1 for limit on number only
+     */
+    public PathCache(final int size, final long memory) {
+        super(size, memory);
+    }
+
     @Override
     public CacheReference<?> reference(final Path file) {
         return new DefaultPathPredicate(file);
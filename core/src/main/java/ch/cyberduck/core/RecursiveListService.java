@@ -0,0 +1,165 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.UnsupportedException;
+
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lists all descendants of a directory with a single enumeration where supported and saves the listing of every
+ * directory found in the cache. Listings of subdirectories are then answered from the cache without further requests.
+ * Subdirectories evicted from the cache after a recursive listing are listed per directory instead of enumerating
+ * the whole subtree again.
+ */
+public class RecursiveListService implements ListService {
+    private static final Logger log = Logger.getLogger(RecursiveListService.class);
+
+    private final ListService proxy;
+    private final Cache<Path> cache;
+
+    /**
+     * Directories already listed recursively
+     */
+    private final Set<Path> listed;
+
+    /**
+     * @param proxy List service
+     * @param cache Cache to save listing of all subdirectories
+     */
+    public RecursiveListService(final ListService proxy, final Cache<Path> cache) {
+        this(proxy, cache, Collections.synchronizedSet(new HashSet<>()));
+    }
+
+    /**
+     * @param proxy  List service
+     * @param cache  Cache to save listing of all subdirectories
+     * @param listed Directories already listed recursively shared with previous instances for other sessions
+     */
+    public RecursiveListService(final ListService proxy, final Cache<Path> cache, final Set<Path> listed) {
+        this.proxy = proxy;
+        this.cache = cache;
+        this.listed = listed;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        if(cache.isCached(directory)) {
+            return cache.get(directory);
+        }
+        if(this.isListed(directory)) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("List %s evicted from cache after recursive listing", directory));
+            }
+            return proxy.list(directory, listener);
+        }
+        if(proxy.isRecursive(directory)) {
+            try {
+                final Map<Path, AttributedList<Path>> tree = this.toTree(directory, proxy.listRecursive(directory, listener));
+                listed.add(directory);
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Cache %d directories found in recursive listing of %s", tree.size(), directory));
+                }
+                for(Map.Entry<Path, AttributedList<Path>> entry : tree.entrySet()) {
+                    cache.put(entry.getKey(), entry.getValue());
+                }
+                return tree.get(directory);
+            }
+            catch(UnsupportedException e) {
+                log.warn(String.format("Failure listing %s recursively. %s", directory, e.getDetail()));
+            }
+        }
+        return proxy.list(directory, listener);
+    }
+
+    /**
+     * @return True if directory or any of its parents has been listed recursively before
+     */
+    private boolean isListed(final Path directory) {
+        for(Path parent = directory; ; parent = parent.getParent()) {
+            if(listed.contains(parent)) {
+                return true;
+            }
+            if(parent.isRoot()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param directory Directory listed
+     * @param files     Descendants at any depth
+     * @return Children for directory and all subdirectories
+     */
+    protected Map<Path, AttributedList<Path>> toTree(final Path directory, final AttributedList<Path> files) {
+        final Map<Path, AttributedList<Path>> tree = new HashMap<>();
+        tree.put(directory, new AttributedList<>());
+        for(Path file : files) {
+            if(!file.isChild(directory)) {
+                log.warn(String.format("Skip %s not in %s", file, directory));
+                continue;
+            }
+            this.add(tree, file);
+        }
+        return tree;
+    }
+
+    private void add(final Map<Path, AttributedList<Path>> tree, final Path file) {
+        final Path parent = file.getParent();
+        if(!tree.containsKey(parent)) {
+            // Intermediate directory without placeholder
+            final PathAttributes attributes = new PathAttributes();
+            attributes.setRegion(file.attributes().getRegion());
+            this.add(tree, new Path(parent.getAbsolute(), EnumSet.of(Path.Type.directory, Path.Type.placeholder), attributes));
+        }
+        if(file.isDirectory()) {
+            if(!tree.containsKey(file)) {
+                tree.put(file, new AttributedList<>());
+            }
+        }
+        final AttributedList<Path> children = tree.get(parent);
+        final int index = children.indexOf(file);
+        if(-1 == index) {
+            children.add(file);
+        }
+        else {
+            // Replace intermediate directory with placeholder found
+            children.set(index, file);
+        }
+    }
+
+    @Override
+    public ListService withCache(final Cache<Path> cache) {
+        proxy.withCache(cache);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("RecursiveListService{");
+        sb.append("proxy=").append(proxy);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -17,7 +17,11 @@ package ch.cyberduck.core.cache;
 
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -25,9 +29,12 @@ import java.util.function.Function;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
 public class LRUCache<Key, Value> {
@@ -43,7 +50,7 @@ public class LRUCache<Key, Value> {
 
     public static <Key, Value> LRUCache<Key, Value> usingLoader(final Function<Key, Value> loader, final RemovalListener<Key, Value> listener,
                                                                 final long maximumSize, final long expireDuration) {
-        return new LRUCache<>(loader, listener, maximumSize, expireDuration);
+        return new LRUCache<>(loader, listener, maximumSize, null, -1L, expireDuration);
     }
 
     public static <Key, Value> LRUCache<Key, Value> build() {
@@ -55,12 +62,51 @@ public class LRUCache<Key, Value> {
     }
 
     public static <Key, Value> LRUCache<Key, Value> build(final long maximumSize, final long expireDuration) {
-        return new LRUCache<>(null, new NullListener<>(), maximumSize, expireDuration);
+        return new LRUCache<>(null, new NullListener<>(), maximumSize, null, -1L, expireDuration);
+    }
+
+    public static <Key, Value> LRUCache<Key, Value> build(final RemovalListener<Key, Value> listener, final long maximumSize) {
+        return new LRUCache<>(null, listener, maximumSize, null, -1L, -1L);
+    }
+
+    /**
+     * Evict least recently used entries when the sum of weights exceeds the limit
+     *
+     * @param weigher       Weight of entry computed when added or replaced
+     * @param maximumWeight Maximum total weight of all entries. An entry weighing more than the limit is
+     *                      evicted immediately.
+     */
+    public static <Key, Value> LRUCache<Key, Value> build(final RemovalListener<Key, Value> listener,
+                                                          final Weigher<Key, Value> weigher, final long maximumWeight) {
+        return build(listener, -1L, weigher, maximumWeight);
+    }
+
+    /**
+     * Evict least recently used entries when the number of entries or the sum of weights exceeds its limit
+     *
+     * @param maximumSize   Maximum number of entries or -1 for no limit
+     * @param weigher       Weight of entry computed when added or replaced
+     * @param maximumWeight Maximum total weight of all entries
+     */
+    public static <Key, Value> LRUCache<Key, Value> build(final RemovalListener<Key, Value> listener, final long maximumSize,
+                                                          final Weigher<Key, Value> weigher, final long maximumWeight) {
+        return new LRUCache<>(null, listener, maximumSize, weigher, maximumWeight, -1L);
     }
 
     private final Cache<Key, Value> delegate;
 
-    private LRUCache(final Function<Key, Value> loader, final RemovalListener<Key, Value> listener, final long maximumSize, final long expireDuration) {
+    /**
+     * Keys in access order to enforce limit on number of entries in addition to weight. Null if not both limits are set.
+     */
+    private final Map<Key, Boolean> order;
+    private final long maximumSize;
+
+    private LRUCache(final Function<Key, Value> loader, final RemovalListener<Key, Value> listener, final long maximumSize,
+                     final Weigher<Key, Value> weigher, final long maximumWeight, final long expireDuration) {
+        final boolean weighted = weigher != null && maximumWeight > 0;
+        this.maximumSize = maximumSize;
+        // Maximum size and weight cannot both be set on builder
+        this.order = weighted && maximumSize > 0 ? new LinkedHashMap<>(16, 0.75f, true) : null;
         final CacheBuilder<Key, Value> builder = CacheBuilder.newBuilder()
             .removalListener(new RemovalListener<Key, Value>() {
                 @Override
@@ -68,10 +114,21 @@ public class LRUCache<Key, Value> {
                     if(log.isDebugEnabled()) {
                         log.debug(String.format("Removed %s from cache with cause %s", notification.getKey(), notification.getCause()));
                     }
+                    if(null != order && notification.getCause() != RemovalCause.REPLACED) {
+                        synchronized(order) {
+                            order.remove(notification.getKey());
+                        }
+                    }
                     listener.onRemoval(notification);
                 }
             });
-        if(maximumSize > 0) {
+        // Hit, miss and eviction counts
+        builder.recordStats();
+        if(weighted) {
+            // Single segment to allow a single entry to use the total weight
+            builder.concurrencyLevel(1).weigher(weigher).maximumWeight(maximumWeight);
+        }
+        else if(maximumSize > 0) {
             builder.maximumSize(maximumSize);
         }
         if(expireDuration > 0) {
@@ -95,7 +152,18 @@ public class LRUCache<Key, Value> {
         if(delegate instanceof LoadingCache) {
             return ((LoadingCache<Key, Value>) delegate).getUnchecked(key);
         }
-        return delegate.getIfPresent(key);
+        final Value value = delegate.getIfPresent(key);
+        if(null != value) {
+            this.touch(key);
+        }
+        return value;
+    }
+
+    /**
+     * @return Cached value without recording a hit or miss in statistics
+     */
+    public Value peek(final Key key) {
+        return delegate.asMap().get(key);
     }
 
     public Map<Key, Value> asMap() {
@@ -108,6 +176,36 @@ public class LRUCache<Key, Value> {
             return;
         }
         delegate.put(key, value);
+        if(null != order) {
+            final List<Key> evict = new ArrayList<>();
+            synchronized(order) {
+                if(delegate.asMap().containsKey(key)) {
+                    // Not evicted by weight
+                    order.put(key, Boolean.TRUE);
+                }
+                final Iterator<Key> iterator = order.keySet().iterator();
+                while(order.size() > maximumSize && iterator.hasNext()) {
+                    // Least recently used first
+                    evict.add(iterator.next());
+                    iterator.remove();
+                }
+            }
+            for(Key k : evict) {
+                delegate.invalidate(k);
+            }
+        }
+    }
+
+    /**
+     * Mark entry as recently used for limit on number of entries
+     */
+    private void touch(final Key key) {
+        if(null != order) {
+            synchronized(order) {
+                // Access moves key to end of iteration order
+                order.get(key);
+            }
+        }
     }
 
     public void remove(final Key key) {
@@ -130,6 +228,13 @@ public class LRUCache<Key, Value> {
         delegate.invalidateAll();
     }
 
+    /**
+     * @return Cumulative hit, miss, load and eviction counts since creation. Only recorded with debug logging enabled.
+     */
+    public CacheStats stats() {
+        return delegate.stats();
+    }
+
     private static class NullListener<Key, Value> implements RemovalListener<Key, Value> {
 
         @Override
@@ -0,0 +1,467 @@
+package ch.cyberduck.core.collections;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe list with snapshot iterators like {@link java.util.concurrent.CopyOnWriteArrayList}. Appending
+ * elements is amortized constant time by writing to spare capacity of the backing array not visible to previous
+ * snapshots. All other modifications copy the array. Lookups use a hash index on an immutable key of elements
+ * that is built lazily on first use.
+ * <p>
+ * Elements with the same key are candidates verified with equals or a predicate. Elements must not change
+ * their key while contained in the list but may change their equality such as for paths with attributes
+ * updated. A key not found in the index is not contained in the list.
+ *
+ * @param <E> Element type
+ */
+public class IndexedCopyOnWriteList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    /**
+     * Guards modifications and extending the index
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Key for null elements in index
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * Maps an element to the key in the index
+     */
+    private final Function<Object, Object> key;
+
+    private volatile Snapshot snapshot = new Snapshot(new Generation(EMPTY, new Index()), 0);
+
+    public IndexedCopyOnWriteList() {
+        this(Function.identity());
+    }
+
+    /**
+     * @param key Key for element in lookup index. Must not change while the element is contained and be equal
+     *            for equal elements.
+     */
+    public IndexedCopyOnWriteList(final Function<Object, Object> key) {
+        this.key = key;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        final Snapshot s = snapshot;
+        if(index < 0 || index >= s.size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, s.size));
+        }
+        return (E) s.generation.elements[index];
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public boolean add(final E e) {
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            final Generation generation = this.reserve(s, 1);
+            generation.elements[s.size] = e;
+            snapshot = new Snapshot(generation, s.size + 1);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends E> c) {
+        final Object[] append = c.toArray();
+        if(append.length == 0) {
+            return false;
+        }
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            final Generation generation = this.reserve(s, append.length);
+            System.arraycopy(append, 0, generation.elements, s.size, append.length);
+            snapshot = new Snapshot(generation, s.size + append.length);
+            return true;
+        }
+    }
+
+    /**
+     * @return Generation with spare capacity for the number of elements to append after the current size
+     */
+    private Generation reserve(final Snapshot s, final int count) {
+        final int required = s.size + count;
+        if(required <= s.generation.elements.length) {
+            return s.generation;
+        }
+        final int capacity = Math.max(required, s.generation.elements.length + (s.generation.elements.length >> 1) + 10);
+        // Positions of existing elements are retained and the index can be shared
+        return new Generation(Arrays.copyOf(s.generation.elements, capacity), s.generation.index);
+    }
+
+    @Override
+    public void add(final int index, final E e) {
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            if(index < 0 || index > s.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, s.size));
+            }
+            final Object[] elements = new Object[s.size + 1];
+            System.arraycopy(s.generation.elements, 0, elements, 0, index);
+            elements[index] = e;
+            System.arraycopy(s.generation.elements, index, elements, index + 1, s.size - index);
+            this.publish(elements);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(final int index, final E e) {
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            if(index < 0 || index >= s.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, s.size));
+            }
+            final Object[] elements = Arrays.copyOf(s.generation.elements, s.size);
+            final E previous = (E) elements[index];
+            elements[index] = e;
+            this.publish(elements);
+            return previous;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(final int index) {
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            if(index < 0 || index >= s.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, s.size));
+            }
+            final E previous = (E) s.generation.elements[index];
+            final Object[] elements = new Object[s.size - 1];
+            System.arraycopy(s.generation.elements, 0, elements, 0, index);
+            System.arraycopy(s.generation.elements, index + 1, elements, index, s.size - index - 1);
+            this.publish(elements);
+            return previous;
+        }
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        synchronized(lock) {
+            final int index = this.indexOf(o);
+            if(-1 == index) {
+                return false;
+            }
+            this.remove(index);
+            return true;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(final Predicate<? super E> filter) {
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            final Object[] retained = new Object[s.size];
+            int count = 0;
+            for(int i = 0; i < s.size; i++) {
+                final E e = (E) s.generation.elements[i];
+                if(!filter.test(e)) {
+                    retained[count++] = e;
+                }
+            }
+            if(count == s.size) {
+                return false;
+            }
+            this.publish(Arrays.copyOf(retained, count));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return this.removeIf(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        return this.removeIf(e -> !c.contains(e));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void sort(final Comparator<? super E> c) {
+        synchronized(lock) {
+            final Snapshot s = snapshot;
+            final Object[] elements = Arrays.copyOf(s.generation.elements, s.size);
+            Arrays.sort(elements, (Comparator<Object>) c);
+            this.publish(elements);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized(lock) {
+            this.publish(EMPTY);
+        }
+    }
+
+    /**
+     * Replace content with new generation of elements
+     */
+    private void publish(final Object[] elements) {
+        snapshot = new Snapshot(new Generation(elements, new Index()), elements.length);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return this.indexOf(o) != -1;
+    }
+
+    @Override
+    public int indexOf(final Object o) {
+        return this.indexOf(key.apply(o), e -> Objects.equals(o, e));
+    }
+
+    /**
+     * @param key       Key of element as returned by key function
+     * @param predicate Match for candidates with key
+     * @return Index of first element with given key matching predicate or -1 if not found
+     */
+    private int indexOf(final Object key, final Predicate<Object> predicate) {
+        final Snapshot s = snapshot;
+        final int[] candidates = this.index(s).map.get(null == key ? NULL : key);
+        if(null == candidates) {
+            return -1;
+        }
+        for(int i : candidates) {
+            if(i >= s.size) {
+                // Appended after snapshot
+                break;
+            }
+            if(predicate.test(s.generation.elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key       Key of element as returned by key function
+     * @param predicate Match for candidates with key
+     * @return First element with given key matching predicate or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public E lookup(final Object key, final Predicate<Object> predicate) {
+        final Snapshot s = snapshot;
+        final int[] candidates = this.index(s).map.get(null == key ? NULL : key);
+        if(null == candidates) {
+            return null;
+        }
+        for(int i : candidates) {
+            if(i >= s.size) {
+                // Appended after snapshot
+                break;
+            }
+            if(predicate.test(s.generation.elements[i])) {
+                return (E) s.generation.elements[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Index for the generation covering at least all elements in snapshot
+     */
+    private Index index(final Snapshot s) {
+        final Index index = s.generation.index;
+        if(index.count < s.size) {
+            synchronized(lock) {
+                for(int i = index.count; i < s.size; i++) {
+                    final Object k = key.apply(s.generation.elements[i]);
+                    // Positions in ascending order
+                    index.map.merge(null == k ? NULL : k, new int[]{i}, (previous, append) -> {
+                        final int[] positions = Arrays.copyOf(previous, previous.length + 1);
+                        positions[previous.length] = append[0];
+                        return positions;
+                    });
+                }
+                index.count = Math.max(index.count, s.size);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public Object[] toArray() {
+        final Snapshot s = snapshot;
+        return Arrays.copyOf(s.generation.elements, s.size);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(final T[] a) {
+        final Snapshot s = snapshot;
+        if(a.length < s.size) {
+            return (T[]) Arrays.copyOf(s.generation.elements, s.size, a.getClass());
+        }
+        System.arraycopy(s.generation.elements, 0, a, 0, s.size);
+        if(a.length > s.size) {
+            a[s.size] = null;
+        }
+        return a;
+    }
+
+    /**
+     * @return Iterator over snapshot of list not reflecting subsequent modifications
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator<>(snapshot, 0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return new SnapshotIterator<>(snapshot, 0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(final int index) {
+        final Snapshot s = snapshot;
+        if(index < 0 || index > s.size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, s.size));
+        }
+        return new SnapshotIterator<>(s, index);
+    }
+
+    /**
+     * Immutable view on the first elements of a generation
+     */
+    private static final class Snapshot {
+        private final Generation generation;
+        private final int size;
+
+        private Snapshot(final Generation generation, final int size) {
+            this.generation = generation;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Backing array where positions below the size of any snapshot are never written again
+     */
+    private static final class Generation {
+        private final Object[] elements;
+        private final Index index;
+
+        private Generation(final Object[] elements, final Index index) {
+            this.elements = elements;
+            this.index = index;
+        }
+    }
+
+    private static final class Index {
+        /**
+         * Positions of elements by key
+         */
+        private final Map<Object, int[]> map = new ConcurrentHashMap<>();
+        /**
+         * Number of leading elements added to map
+         */
+        private volatile int count;
+    }
+
+    private static final class SnapshotIterator<E> implements ListIterator<E> {
+        private final Snapshot snapshot;
+        private int cursor;
+
+        private SnapshotIterator(final Snapshot snapshot, final int cursor) {
+            this.snapshot = snapshot;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < snapshot.size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if(!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (E) snapshot.generation.elements[cursor++];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            if(!this.hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            return (E) snapshot.generation.elements[--cursor];
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(final E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(final E e) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
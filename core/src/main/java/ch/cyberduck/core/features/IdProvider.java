@@ -23,5 +23,15 @@ import ch.cyberduck.core.exception.BackgroundException;
 public interface IdProvider {
     String getFileid(Path file, ListProgressListener listener) throws BackgroundException;
 
+    /**
+     * Save identifier of file after it has been created, found in a listing or moved
+     *
+     * @param file Remote file
+     * @param id   Identifier or null to invalidate after file has been deleted or moved
+     */
+    default void cache(Path file, String id) {
+        //
+    }
+
     IdProvider withCache(Cache<Path> cache);
 }
@@ -54,6 +54,14 @@ public interface Write<Reply> {
      */
     boolean random();
 
+    /**
+     * @return True if segments of the same file can be written concurrently with multiple connections
+     * at arbitrary offsets without truncating the file
+     */
+    default boolean concurrent() {
+        return false;
+    }
+
     default ChecksumCompute checksum(Path file) {
         return new DisabledChecksumCompute();
     }
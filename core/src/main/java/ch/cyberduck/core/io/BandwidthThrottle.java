@@ -2,6 +2,10 @@ package ch.cyberduck.core.io;
 
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * Limits throughput of a stream to at most N bytes per T seconds.  Mutable and
  * thread-safe.<p>
@@ -19,16 +23,16 @@ import org.apache.log4j.Logger;
  *      }
  * </pre>
  * <p/>
- * This class works by allowing exactly N bytes to be sent every T seconds.  If
- * the number of bytes for a given window have been exceeded, subsequent calls
- * to request(..) will block.  The default value of T is 100 milliseconds.
- * Smaller window values T allow fairer bandwidth sharing and less noticeable
- * pauses but may decrease efficiency slightly.<p>
+ * This class works as a token bucket holding at most the bytes allowed in T
+ * seconds.  The default value of T is 100 milliseconds.  Each call to request(..)
+ * reserves the time required to send the granted bytes at the given rate with a
+ * single atomic update and blocks until the reserved time is reached.  Concurrent
+ * streams sharing a throttle are therefore served in order of their requests
+ * without holding a lock while waiting.<p>
  * <p/>
- * Note that throttles are <i>not</i> cumulative.  In the future, this may allow
- * enable fancier control.  Also, BandwidthThrottle may be able delegate to
- * other throttles.  This would allow, for example, a 15 KB/s Gnutella messaging
- * throttle, with no more than 10 KB/s devoted to uploads.<p>
+ * A throttle may delegate to a parent throttle.  This allows, for example, to limit
+ * each connection of a transfer to 100 KB/s while all connections together are
+ * limited to 1 MB/s.<p>
  * <p/>
  * This implementation is based on the <a href="http://cvs.sourceforge.net/cgi-bin/viewcvs.cgi/freenet/freenet/src/freenet/support/io/Bandwidth.java">Bandwidth</a>
  * class from
@@ -43,14 +47,19 @@ public final class BandwidthThrottle {
      */
     private static final int TICKS_PER_SECOND = 10;
     /**
-     * The value of T, in milliseconds.
+     * The value of T, in nanoseconds.
+     */
+    private static final long NANOS_PER_TICK = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+
+    /**
+     * No throttling
      */
-    private static final int MILLIS_PER_TICK = 1000 / TICKS_PER_SECOND;
+    public static final int UNLIMITED = -1;
 
     /**
-     * The bytes to send per tick.  Modified by setThrottle.
+     * Bytes per second allowed
      */
-    private volatile int bytesPerTick;
+    private volatile float rate = UNLIMITED;
 
     /**
      * Whether or not we're only allowing bandwidth to be used every other
@@ -59,13 +68,16 @@ public final class BandwidthThrottle {
     private volatile boolean switching = false;
 
     /**
-     * The number of bytes remaining in this window.
+     * The time in nanoseconds when all bytes granted so far have been sent at the given rate.
      */
-    private int availableBytes;
+    private final AtomicLong reserved = new AtomicLong(Long.MIN_VALUE);
+
     /**
-     * The system time when the window is reset so more bytes can be sent.
+     * Throttle shared with other connections or null
      */
-    private long nextTickTime;
+    private final BandwidthThrottle parent;
+
+    private final Clock clock;
 
     /**
      * Creates a new bandwidth throttle at the given throttle rate.
@@ -76,7 +88,7 @@ public final class BandwidthThrottle {
      *                       (not milliseconds!)
      */
     public BandwidthThrottle(float bytesPerSecond) {
-        this.setRate(bytesPerSecond);
+        this(null, bytesPerSecond, Clock.SYSTEM);
     }
 
     /**
@@ -92,20 +104,26 @@ public final class BandwidthThrottle {
      *                       every other second.
      */
     public BandwidthThrottle(float bytesPerSecond, boolean switching) {
-        this.setRate(bytesPerSecond);
+        this(bytesPerSecond);
         this.setSwitching(switching);
-
     }
 
     /**
-     * No throttling
+     * Creates a new bandwidth throttle for a single connection additionally
+     * limited by a throttle shared with other connections.
+     *
+     * @param parent         Throttle shared by all connections
+     * @param bytesPerSecond the limit for this connection in bytes per second
      */
-    public static final int UNLIMITED = -1;
+    public BandwidthThrottle(final BandwidthThrottle parent, final float bytesPerSecond) {
+        this(parent, bytesPerSecond, parent.clock);
+    }
 
-    /**
-     * Bytes per second allowed
-     */
-    private float rate = UNLIMITED;
+    BandwidthThrottle(final BandwidthThrottle parent, final float bytesPerSecond, final Clock clock) {
+        this.parent = parent;
+        this.clock = clock;
+        this.setRate(bytesPerSecond);
+    }
 
     /**
      * Sets the throttle to the given throttle rate.  The default windows size
@@ -123,11 +141,9 @@ public final class BandwidthThrottle {
                 log.debug(String.format("Set rate to %s bytes per second", bytesPerSecond));
             }
             rate = bytesPerSecond;
-            bytesPerTick = (int) (bytesPerSecond / TICKS_PER_SECOND);
-        }
-        if(switching) {
-            this.fixBytesPerTick(true);
         }
+        // Discard reservations made with previous rate
+        reserved.set(Long.MIN_VALUE);
     }
 
     /**
@@ -137,94 +153,139 @@ public final class BandwidthThrottle {
         return rate;
     }
 
+    /**
+     * @return Throttle shared with other connections or null
+     */
+    public BandwidthThrottle getParent() {
+        return parent;
+    }
+
     /**
      * Sets whether or not this throttle is switching bandwidth on/off.
      */
     public void setSwitching(boolean switching) {
         log.debug("setSwitching:" + switching);
-        if(this.switching != switching) {
-            fixBytesPerTick(switching);
-        }
         this.switching = switching;
     }
 
     /**
-     * Modifies bytesPerTick to either be double or half of what it was.
-     * This is necessary because of the 'switching', which can effectively
-     * reduce or raise the amount of data transferred.
+     * Blocks until the caller can send at least one byte without violating
+     * bandwidth constraints.  Records the number of byte sent.
+     *
+     * @param desired the number of bytes the caller would like to send
+     * @return the number of bytes the sender is expected to send, which
+     *         is at least one and less than or equal to desired or zero if
+     *         no bytes are desired
      */
-    private void fixBytesPerTick(boolean raise) {
-        int newBytesPerTick = bytesPerTick;
-        if(raise) {
-            newBytesPerTick *= 2;
+    public int request(int desired) {
+        if(desired <= 0) {
+            return 0;
         }
-        else {
-            newBytesPerTick /= 2;
+        final int granted = this.acquire(desired);
+        if(null == parent) {
+            return granted;
         }
-        if(newBytesPerTick < 0) // overflowed?
-        {
-            newBytesPerTick = Integer.MAX_VALUE;
+        final int allowed = parent.request(granted);
+        if(allowed < granted) {
+            this.release(granted - allowed);
         }
-        bytesPerTick = newBytesPerTick;
+        return allowed;
     }
 
     /**
-     * Blocks until the caller can send at least one byte without violating
-     * bandwidth constraints.  Records the number of byte sent.
+     * Reserve time to send bytes in this bucket and wait until reached
      *
-     * @param desired the number of bytes the caller would like to send
-     * @return the number of bytes the sender is expected to send, which
-     *         is always greater than one and less than or equal to desired
+     * @return Number of bytes granted
      */
-    public synchronized int request(int desired) {
+    private int acquire(final int desired) {
+        float rate = this.rate;
+        while(0 == rate) {
+            // Wait for rate to be changed
+            clock.sleep(NANOS_PER_TICK);
+            rate = this.rate;
+        }
         if(UNLIMITED == rate) {
             return desired;
         }
-        waitForBandwidth();
-        int result = Math.min(desired, availableBytes);
-        availableBytes -= result;
-        return result;
-    }
-
-    /**
-     * Waits until data is _availableBytes.
-     */
-    private void waitForBandwidth() {
+        // Bytes per second allowed when bandwidth is only used every other second
+        final double effective = switching ? rate * 2d : rate;
+        // Never grant more than the bytes allowed in a single tick
+        final int granted = (int) Math.max(1L, Math.min(desired, (long) (effective / TICKS_PER_SECOND)));
+        final long cost = this.toNanos(granted, effective);
+        long now;
+        long end;
         while(true) {
-            long now = System.currentTimeMillis();
-            updateWindow(now);
-            if(availableBytes != 0) {
-                break;
-            }
-            try {
-                if(log.isInfoEnabled()) {
-                    log.info(String.format("Throttling bandwidth for %d milliseconds", nextTickTime - now));
+            now = clock.nanoTime();
+            final long previous = reserved.get();
+            long start = Math.max(previous, now);
+            if(switching) {
+                final long second = TimeUnit.NANOSECONDS.toSeconds(start);
+                if(second % 2 != 0) {
+                    // Continue at start of next second
+                    start = TimeUnit.SECONDS.toNanos(second + 1);
                 }
-                Thread.sleep(nextTickTime - now);
             }
-            catch(InterruptedException e) {
-                log.error(e.getMessage(), e);
+            end = start + cost;
+            if(reserved.compareAndSet(previous, end)) {
+                break;
+            }
+        }
+        // Allow a burst of bytes saved up within a single tick
+        final long delay = end - now - NANOS_PER_TICK;
+        if(delay > 0) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Throttling bandwidth for %d milliseconds", TimeUnit.NANOSECONDS.toMillis(delay)));
             }
+            clock.sleep(delay);
         }
+        return granted;
     }
 
     /**
-     * Updates _availableBytes and _nextTickTime if possible.
+     * Return reserved bytes not sent
      */
-    private void updateWindow(long now) {
-        if(now >= nextTickTime) {
-            if(!switching || ((now / 1000) % 2) == 0) {
-                availableBytes = bytesPerTick;
-                nextTickTime = now + MILLIS_PER_TICK;
+    private void release(final int unused) {
+        final float rate = this.rate;
+        if(UNLIMITED == rate || 0 == rate) {
+            return;
+        }
+        final long nanos = this.toNanos(unused, switching ? rate * 2d : rate);
+        reserved.updateAndGet(previous -> Long.MIN_VALUE == previous ? previous : previous - nanos);
+    }
+
+    private long toNanos(final long bytes, final double bytesPerSecond) {
+        return (long) (bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond);
+    }
+
+    /**
+     * Source of time and blocking
+     */
+    interface Clock {
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
             }
-            else {
-                availableBytes = 0;
-                // the next tick time is the time we'll hit
-                // the next second.
-                long diff = 1000 - (now % 1000);
-                nextTickTime = now + diff;
+
+            @Override
+            public void sleep(final long nanos) {
+                final long deadline = System.nanoTime() + nanos;
+                for(long remaining = nanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+                    LockSupport.parkNanos(remaining);
+                    if(Thread.currentThread().isInterrupted()) {
+                        log.warn("Interrupted while throttling bandwidth");
+                        return;
+                    }
+                }
             }
-        }
+        };
+
+        long nanoTime();
+
+        /**
+         * Block for the given number of nanoseconds
+         */
+        void sleep(long nanos);
     }
 
     @Override
@@ -246,4 +307,4 @@ public final class BandwidthThrottle {
     public int hashCode() {
         return (rate != +0.0f ? Float.floatToIntBits(rate) : 0);
     }
-}
\ No newline at end of file
+}
@@ -28,6 +28,10 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 public final class StreamCopier {
     private static final Logger log = Logger.getLogger(StreamCopier.class);
@@ -45,6 +49,12 @@ public final class StreamCopier {
     private Integer chunksize
             = PreferencesFactory.get().getInteger("connection.chunksize");
 
+    /**
+     * Maximum number of bytes copied between channels at once
+     */
+    private Integer region
+            = PreferencesFactory.get().getInteger("connection.chunksize.channel");
+
     private Long offset = 0L;
 
     private Long limit = -1L;
@@ -59,6 +69,11 @@ public final class StreamCopier {
         return this;
     }
 
+    public StreamCopier withRegion(final Integer region) {
+        this.region = region;
+        return this;
+    }
+
     public StreamCopier withListener(final StreamListener listener) {
         this.listener = new BytecountStreamListener(listener);
         return this;
@@ -79,7 +94,8 @@ public final class StreamCopier {
     }
 
     /**
-     * Updates the current number of bytes transferred in the status reference.
+     * Updates the current number of bytes transferred in the status reference. Copies between file channels
+     * without buffering in user space when both streams are backed by a channel.
      *
      * @param in  The stream to read from
      * @param out The stream to write to
@@ -87,42 +103,14 @@ public final class StreamCopier {
     public void transfer(final InputStream in, final OutputStream out) throws BackgroundException {
         try {
             try {
-                if(offset > 0) {
-                    skip(in, offset);
-                }
-                final byte[] buffer = new byte[chunksize];
-                long total = 0;
-                int len = chunksize;
-                if(limit > 0 && limit < chunksize) {
-                    // Cast will work because chunk size is int
-                    len = limit.intValue();
+                final List<BandwidthThrottle> throttles = new ArrayList<>();
+                final InputStream source = unwrap(in, throttles);
+                final OutputStream target = unwrap(out, throttles);
+                if(source instanceof FileChannelInputStream && target instanceof FileChannelOutputStream) {
+                    this.transfer(((FileChannelInputStream) source).getChannel(), ((FileChannelOutputStream) target).getChannel(), throttles);
                 }
-                while(len > 0 && !cancel.isCanceled()) {
-                    final int read = in.read(buffer, 0, len);
-                    if(-1 == read) {
-                        if(log.isDebugEnabled()) {
-                            log.debug(String.format("End of file reached with %d bytes read from stream", total));
-                        }
-                        progress.setComplete();
-                        break;
-                    }
-                    else {
-                        listener.recv(read);
-                        out.write(buffer, 0, read);
-                        progress.progress(read);
-                        listener.sent(read);
-                        total += read;
-                    }
-                    if(limit > 0) {
-                        // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
-                        len = (int) Math.min(limit - total, chunksize);
-                    }
-                    if(limit == total) {
-                        if(log.isDebugEnabled()) {
-                            log.debug(String.format("Limit %d reached reading from stream", limit));
-                        }
-                        progress.setComplete();
-                    }
+                else {
+                    this.copy(in, out);
                 }
                 final StreamCloser c = new DefaultStreamCloser();
                 c.close(out);
@@ -149,6 +137,112 @@ public final class StreamCopier {
         }
     }
 
+    private void copy(final InputStream in, final OutputStream out) throws IOException, BackgroundException {
+        if(offset > 0) {
+            skip(in, offset);
+        }
+        final byte[] buffer = new byte[chunksize];
+        long total = 0;
+        int len = chunksize;
+        if(limit > 0 && limit < chunksize) {
+            // Cast will work because chunk size is int
+            len = limit.intValue();
+        }
+        while(len > 0 && !cancel.isCanceled()) {
+            final int read = in.read(buffer, 0, len);
+            if(-1 == read) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("End of file reached with %d bytes read from stream", total));
+                }
+                progress.setComplete();
+                break;
+            }
+            else {
+                listener.recv(read);
+                out.write(buffer, 0, read);
+                progress.progress(read);
+                listener.sent(read);
+                total += read;
+            }
+            if(limit > 0) {
+                // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
+                len = (int) Math.min(limit - total, chunksize);
+            }
+            if(limit == total) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Limit %d reached reading from stream", limit));
+                }
+                progress.setComplete();
+            }
+        }
+    }
+
+    /**
+     * Transfer regions from the current position of the source channel. Progress is updated once per region.
+     *
+     * @param throttles Bandwidth throttles of unwrapped streams
+     */
+    private void transfer(final FileChannel in, final WritableByteChannel out, final List<BandwidthThrottle> throttles) throws IOException {
+        long position = in.position() + offset;
+        long total = 0;
+        while(!cancel.isCanceled()) {
+            long len = region;
+            if(limit > 0) {
+                len = Math.min(limit - total, region);
+            }
+            if(len == 0) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Limit %d reached reading from channel", limit));
+                }
+                progress.setComplete();
+                break;
+            }
+            for(BandwidthThrottle throttle : throttles) {
+                // Cast will work because region is int
+                len = throttle.request((int) len);
+            }
+            final long transferred = in.transferTo(position, len, out);
+            if(transferred <= 0 && position >= in.size()) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("End of file reached with %d bytes read from channel", total));
+                }
+                progress.setComplete();
+                break;
+            }
+            listener.recv(transferred);
+            progress.progress(transferred);
+            listener.sent(transferred);
+            position += transferred;
+            total += transferred;
+        }
+        in.position(position);
+    }
+
+    /**
+     * @param throttles Add throttle of unwrapped stream
+     * @return Innermost stream with no side effects of wrappers other than throttling
+     */
+    private static InputStream unwrap(final InputStream in, final List<BandwidthThrottle> throttles) {
+        if(in.getClass() == ThrottledInputStream.class) {
+            final ThrottledInputStream throttled = (ThrottledInputStream) in;
+            throttles.add(throttled.getThrottle());
+            return unwrap(throttled.getDelegate(), throttles);
+        }
+        return in;
+    }
+
+    private static OutputStream unwrap(final OutputStream out, final List<BandwidthThrottle> throttles) {
+        if(out.getClass() == ThrottledOutputStream.class) {
+            final ThrottledOutputStream throttled = (ThrottledOutputStream) out;
+            throttles.add(throttled.getThrottle());
+            return unwrap(throttled.getDelegate(), throttles);
+        }
+        if(out.getClass() == VoidStatusOutputStream.class) {
+            return unwrap(((VoidStatusOutputStream) out).getProxy(), throttles);
+        }
+        return out;
+    }
+
     public static InputStream skip(final InputStream in, final long offset) throws BackgroundException {
         try {
             long skipped = in.skip(offset);
@@ -41,6 +41,14 @@ public class ThrottledInputStream extends ProxyInputStream {
         this.throttle = throttle;
     }
 
+    InputStream getDelegate() {
+        return delegate;
+    }
+
+    BandwidthThrottle getThrottle() {
+        return throttle;
+    }
+
     /**
      * Read an array of bytes from this InputStream.
      *
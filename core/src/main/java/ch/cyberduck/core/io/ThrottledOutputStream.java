@@ -45,6 +45,14 @@ public class ThrottledOutputStream extends ProxyOutputStream {
         this.throttle = throttle;
     }
 
+    OutputStream getDelegate() {
+        return delegate;
+    }
+
+    BandwidthThrottle getThrottle() {
+        return throttle;
+    }
+
     /**
      * Write a single byte to the delegate stream, possibly blocking if
      * necessary to ensure that throughput doesn't exceed the limits.
@@ -22,6 +22,10 @@ public class VoidStatusOutputStream extends StatusOutputStream<Void> {
         super(proxy);
     }
 
+    OutputStream getProxy() {
+        return out;
+    }
+
     @Override
     public Void getStatus() {
         return null;
@@ -0,0 +1,334 @@
+package ch.cyberduck.core.local;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.Checksum;
+import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.io.HashAlgorithm;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of checksums computed for local files saved in the application support directory. An entry is only valid
+ * as long as size, modification date and file key (device and inode) of the file are unchanged. Entries for files
+ * modified in the same second the checksum was computed are not trusted as a later change may not have altered the
+ * modification date. Entries are appended to a journal that is compacted when loaded.
+ */
+public class LocalChecksumIndex {
+    private static final Logger log = Logger.getLogger(LocalChecksumIndex.class);
+
+    private static final LocalChecksumIndex DISABLED = new LocalChecksumIndex(null) {
+        @Override
+        public Checksum find(final Local file, final HashAlgorithm algorithm) {
+            return Checksum.NONE;
+        }
+
+        @Override
+        protected void put(final String path, final Entry entry) {
+            //
+        }
+
+        @Override
+        public void shutdown() {
+            //
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    };
+
+    private static LocalChecksumIndex global;
+
+    /**
+     * @return Shared index or disabled index if not enabled in preferences
+     */
+    public static synchronized LocalChecksumIndex get() {
+        if(null == global) {
+            if(PreferencesFactory.get().getBoolean("local.checksum.index.enable")) {
+                global = new LocalChecksumIndex(LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Checksums.index"));
+            }
+            else {
+                global = DISABLED;
+            }
+        }
+        return global;
+    }
+
+    public static LocalChecksumIndex disabled() {
+        return DISABLED;
+    }
+
+    private final Local journal;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private boolean loaded;
+
+    /**
+     * Open for appending entries after loading
+     */
+    private Writer writer;
+
+    public LocalChecksumIndex(final Local journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param file      Local file
+     * @param algorithm Hash algorithm
+     * @return Checksum previously computed if file is unchanged or none
+     */
+    public Checksum find(final Local file, final HashAlgorithm algorithm) {
+        final Entry current = this.stat(file);
+        if(null == current) {
+            return Checksum.NONE;
+        }
+        final Entry entry;
+        synchronized(this) {
+            this.load();
+            entry = entries.get(key(file.getAbsolute(), algorithm));
+        }
+        if(null == entry) {
+            return Checksum.NONE;
+        }
+        if(!current.matches(entry)) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Invalidate checksum for modified file %s", file));
+            }
+            return Checksum.NONE;
+        }
+        if(entry.isRacy()) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Ignore checksum for %s modified when computed", file));
+            }
+            return Checksum.NONE;
+        }
+        return entry.checksum;
+    }
+
+    /**
+     * Compute checksum of file and save in index
+     *
+     * @param file      Local file
+     * @param algorithm Hash algorithm
+     * @return Checksum of file contents
+     */
+    public Checksum compute(final Local file, final HashAlgorithm algorithm) throws BackgroundException {
+        final long computed = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        final Entry before = this.stat(file);
+        final Checksum checksum = ChecksumComputeFactory.get(algorithm).compute(file.getInputStream(), new TransferStatus());
+        if(Checksum.NONE == checksum) {
+            return checksum;
+        }
+        final Entry after = this.stat(file);
+        if(null != before && null != after && before.matches(after)) {
+            this.put(file.getAbsolute(), new Entry(after.size, after.modified, after.key, computed, checksum));
+        }
+        else {
+            log.warn(String.format("Skip saving checksum for %s modified while reading", file));
+        }
+        return checksum;
+    }
+
+    protected synchronized void put(final String path, final Entry entry) {
+        this.load();
+        entries.put(key(path, entry.checksum.algorithm), entry);
+        if(StringUtils.containsAny(path, '\t', '\n', '\r')) {
+            return;
+        }
+        if(null == writer) {
+            return;
+        }
+        try {
+            writer.write(entry.toLine(path));
+            writer.flush();
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure saving checksum index to %s. %s", journal.getAbsolute(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Close journal
+     */
+    public synchronized void shutdown() {
+        if(null == writer) {
+            return;
+        }
+        try {
+            writer.close();
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure closing checksum index %s. %s", journal.getAbsolute(), e.getMessage()));
+        }
+        finally {
+            writer = null;
+        }
+    }
+
+    /**
+     * @return Number of checksums in index
+     */
+    public synchronized int size() {
+        this.load();
+        return entries.size();
+    }
+
+    private Entry stat(final Local file) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(Paths.get(file.getAbsolute()), BasicFileAttributes.class);
+            if(!attributes.isRegularFile()) {
+                return null;
+            }
+            return new Entry(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                Objects.toString(attributes.fileKey(), StringUtils.EMPTY), -1L, Checksum.NONE);
+        }
+        catch(IOException | InvalidPathException | UnsupportedOperationException e) {
+            log.warn(String.format("Failure reading attributes of %s. %s", file, e.getMessage()));
+            return null;
+        }
+    }
+
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        loaded = true;
+        int lines = 0;
+        if(journal.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(journal.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    lines++;
+                    final String[] fields = StringUtils.splitPreserveAllTokens(line, '\t');
+                    if(fields.length != 7) {
+                        log.warn(String.format("Skip invalid line %s in checksum index", line));
+                        continue;
+                    }
+                    try {
+                        // Later entries replace previous ones for the same file and algorithm
+                        final Checksum checksum = new Checksum(HashAlgorithm.valueOf(fields[0]), fields[1]);
+                        entries.put(key(fields[6], checksum.algorithm), new Entry(Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                            fields[4], Long.parseLong(fields[5]), checksum));
+                    }
+                    catch(IllegalArgumentException e) {
+                        log.warn(String.format("Skip invalid line %s in checksum index", line));
+                    }
+                }
+            }
+            catch(AccessDeniedException e) {
+                log.warn(String.format("Failure reading checksum index from %s. %s", journal.getAbsolute(), e.getDetail()));
+            }
+            catch(IOException e) {
+                log.warn(String.format("Failure reading checksum index from %s. %s", journal.getAbsolute(), e.getMessage()));
+            }
+        }
+        try {
+            new DefaultLocalDirectoryFeature().mkdir(journal.getParent());
+            if(lines > entries.size() * 2) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Compact checksum index with %d lines for %d files", lines, entries.size()));
+                }
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(journal.getOutputStream(false), StandardCharsets.UTF_8))) {
+                    for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+                        out.write(entry.getValue().toLine(StringUtils.substringAfter(entry.getKey(), "\t")));
+                    }
+                }
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(journal.getOutputStream(true), StandardCharsets.UTF_8));
+        }
+        catch(AccessDeniedException e) {
+            log.warn(String.format("Failure saving checksum index to %s. %s", journal.getAbsolute(), e.getDetail()));
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure saving checksum index to %s. %s", journal.getAbsolute(), e.getMessage()));
+        }
+    }
+
+    /**
+     * @return Key for checksum of file with algorithm
+     */
+    private static String key(final String path, final HashAlgorithm algorithm) {
+        return String.format("%s\t%s", algorithm.name(), path);
+    }
+
+    protected static final class Entry {
+        private final long size;
+        /**
+         * Modification date in nanoseconds
+         */
+        private final long modified;
+        /**
+         * Device and inode if supported
+         */
+        private final String key;
+        /**
+         * Time in nanoseconds when checksum was computed
+         */
+        private final long computed;
+        private final Checksum checksum;
+
+        private Entry(final long size, final long modified, final String key, final long computed, final Checksum checksum) {
+            this.size = size;
+            this.modified = modified;
+            this.key = key;
+            this.computed = computed;
+            this.checksum = checksum;
+        }
+
+        /**
+         * @return True if file was modified in the same second the checksum was computed or later. Another change
+         * within the resolution of the modification date would go unnoticed.
+         */
+        private boolean isRacy() {
+            return TimeUnit.NANOSECONDS.toSeconds(modified) >= TimeUnit.NANOSECONDS.toSeconds(computed);
+        }
+
+        private boolean matches(final Entry other) {
+            return size == other.size && modified == other.modified && key.equals(other.key);
+        }
+
+        private String toLine(final String path) {
+            return String.format("%s\t%s\t%d\t%d\t%s\t%d\t%s\n", checksum.algorithm.name(), checksum.hash, size, modified, key, computed, path);
+        }
+    }
+}
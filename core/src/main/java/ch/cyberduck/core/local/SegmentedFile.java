@@ -0,0 +1,254 @@
+package ch.cyberduck.core.local;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.LocalAccessDeniedException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Target file of a segmented download written by all segments at their offset through a shared file channel.
+ * The file is preallocated to its final length when first opened. Completed segments are recorded in a bitmap
+ * saved next to the file to resume an interrupted download.
+ */
+public class SegmentedFile {
+    private static final Logger log = Logger.getLogger(SegmentedFile.class);
+
+    private final Local file;
+    private final Local journal;
+    private final long length;
+    /**
+     * Ordered list of segments
+     */
+    private final List<TransferStatus> segments;
+    private final BitSet completed;
+
+    private FileChannel channel;
+    /**
+     * Number of streams open on channel
+     */
+    private int open;
+
+    /**
+     * @param file Target file
+     * @return Bitmap of completed segments for target file
+     */
+    public static Local journal(final Local file) {
+        return LocalFactory.get(file.getParent(), String.format("%s.cyberducksegments", file.getName()));
+    }
+
+    public SegmentedFile(final Local file, final long length, final List<TransferStatus> segments) {
+        this.file = file;
+        this.journal = journal(file);
+        this.length = length;
+        this.segments = segments;
+        this.completed = new BitSet(segments.size());
+    }
+
+    /**
+     * Read bitmap of segments completed in a previous attempt. Ignored if saved for a different length or
+     * number of segments.
+     *
+     * @return Segments already complete
+     */
+    public synchronized BitSet load() {
+        completed.clear();
+        if(journal.exists()) {
+            try (DataInputStream in = new DataInputStream(journal.getInputStream())) {
+                if(in.readLong() == length && in.readInt() == segments.size()) {
+                    final byte[] bitmap = new byte[in.readInt()];
+                    in.readFully(bitmap);
+                    completed.or(BitSet.valueOf(bitmap));
+                }
+                else {
+                    log.warn(String.format("Ignore segments saved in %s for different length", journal));
+                }
+            }
+            catch(AccessDeniedException e) {
+                log.warn(String.format("Failure reading segments from %s. %s", journal, e.getDetail()));
+            }
+            catch(IOException e) {
+                log.warn(String.format("Failure reading segments from %s. %s", journal, e.getMessage()));
+            }
+        }
+        return (BitSet) completed.clone();
+    }
+
+    /**
+     * Record segment as complete
+     *
+     * @param segment Segment status
+     */
+    public synchronized void complete(final TransferStatus segment) throws AccessDeniedException {
+        for(int i = 0; i < segments.size(); i++) {
+            if(segments.get(i) == segment) {
+                // Data of segment must be on disk before recorded as complete
+                this.force();
+                completed.set(i);
+                this.save();
+                return;
+            }
+        }
+        log.warn(String.format("Unknown segment %s for %s", segment, file));
+    }
+
+    /**
+     * Remove bitmap of completed segments after download is complete
+     */
+    public synchronized void finish() throws AccessDeniedException {
+        if(open > 0) {
+            log.warn(String.format("Finish %s with %d streams not closed", file, open));
+        }
+        if(journal.exists()) {
+            try {
+                journal.delete();
+            }
+            catch(NotfoundException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * @param position Offset in target file
+     * @return Stream writing to file at position. Does not change the position of the shared channel.
+     */
+    public synchronized OutputStream getOutputStream(final long position) throws AccessDeniedException {
+        if(null == channel) {
+            try {
+                // Save bitmap prior writing to file to recognize partial download
+                this.save();
+                channel = FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                if(channel.size() > length) {
+                    channel.truncate(length);
+                }
+                else if(channel.size() < length) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Preallocate %d bytes for %s", length, file));
+                    }
+                    channel.write(ByteBuffer.allocate(1), length - 1);
+                }
+            }
+            catch(IOException e) {
+                throw new LocalAccessDeniedException(e.getMessage(), e);
+            }
+        }
+        open++;
+        return new PositionalOutputStream(channel, position);
+    }
+
+    /**
+     * Flush data written to file to the storage device
+     */
+    private void force() throws AccessDeniedException {
+        try {
+            if(null == channel) {
+                try (FileChannel c = FileChannel.open(Paths.get(file.getAbsolute()), StandardOpenOption.WRITE)) {
+                    c.force(true);
+                }
+            }
+            else {
+                channel.force(true);
+            }
+        }
+        catch(IOException e) {
+            throw new LocalAccessDeniedException(e.getMessage(), e);
+        }
+    }
+
+    private synchronized void release() throws IOException {
+        if(--open == 0) {
+            try {
+                channel.close();
+            }
+            finally {
+                channel = null;
+            }
+        }
+    }
+
+    private void save() throws AccessDeniedException {
+        final byte[] bitmap = completed.toByteArray();
+        try (DataOutputStream out = new DataOutputStream(journal.getOutputStream(false))) {
+            out.writeLong(length);
+            out.writeInt(segments.size());
+            out.writeInt(bitmap.length);
+            out.write(bitmap);
+        }
+        catch(IOException e) {
+            throw new LocalAccessDeniedException(e.getMessage(), e);
+        }
+    }
+
+    private final class PositionalOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private long position;
+        private boolean closed;
+
+        private PositionalOutputStream(final FileChannel channel, final long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+            while(buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            SegmentedFile.this.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SegmentedFile{");
+        sb.append("file=").append(file);
+        sb.append(", length=").append(length);
+        sb.append(", completed=").append(completed);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package ch.cyberduck.core.pool;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+
+/**
+ * Determines the number of concurrent connections from periodic samples of throughput and failures. Adds a
+ * connection as long as throughput improves and reverts when it does not. Backs off when the share of failed
+ * transfers exceeds a threshold as is typical for servers limiting the number of requests.
+ */
+public class AdaptiveConnectionLimit {
+    private static final Logger log = Logger.getLogger(AdaptiveConnectionLimit.class);
+
+    /**
+     * Relative change in throughput regarded as noise
+     */
+    private static final double TOLERANCE = 0.1d;
+
+    /**
+     * Share of failures to reduce connections
+     */
+    private static final double FAILURE_THRESHOLD = 0.1d;
+
+    /**
+     * Number of samples without change before probing with an additional connection
+     */
+    private static final int PROBE_INTERVAL = 3;
+
+    private final int ceiling;
+
+    private int limit;
+    /**
+     * Change of limit applied after previous sample
+     */
+    private int step;
+    /**
+     * Throughput measured with previous sample
+     */
+    private double baseline = Double.NaN;
+    /**
+     * Number of samples without change of limit
+     */
+    private int unchanged;
+
+    /**
+     * @param initial Number of connections to start with
+     * @param ceiling Maximum number of connections
+     */
+    public AdaptiveConnectionLimit(final int initial, final int ceiling) {
+        this.ceiling = Math.max(1, ceiling);
+        this.limit = Math.min(this.ceiling, Math.max(1, initial));
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public int getCeiling() {
+        return ceiling;
+    }
+
+    /**
+     * @param speed     Throughput measured since previous sample
+     * @param successes Number of completed transfers since previous sample
+     * @param failures  Number of failures since previous sample
+     * @return Number of connections to use until next sample
+     */
+    public synchronized int sample(final double speed, final int successes, final int failures) {
+        if(failures > 0 && (double) failures / (successes + failures) > FAILURE_THRESHOLD) {
+            final int next = Math.max(1, Math.min(limit - 1, (int) (limit * 0.75d)));
+            log.warn(String.format("Reduce connections from %d to %d after %d failures", limit, next, failures));
+            // Throughput with previous number of connections no longer comparable
+            baseline = Double.NaN;
+            return this.update(next, 0);
+        }
+        if(0 == speed && 0 == successes) {
+            // Idle
+            return limit;
+        }
+        if(Double.isNaN(baseline)) {
+            baseline = speed;
+            return this.update(limit, 0);
+        }
+        final double previous = baseline;
+        baseline = speed;
+        if(speed > previous * (1 + TOLERANCE)) {
+            // Continue in same direction as long as throughput improves
+            return this.update(limit + step, step);
+        }
+        if(speed < previous * (1 - TOLERANCE)) {
+            // Revert last change
+            return this.update(limit - step, 0);
+        }
+        if(step > 0) {
+            // Additional connection does not improve throughput
+            return this.update(limit - step, 0);
+        }
+        if(step == 0 && ++unchanged >= PROBE_INTERVAL) {
+            return this.update(limit + 1, 1);
+        }
+        return this.update(limit, 0);
+    }
+
+    private int update(final int next, final int step) {
+        final int bounded = Math.min(ceiling, Math.max(1, next));
+        if(bounded != limit) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Change number of connections from %d to %d", limit, bounded));
+            }
+            unchanged = 0;
+            this.step = step;
+            limit = bounded;
+        }
+        else {
+            this.step = 0;
+        }
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AdaptiveConnectionLimit{");
+        sb.append("limit=").append(limit);
+        sb.append(", ceiling=").append(ceiling);
+        sb.append(", baseline=").append(baseline);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -294,6 +294,18 @@ public abstract class Preferences implements Locales {
         this.setDefault("local.normalize.tilde", String.valueOf(true));
         this.setDefault("local.delimiter", File.separator);
         this.setDefault("local.temporaryfiles.shortening.threshold", String.valueOf(240));
+        /*
+          Save checksums computed for local files to skip reading unchanged files when comparing
+         */
+        this.setDefault("local.checksum.index.enable", String.valueOf(false));
+        /*
+          Maximum number of file identifiers by path kept for protocols addressing files by identifier
+         */
+        this.setDefault("fileid.cache.size", String.valueOf(100000));
+        /*
+          Save file identifiers for bookmark when disconnecting
+         */
+        this.setDefault("fileid.cache.persist", String.valueOf(false));
 
         this.setDefault("application.name", "Cyberduck");
         this.setDefault("application.container.name", "duck");
@@ -314,6 +326,16 @@ public abstract class Preferences implements Locales {
         this.setDefault("transfer.cache.size", String.valueOf(100));
         this.setDefault("icon.cache.size", String.valueOf(200));
         this.setDefault("preferences.cache.size", String.valueOf(1000));
+        /*
+          Approximate memory limit in bytes for cached directory listings weighted by number of children. Applies in
+          addition to the limit on the number of directory listings when set.
+         */
+        this.setDefault("browser.cache.memory", String.valueOf(-1L));
+        this.setDefault("transfer.cache.memory", String.valueOf(128L * 1024L * 1024L));
+        /*
+          Approximate memory in bytes per cached file
+         */
+        this.setDefault("cache.memory.entry", String.valueOf(1024L));
 
         /*
           Caching NS* proxy instances.
@@ -325,6 +347,15 @@ public abstract class Preferences implements Locales {
          */
         this.setDefault("browser.list.limit.directory", String.valueOf(5000));
         this.setDefault("browser.list.limit.container", String.valueOf(100));
+        /*
+          Concurrent connections for recursive search in browser
+         */
+        this.setDefault("browser.search.connections", String.valueOf(5));
+        /*
+          Maximum number of files found and depth of folders searched in for recursive search in browser or -1 for no limit
+         */
+        this.setDefault("browser.search.limit", String.valueOf(-1));
+        this.setDefault("browser.search.depth", String.valueOf(-1));
 
         this.setDefault("info.toolbar.selected", String.valueOf(0));
         this.setDefault("preferences.toolbar.selected", String.valueOf(0));
@@ -499,6 +530,12 @@ public abstract class Preferences implements Locales {
         this.setDefault("queue.download.timestamp.change", String.valueOf(true));
         this.setDefault("queue.download.checksum.calculate", String.valueOf(false));
 
+        /*
+          List all descendants of a directory with a single request where supported by the protocol. Listings of
+          the whole subtree are held in the cache at once.
+         */
+        this.setDefault("queue.listing.recursive", String.valueOf(false));
+
         this.setDefault("queue.download.skip.enable", String.valueOf(true));
         this.setDefault("queue.download.skip.regex.default",
             ".*~\\..*|\\.DS_Store|\\.svn|CVS|RCS|SCCS|\\.git|\\.bzr|\\.bzrignore|\\.bzrtags|\\.hg|\\.hgignore|\\.hgtags|_darcs|\\.file-segments");
@@ -518,6 +555,12 @@ public abstract class Preferences implements Locales {
         this.setDefault("queue.download.segments", String.valueOf(true));
         this.setDefault("queue.download.segments.threshold", String.valueOf(10L * 1024L * 1024L));
         this.setDefault("queue.download.segments.size", String.valueOf(5L * 1024L * 1024L));
+        // Write segments at their offset in preallocated target file instead of concatenating segment files
+        this.setDefault("queue.download.segments.positional", String.valueOf(true));
+        // Segmented concurrent uploads for protocols with positional writes from multiple connections
+        this.setDefault("queue.upload.segments", String.valueOf(true));
+        this.setDefault("queue.upload.segments.threshold", String.valueOf(100L * 1024L * 1024L));
+        this.setDefault("queue.upload.segments.size", String.valueOf(10L * 1024L * 1024L));
 
         /*
           Open completed downloads
@@ -559,6 +602,10 @@ public abstract class Preferences implements Locales {
           Bandwidth throttle download stream
          */
         this.setDefault("queue.download.bandwidth.bytes", String.valueOf(-1));
+        /*
+          Bandwidth throttle for a single connection of a transfer in addition to the limit of the transfer
+         */
+        this.setDefault("queue.connections.bandwidth.bytes", String.valueOf(-1));
 
         /*
          * Concurrent connections for single transfer and maximum number of concurrent transfers in transfer list
@@ -576,6 +623,44 @@ public abstract class Preferences implements Locales {
             options.append(20).append(",");
             this.setDefault("queue.connections.options", options.toString());
         }
+        /*
+          Adjust number of concurrent connections for single transfer to measured throughput and failures
+         */
+        this.setDefault("queue.connections.adaptive", String.valueOf(false));
+        /*
+          Maximum number of concurrent connections for single transfer when adjusted
+         */
+        this.setDefault("queue.connections.adaptive.limit", String.valueOf(10));
+        /*
+          Interval in milliseconds to measure throughput before adjusting number of connections
+         */
+        this.setDefault("queue.connections.adaptive.interval", String.valueOf(2000));
+        /*
+          Transfer files as soon as prepared instead of determining the status of all files in advance
+         */
+        this.setDefault("queue.transfer.pipeline", String.valueOf(false));
+        /*
+          Maximum number of prepared files with transfer status held in memory when pipelined
+         */
+        this.setDefault("queue.transfer.pipeline.window", String.valueOf(1000));
+        /*
+          Maximum number of listed files not yet prepared when pipelined before listing further directories
+         */
+        this.setDefault("queue.transfer.pipeline.pending", String.valueOf(10000));
+        /*
+          Start transferring files with parent directory transferred while other directories are still listed
+         */
+        this.setDefault("queue.transfer.overlap", String.valueOf(false));
+        /*
+          Maximum number of concurrent multipart upload parts shared by all files of a transfer. Parts of
+          different files are interleaved. Set to 0 to use a thread pool per file.
+         */
+        this.setDefault("queue.transfer.segments.concurrency", String.valueOf(10));
+        /*
+          Concurrent connections and number of files deleted at once when deleting folders
+         */
+        this.setDefault("queue.delete.connections", String.valueOf(5));
+        this.setDefault("queue.delete.batchsize", String.valueOf(1000));
 
         /*
           While downloading, update the icon of the downloaded file as a progress indicator
@@ -623,6 +708,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("ftp.parser.multiline.strict", String.valueOf(false));
         this.setDefault("ftp.parser.reply.strict", String.valueOf(false));
         this.setDefault("ftp.parser.mlsd.perm.enable", String.valueOf(false));
+        /*
+          Number of entries parsed from directory listing before notifying listener
+         */
+        this.setDefault("ftp.listing.chunksize", String.valueOf(1000));
 
         /*
           Send LIST -a
@@ -682,6 +771,10 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("s3.listing.chunksize", String.valueOf(1000));
         this.setDefault("s3.listing.concurrency", String.valueOf(25));
+        /*
+          Maximum number of key ranges listed concurrently when listing all keys with prefix. Set to 1 to list sequentially
+         */
+        this.setDefault("s3.listing.partitions", String.valueOf(8));
 
         this.setDefault("s3.upload.multipart", String.valueOf(true));
         this.setDefault("s3.upload.multipart.concurrency", String.valueOf(10));
@@ -695,6 +788,11 @@ public abstract class Preferences implements Locales {
         // Must be a multiple of org.cryptomator.cryptolib.v1.Constants.PAYLOAD_SIZE when using Cryptomator Vaults
         this.setDefault("s3.upload.multipart.size", String.valueOf(10L * 1024L * 1024L)); // 10MB
         this.setDefault("s3.copy.multipart.size", String.valueOf(100L * 1024L * 1024L)); // 100MB
+        /*
+          Sign parts with UNSIGNED-PAYLOAD for AWS4-HMAC-SHA256 over TLS instead of reading each part twice to
+          compute the SHA-256 payload hash. Integrity of parts is verified with the MD5 digest computed while uploading.
+         */
+        this.setDefault("s3.upload.multipart.payload.unsigned", String.valueOf(true));
 
         this.setDefault("s3.upload.expect-continue", String.valueOf(true));
 
@@ -715,6 +813,8 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("onedrive.listing.chunksize", String.valueOf(1000));
         this.setDefault("onedrive.upload.multipart.partsize.minimum", String.valueOf(320 * 1024));
+        // Size of fragments read from file while previous fragment is sent in upload session. Multiple of 320KB.
+        this.setDefault("onedrive.upload.fragment.size", String.valueOf(10 * 1024L * 1024L));
 
         final int month = 60 * 60 * 24 * 30; //30 days in seconds
         this.setDefault("s3.cache.seconds", String.valueOf(month));
@@ -732,6 +832,19 @@ public abstract class Preferences implements Locales {
         this.setDefault("azure.metadata.default", StringUtils.EMPTY);
         this.setDefault("azure.listing.chunksize", String.valueOf(1000));
         this.setDefault("azure.upload.md5", String.valueOf(false));
+        /*
+          Upload larger files as block blob with blocks uploaded concurrently. Maximum block size is 100MB.
+         */
+        this.setDefault("azure.upload.blockblob", String.valueOf(true));
+        this.setDefault("azure.upload.blockblob.threshold", String.valueOf(100L * 1024L * 1024L));
+        this.setDefault("azure.upload.blockblob.size", String.valueOf(10L * 1024L * 1024L));
+        this.setDefault("azure.upload.blockblob.concurrency", String.valueOf(10));
+        /*
+          Download larger blobs with ranges read ahead concurrently
+         */
+        this.setDefault("azure.download.range.threshold", String.valueOf(100L * 1024L * 1024L));
+        this.setDefault("azure.download.range.size", String.valueOf(4 * 1024 * 1024));
+        this.setDefault("azure.download.range.concurrency", String.valueOf(4));
 
         // Legacy authentication
 //        this.setDefault("openstack.authentication.context", "/v1.0");
@@ -776,6 +889,14 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("b2.metadata.default", StringUtils.EMPTY);
 
+        // Commit uploads of small files together with other files uploaded concurrently
+        this.setDefault("dropbox.upload.batch", String.valueOf(true));
+        this.setDefault("dropbox.upload.batch.threshold", String.valueOf(8 * 1024L * 1024L)); // 8MB
+        // At most 1000 entries per commit request
+        this.setDefault("dropbox.upload.batch.size", String.valueOf(1000));
+        this.setDefault("dropbox.upload.batch.poll.interval", String.valueOf(1000)); // 1 second
+        this.setDefault("dropbox.upload.batch.poll.timeout", String.valueOf(10 * 60 * 1000)); // 10 minutes
+
         this.setDefault("sds.listing.chunksize", String.valueOf(500));
         this.setDefault("sds.upload.multipart.chunksize", String.valueOf(0.5 * 1024L * 1024L));
         // Run missing file keys in bulk feature after upload
@@ -813,6 +934,12 @@ public abstract class Preferences implements Locales {
         this.setDefault("webdav.redirect.PROPFIND.follow", String.valueOf(true));
 
         this.setDefault("webdav.metadata.default", StringUtils.EMPTY);
+        this.setDefault("webdav.listing.chunksize", String.valueOf(1000));
+        /*
+          List all descendants with PROPFIND and Depth: infinity. Disabled as most servers refuse requests
+          with infinite depth
+         */
+        this.setDefault("webdav.listing.infinity", String.valueOf(false));
 
         this.setDefault("analytics.provider.qloudstat.setup", "https://qloudstat.com/configuration/add");
         this.setDefault("analytics.provider.qloudstat.iam.policy",
@@ -957,6 +1084,10 @@ public abstract class Preferences implements Locales {
           Transfer read buffer size
          */
         this.setDefault("connection.chunksize", String.valueOf(32768));
+        /*
+          Region size transferred between file channels with progress updated after every region
+         */
+        this.setDefault("connection.chunksize.channel", String.valueOf(1048576));
         /*
           Buffer size for wrapped buffered streams
          */
@@ -1054,6 +1185,14 @@ public abstract class Preferences implements Locales {
 
         this.setDefault("cryptomator.enable", String.valueOf(true));
         this.setDefault("cryptomator.vault.autodetect", String.valueOf(true));
+        /*
+          Number of threads to encrypt file content chunks in parallel when writing to vault
+         */
+        this.setDefault("cryptomator.encryption.threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        /*
+          Number of threads to decrypt file content chunks read ahead from vault
+         */
+        this.setDefault("cryptomator.decryption.threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
     }
 
     protected void setLogging() {
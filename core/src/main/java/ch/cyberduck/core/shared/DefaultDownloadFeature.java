@@ -44,7 +44,14 @@ public class DefaultDownloadFeature implements Download {
     public void download(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                          final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
         final InputStream in = reader.read(file, status, callback);
-        final OutputStream out = local.getOutputStream(status.isAppend());
+        final OutputStream out;
+        if(null == status.getSegmentedFile()) {
+            out = local.getOutputStream(status.isAppend());
+        }
+        else {
+            // Write segment at its offset in shared target file
+            out = status.getSegmentedFile().getOutputStream(status.getOffset());
+        }
         new StreamCopier(status, status)
                 .withOffset(0L)
                 .withLimit(status.getLength())
@@ -30,10 +30,9 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.io.Checksum;
-import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.local.LocalChecksumIndex;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
-import ch.cyberduck.core.transfer.TransferStatus;
 
 import java.text.MessageFormat;
 import java.util.TimeZone;
@@ -50,6 +49,11 @@ public class ComparisonServiceFilter implements ComparePathFilter {
 
     private Cache<Path> cache = PathCache.empty();
 
+    /**
+     * Checksums of unchanged local files from previous comparisons
+     */
+    private LocalChecksumIndex index = LocalChecksumIndex.get();
+
     public ComparisonServiceFilter(final Session<?> session, final TimeZone tz, final ProgressListener listener) {
         this.finder = session.getFeature(Find.class, new DefaultFindFeature(session));
         this.attribute = session.getFeature(AttributesFinder.class, new DefaultAttributesFinderFeature(session));
@@ -69,6 +73,11 @@ public class ComparisonServiceFilter implements ComparePathFilter {
         return this;
     }
 
+    public ComparisonServiceFilter withIndex(final LocalChecksumIndex index) {
+        this.index = index;
+        return this;
+    }
+
     public ComparisonServiceFilter withCache(final Cache<Path> cache) {
         this.cache = cache;
         return this;
@@ -92,9 +101,12 @@ public class ComparisonServiceFilter implements ComparePathFilter {
                 }
                 if(Checksum.NONE != attributes.getChecksum()) {
                     // MD5/ETag Checksum is supported
-                    progress.message(MessageFormat.format(LocaleFactory.localizedString("Compute MD5 hash of {0}", "Status"), file.getName()));
-                    local.attributes().setChecksum(ChecksumComputeFactory.get(attributes.getChecksum().algorithm)
-                        .compute(local.getInputStream(), new TransferStatus()));
+                    Checksum current = index.find(local, attributes.getChecksum().algorithm);
+                    if(Checksum.NONE == current) {
+                        progress.message(MessageFormat.format(LocaleFactory.localizedString("Compute MD5 hash of {0}", "Status"), file.getName()));
+                        current = index.compute(local, attributes.getChecksum().algorithm);
+                    }
+                    local.attributes().setChecksum(current);
                     switch(checksum.compare(attributes, local.attributes())) {
                         case equal:
                             // Decision is available
@@ -0,0 +1,251 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes segments of multiple files with a single limit of concurrent tasks. Each file is submitted to its own
+ * pool obtained with {@link #pool(Object)}. Pending tasks are dispatched round robin between pools such that
+ * parts of a large file do not delay all parts of files submitted later.
+ */
+public class SegmentScheduler {
+    private static final Logger log = Logger.getLogger(SegmentScheduler.class);
+
+    private final ThreadPool pool;
+    private final int concurrency;
+
+    /**
+     * Guards all lanes and the number of running tasks
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Lanes with pending tasks in dispatch order
+     */
+    private final Deque<Lane> ready = new ArrayDeque<>();
+
+    private int running;
+    private boolean shutdown;
+
+    /**
+     * @param prefix      Thread name prefix
+     * @param concurrency Maximum number of tasks running concurrently for all files
+     */
+    public SegmentScheduler(final String prefix, final int concurrency) {
+        this.pool = ThreadPoolFactory.get(prefix, concurrency);
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @param key File the segments are submitted for
+     * @return Pool sharing the concurrency limit of this scheduler. Shutting down the returned pool only affects
+     * tasks submitted to it.
+     */
+    public ThreadPool pool(final Object key) {
+        return new LanePool(new Lane(key));
+    }
+
+    /**
+     * @return Number of tasks currently running for all files
+     */
+    public int getRunning() {
+        synchronized(lock) {
+            return running;
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Reject further submissions and shutdown worker threads
+     *
+     * @param gracefully Wait for running tasks to complete
+     */
+    public void shutdown(final boolean gracefully) {
+        synchronized(lock) {
+            shutdown = true;
+        }
+        pool.shutdown(gracefully);
+    }
+
+    /**
+     * Start pending tasks while below concurrency limit. Must hold lock.
+     */
+    private void dispatch() {
+        while(running < concurrency && !ready.isEmpty()) {
+            final Lane lane = ready.poll();
+            final Runnable task = lane.pending.poll();
+            if(!lane.pending.isEmpty()) {
+                // Move to end of queue to take turns with other files
+                ready.add(lane);
+            }
+            running++;
+            try {
+                pool.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Thread thread = Thread.currentThread();
+                        synchronized(lock) {
+                            lane.active.add(thread);
+                        }
+                        try {
+                            task.run();
+                        }
+                        finally {
+                            synchronized(lock) {
+                                lane.active.remove(thread);
+                                running--;
+                                dispatch();
+                                lock.notifyAll();
+                            }
+                            // Clear interrupt from cancelled task before thread is reused
+                            Thread.interrupted();
+                        }
+                    }
+                });
+            }
+            catch(RejectedExecutionException e) {
+                log.warn(String.format("Failure dispatching task for %s. %s", lane, e.getMessage()));
+                running--;
+                lane.pending.clear();
+                ready.remove(lane);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Pending tasks of a single file
+     */
+    private final class Lane extends AbstractExecutorService {
+        private final Object key;
+        private final Deque<Runnable> pending = new ArrayDeque<>();
+        private final Set<Thread> active = new HashSet<>();
+        private boolean closed;
+
+        private Lane(final Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            synchronized(lock) {
+                if(closed || shutdown) {
+                    throw new RejectedExecutionException(String.format("Pool for %s is shutdown", key));
+                }
+                if(pending.isEmpty()) {
+                    ready.add(this);
+                }
+                pending.add(command);
+                dispatch();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            synchronized(lock) {
+                closed = true;
+            }
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            synchronized(lock) {
+                closed = true;
+                final List<Runnable> tasks = new ArrayList<>(pending);
+                pending.clear();
+                ready.remove(this);
+                for(Runnable task : tasks) {
+                    if(task instanceof Future) {
+                        // Do not leave callers waiting for tasks never run
+                        ((Future<?>) task).cancel(false);
+                    }
+                }
+                for(Thread thread : active) {
+                    thread.interrupt();
+                }
+                lock.notifyAll();
+                return tasks;
+            }
+        }
+
+        @Override
+        public boolean isShutdown() {
+            synchronized(lock) {
+                return closed;
+            }
+        }
+
+        @Override
+        public boolean isTerminated() {
+            synchronized(lock) {
+                return closed && pending.isEmpty() && active.isEmpty();
+            }
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized(lock) {
+                while(!this.isTerminated()) {
+                    final long remaining = deadline - System.nanoTime();
+                    if(remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Lane{");
+            sb.append("key=").append(key);
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+
+    private static final class LanePool extends ExecutorServiceThreadPool {
+        private LanePool(final Lane lane) {
+            super(lane);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SegmentScheduler{");
+        sb.append("concurrency=").append(concurrency);
+        sb.append(", pool=").append(pool);
+        sb.append('}');
+        return sb.toString();
+    }
+}
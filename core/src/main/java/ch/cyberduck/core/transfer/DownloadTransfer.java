@@ -30,6 +30,7 @@ import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.ProgressListener;
+import ch.cyberduck.core.RecursiveListService;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Bulk;
@@ -62,8 +63,10 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class DownloadTransfer extends Transfer {
     private static final Logger log = Logger.getLogger(DownloadTransfer.class);
@@ -73,7 +76,13 @@ public class DownloadTransfer extends Transfer {
     private final Comparator<Path> comparator;
 
     private Cache<Path> cache
-        = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
+        = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"), PreferencesFactory.get().getLong("transfer.cache.memory"));
+
+    /**
+     * Directories already listed recursively for this transfer with any session
+     */
+    private final Set<Path> listed
+        = Collections.synchronizedSet(new HashSet<>());
 
     private final DownloadSymlinkResolver symlinkResolver;
 
@@ -139,7 +148,14 @@ public class DownloadTransfer extends Transfer {
                 list = cache.get(directory);
             }
             else {
-                list = session.getFeature(ListService.class).list(directory, listener);
+                final ListService service = session.getFeature(ListService.class);
+                if(PreferencesFactory.get().getBoolean("queue.listing.recursive")) {
+                    // Saves listing of all subdirectories in cache if supported
+                    list = new RecursiveListService(service, cache, listed).list(directory, listener);
+                }
+                else {
+                    list = service.list(directory, listener);
+                }
                 cache.put(directory, list);
             }
             final List<TransferItem> children = new ArrayList<TransferItem>();
@@ -276,7 +292,7 @@ public class DownloadTransfer extends Transfer {
             }
             // Transfer
             final Download download = source.getFeature(Download.class);
-            download.download(file, local, bandwidth, new IconUpdateSreamListener(streamListener, status, local) {
+            download.download(file, local, this.getConnectionBandwidth(source), new IconUpdateSreamListener(streamListener, status, local) {
                 @Override
                 public void recv(final long bytes) {
                     addTransferred(bytes);
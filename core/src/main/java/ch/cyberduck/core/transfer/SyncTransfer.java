@@ -71,7 +71,7 @@ public class SyncTransfer extends Transfer {
     private final TransferItem item;
 
     private Cache<Path> cache
-        = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
+        = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"), PreferencesFactory.get().getLong("transfer.cache.memory"));
 
     private final Map<TransferItem, Comparison> comparisons = Collections.synchronizedMap(new LRUMap<TransferItem, Comparison>(
         PreferencesFactory.get().getInteger("transfer.cache.size")));
@@ -47,6 +47,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class Transfer implements Serializable {
@@ -69,6 +70,11 @@ public abstract class Transfer implements Serializable {
 
     private final Map<Local, Object> locks = new HashMap<>();
 
+    /**
+     * Throttle for each connection used by this transfer
+     */
+    private final Map<Session<?>, BandwidthThrottle> connections = Collections.synchronizedMap(new WeakHashMap<>());
+
     public abstract Type getType();
 
     public enum Type {
@@ -213,6 +219,25 @@ public abstract class Transfer implements Serializable {
         return bandwidth;
     }
 
+    /**
+     * @param session Connection borrowed to transfer file
+     * @return Throttle for a single connection sharing the bandwidth of this transfer with other connections. The
+     * same throttle is returned for all files and segments transferred with the same connection.
+     */
+    protected BandwidthThrottle getConnectionBandwidth(final Session<?> session) {
+        final float limit = PreferencesFactory.get().getFloat("queue.connections.bandwidth.bytes");
+        if(limit < 0) {
+            return bandwidth;
+        }
+        final BandwidthThrottle throttle = connections.get(session);
+        if(null != throttle && throttle.getParent() == bandwidth && throttle.getRate() == limit) {
+            return throttle;
+        }
+        final BandwidthThrottle connection = new BandwidthThrottle(bandwidth, limit);
+        connections.put(session, connection);
+        return connection;
+    }
+
     /**
      * @return Time when transfer did end
      */
@@ -312,7 +337,7 @@ public abstract class Transfer implements Serializable {
     /**
      * @param source      Connection to source server of transfer. May be null.
      * @param destination Connection to target server of transfer
-     * @param files       Files pending transfer
+     * @param files       Files pending transfer. May be called multiple times with subsets of files before post
      * @param callback    Prompt
      */
     public void pre(final Session<?> source, final Session<?> destination, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
@@ -320,10 +345,14 @@ public abstract class Transfer implements Serializable {
             switch(this.getType()) {
                 case download:
                     final Local directory = item.local.getParent();
-                    locks.put(directory, directory.lock(true));
+                    if(!locks.containsKey(directory)) {
+                        locks.put(directory, directory.lock(true));
+                    }
                     break;
                 case upload:
-                    locks.put(item.local, item.local.lock(true));
+                    if(!locks.containsKey(item.local)) {
+                        locks.put(item.local, item.local.lock(true));
+                    }
                     break;
             }
         }
@@ -41,6 +41,18 @@ public final class TransferOptions {
     public boolean open =
             PreferencesFactory.get().getBoolean("queue.download.complete.open");
 
+    /**
+     * Transfer files as soon as their status is determined
+     */
+    public boolean pipeline =
+            PreferencesFactory.get().getBoolean("queue.transfer.pipeline");
+
+    /**
+     * Transfer files while other files are still prepared
+     */
+    public boolean overlap =
+            PreferencesFactory.get().getBoolean("queue.transfer.overlap");
+
     public TransferOptions open(boolean e) {
         open = e;
         return this;
@@ -51,6 +63,16 @@ public final class TransferOptions {
         return this;
     }
 
+    public TransferOptions pipeline(boolean e) {
+        pipeline = e;
+        return this;
+    }
+
+    public TransferOptions overlap(boolean e) {
+        overlap = e;
+        return this;
+    }
+
     public TransferOptions reload(boolean e) {
         reloadRequested = e;
         return this;
@@ -68,6 +90,8 @@ public final class TransferOptions {
         sb.append("{resumeRequested=").append(resumeRequested);
         sb.append(", reloadRequested=").append(reloadRequested);
         sb.append(", quarantine=").append(quarantine);
+        sb.append(", pipeline=").append(pipeline);
+        sb.append(", overlap=").append(overlap);
         sb.append('}');
         return sb.toString();
     }
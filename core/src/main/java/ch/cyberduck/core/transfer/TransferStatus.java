@@ -28,6 +28,8 @@ import ch.cyberduck.core.io.Checksum;
 import ch.cyberduck.core.io.StreamCancelation;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.random.NonceGenerator;
+import ch.cyberduck.core.local.SegmentedFile;
+import ch.cyberduck.core.threading.SegmentScheduler;
 
 import org.apache.log4j.Logger;
 
@@ -167,6 +169,16 @@ public class TransferStatus implements StreamCancelation, StreamProgress {
      */
     private NonceGenerator nonces;
 
+    /**
+     * Shared limit for concurrent segments of all files in transfer
+     */
+    private SegmentScheduler scheduler;
+
+    /**
+     * Target file shared by segments writing at their offset
+     */
+    private SegmentedFile segmentedFile;
+
     private Object lockId;
 
     public TransferStatus() {
@@ -202,6 +214,8 @@ public class TransferStatus implements StreamCancelation, StreamProgress {
         this.header = copy.header;
         this.filekey = copy.filekey;
         this.nonces = copy.nonces;
+        this.scheduler = copy.scheduler;
+        this.segmentedFile = copy.segmentedFile;
         this.lockId = copy.lockId;
     }
 
@@ -567,6 +581,38 @@ public class TransferStatus implements StreamCancelation, StreamProgress {
         return this;
     }
 
+    /**
+     * @return Null if segments of this file should use their own pool
+     */
+    public SegmentScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(final SegmentScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public TransferStatus withScheduler(final SegmentScheduler scheduler) {
+        this.setScheduler(scheduler);
+        return this;
+    }
+
+    /**
+     * @return Null if segment is written to its own file
+     */
+    public SegmentedFile getSegmentedFile() {
+        return segmentedFile;
+    }
+
+    public void setSegmentedFile(final SegmentedFile segmentedFile) {
+        this.segmentedFile = segmentedFile;
+    }
+
+    public TransferStatus withSegmentedFile(final SegmentedFile segmentedFile) {
+        this.setSegmentedFile(segmentedFile);
+        return this;
+    }
+
     public Object getLockId() {
         return lockId;
     }
@@ -70,7 +70,7 @@ public class UploadTransfer extends Transfer {
     private final Comparator<Local> comparator;
 
     private Cache<Path> cache
-            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
+            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"), PreferencesFactory.get().getLong("transfer.cache.memory"));
 
     private UploadFilterOptions options = new UploadFilterOptions();
 
@@ -253,7 +253,7 @@ public class UploadTransfer extends Transfer {
                     file.getName()));
             // Transfer
             final Upload upload = source.getFeature(Upload.class);
-            upload.upload(file, local, bandwidth, new DelegateStreamListener(streamListener) {
+            upload.upload(file, local, this.getConnectionBandwidth(source), new DelegateStreamListener(streamListener) {
                 @Override
                 public void sent(final long bytes) {
                     addTransferred(bytes);
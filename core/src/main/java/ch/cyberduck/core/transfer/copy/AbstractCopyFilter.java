@@ -57,10 +57,10 @@ public abstract class AbstractCopyFilter implements TransferPathFilter {
     protected final Session<?> destinationSession;
 
     protected Cache<Path> sourceCache
-            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
+            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"), PreferencesFactory.get().getLong("transfer.cache.memory"));
 
     protected final Cache<Path> destinationCache
-            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
+            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"), PreferencesFactory.get().getLong("transfer.cache.memory"));
 
     protected final Map<Path, Path> files;
 
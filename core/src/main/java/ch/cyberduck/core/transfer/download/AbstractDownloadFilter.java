@@ -45,6 +45,7 @@ import ch.cyberduck.core.local.IconService;
 import ch.cyberduck.core.local.IconServiceFactory;
 import ch.cyberduck.core.local.QuarantineService;
 import ch.cyberduck.core.local.QuarantineServiceFactory;
+import ch.cyberduck.core.local.SegmentedFile;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
@@ -59,6 +60,7 @@ import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 
@@ -83,7 +85,7 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
 
     protected AttributesFinder attribute;
 
-    private DownloadFilterOptions options;
+    protected DownloadFilterOptions options;
 
     protected AbstractDownloadFilter(final SymlinkResolver<Path> symlinkResolver, final Session<?> session,
                                      final DownloadFilterOptions options) {
@@ -214,19 +216,20 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
                         final List<TransferStatus> segments = new ArrayList<TransferStatus>();
                         final Local segmentsFolder = LocalFactory.get(local.getParent(), String.format("%s.cyberducksegment", local.getName()));
                         for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
-                            final Local segmentFile = LocalFactory.get(
-                                segmentsFolder, String.format("%s-%d.cyberducksegment", local.getName(), segmentNumber));
-                            boolean skip = false;
                             // Last part can be less than 5 MB. Adjust part size.
                             Long length = Math.min(partsize, remaining);
                             final TransferStatus segmentStatus = new TransferStatus()
                                 .segment(true)
                                 .append(true)
                                 .skip(offset)
-                                .length(length)
-                                .rename(segmentFile);
+                                .length(length);
+                            if(!options.positional) {
+                                final Local segmentFile = LocalFactory.get(
+                                    segmentsFolder, String.format("%s-%d.cyberducksegment", local.getName(), segmentNumber));
+                                segmentStatus.rename(segmentFile);
+                            }
                             if(log.isDebugEnabled()) {
-                                log.debug(String.format("Adding status %s for segment %s", segmentStatus, segmentFile));
+                                log.debug(String.format("Adding status %s for segment %d", segmentStatus, segmentNumber));
                             }
                             segments.add(segmentStatus);
                             remaining -= length;
@@ -246,7 +249,28 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
     @Override
     public void apply(final Path file, final Local local, final TransferStatus status,
                       final ProgressListener listener) throws BackgroundException {
-        //
+        if(status.isSegmented() && options.positional) {
+            // Segments write to final target file determined by filter
+            final SegmentedFile target = new SegmentedFile(local, status.getLength(), status.getSegments());
+            if(status.isAppend()) {
+                // Skip segments recorded as complete in previous attempt
+                final BitSet completed = target.load();
+                final List<TransferStatus> segments = status.getSegments();
+                for(int i = completed.nextSetBit(0); i >= 0 && i < segments.size(); i = completed.nextSetBit(i + 1)) {
+                    final TransferStatus segmentStatus = segments.get(i);
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Skip completed segment %s", segmentStatus));
+                    }
+                    segmentStatus.setComplete();
+                    // Report bytes already written as progress. Transfer length remains the length of the file
+                    status.progress(segmentStatus.getLength());
+                }
+            }
+            status.setSegmentedFile(target);
+            for(TransferStatus segmentStatus : status.getSegments()) {
+                segmentStatus.setSegmentedFile(target);
+            }
+        }
     }
 
     /**
@@ -260,6 +284,10 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
             log.debug(String.format("Complete %s with status %s", file.getAbsolute(), status));
         }
         if(status.isSegment()) {
+            if(status.isComplete() && null != status.getSegmentedFile()) {
+                // Record progress to resume
+                status.getSegmentedFile().complete(status);
+            }
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Skip completion for single segment %s", status));
             }
@@ -267,7 +295,13 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
         }
         else {
             if(status.isComplete()) {//todo check if else
-                if(status.isSegmented()) {
+                if(null != status.getSegmentedFile()) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Completed all segments written to file %s", local));
+                    }
+                    status.getSegmentedFile().finish();
+                }
+                else if(status.isSegmented()) {
                     // Obtain ordered list of segments to reassemble
                     final List<TransferStatus> segments = status.getSegments();
                     if(log.isInfoEnabled()) {
@@ -38,7 +38,7 @@ public class CompareFilter extends AbstractDownloadFilter {
     private final ComparisonServiceFilter comparisonService;
 
     protected Cache<Path> cache
-            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"));
+            = new PathCache(PreferencesFactory.get().getInteger("transfer.cache.size"), PreferencesFactory.get().getLong("transfer.cache.memory"));
 
     public CompareFilter(final SymlinkResolver<Path> symlinkResolver, final Session<?> session, final ProgressListener listener) {
         this(symlinkResolver, session, new DownloadFilterOptions(),
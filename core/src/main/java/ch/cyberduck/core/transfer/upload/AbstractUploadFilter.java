@@ -60,7 +60,9 @@ import ch.cyberduck.core.transfer.symlink.SymlinkResolver;
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 
 public abstract class AbstractUploadFilter implements TransferPathFilter {
     private static final Logger log = Logger.getLogger(AbstractUploadFilter.class);
@@ -296,7 +298,64 @@ public abstract class AbstractUploadFilter implements TransferPathFilter {
     @Override
     public void apply(final Path file, final Local local, final TransferStatus status,
                       final ProgressListener listener) throws BackgroundException {
-        //
+        if(options.segments) {
+            // Only for complete file as segments are written without truncating the target
+            if(local.isFile() && !local.isSymbolicLink() && !status.isAppend()) {
+                // Make segments
+                if(status.getLength() >= preferences.getLong("queue.upload.segments.threshold")
+                    && status.getLength() > preferences.getLong("queue.upload.segments.size")) {
+                    final Write write = session.getFeature(Write.class);
+                    if(write.concurrent()) {
+                        if(null == status.getDisplayname().remote) {
+                            // Write segments to temporary file renamed when all segments are complete. An interrupted
+                            // transfer must not leave a file with unwritten ranges at the target to resume from.
+                            final Path target = null == status.getRename().remote ? file : status.getRename().remote;
+                            final Move feature = session.getFeature(Move.class);
+                            final Path renamed = new Path(target.getParent(),
+                                MessageFormat.format(preferences.getProperty("queue.upload.file.temporary.format"),
+                                    target.getName(), new AlphanumericRandomStringService().random()), target.getType());
+                            if(!feature.isSupported(target, renamed)) {
+                                log.warn(String.format("Skip segments for %s without support for temporary filename", file));
+                                return;
+                            }
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("Set temporary filename %s for segments", renamed));
+                            }
+                            status.temporary(renamed);
+                            status.withDisplayname(target);
+                        }
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Split upload %s into segments", local));
+                        }
+                        long remaining = status.getLength();
+                        long offset = 0;
+                        // Part size from default setting of size divided by maximum number of connections
+                        long partsize = Math.max(
+                            preferences.getLong("queue.upload.segments.size"),
+                            status.getLength() / preferences.getInteger("queue.connections.limit"));
+                        // Sorted list
+                        final List<TransferStatus> segments = new ArrayList<TransferStatus>();
+                        while(remaining > 0) {
+                            final Long length = Math.min(partsize, remaining);
+                            // Write to temporary target at offset of segment
+                            final TransferStatus segmentStatus = new TransferStatus()
+                                .segment(true)
+                                .append(true)
+                                .skip(offset)
+                                .length(length)
+                                .rename(status.getRename().remote);
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("Adding status %s for segment of %s", segmentStatus, file));
+                            }
+                            segments.add(segmentStatus);
+                            remaining -= length;
+                            offset += length;
+                        }
+                        status.withSegments(segments);
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -306,6 +365,12 @@ public abstract class AbstractUploadFilter implements TransferPathFilter {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Complete %s with status %s", file.getAbsolute(), status));
         }
+        if(status.isSegment()) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Skip completion for single segment %s", status));
+            }
+            return;
+        }
         if(status.isComplete()) {
             if(!Permission.EMPTY.equals(status.getPermission())) {
                 final UnixPermission feature = session.getFeature(UnixPermission.class);
@@ -350,7 +415,7 @@ public abstract class AbstractUploadFilter implements TransferPathFilter {
                 }
             }
             if(file.isFile()) {
-                if(this.options.temporary) {
+                if(status.getDisplayname().remote != null) {
                     final Move move = session.getFeature(Move.class);
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Rename file %s to %s", file, status.getDisplayname().remote));
@@ -107,6 +107,7 @@ public class ResumeFilter extends AbstractUploadFilter {
                     status.setOffset(append.size);
                     // Disable use of temporary target when resuming upload
                     status.rename((Path) null);
+                    status.withDisplayname((Path) null);
                 }
             }
         }
@@ -22,12 +22,14 @@ import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Bulk;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.features.Vault;
 import ch.cyberduck.core.transfer.Transfer;
 import ch.cyberduck.core.transfer.TransferItem;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.vault.VaultRegistry;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class VaultRegistryBulkFeature<R> implements Bulk<R> {
@@ -64,8 +66,18 @@ public class VaultRegistryBulkFeature<R> implements Bulk<R> {
 
     @Override
     public void post(final Transfer.Type type, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+        // Files not in vault passed together
+        final Map<TransferItem, TransferStatus> plain = new LinkedHashMap<>();
         for(Map.Entry<TransferItem, TransferStatus> file : files.entrySet()) {
-            registry.find(session, file.getKey().remote).getFeature(session, Bulk.class, proxy).post(type, Collections.singletonMap(file.getKey(), file.getValue()), callback);
+            final Vault vault = registry.find(session, file.getKey().remote);
+            if(vault.equals(Vault.DISABLED)) {
+                plain.put(file.getKey(), file.getValue());
+                continue;
+            }
+            vault.getFeature(session, Bulk.class, proxy).post(type, Collections.singletonMap(file.getKey(), file.getValue()), callback);
+        }
+        if(!plain.isEmpty()) {
+            proxy.post(type, plain, callback);
         }
     }
 
@@ -22,9 +22,11 @@ import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.UnsupportedException;
 import ch.cyberduck.core.features.Vault;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
 import ch.cyberduck.core.vault.VaultFinderListProgressListener;
 import ch.cyberduck.core.vault.VaultFinderListService;
 import ch.cyberduck.core.vault.VaultLookupListener;
@@ -71,6 +73,52 @@ public class VaultRegistryListService implements ListService {
         }
     }
 
+    /**
+     * Only list recursively when no vault is registered in the directory or any of its descendants. Vaults not yet
+     * registered are detected in the result of the recursive listing.
+     */
+    @Override
+    public boolean isRecursive(final Path directory) {
+        try {
+            if(registry.find(session, directory).contains(directory)) {
+                return false;
+            }
+        }
+        catch(VaultUnlockCancelException e) {
+            return false;
+        }
+        if(registry instanceof DefaultVaultRegistry) {
+            for(Vault vault : (DefaultVaultRegistry) registry) {
+                if(vault.getHome().isChild(directory)) {
+                    // Descendants in vault must be decrypted
+                    return false;
+                }
+            }
+        }
+        return proxy.isRecursive(directory);
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        // Decide before enumerating all descendants
+        if(!this.isRecursive(directory)) {
+            throw new UnsupportedException(String.format("Vault in %s", directory));
+        }
+        final AttributedList<Path> list = proxy.listRecursive(directory, listener);
+        if(autodetect) {
+            for(Path file : list) {
+                if(DefaultVaultRegistry.DEFAULT_MASTERKEY_FILE_NAME.equals(file.getName())) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Found master key %s in recursive listing of %s", file, directory));
+                    }
+                    // Descendants in vault must be decrypted after listing per directory
+                    throw new UnsupportedException(String.format("Vault in %s", file.getParent()));
+                }
+            }
+        }
+        return list;
+    }
+
     @Override
     public ListService withCache(final Cache<Path> cache) {
         proxy.withCache(cache);
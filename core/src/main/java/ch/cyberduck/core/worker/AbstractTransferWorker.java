@@ -37,6 +37,8 @@ import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.exception.TransferCanceledException;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.NotificationService;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.SegmentScheduler;
 import ch.cyberduck.core.threading.TransferBackgroundActionState;
 import ch.cyberduck.core.transfer.SynchronizingTransferErrorCallback;
 import ch.cyberduck.core.transfer.Transfer;
@@ -54,10 +56,22 @@ import org.apache.commons.lang3.concurrent.ConcurrentUtils;
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
     private static final Logger log = Logger.getLogger(AbstractTransferWorker.class);
@@ -85,6 +99,31 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
      * Workload
      */
     private final Cache<TransferItem> cache;
+    /**
+     * Files listed but not yet prepared when pipelined
+     */
+    private final Deque<Pending> pending = new ConcurrentLinkedDeque<>();
+    /**
+     * Transferred directories to complete after all files are transferred when pipelined or overlapping. Most
+     * recently transferred first.
+     */
+    private final Deque<Map.Entry<TransferItem, TransferStatus>> directories = new ConcurrentLinkedDeque<>();
+    /**
+     * Prepared files with parent directory transferred when overlapping
+     */
+    private final Queue<TransferItem> ready = new ConcurrentLinkedQueue<>();
+    /**
+     * Prepared files by parent directory not yet transferred when overlapping
+     */
+    private final Map<TransferItem, List<TransferItem>> waiting = new HashMap<>();
+    /**
+     * Directories transferred when overlapping
+     */
+    private final Set<TransferItem> transferred = new HashSet<>();
+    /**
+     * Number of files accepted by filter
+     */
+    private final AtomicInteger accepted = new AtomicInteger();
     private final ProgressListener progress;
     private final StreamListener stream;
 
@@ -158,6 +197,13 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
      */
     protected abstract void release(Session session, Connection type, BackgroundException failure);
 
+    /**
+     * @return Scheduler for segments shared by all files in transfer or null to use a pool per file
+     */
+    protected SegmentScheduler scheduler() {
+        return null;
+    }
+
     @Override
     public Boolean initialize() {
         return false;
@@ -182,6 +228,16 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
         // No need to implement for single threaded transfer
     }
 
+    /**
+     * Await completion of the next submitted task
+     *
+     * @return False if no task is pending
+     */
+    protected boolean poll() throws BackgroundException {
+        // No need to implement for single threaded transfer
+        return false;
+    }
+
     @Override
     public Boolean run() throws BackgroundException {
         final String lock = sleep.lock();
@@ -215,6 +271,15 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
             progress.message(MessageFormat.format(LocaleFactory.localizedString("Prepare {0} ({1})", "Status"), transfer.getName(), action.getTitle()));
             transfer.normalize();
 
+            accepted.set(0);
+            if(options.overlap) {
+                this.overlap(source, destination, action);
+                return true;
+            }
+            if(options.pipeline) {
+                this.pipeline(source, destination, action);
+                return true;
+            }
             // Calculate information about the files in advance to give progress information
             for(TransferItem next : transfer.getRoots()) {
                 this.prepare(next.remote, next.local, new TransferStatus().exists(true), action);
@@ -238,12 +303,187 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     "Transfer incomplete", transfer.getName());
             }
             sleep.release(lock);
+            pending.clear();
+            directories.clear();
+            ready.clear();
+            synchronized(waiting) {
+                waiting.clear();
+                transferred.clear();
+            }
             table.clear();
             cache.clear();
         }
         return true;
     }
 
+    /**
+     * Transfer files as soon as prepared and the parent directory has been transferred while other directories
+     * are still listed. The total size of the transfer only includes files prepared so far. Transfer#pre is
+     * called for every batch of files before any of them is transferred and Transfer#post once after all
+     * transfers completed.
+     *
+     * @param action Transfer action for existing files
+     */
+    protected void overlap(final Session<?> source, final Session<?> destination, final TransferAction action) throws BackgroundException {
+        meter.reset();
+        for(TransferItem next : transfer.getRoots()) {
+            this.prepare(next.remote, next.local, null, new TransferStatus().exists(true), action);
+        }
+        while(true) {
+            final Map<TransferItem, TransferStatus> batch = new LinkedHashMap<>();
+            for(TransferItem next = ready.poll(); next != null; next = ready.poll()) {
+                batch.put(next, table.get(next));
+            }
+            if(!batch.isEmpty()) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Transfer %d prepared files", batch.size()));
+                }
+                transfer.pre(source, destination, batch, connectionCallback);
+                for(TransferItem next : batch.keySet()) {
+                    this.transfer(next, action);
+                }
+                continue;
+            }
+            if(!this.poll()) {
+                // No more files can be prepared
+                break;
+            }
+        }
+        this.finish(source, destination, action);
+        transfer.post(source, destination, table, connectionCallback);
+    }
+
+    /**
+     * Complete transferred directories after all contained files are transferred with children before their parent
+     *
+     * @param action Transfer action for existing files
+     */
+    private void finish(final Session<?> source, final Session<?> destination, final TransferAction action) throws BackgroundException {
+        if(directories.isEmpty()) {
+            return;
+        }
+        // Determine transfer filter implementation from selected overwrite action
+        final TransferPathFilter filter = transfer.filter(source, destination, action, progress);
+        for(Map.Entry<TransferItem, TransferStatus> next = directories.pollFirst(); next != null; next = directories.pollFirst()) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Complete directory %s", next.getKey()));
+            }
+            filter.complete(next.getKey().remote, next.getKey().local, options, next.getValue(), progress);
+        }
+    }
+
+    /**
+     * Queue prepared file for transfer once parent directory is transferred
+     *
+     * @param item      Prepared file
+     * @param directory Parent directory or null for root of transfer
+     */
+    private void schedule(final TransferItem item, final TransferItem directory) {
+        synchronized(waiting) {
+            if(null == directory || transferred.contains(directory)) {
+                ready.add(item);
+            }
+            else {
+                waiting.computeIfAbsent(directory, key -> new ArrayList<>()).add(item);
+            }
+        }
+    }
+
+    /**
+     * Release prepared children for transfer
+     *
+     * @param directory Directory transferred
+     */
+    private void complete(final TransferItem directory) {
+        synchronized(waiting) {
+            transferred.add(directory);
+            final List<TransferItem> children = waiting.remove(directory);
+            if(children != null) {
+                ready.addAll(children);
+            }
+        }
+    }
+
+    /**
+     * Prepare and transfer files in windows of limited size. Children of directories are prepared depth first
+     * after the directory has been listed. The total size of the transfer is updated with every file prepared.
+     * No further directory is listed while the number of listed files not yet prepared exceeds its limit until
+     * listings in progress have completed. Directories are completed after all files are transferred.
+     *
+     * @param action Transfer action for existing files
+     */
+    protected void pipeline(final Session<?> source, final Session<?> destination, final TransferAction action) throws BackgroundException {
+        final int window = PreferencesFactory.get().getInteger("queue.transfer.pipeline.window");
+        final int limit = PreferencesFactory.get().getInteger("queue.transfer.pipeline.pending");
+        for(TransferItem next : transfer.getRoots()) {
+            pending.add(new Pending(next, null, new TransferStatus().exists(true)));
+        }
+        meter.reset();
+        while(!pending.isEmpty()) {
+            final List<Pending> prepared = new ArrayList<>();
+            // No preparation submitted since awaiting completion
+            boolean idle = true;
+            while(prepared.size() < window) {
+                final Pending next = pending.pollFirst();
+                if(null == next) {
+                    // Wait for directory listings adding to pending files
+                    this.await();
+                    idle = true;
+                    if(pending.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                if(!idle && next.item.remote.isDirectory() && pending.size() >= limit) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Wait for listings in progress with %d pending files", pending.size()));
+                    }
+                    // Block listing directory until listed files are prepared
+                    pending.addFirst(next);
+                    this.await();
+                    idle = true;
+                    continue;
+                }
+                prepared.add(next);
+                this.prepare(next.item.remote, next.item.local, next.parent, action);
+                idle = false;
+            }
+            this.await();
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Transfer %d prepared files with %d pending", table.size(), pending.size()));
+            }
+            // Files with parent directory in the same window are transferred after the parent
+            final List<TransferItem> roots = new ArrayList<>();
+            final Map<TransferItem, List<TransferItem>> children = new LinkedHashMap<>();
+            for(Pending next : prepared) {
+                if(!table.containsKey(next.item)) {
+                    continue;
+                }
+                if(next.directory != null && cache.isCached(next.directory)) {
+                    children.computeIfAbsent(next.directory, directory -> new ArrayList<>()).add(next.item);
+                }
+                else {
+                    roots.add(next.item);
+                }
+            }
+            for(Map.Entry<TransferItem, List<TransferItem>> entry : children.entrySet()) {
+                final AttributedList<TransferItem> list = cache.get(entry.getKey());
+                list.addAll(entry.getValue());
+                // Update index of cache
+                cache.put(entry.getKey(), list);
+            }
+            transfer.pre(source, destination, table, connectionCallback);
+            for(TransferItem next : roots) {
+                this.transfer(next, action);
+            }
+            this.await();
+            transfer.post(source, destination, table, connectionCallback);
+            table.clear();
+            cache.clear();
+        }
+        this.finish(source, destination, action);
+    }
+
     /**
      * To be called before any file is actually transferred
      *
@@ -251,6 +491,14 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
      * @param action Transfer action for existing files
      */
     public Future<TransferStatus> prepare(final Path file, final Local local, final TransferStatus parent, final TransferAction action) throws BackgroundException {
+        return this.prepare(file, local, null, parent, action);
+    }
+
+    /**
+     * @param directory Parent directory or null for root of transfer
+     * @param parent    Transfer status of parent directory
+     */
+    private Future<TransferStatus> prepare(final Path file, final Local local, final TransferItem directory, final TransferStatus parent, final TransferAction action) throws BackgroundException {
         if(log.isDebugEnabled()) {
             log.debug(String.format("Find transfer status of %s for transfer %s", file, this));
         }
@@ -286,27 +534,53 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             // Determine transfer status
                             final TransferStatus status = filter.prepare(file, local, parent, progress);
                             table.put(new TransferItem(file, local), status);
+                            accepted.incrementAndGet();
                             final TransferItem item = new TransferItem(
                                 status.getRename().remote != null ? status.getRename().remote : file,
                                 status.getRename().local != null ? status.getRename().local : local
                             );
                             // Apply filter
                             filter.apply(item.remote, item.local, status, progress);
-                            // Add transfer length to total bytes
-                            transfer.addSize(status.getLength() + status.getOffset());
+                            if(null != status.getSegmentedFile()) {
+                                // Length of file includes segments completed in previous attempt reported in offset
+                                transfer.addSize(status.getLength());
+                            }
+                            else {
+                                // Add transfer length to total bytes
+                                transfer.addSize(status.getLength() + status.getOffset());
+                            }
                             // Add skipped bytes
                             transfer.addTransferred(status.getOffset());
+                            if(options.overlap) {
+                                schedule(new TransferItem(file, local), directory);
+                            }
                             // Recursive
                             if(file.isDirectory()) {
                                 final List<TransferItem> children;
                                 // Call recursively for all children
                                 children = transfer.list(source, file, local, new WorkerListProgressListener(AbstractTransferWorker.this, progress));
-                                // Put into cache for later reference when transferring
-                                cache.put(item, new AttributedList<TransferItem>(children));
-                                // Call recursively
-                                for(TransferItem f : children) {
-                                    // Change download path relative to parent local folder
-                                    prepare(f.remote, f.local, status, action);
+                                if(options.overlap) {
+                                    for(TransferItem f : children) {
+                                        prepare(f.remote, f.local, new TransferItem(file, local), status, action);
+                                    }
+                                }
+                                else if(options.pipeline) {
+                                    final TransferItem key = new TransferItem(file, local);
+                                    // Children prepared in the same window are added when transferring
+                                    cache.put(key, new AttributedList<TransferItem>());
+                                    // Prepend in reverse order to prepare depth first
+                                    for(ListIterator<TransferItem> iter = children.listIterator(children.size()); iter.hasPrevious(); ) {
+                                        pending.addFirst(new Pending(iter.previous(), key, status));
+                                    }
+                                }
+                                else {
+                                    // Put into cache for later reference when transferring
+                                    cache.put(item, new AttributedList<TransferItem>(children));
+                                    // Call recursively
+                                    for(TransferItem f : children) {
+                                        // Change download path relative to parent local folder
+                                        prepare(f.remote, f.local, status, action);
+                                    }
                                 }
                             }
                             if(log.isInfoEnabled()) {
@@ -323,7 +597,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             // Retry immediately
                             return call();
                         }
-                        if(table.size() == 0) {
+                        if(accepted.get() == 0) {
                             // Fail fast when first item in queue fails preparing
                             throw e;
                         }
@@ -376,6 +650,10 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                 if(segment.isComplete()) {
                     continue;
                 }
+                segment.setScheduler(this.scheduler());
+                // Range of segment to restart from on failure
+                final long offset = segment.getOffset();
+                final long length = segment.getLength();
                 this.submit(new RetryTransferCallable() {
                     @Override
                     public TransferStatus call() throws BackgroundException {
@@ -386,7 +664,11 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                         // Do transfer with retry
                         this.retry(segment);
                         // Recursive
-                        if(item.remote.isDirectory()) {
+                        if(item.remote.isDirectory() && options.overlap) {
+                            // Children are transferred when prepared
+                            complete(item);
+                        }
+                        else if(item.remote.isDirectory()) {
                             if(!cache.isCached(item)) {
                                 log.warn(String.format("Missing entry for %s in cache", item));
                             }
@@ -396,6 +678,13 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             }
                             cache.remove(item);
                         }
+                        if(item.remote.isDirectory() && (options.overlap || options.pipeline)) {
+                            // Children may be transferred later. Complete after all files are transferred.
+                            directories.addFirst(new AbstractMap.SimpleImmutableEntry<>(new TransferItem(
+                                segment.getRename().remote != null ? segment.getRename().remote : item.remote,
+                                segment.getRename().local != null ? segment.getRename().local : item.local), segment));
+                            return segment;
+                        }
                         final Session<?> source = borrow(Connection.source);
                         final Session<?> destination = borrow(Connection.destination);
                         try {
@@ -436,6 +725,20 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             release(d, Connection.destination, e);
                             log.warn(String.format("Failure transferring %s. %s", item, e.getDetail()));
                             if(this.retry(e, progress, new TransferBackgroundActionState(status))) {
+                                if(segment.isSegment()) {
+                                    // Transfer complete segment again as resume is determined for the whole file
+                                    final Local partial = segment.getRename().local;
+                                    if(null != partial && partial.exists()) {
+                                        // Discard partial segment file appended to
+                                        partial.delete();
+                                    }
+                                    log.info(String.format("Retry %s with segment status %s", item, segment));
+                                    // Keep append flag to read range of segment
+                                    this.retry(segment
+                                        .length(length)
+                                        .skip(offset));
+                                    return;
+                                }
                                 final Session<?> source = borrow(Connection.source);
                                 final Session<?> destination = borrow(Connection.destination);
                                 try {
@@ -463,7 +766,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                                 log.debug(String.format("Cancel retry for %s", item));
                             }
                             segment.setFailure();
-                            if(table.size() == 1) {
+                            if(accepted.get() == 1) {
                                 // Fail fast when transferring single file
                                 throw e;
                             }
@@ -561,6 +864,24 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
         return cache;
     }
 
+    /**
+     * File listed with status of parent directory
+     */
+    private static final class Pending {
+        private final TransferItem item;
+        /**
+         * Parent directory or null for root of transfer
+         */
+        private final TransferItem directory;
+        private final TransferStatus parent;
+
+        private Pending(final TransferItem item, final TransferItem directory, final TransferStatus parent) {
+            this.item = item;
+            this.directory = directory;
+            this.parent = parent;
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("AbstractTransferWorker{");
@@ -0,0 +1,289 @@
+package ch.cyberduck.core.worker;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.Filter;
+import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.LocaleFactory;
+import ch.cyberduck.core.LoginCallback;
+import ch.cyberduck.core.NullFilter;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+import ch.cyberduck.core.ProgressListener;
+import ch.cyberduck.core.RecursiveListService;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.pool.StatefulSessionPool;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundActionState;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.apache.log4j.Logger;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Lists directories and deletes files concurrently with multiple connections from the pool. Files are deleted in
+ * batches as soon as they are found. A directory is deleted after all its children have been deleted.
+ */
+public class ConcurrentDeleteWorker extends DeleteWorker {
+    private static final Logger log = Logger.getLogger(ConcurrentDeleteWorker.class);
+
+    private final SessionPool pool;
+    private final List<Path> files;
+    private final LoginCallback prompt;
+    private final ProgressListener listener;
+    private final Filter<Path> filter;
+
+    /**
+     * Number of concurrent connections
+     */
+    private final int connections;
+    /**
+     * Maximum number of files passed to delete feature at once
+     */
+    private final int batchsize;
+
+    public ConcurrentDeleteWorker(final SessionPool pool, final LoginCallback prompt, final List<Path> files, final Cache<Path> cache, final ProgressListener listener) {
+        this(pool, prompt, files, cache, new NullFilter<Path>(), listener);
+    }
+
+    public ConcurrentDeleteWorker(final SessionPool pool, final LoginCallback prompt, final List<Path> files, final Cache<Path> cache, final Filter<Path> filter, final ProgressListener listener) {
+        this(pool, prompt, files, cache, filter, listener,
+            PreferencesFactory.get().getInteger("queue.delete.connections"), PreferencesFactory.get().getInteger("queue.delete.batchsize"));
+    }
+
+    public ConcurrentDeleteWorker(final SessionPool pool, final LoginCallback prompt, final List<Path> files, final Cache<Path> cache, final Filter<Path> filter, final ProgressListener listener,
+                                  final int connections, final int batchsize) {
+        super(prompt, files, cache, filter, listener);
+        this.pool = pool;
+        this.files = files;
+        this.prompt = prompt;
+        this.listener = listener;
+        this.filter = filter;
+        this.connections = connections;
+        this.batchsize = batchsize;
+    }
+
+    @Override
+    public List<Path> run(final Session<?> session) throws BackgroundException {
+        if(connections <= 1 || pool instanceof StatefulSessionPool || session.getFeature(Delete.class).isRecursive()) {
+            // Single connection in use by worker or no listing required
+            return super.run(session);
+        }
+        final ThreadPool threads = ThreadPoolFactory.get("delete", connections);
+        final CompletionService<Completion> completion = new ExecutorCompletionService<Completion>(threads.executor());
+        // Shared to answer listing of subdirectories from recursive listing
+        final Cache<Path> cache = new PathCache(Integer.MAX_VALUE);
+        // Number of children not yet deleted for every directory listed
+        final Map<Path, Integer> remaining = new HashMap<>();
+        // Files ready for deletion
+        final List<Path> pending = new ArrayList<>();
+        final List<Path> deleted = new ArrayList<>();
+        int running = 0;
+        try {
+            for(Path file : files) {
+                if(file.isDirectory() && !file.isSymbolicLink()) {
+                    completion.submit(new ListCallable(cache, file));
+                    running++;
+                }
+                else {
+                    pending.add(this.prepare(session.getHost(), file));
+                }
+            }
+            while(running > 0 || !pending.isEmpty()) {
+                if(this.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                // Submit batches of full size or when connections are idle
+                while(!pending.isEmpty() && (pending.size() >= batchsize || running < connections)) {
+                    final List<Path> batch = new ArrayList<>(pending.subList(0, Math.min(batchsize, pending.size())));
+                    pending.subList(0, batch.size()).clear();
+                    completion.submit(new DeleteCallable(batch));
+                    running++;
+                }
+                final Completion next;
+                try {
+                    next = completion.take().get();
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+                running--;
+                if(null != next.children) {
+                    final AttributedList<Path> children = next.children.filter(filter);
+                    remaining.put(next.directory, children.size());
+                    if(children.isEmpty()) {
+                        pending.add(next.directory);
+                    }
+                    for(Path child : children) {
+                        if(child.isDirectory() && !child.isSymbolicLink()) {
+                            completion.submit(new ListCallable(cache, child));
+                            running++;
+                        }
+                        else {
+                            pending.add(this.prepare(session.getHost(), child));
+                        }
+                    }
+                }
+                else {
+                    deleted.addAll(next.deleted);
+                    for(Path file : next.deleted) {
+                        final Path parent = file.getParent();
+                        final Integer count = remaining.get(parent);
+                        if(null == count) {
+                            // Selected file
+                            continue;
+                        }
+                        if(count == 1) {
+                            remaining.remove(parent);
+                            // Delete parent after children
+                            pending.add(parent);
+                        }
+                        else {
+                            remaining.put(parent, count - 1);
+                        }
+                    }
+                }
+            }
+            return deleted;
+        }
+        finally {
+            threads.shutdown(false);
+        }
+    }
+
+    private Session<?> borrow() throws BackgroundException {
+        return pool.borrow(new BackgroundActionState() {
+            @Override
+            public boolean isCanceled() {
+                return ConcurrentDeleteWorker.this.isCanceled();
+            }
+
+            @Override
+            public boolean isRunning() {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Result of listing a directory or deleting a batch of files
+     */
+    private static final class Completion {
+        private final Path directory;
+        private final AttributedList<Path> children;
+        private final List<Path> deleted;
+
+        private Completion(final Path directory, final AttributedList<Path> children, final List<Path> deleted) {
+            this.directory = directory;
+            this.children = children;
+            this.deleted = deleted;
+        }
+    }
+
+    private final class ListCallable implements Callable<Completion> {
+        private final Cache<Path> cache;
+        private final Path directory;
+
+        private ListCallable(final Cache<Path> cache, final Path directory) {
+            this.cache = cache;
+            this.directory = directory;
+        }
+
+        @Override
+        public Completion call() throws BackgroundException {
+            final Session<?> session = ConcurrentDeleteWorker.this.borrow();
+            BackgroundException failure = null;
+            try {
+                final ListService list = PreferencesFactory.get().getBoolean("queue.listing.recursive") ?
+                    new RecursiveListService(session.getFeature(ListService.class), cache) :
+                    session.getFeature(ListService.class);
+                return new Completion(directory, list.list(directory, new WorkerListProgressListener(ConcurrentDeleteWorker.this, listener)), null);
+            }
+            catch(BackgroundException e) {
+                failure = e;
+                throw e;
+            }
+            finally {
+                pool.release(session, failure);
+            }
+        }
+    }
+
+    private final class DeleteCallable implements Callable<Completion> {
+        private final List<Path> batch;
+
+        private DeleteCallable(final List<Path> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public Completion call() throws BackgroundException {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Delete batch of %d files", batch.size()));
+            }
+            final Session<?> session = ConcurrentDeleteWorker.this.borrow();
+            BackgroundException failure = null;
+            try {
+                session.getFeature(Delete.class).delete(batch, prompt, new Delete.Callback() {
+                    @Override
+                    public void delete(final Path file) {
+                        listener.message(MessageFormat.format(LocaleFactory.localizedString("Deleting {0}", "Status"),
+                            file.getName()));
+                    }
+                });
+                return new Completion(null, null, batch);
+            }
+            catch(BackgroundException e) {
+                failure = e;
+                throw e;
+            }
+            finally {
+                pool.release(session, failure);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ConcurrentDeleteWorker{");
+        sb.append("files=").append(files);
+        sb.append(", connections=").append(connections);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,245 @@
+package ch.cyberduck.core.worker;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.Filter;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.Search;
+import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.pool.StatefulSessionPool;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundActionState;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Searches directories concurrently with multiple connections from the pool for protocols without recursive search
+ * on the server. Matches are passed to the listener as they are found. Folders are only added to the result with the
+ * first match found below.
+ */
+public class ConcurrentSearchWorker extends SearchWorker {
+    private static final Logger log = Logger.getLogger(ConcurrentSearchWorker.class);
+
+    private final SessionPool pool;
+    private final Path directory;
+    private final Filter<Path> filter;
+    private final Cache<Path> cache;
+    private final ListProgressListener listener;
+
+    /**
+     * Number of concurrent connections
+     */
+    private final int connections;
+    /**
+     * Stop searching after number of files found
+     */
+    private int limit;
+    /**
+     * Maximum depth of folders to search in relative to search directory
+     */
+    private int depth;
+
+    public ConcurrentSearchWorker(final SessionPool pool, final Path directory, final Filter<Path> filter, final Cache<Path> cache, final ListProgressListener listener) {
+        this(pool, directory, filter, cache, listener, PreferencesFactory.get().getInteger("browser.search.connections"));
+    }
+
+    public ConcurrentSearchWorker(final SessionPool pool, final Path directory, final Filter<Path> filter, final Cache<Path> cache, final ListProgressListener listener,
+                                  final int connections) {
+        super(directory, filter, cache, listener);
+        this.pool = pool;
+        this.directory = directory;
+        this.filter = filter;
+        this.cache = cache;
+        this.listener = listener;
+        this.connections = connections;
+        this.withLimit(PreferencesFactory.get().getInteger("browser.search.limit"));
+        this.withDepth(PreferencesFactory.get().getInteger("browser.search.depth"));
+    }
+
+    /**
+     * @param limit Maximum number of files to find or -1 for no limit. Not applicable for search on server.
+     */
+    public ConcurrentSearchWorker withLimit(final int limit) {
+        this.limit = limit < 0 ? Integer.MAX_VALUE : limit;
+        return this;
+    }
+
+    /**
+     * @param depth Maximum depth of folders to search in or -1 for no limit. Zero to only search in directory. Not
+     *              applicable for search on server.
+     */
+    public ConcurrentSearchWorker withDepth(final int depth) {
+        this.depth = depth < 0 ? Integer.MAX_VALUE : depth;
+        return this;
+    }
+
+    @Override
+    public AttributedList<Path> run(final Session<?> session) throws BackgroundException {
+        if(connections <= 1 || pool instanceof StatefulSessionPool || session.getFeature(Search.class).isRecursive()) {
+            // Single connection in use by worker or search on server
+            return super.run(session);
+        }
+        final ThreadPool threads = ThreadPoolFactory.get("search", connections);
+        final CompletionService<Completion> completion = new ExecutorCompletionService<Completion>(threads.executor());
+        // Folders not yet searched ordered by depth
+        final Deque<Completion> pending = new ArrayDeque<>();
+        final AttributedList<Path> result = new AttributedList<>();
+        // Parent folders of files found
+        final Set<Path> folders = new HashSet<>();
+        int found = 0;
+        int running = 0;
+        try {
+            pending.add(new Completion(directory, 0, null));
+            while(running > 0 || !pending.isEmpty()) {
+                if(this.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                // Limit number of listings in progress to number of connections
+                while(!pending.isEmpty() && running < connections) {
+                    completion.submit(new SearchCallable(pending.pollFirst()));
+                    running++;
+                }
+                final Completion next;
+                try {
+                    next = completion.take().get();
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+                running--;
+                boolean modified = false;
+                for(Path file : next.children) {
+                    if(file.isDirectory()) {
+                        if(next.depth < depth) {
+                            pending.add(new Completion(file, next.depth + 1, null));
+                        }
+                        continue;
+                    }
+                    // Add parent folders not yet in result
+                    for(Path parent = file.getParent(); !parent.equals(directory) && folders.add(parent); parent = parent.getParent()) {
+                        result.add(parent);
+                    }
+                    result.add(file);
+                    modified = true;
+                    if(++found == limit) {
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Stop search after %d files found", found));
+                        }
+                        break;
+                    }
+                }
+                if(modified) {
+                    // Snapshot iteration of result appended to
+                    listener.chunk(directory, result);
+                }
+                if(found == limit) {
+                    break;
+                }
+            }
+            return result;
+        }
+        finally {
+            threads.shutdown(false);
+        }
+    }
+
+    private Session<?> borrow() throws BackgroundException {
+        return pool.borrow(new BackgroundActionState() {
+            @Override
+            public boolean isCanceled() {
+                return ConcurrentSearchWorker.this.isCanceled();
+            }
+
+            @Override
+            public boolean isRunning() {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Folder to search in or search result
+     */
+    private static final class Completion {
+        private final Path directory;
+        private final int depth;
+        private final AttributedList<Path> children;
+
+        private Completion(final Path directory, final int depth, final AttributedList<Path> children) {
+            this.directory = directory;
+            this.depth = depth;
+            this.children = children;
+        }
+    }
+
+    private final class SearchCallable implements Callable<Completion> {
+        private final Completion folder;
+
+        private SearchCallable(final Completion folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        public Completion call() throws BackgroundException {
+            final Session<?> session = ConcurrentSearchWorker.this.borrow();
+            BackgroundException failure = null;
+            try {
+                final Search search = session.getFeature(Search.class).withCache(cache);
+                return new Completion(folder.directory, folder.depth,
+                    search.search(folder.directory, new RecursiveSearchFilter(), new WorkerListProgressListener(ConcurrentSearchWorker.this, listener)));
+            }
+            catch(BackgroundException e) {
+                failure = e;
+                throw e;
+            }
+            finally {
+                pool.release(session, failure);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ConcurrentSearchWorker{");
+        sb.append("filter='").append(filter).append('\'');
+        sb.append(", connections=").append(connections);
+        sb.append('}');
+        return sb.toString();
+    }
+}
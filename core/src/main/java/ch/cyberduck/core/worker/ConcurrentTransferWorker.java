@@ -28,9 +28,12 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.NotificationService;
+import ch.cyberduck.core.pool.AdaptiveConnectionLimit;
+import ch.cyberduck.core.pool.DefaultSessionPool;
 import ch.cyberduck.core.pool.SessionPool;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.BackgroundActionState;
+import ch.cyberduck.core.threading.SegmentScheduler;
 import ch.cyberduck.core.threading.ThreadPool;
 import ch.cyberduck.core.threading.ThreadPoolFactory;
 import ch.cyberduck.core.transfer.Transfer;
@@ -42,10 +45,13 @@ import ch.cyberduck.core.transfer.TransferStatus;
 
 import org.apache.log4j.Logger;
 
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class ConcurrentTransferWorker extends AbstractTransferWorker {
@@ -58,6 +64,23 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
     // Keep number of submited tasks
     private final AtomicInteger size = new AtomicInteger();
     private final ThreadPool pool;
+    /**
+     * Shared limit for concurrent segments of all files
+     */
+    private final SegmentScheduler scheduler;
+
+    /**
+     * Number of connections adjusted to throughput or null if fixed
+     */
+    private final AdaptiveConnectionLimit adaptive;
+    private final TransferSpeedometer speedometer;
+    /**
+     * Milliseconds between samples of throughput
+     */
+    private final long interval;
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private long sampled;
 
     public ConcurrentTransferWorker(final SessionPool source,
                                     final SessionPool destination,
@@ -91,8 +114,22 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
         super(transfer, options, prompt, meter, error, progressListener, streamListener, connectionCallback, passwordCallback, notification);
         this.source = source;
         this.destination = destination;
-        this.pool = ThreadPoolFactory.get(String.format("%s-transfer", new AlphanumericRandomStringService().random()),
+        final String prefix = new AlphanumericRandomStringService().random();
+        this.pool = ThreadPoolFactory.get(String.format("%s-transfer", prefix),
             transfer.getTransferType() == Host.TransferType.newconnection ? 1 : PreferencesFactory.get().getInteger("queue.connections.limit"), priority);
+        final int segments = PreferencesFactory.get().getInteger("queue.transfer.segments.concurrency");
+        this.scheduler = segments > 0 ? new SegmentScheduler(String.format("%s-segment", prefix), segments) : null;
+        if(transfer.getTransferType() != Host.TransferType.newconnection && PreferencesFactory.get().getBoolean("queue.connections.adaptive")) {
+            this.adaptive = new AdaptiveConnectionLimit(PreferencesFactory.get().getInteger("queue.connections.limit"),
+                PreferencesFactory.get().getInteger("queue.connections.adaptive.limit"));
+            this.resize(adaptive.getLimit());
+        }
+        else {
+            this.adaptive = null;
+        }
+        this.speedometer = new TransferSpeedometer(transfer);
+        this.interval = PreferencesFactory.get().getLong("queue.connections.adaptive.interval");
+        this.sampled = System.currentTimeMillis();
         this.completion = new ExecutorCompletionService<TransferStatus>(pool.executor());
     }
 
@@ -131,6 +168,10 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
     protected void release(final Session session, final Connection type, final BackgroundException failure) {
         switch(type) {
             case source:
+                if(failure != null) {
+                    // Count once per item as source and destination connection are released with same failure
+                    failures.incrementAndGet();
+                }
                 source.release(session, failure);
                 break;
             case destination:
@@ -151,38 +192,108 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
 
     @Override
     public void await() throws BackgroundException {
-        while(size.get() > 0) {
+        while(this.poll()) {
             // Repeat until no new entries in queue found
-            try {
-                if(log.isInfoEnabled()) {
-                    log.info(String.format("Await completion for %d submitted tasks in queue", size.get()));
-                }
-                final TransferStatus status = completion.take().get();
-                if(log.isInfoEnabled()) {
-                    log.info(String.format("Finished task with return value %s", status));
-                }
+        }
+    }
+
+    @Override
+    protected boolean poll() throws BackgroundException {
+        if(size.get() == 0) {
+            return false;
+        }
+        try {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Await completion for %d submitted tasks in queue", size.get()));
             }
-            catch(InterruptedException e) {
-                // Errors are handled in transfer worker error callback already
-                log.warn(String.format("Unhandled failure %s", e));
-                throw new ConnectionCanceledException(e);
+            final TransferStatus status = this.take().get();
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Finished task with return value %s", status));
+            }
+            successes.incrementAndGet();
+        }
+        catch(InterruptedException e) {
+            // Errors are handled in transfer worker error callback already
+            log.warn(String.format("Unhandled failure %s", e));
+            throw new ConnectionCanceledException(e);
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
             }
+            throw new DefaultExceptionMappingService().map(e.getCause());
+        }
+        finally {
+            size.decrementAndGet();
+        }
+        return true;
+    }
 
-            catch(ExecutionException e) {
-                if(e.getCause() instanceof BackgroundException) {
-                    throw (BackgroundException) e.getCause();
-                }
-                throw new DefaultExceptionMappingService().map(e.getCause());
+    /**
+     * Await next completed task and adjust number of connections meanwhile
+     */
+    private Future<TransferStatus> take() throws InterruptedException {
+        if(null == adaptive) {
+            return completion.take();
+        }
+        Future<TransferStatus> f;
+        while(null == (f = completion.poll(interval, TimeUnit.MILLISECONDS))) {
+            this.adapt();
+        }
+        this.adapt();
+        return f;
+    }
+
+    private void adapt() {
+        final long now = System.currentTimeMillis();
+        if(now - sampled < interval) {
+            return;
+        }
+        sampled = now;
+        // Bytes per second
+        final double speed = speedometer.getSpeed() * 1000;
+        final int limit = adaptive.sample(speed, successes.getAndSet(0), failures.getAndSet(0));
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Measured %f bytes per second with limit %s", speed, adaptive));
+        }
+        this.resize(limit);
+    }
+
+    /**
+     * Change number of concurrent transfers and connections kept in pool
+     */
+    private void resize(final int limit) {
+        final AbstractExecutorService executor = pool.executor();
+        if(executor instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor e = (ThreadPoolExecutor) executor;
+            // Core size must not exceed maximum size
+            if(limit > e.getMaximumPoolSize()) {
+                e.setMaximumPoolSize(limit);
+                e.setCorePoolSize(limit);
             }
-            finally {
-                size.decrementAndGet();
+            else if(limit < e.getMaximumPoolSize()) {
+                e.setCorePoolSize(limit);
+                e.setMaximumPoolSize(limit);
+            }
+        }
+        for(SessionPool p : new SessionPool[]{source, destination}) {
+            if(p instanceof DefaultSessionPool) {
+                ((DefaultSessionPool) p).withMaxIdle(limit);
             }
         }
     }
 
+    @Override
+    protected SegmentScheduler scheduler() {
+        return scheduler;
+    }
+
     @Override
     public void cleanup(final Boolean result) {
         pool.shutdown(result);
+        if(scheduler != null) {
+            scheduler.shutdown(result);
+        }
     }
 
     @Override
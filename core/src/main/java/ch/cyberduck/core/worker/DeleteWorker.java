@@ -27,11 +27,14 @@ import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.LoginCallback;
 import ch.cyberduck.core.NullFilter;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.ProgressListener;
+import ch.cyberduck.core.RecursiveListService;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.ui.browser.PathReloadFinder;
 
 import org.apache.log4j.Logger;
@@ -72,7 +75,10 @@ public class DeleteWorker extends Worker<List<Path>> {
     @Override
     public List<Path> run(final Session<?> session) throws BackgroundException {
         final Delete delete = session.getFeature(Delete.class);
-        final ListService list = session.getFeature(ListService.class);
+        final ListService list = PreferencesFactory.get().getBoolean("queue.listing.recursive") ?
+            // Enumerate all descendants at once if supported
+            new RecursiveListService(session.getFeature(ListService.class), new PathCache(Integer.MAX_VALUE)) :
+            session.getFeature(ListService.class);
         final List<Path> recursive = new ArrayList<Path>();
         for(Path file : files) {
             if(this.isCanceled()) {
@@ -94,18 +100,7 @@ public class DeleteWorker extends Worker<List<Path>> {
         // Compile recursive list
         final Set<Path> recursive = new LinkedHashSet<>();
         if(file.isFile() || file.isSymbolicLink()) {
-            final Path copy = new Path(file);
-            switch(host.getProtocol().getType()) {
-                case s3:
-                    if(!file.attributes().isDuplicate()) {
-                        if(!file.getType().contains(Path.Type.upload)) {
-                            // Add delete marker
-                            log.debug(String.format("Nullify version to add delete marker for %s", file));
-                            copy.attributes().setVersionId(null);
-                        }
-                    }
-            }
-            recursive.add(copy);
+            recursive.add(this.prepare(host, file));
         }
         else if(file.isDirectory()) {
             if(!delete.isRecursive()) {
@@ -122,6 +117,25 @@ public class DeleteWorker extends Worker<List<Path>> {
         return recursive;
     }
 
+    /**
+     * @param file File or symbolic link
+     * @return File to pass to delete feature
+     */
+    protected Path prepare(final Host host, final Path file) {
+        final Path copy = new Path(file);
+        switch(host.getProtocol().getType()) {
+            case s3:
+                if(!file.attributes().isDuplicate()) {
+                    if(!file.getType().contains(Path.Type.upload)) {
+                        // Add delete marker
+                        log.debug(String.format("Nullify version to add delete marker for %s", file));
+                        copy.attributes().setVersionId(null);
+                    }
+                }
+        }
+        return copy;
+    }
+
     @Override
     public void cleanup(final List<Path> deleted) {
         for(Path folder : new PathReloadFinder().find(deleted)) {
@@ -114,7 +114,7 @@ public class SearchWorker extends Worker<AttributedList<Path>> {
         return sb.toString();
     }
 
-    private final class RecursiveSearchFilter implements Filter<Path> {
+    protected final class RecursiveSearchFilter implements Filter<Path> {
         @Override
         public boolean accept(final Path file) {
             if(file.isDirectory()) {
@@ -2,6 +2,7 @@ package ch.cyberduck.core;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.regex.Pattern;
 
@@ -80,4 +81,49 @@ public class AttributedListTest {
         assertNotSame(list, list.filter(new NullFilter<>()));
         assertEquals(list, list.filter(new NullFilter<>()));
     }
+
+    @Test
+    public void testGet() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        list.add(a);
+        list.add(b);
+        assertSame(a, list.get(new Path("/a", EnumSet.of(Path.Type.directory))));
+        assertNull(list.get(new Path("/a", EnumSet.of(Path.Type.file))));
+        assertTrue(list.contains(new Path("/b", EnumSet.of(Path.Type.file))));
+        assertEquals(1, list.indexOf(new Path("/b", EnumSet.of(Path.Type.file))));
+        assertSame(b, list.find(new DefaultPathPredicate(new Path("/b", EnumSet.of(Path.Type.file)))));
+        assertNull(list.find(new DefaultPathPredicate(new Path("/c", EnumSet.of(Path.Type.file)))));
+        list.remove(a);
+        assertNull(list.get(a));
+        assertEquals(0, list.indexOf(b));
+    }
+
+    @Test
+    public void testAddAll() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        assertTrue(list.addAll(Arrays.asList(a, b)));
+        assertEquals(2, list.size());
+        final AttributedList<Path> copy = new AttributedList<Path>(list);
+        assertEquals(list, copy);
+        assertTrue(copy.contains(b));
+    }
+
+    @Test
+    public void testLookupAfterAttributesChanged() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        list.add(a);
+        assertTrue(list.contains(new Path("/a", EnumSet.of(Path.Type.file))));
+        // Changes reference of path after indexed
+        a.attributes().setVersionId("1");
+        final Path versioned = new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"));
+        assertTrue(list.contains(versioned));
+        assertEquals(0, list.indexOf(versioned));
+        assertSame(a, list.get(versioned));
+        assertFalse(list.contains(new Path("/a", EnumSet.of(Path.Type.file))));
+    }
 }
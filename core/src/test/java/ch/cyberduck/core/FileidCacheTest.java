@@ -0,0 +1,112 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class FileidCacheTest {
+
+    @Test
+    public void testPutRemove() {
+        final FileidCache cache = new FileidCache(null, 10L);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "f", EnumSet.of(Path.Type.file));
+        cache.put(directory, "1");
+        cache.put(file, "2");
+        assertEquals("1", cache.get(new Path("/d", EnumSet.of(Path.Type.directory))));
+        assertEquals("2", cache.get(new Path("/d/f", EnumSet.of(Path.Type.file))));
+        // Same name for directory
+        assertNull(cache.get(new Path("/d/f", EnumSet.of(Path.Type.directory))));
+        cache.put(new Path("/dd", EnumSet.of(Path.Type.file)), "3");
+        // Invalidate contained files
+        cache.remove(directory);
+        assertNull(cache.get(directory));
+        assertNull(cache.get(file));
+        assertEquals("3", cache.get(new Path("/dd", EnumSet.of(Path.Type.file))));
+        cache.put(new Path("/dd", EnumSet.of(Path.Type.file)), null);
+        assertEquals(0L, cache.size());
+    }
+
+    @Test
+    public void testPutList() {
+        final FileidCache cache = new FileidCache(null, 10L);
+        final AttributedList<Path> list = new AttributedList<>();
+        final Path file = new Path("/f", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"));
+        list.add(file);
+        final PathAttributes trashed = new PathAttributes().withVersionId("2");
+        trashed.setDuplicate(true);
+        list.add(new Path("/f", EnumSet.of(Path.Type.file), trashed));
+        list.add(new Path("/p", EnumSet.of(Path.Type.directory, Path.Type.placeholder)));
+        cache.put(list);
+        assertEquals("1", cache.get(new Path("/f", EnumSet.of(Path.Type.file))));
+        assertEquals(1L, cache.size());
+    }
+
+    @Test
+    public void testBounded() {
+        final FileidCache cache = new FileidCache(null, 2L);
+        for(int i = 0; i < 10; i++) {
+            cache.put(new Path(String.format("/%d", i), EnumSet.of(Path.Type.file)), String.valueOf(i));
+        }
+        assertTrue(cache.size() <= 2L);
+    }
+
+    @Test
+    public void testSave() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            final FileidCache cache = new FileidCache(file, 10L);
+            cache.put(new Path("/d", EnumSet.of(Path.Type.directory)), "1");
+            cache.put(new Path("/d/f", EnumSet.of(Path.Type.file)), "2");
+            cache.save();
+            final FileidCache saved = new FileidCache(file, 10L);
+            assertEquals(2L, saved.size());
+            assertEquals("1", saved.get(new Path("/d", EnumSet.of(Path.Type.directory))));
+            assertEquals("2", saved.get(new Path("/d/f", EnumSet.of(Path.Type.file))));
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSavedNotConfirmed() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            final FileidCache cache = new FileidCache(file, 10L);
+            cache.put(new Path("/b", EnumSet.of(Path.Type.directory, Path.Type.volume)), "1");
+            cache.put(new Path("/b/f", EnumSet.of(Path.Type.file)), "2");
+            assertEquals("2", cache.get(new Path("/b/f", EnumSet.of(Path.Type.file)), false));
+            cache.save();
+            final FileidCache saved = new FileidCache(file, 10L);
+            assertEquals("2", saved.get(new Path("/b/f", EnumSet.of(Path.Type.file))));
+            // Read from saved index
+            assertNull(saved.get(new Path("/b/f", EnumSet.of(Path.Type.file)), false));
+            assertNull(saved.get(new Path("/b", EnumSet.of(Path.Type.directory)), false));
+            // Confirmed
+            saved.put(new Path("/b/f", EnumSet.of(Path.Type.file)), "3");
+            assertEquals("3", saved.get(new Path("/b/f", EnumSet.of(Path.Type.file)), false));
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.EnumSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency of cached and missing files by reference using the reverse index compared to searching all cached
+ * directory listings. Run with <code>java -cp target/test-classes:... ch.cyberduck.core.PathCacheBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathCacheBenchmark {
+
+    /**
+     * Number of files per cached directory listing
+     */
+    private static final int CHILDREN = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int entries;
+
+    private PathCache cache;
+    private DefaultPathPredicate[] references;
+    private DefaultPathPredicate[] missing;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cache = new PathCache(Integer.MAX_VALUE);
+        references = new DefaultPathPredicate[entries];
+        missing = new DefaultPathPredicate[entries];
+        for(int d = 0; d < entries / CHILDREN; d++) {
+            final Path directory = new Path(String.format("/d%d", d), EnumSet.of(Path.Type.directory));
+            final AttributedList<Path> children = new AttributedList<>();
+            for(int f = 0; f < CHILDREN; f++) {
+                final Path file = new Path(directory, String.format("f%d", f), EnumSet.of(Path.Type.file));
+                children.add(file);
+                references[d * CHILDREN + f] = new DefaultPathPredicate(file);
+                missing[d * CHILDREN + f] = new DefaultPathPredicate(new Path(directory, String.format("m%d", f), EnumSet.of(Path.Type.file)));
+            }
+            cache.put(directory, children);
+        }
+    }
+
+    private DefaultPathPredicate next() {
+        return references[ThreadLocalRandom.current().nextInt(references.length)];
+    }
+
+    @Benchmark
+    public Path lookup() {
+        return cache.lookup(this.next());
+    }
+
+    @Benchmark
+    public Path miss() {
+        return cache.lookup(missing[ThreadLocalRandom.current().nextInt(missing.length)]);
+    }
+
+    @Benchmark
+    public Path scan() {
+        return this.scan(this.next());
+    }
+
+    @Benchmark
+    public Path scanMiss() {
+        return this.scan(missing[ThreadLocalRandom.current().nextInt(missing.length)]);
+    }
+
+    private Path scan(final DefaultPathPredicate reference) {
+        for(AttributedList<Path> list : cache.asMap().values()) {
+            for(Path file : list) {
+                if(reference.test(file)) {
+                    return file;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PathCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
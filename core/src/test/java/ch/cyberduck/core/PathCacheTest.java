@@ -1,7 +1,10 @@
 package ch.cyberduck.core;
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.EnumSet;
 
 import static org.junit.Assert.*;
@@ -23,6 +26,127 @@ public class PathCacheTest {
         assertNotNull(cache.lookup(new DefaultPathPredicate(file2)));
     }
 
+    @Test
+    public void testLookupIndex() {
+        final PathCache cache = new PathCache(2);
+        final Path directory = new Path("/p", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "name", EnumSet.of(Path.Type.file));
+        cache.put(directory, new AttributedList<>(Collections.singletonList(file)));
+        assertSame(file, cache.lookup(new DefaultPathPredicate(file)));
+        cache.invalidate(directory);
+        assertSame(file, cache.lookup(new DefaultPathPredicate(file)));
+        // Replace listing
+        final Path other = new Path(directory, "other", EnumSet.of(Path.Type.file));
+        cache.put(directory, new AttributedList<>(Collections.singletonList(other)));
+        assertNull(cache.lookup(new DefaultPathPredicate(file)));
+        assertSame(other, cache.lookup(new DefaultPathPredicate(other)));
+        cache.remove(directory);
+        assertNull(cache.lookup(new DefaultPathPredicate(other)));
+        cache.put(directory, new AttributedList<>(Collections.singletonList(other)));
+        cache.clear();
+        assertNull(cache.lookup(new DefaultPathPredicate(other)));
+    }
+
+    @Test
+    public void testLookupAddedToList() {
+        final PathCache cache = new PathCache(2);
+        final Path directory = new Path("/p", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "name", EnumSet.of(Path.Type.file));
+        cache.put(directory, new AttributedList<>(Collections.singletonList(file)));
+        // Add to cached listing
+        final Path added = new Path(directory, "added", EnumSet.of(Path.Type.file));
+        final AttributedList<Path> list = cache.get(directory);
+        list.add(added);
+        assertNull(cache.lookup(new DefaultPathPredicate(added)));
+        // Change reference of cached child
+        file.attributes().setVersionId("1");
+        assertNull(cache.lookup(new DefaultPathPredicate(file)));
+        cache.put(directory, list);
+        assertSame(added, cache.lookup(new DefaultPathPredicate(added)));
+        assertSame(file, cache.lookup(new DefaultPathPredicate(file)));
+        assertNull(cache.lookup(new DefaultPathPredicate(new Path(directory, "name", EnumSet.of(Path.Type.file)))));
+    }
+
+    @Test
+    public void testLookupEvicted() {
+        final PathCache cache = new PathCache(1);
+        final Path d1 = new Path("/d1", EnumSet.of(Path.Type.directory));
+        final Path f1 = new Path(d1, "f", EnumSet.of(Path.Type.file));
+        cache.put(d1, new AttributedList<>(Collections.singletonList(f1)));
+        final Path d2 = new Path("/d2", EnumSet.of(Path.Type.directory));
+        final Path f2 = new Path(d2, "f", EnumSet.of(Path.Type.file));
+        cache.put(d2, new AttributedList<>(Collections.singletonList(f2)));
+        assertFalse(cache.containsKey(d1));
+        assertNull(cache.lookup(new DefaultPathPredicate(f1)));
+        assertSame(f2, cache.lookup(new DefaultPathPredicate(f2)));
+    }
+
+    @Test
+    public void testWeightedEviction() {
+        final long entry = PreferencesFactory.get().getLong("cache.memory.entry");
+        // Room for 10 children including weight of listings
+        final PathCache cache = new PathCache(Integer.MAX_VALUE, 12 * entry);
+        final Path d1 = new Path("/d1", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> l1 = new AttributedList<>();
+        for(int i = 0; i < 5; i++) {
+            l1.add(new Path(d1, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        cache.put(d1, l1);
+        final Path d2 = new Path("/d2", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> l2 = new AttributedList<>();
+        for(int i = 0; i < 5; i++) {
+            l2.add(new Path(d2, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        cache.put(d2, l2);
+        assertEquals(2, cache.size());
+        final Path d3 = new Path("/d3", EnumSet.of(Path.Type.directory));
+        cache.put(d3, new AttributedList<>(Collections.singletonList(new Path(d3, "f", EnumSet.of(Path.Type.file)))));
+        assertFalse(cache.isCached(d1));
+        assertTrue(cache.isCached(d2));
+        assertTrue(cache.isCached(d3));
+        assertEquals(2L, cache.size());
+    }
+
+    @Test
+    public void testWeightedEvictionWithCountLimit() {
+        final long entry = PreferencesFactory.get().getLong("cache.memory.entry");
+        final PathCache cache = new PathCache(2, 1000 * entry);
+        final Path d1 = new Path("/d1", EnumSet.of(Path.Type.directory));
+        cache.put(d1, new AttributedList<Path>());
+        final Path d2 = new Path("/d2", EnumSet.of(Path.Type.directory));
+        cache.put(d2, new AttributedList<Path>());
+        // Mark as recently used
+        cache.get(d1);
+        final Path d3 = new Path("/d3", EnumSet.of(Path.Type.directory));
+        cache.put(d3, new AttributedList<Path>());
+        assertEquals(2L, cache.size());
+        assertTrue(cache.isCached(d1));
+        assertFalse(cache.isCached(d2));
+        assertTrue(cache.isCached(d3));
+    }
+
+    @Test
+    public void testWeighAgainWhenChanged() {
+        final long entry = PreferencesFactory.get().getLong("cache.memory.entry");
+        // Room for 10 children including weight of listings
+        final PathCache cache = new PathCache(Integer.MAX_VALUE, 12 * entry);
+        final Path d1 = new Path("/d1", EnumSet.of(Path.Type.directory));
+        cache.put(d1, new AttributedList<Path>());
+        final Path d2 = new Path("/d2", EnumSet.of(Path.Type.directory));
+        cache.put(d2, new AttributedList<Path>());
+        for(int i = 0; i < 5; i++) {
+            cache.get(d2).add(new Path(d2, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        assertTrue(cache.isCached(d1));
+        for(int i = 5; i < 11; i++) {
+            cache.get(d2).add(new Path(d2, String.valueOf(i), EnumSet.of(Path.Type.file)));
+        }
+        // Weighed again exceeding limit with listing grown
+        cache.get(d2);
+        assertFalse(cache.isCached(d1));
+        assertTrue(cache.isCached(d2));
+    }
+
     @Test
     public void testIsEmpty() {
         final PathCache cache = new PathCache(1);
@@ -71,4 +195,18 @@ public class PathCacheTest {
         assertFalse(cache.containsKey(file));
         assertEquals(0, cache.size());
     }
+
+    @Test
+    public void testStats() {
+        final PathCache cache = new PathCache(1);
+        final Path d1 = new Path("/d1", EnumSet.of(Path.Type.directory));
+        final Path d2 = new Path("/d2", EnumSet.of(Path.Type.directory));
+        cache.put(d1, new AttributedList<>());
+        cache.get(d1);
+        cache.get(d2);
+        cache.put(d2, new AttributedList<>());
+        assertEquals(1L, cache.stats().hitCount());
+        assertEquals(1L, cache.stats().missCount());
+        assertEquals(1L, cache.stats().evictionCount());
+    }
 }
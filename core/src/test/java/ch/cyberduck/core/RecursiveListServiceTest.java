@@ -0,0 +1,154 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.UnsupportedException;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RecursiveListServiceTest {
+
+    @Test
+    public void testListRecursive() throws Exception {
+        final Path directory = new Path("/b/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final ListService proxy = new ListService() {
+            @Override
+            public AttributedList<Path> list(final Path directory, final ListProgressListener listener) {
+                fail();
+                return null;
+            }
+
+            @Override
+            public boolean isRecursive(final Path directory) {
+                return true;
+            }
+
+            @Override
+            public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) {
+                count.incrementAndGet();
+                final AttributedList<Path> list = new AttributedList<>();
+                list.add(new Path("/b/d/f1", EnumSet.of(Path.Type.file)));
+                // Without placeholder for parent directories
+                list.add(new Path("/b/d/a/b/f2", EnumSet.of(Path.Type.file)));
+                // Placeholder after children
+                list.add(new Path("/b/d/a", EnumSet.of(Path.Type.directory)));
+                list.add(new Path("/b/d/e", EnumSet.of(Path.Type.directory)));
+                return list;
+            }
+
+            @Override
+            public ListService withCache(final Cache<Path> cache) {
+                return this;
+            }
+        };
+        final PathCache cache = new PathCache(Integer.MAX_VALUE);
+        final RecursiveListService service = new RecursiveListService(proxy, cache);
+        final AttributedList<Path> list = service.list(directory, new DisabledListProgressListener());
+        assertEquals(3, list.size());
+        assertTrue(list.contains(new Path("/b/d/f1", EnumSet.of(Path.Type.file))));
+        assertTrue(list.contains(new Path("/b/d/a", EnumSet.of(Path.Type.directory))));
+        assertTrue(list.contains(new Path("/b/d/e", EnumSet.of(Path.Type.directory))));
+        // Replaced synthesized placeholder
+        assertFalse(list.get(list.indexOf(new Path("/b/d/a", EnumSet.of(Path.Type.directory)))).getType().contains(Path.Type.placeholder));
+        final AttributedList<Path> a = service.list(new Path("/b/d/a", EnumSet.of(Path.Type.directory)), new DisabledListProgressListener());
+        assertEquals(1, a.size());
+        assertTrue(a.contains(new Path("/b/d/a/b", EnumSet.of(Path.Type.directory))));
+        final AttributedList<Path> b = service.list(new Path("/b/d/a/b", EnumSet.of(Path.Type.directory)), new DisabledListProgressListener());
+        assertEquals(1, b.size());
+        assertTrue(b.contains(new Path("/b/d/a/b/f2", EnumSet.of(Path.Type.file))));
+        assertTrue(service.list(new Path("/b/d/e", EnumSet.of(Path.Type.directory)), new DisabledListProgressListener()).isEmpty());
+        assertEquals(1, count.get());
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        final Path directory = new Path("/b/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger count = new AtomicInteger();
+        final ListService proxy = new ListService() {
+            @Override
+            public AttributedList<Path> list(final Path directory, final ListProgressListener listener) {
+                count.incrementAndGet();
+                return new AttributedList<>();
+            }
+
+            @Override
+            public boolean isRecursive(final Path directory) {
+                return true;
+            }
+
+            @Override
+            public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+                throw new UnsupportedException();
+            }
+
+            @Override
+            public ListService withCache(final Cache<Path> cache) {
+                return this;
+            }
+        };
+        new RecursiveListService(proxy, new PathCache(1)).list(directory, new DisabledListProgressListener());
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testListEvictedPerDirectory() throws Exception {
+        final Path directory = new Path("/b/d", EnumSet.of(Path.Type.directory));
+        final AtomicInteger recursive = new AtomicInteger();
+        final AtomicInteger single = new AtomicInteger();
+        final ListService proxy = new ListService() {
+            @Override
+            public AttributedList<Path> list(final Path directory, final ListProgressListener listener) {
+                single.incrementAndGet();
+                return new AttributedList<>();
+            }
+
+            @Override
+            public boolean isRecursive(final Path directory) {
+                return true;
+            }
+
+            @Override
+            public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) {
+                recursive.incrementAndGet();
+                final AttributedList<Path> list = new AttributedList<>();
+                list.add(new Path("/b/d/a/b/f", EnumSet.of(Path.Type.file)));
+                return list;
+            }
+
+            @Override
+            public ListService withCache(final Cache<Path> cache) {
+                return this;
+            }
+        };
+        final PathCache cache = new PathCache(Integer.MAX_VALUE);
+        final RecursiveListService service = new RecursiveListService(proxy, cache);
+        service.list(directory, new DisabledListProgressListener());
+        assertEquals(1, recursive.get());
+        // Evicted from cache
+        cache.remove(new Path("/b/d/a/b", EnumSet.of(Path.Type.directory)));
+        service.list(new Path("/b/d/a/b", EnumSet.of(Path.Type.directory)), new DisabledListProgressListener());
+        assertEquals(1, recursive.get());
+        assertEquals(1, single.get());
+    }
+}
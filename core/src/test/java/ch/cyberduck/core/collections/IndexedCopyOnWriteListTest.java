@@ -0,0 +1,112 @@
+package ch.cyberduck.core.collections;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IndexedCopyOnWriteListTest {
+
+    @Test
+    public void testAddAll() {
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>();
+        assertTrue(list.addAll(Arrays.asList("a", "b", "c")));
+        assertFalse(list.addAll(Arrays.<String>asList()));
+        assertEquals(3, list.size());
+        assertEquals(Arrays.asList("a", "b", "c"), list);
+        assertEquals(1, list.indexOf("b"));
+        assertEquals(-1, list.indexOf("d"));
+    }
+
+    @Test
+    public void testSnapshotIterator() {
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>();
+        list.add("a");
+        list.add("b");
+        final Iterator<String> iterator = list.iterator();
+        list.add("c");
+        list.remove("a");
+        assertEquals("a", iterator.next());
+        assertEquals("b", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(Arrays.asList("b", "c"), list);
+    }
+
+    @Test
+    public void testIndexAfterModification() {
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>();
+        for(int i = 0; i < 1000; i++) {
+            list.add(String.valueOf(i));
+            assertTrue(list.contains(String.valueOf(i)));
+        }
+        assertEquals(500, list.indexOf("500"));
+        list.remove(0);
+        assertEquals(499, list.indexOf("500"));
+        assertFalse(list.contains("0"));
+        list.add(0, "0");
+        assertEquals(500, list.indexOf("500"));
+        list.set(500, "x");
+        assertEquals(-1, list.indexOf("500"));
+        assertEquals(500, list.indexOf("x"));
+        list.removeIf(s -> s.startsWith("1"));
+        assertFalse(list.contains("100"));
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.contains("x"));
+    }
+
+    @Test
+    public void testIndexOfFirstOccurrence() {
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>();
+        list.addAll(Arrays.asList("a", "b", "a"));
+        assertEquals(0, list.indexOf("a"));
+        assertEquals(2, list.lastIndexOf("a"));
+        list.remove("a");
+        assertEquals(1, list.indexOf("a"));
+    }
+
+    @Test
+    public void testLookup() {
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>(s -> null == s ? null : s.toString().length());
+        list.add("a");
+        list.add("bb");
+        list.add("c");
+        list.add(null);
+        assertEquals(2, list.indexOf("c"));
+        assertEquals(-1, list.indexOf("d"));
+        assertEquals("c", list.lookup(1, "c"::equals));
+        assertEquals("a", list.lookup(1, e -> true));
+        assertNull(list.lookup(3, e -> true));
+        assertEquals(3, list.indexOf(null));
+    }
+
+    @Test
+    public void testMissWithoutScan() {
+        final AtomicInteger count = new AtomicInteger();
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>(s -> {
+            count.incrementAndGet();
+            return s;
+        });
+        for(int i = 0; i < 1000; i++) {
+            list.add(String.valueOf(i));
+        }
+        assertTrue(list.contains("0"));
+        count.set(0);
+        assertFalse(list.contains("x"));
+        // Only key of missing element
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testSort() {
+        final IndexedCopyOnWriteList<String> list = new IndexedCopyOnWriteList<>();
+        list.addAll(Arrays.asList("c", "a", "b"));
+        assertEquals(0, list.indexOf("c"));
+        list.sort(String::compareTo);
+        assertEquals(Arrays.asList("a", "b", "c"), list);
+        assertEquals(2, list.indexOf("c"));
+    }
+}
@@ -0,0 +1,217 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BandwidthThrottleTest {
+
+    private static final float RATE = 1048576f;
+    private static final int CHUNK = 8192;
+    private static final int SECONDS = 20;
+
+    @Test
+    public void testUnlimited() {
+        final BandwidthThrottle throttle = new BandwidthThrottle(BandwidthThrottle.UNLIMITED);
+        assertEquals(Integer.MAX_VALUE, throttle.request(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testRequestLimitedToTick() {
+        final BandwidthThrottle throttle = new BandwidthThrottle(null, RATE, new SimulatedClock());
+        assertEquals((int) (RATE / 10), throttle.request(Integer.MAX_VALUE));
+        assertEquals(1, throttle.request(1));
+        assertEquals(0, throttle.request(0));
+    }
+
+    @Test
+    public void testSingleStream() {
+        this.assertShared(1);
+    }
+
+    @Test
+    public void testConcurrentStreams() {
+        this.assertShared(8);
+    }
+
+    @Test
+    public void testManyConcurrentStreams() {
+        this.assertShared(64);
+    }
+
+    private void assertShared(final int streams) {
+        final SimulatedClock clock = new SimulatedClock();
+        final BandwidthThrottle throttle = new BandwidthThrottle(null, RATE, clock);
+        final BandwidthThrottle[] throttles = new BandwidthThrottle[streams];
+        for(int i = 0; i < streams; i++) {
+            throttles[i] = throttle;
+        }
+        final Result result = new Simulation(clock, throttles).run();
+        // Achieved rate within 1% including initial burst
+        assertEquals(RATE, result.rate(), RATE * 0.01);
+        assertTrue(String.format("Jitter %f", result.jitter()), result.jitter() < 0.01);
+        assertTrue(String.format("Fairness %f", result.fairness()), result.fairness() > 0.95);
+    }
+
+    @Test
+    public void testConnectionLimit() {
+        final SimulatedClock clock = new SimulatedClock();
+        final BandwidthThrottle global = new BandwidthThrottle(null, RATE, clock);
+        final BandwidthThrottle[] throttles = new BandwidthThrottle[8];
+        for(int i = 0; i < throttles.length; i++) {
+            throttles[i] = new BandwidthThrottle(global, RATE / 16);
+        }
+        final Result result = new Simulation(clock, throttles).run();
+        // Limited by connections
+        assertEquals(RATE / 2, result.rate(), RATE * 0.01);
+        for(long bytes : result.streams) {
+            assertEquals(RATE / 16, (double) bytes / SECONDS, RATE * 0.01);
+        }
+    }
+
+    @Test
+    public void testConnectionLimitGlobal() {
+        final SimulatedClock clock = new SimulatedClock();
+        final BandwidthThrottle global = new BandwidthThrottle(null, RATE, clock);
+        final BandwidthThrottle[] throttles = new BandwidthThrottle[8];
+        for(int i = 0; i < throttles.length; i++) {
+            throttles[i] = new BandwidthThrottle(global, RATE / 4);
+        }
+        final Result result = new Simulation(clock, throttles).run();
+        // Limited by transfer
+        assertEquals(RATE, result.rate(), RATE * 0.01);
+        assertTrue(String.format("Fairness %f", result.fairness()), result.fairness() > 0.95);
+    }
+
+    /**
+     * Time only advances when streams are scheduled
+     */
+    private static final class SimulatedClock implements BandwidthThrottle.Clock {
+        private long now;
+        /**
+         * Time blocked by the current stream
+         */
+        private long slept;
+
+        @Override
+        public long nanoTime() {
+            return now + slept;
+        }
+
+        @Override
+        public void sleep(final long nanos) {
+            slept += nanos;
+        }
+    }
+
+    /**
+     * Discrete event simulation of streams repeatedly requesting bytes from a throttle
+     */
+    private static final class Simulation {
+        private final SimulatedClock clock;
+        private final BandwidthThrottle[] throttles;
+
+        private Simulation(final SimulatedClock clock, final BandwidthThrottle[] throttles) {
+            this.clock = clock;
+            this.throttles = throttles;
+        }
+
+        private Result run() {
+            final long duration = TimeUnit.SECONDS.toNanos(SECONDS);
+            final Result result = new Result(throttles.length);
+            // Ordered by time of next request and order of scheduling
+            final PriorityQueue<long[]> events = new PriorityQueue<>((o1, o2) -> {
+                final int c = Long.compare(o1[0], o2[0]);
+                return c != 0 ? c : Long.compare(o1[2], o2[2]);
+            });
+            long sequence = 0L;
+            for(int i = 0; i < throttles.length; i++) {
+                events.add(new long[]{0L, i, sequence++});
+            }
+            while(!events.isEmpty()) {
+                final long[] event = events.poll();
+                clock.now = event[0];
+                clock.slept = 0L;
+                final int stream = (int) event[1];
+                final int granted = throttles[stream].request(CHUNK);
+                final long time = clock.nanoTime();
+                if(time >= duration) {
+                    continue;
+                }
+                result.streams[stream] += granted;
+                result.seconds[(int) TimeUnit.NANOSECONDS.toSeconds(time)] += granted;
+                events.add(new long[]{time, stream, sequence++});
+            }
+            return result;
+        }
+    }
+
+    private static final class Result {
+        private final long[] streams;
+        private final long[] seconds = new long[SECONDS];
+
+        private Result(final int streams) {
+            this.streams = new long[streams];
+        }
+
+        /**
+         * @return Bytes per second
+         */
+        private double rate() {
+            long total = 0L;
+            for(long bytes : streams) {
+                total += bytes;
+            }
+            return (double) total / SECONDS;
+        }
+
+        /**
+         * @return Coefficient of variation of bytes per second after the first second
+         */
+        private double jitter() {
+            double mean = 0d;
+            for(int i = 1; i < seconds.length; i++) {
+                mean += seconds[i];
+            }
+            mean /= seconds.length - 1;
+            double variance = 0d;
+            for(int i = 1; i < seconds.length; i++) {
+                variance += Math.pow(seconds[i] - mean, 2);
+            }
+            variance /= seconds.length - 1;
+            return Math.sqrt(variance) / mean;
+        }
+
+        /**
+         * @return Ratio of bytes of the slowest to the fastest stream
+         */
+        private double fairness() {
+            long min = Long.MAX_VALUE;
+            long max = 0L;
+            for(long bytes : streams) {
+                min = Math.min(min, bytes);
+                max = Math.max(max, bytes);
+            }
+            return (double) min / max;
+        }
+    }
+}
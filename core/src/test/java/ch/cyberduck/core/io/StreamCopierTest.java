@@ -4,6 +4,7 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.transfer.TransferStatus;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
 import org.apache.commons.io.output.NullOutputStream;
@@ -11,7 +12,12 @@ import org.apache.commons.text.RandomStringGenerator;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -168,4 +174,82 @@ public class StreamCopierTest {
         assertTrue(status.isCanceled());
         assertEquals(32768L, status.getOffset());
     }
+
+    @Test
+    public void testTransferChannel() throws Exception {
+        final byte[] bytes = new RandomStringGenerator.Builder().build().generate(432768).getBytes();
+        final File source = File.createTempFile("source", null);
+        final File target = File.createTempFile("target", null);
+        try {
+            FileUtils.writeByteArrayToFile(source, bytes);
+            final TransferStatus status = new TransferStatus();
+            final AtomicInteger callbacks = new AtomicInteger();
+            new StreamCopier(status, status).withRegion(131072).withOffset(1L).withLimit(400000L).withListener(new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    assertTrue(bytes <= 131072L);
+                    callbacks.incrementAndGet();
+                }
+            }).transfer(new ThrottledInputStream(new FileChannelInputStream(FileChannel.open(source.toPath(), StandardOpenOption.READ)), new BandwidthThrottle(BandwidthThrottle.UNLIMITED)),
+                new ThrottledOutputStream(new VoidStatusOutputStream(new FileChannelOutputStream(FileChannel.open(target.toPath(), StandardOpenOption.WRITE))), new BandwidthThrottle(BandwidthThrottle.UNLIMITED)));
+            assertTrue(status.isComplete());
+            assertEquals(400000L, status.getOffset(), 0L);
+            assertEquals(4, callbacks.get());
+            final byte[] expected = new byte[400000];
+            System.arraycopy(bytes, 1, expected, 0, expected.length);
+            assertArrayEquals(expected, Files.readAllBytes(target.toPath()));
+        }
+        finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testTransferChannelThrottle() throws Exception {
+        final byte[] bytes = new RandomStringGenerator.Builder().build().generate(50000).getBytes();
+        final File source = File.createTempFile("source", null);
+        final File target = File.createTempFile("target", null);
+        try {
+            FileUtils.writeByteArrayToFile(source, bytes);
+            final TransferStatus status = new TransferStatus();
+            new StreamCopier(status, status).withListener(new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    // Bytes per tick
+                    assertTrue(bytes <= 10000L);
+                }
+            }).transfer(new FileChannelInputStream(FileChannel.open(source.toPath(), StandardOpenOption.READ)),
+                new ThrottledOutputStream(new FileChannelOutputStream(FileChannel.open(target.toPath(), StandardOpenOption.WRITE)), new BandwidthThrottle(100000f)));
+            assertTrue(status.isComplete());
+            assertEquals(bytes.length, status.getOffset(), 0L);
+            assertArrayEquals(bytes, Files.readAllBytes(target.toPath()));
+        }
+        finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test(expected = ConnectionCanceledException.class)
+    public void testTransferChannelCanceled() throws Exception {
+        final File source = File.createTempFile("source", null);
+        final File target = File.createTempFile("target", null);
+        try {
+            FileUtils.writeByteArrayToFile(source, new byte[432768]);
+            final TransferStatus status = new TransferStatus();
+            new StreamCopier(status, status).withRegion(32768).withListener(new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    status.setCanceled();
+                }
+            }).transfer(new FileChannelInputStream(FileChannel.open(source.toPath(), StandardOpenOption.READ)),
+                new FileChannelOutputStream(FileChannel.open(target.toPath(), StandardOpenOption.WRITE)));
+        }
+        finally {
+            assertEquals(32768L, target.length());
+            source.delete();
+            target.delete();
+        }
+    }
 }
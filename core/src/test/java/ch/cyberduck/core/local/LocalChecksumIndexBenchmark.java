@@ -0,0 +1,148 @@
+package ch.cyberduck.core.local;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.DisabledProgressListener;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.HashAlgorithm;
+import ch.cyberduck.core.synchronization.ComparisonServiceFilter;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to compare all files in an unchanged folder with remote files with MD5 checksum when synchronizing with and
+ * without the checksum index of previous comparisons. Run with <code>java -cp target/test-classes:... ch.cyberduck.core.local.LocalChecksumIndexBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LocalChecksumIndexBenchmark {
+
+    @Param({"1000"})
+    public int files;
+
+    /**
+     * Size of each file in bytes
+     */
+    @Param({"65536", "1048576"})
+    public int size;
+
+    private File directory;
+    private Local[] locals;
+    private Path[] remotes;
+    /**
+     * Attributes of remote files with checksum
+     */
+    private final Map<Path, PathAttributes> attributes = new HashMap<>();
+    private LocalChecksumIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, BackgroundException {
+        directory = Files.createTempDirectory("checksum").toFile();
+        locals = new Local[files];
+        remotes = new Path[files];
+        final byte[] content = new byte[size];
+        for(int i = 0; i < files; i++) {
+            ThreadLocalRandom.current().nextBytes(content);
+            locals[i] = new Local(directory.getAbsolutePath(), String.format("f%d", i));
+            try (OutputStream out = locals[i].getOutputStream(false)) {
+                out.write(content);
+            }
+            // Unchanged since last synchronization
+            Files.setLastModifiedTime(Paths.get(locals[i].getAbsolute()), FileTime.fromMillis(System.currentTimeMillis() - 60000L));
+            remotes[i] = new Path(String.format("/f%d", i), EnumSet.of(Path.Type.file));
+            final PathAttributes attr = new PathAttributes();
+            attr.setSize(size);
+            attr.setChecksum(LocalChecksumIndex.disabled().compute(locals[i], HashAlgorithm.md5));
+            attributes.put(remotes[i], attr);
+        }
+        index = new LocalChecksumIndex(new Local(directory.getAbsolutePath(), "Checksums.index"));
+        // Index populated by previous synchronization
+        for(Local local : locals) {
+            index.compute(local, HashAlgorithm.md5);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        index.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public void index(final Blackhole blackhole) throws BackgroundException {
+        this.compare(this.filter().withIndex(index), blackhole);
+    }
+
+    @Benchmark
+    public void compute(final Blackhole blackhole) throws BackgroundException {
+        this.compare(this.filter().withIndex(LocalChecksumIndex.disabled()), blackhole);
+    }
+
+    private ComparisonServiceFilter filter() {
+        return new ComparisonServiceFilter(new NullSession(new Host(new TestProtocol())), TimeZone.getDefault(), new DisabledProgressListener())
+            .withFinder(file -> true).withAttributes(attributes::get);
+    }
+
+    private void compare(final ComparisonServiceFilter filter, final Blackhole blackhole) throws BackgroundException {
+        for(int i = 0; i < files; i++) {
+            blackhole.consume(filter.compare(remotes[i], locals[i]));
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LocalChecksumIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,158 @@
+package ch.cyberduck.core.local;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.io.Checksum;
+import ch.cyberduck.core.io.HashAlgorithm;
+
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class LocalChecksumIndexTest {
+
+    @Test
+    public void testFindUnchanged() throws Exception {
+        final Local journal = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            this.write(file, "content", System.currentTimeMillis() - 60000L);
+            final LocalChecksumIndex index = new LocalChecksumIndex(journal);
+            assertSame(Checksum.NONE, index.find(file, HashAlgorithm.md5));
+            final Checksum checksum = index.compute(file, HashAlgorithm.md5);
+            assertEquals(new Checksum(HashAlgorithm.md5, "9a0364b9e99bb480dd25e1f0284c8555"), checksum);
+            assertEquals(checksum, index.find(file, HashAlgorithm.md5));
+            assertSame(Checksum.NONE, index.find(file, HashAlgorithm.sha256));
+            // Loaded from journal
+            assertEquals(checksum, new LocalChecksumIndex(journal).find(file, HashAlgorithm.md5));
+        }
+        finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testInvalidateModified() throws Exception {
+        final Local journal = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            this.write(file, "content", System.currentTimeMillis() - 120000L);
+            final LocalChecksumIndex index = new LocalChecksumIndex(journal);
+            index.compute(file, HashAlgorithm.md5);
+            // Same size with different modification date
+            this.write(file, "changed", System.currentTimeMillis() - 60000L);
+            assertSame(Checksum.NONE, index.find(file, HashAlgorithm.md5));
+            assertSame(Checksum.NONE, new LocalChecksumIndex(journal).find(file, HashAlgorithm.md5));
+            final Checksum checksum = index.compute(file, HashAlgorithm.md5);
+            assertEquals(checksum, index.find(file, HashAlgorithm.md5));
+        }
+        finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        final Local journal = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            this.write(file, "content", System.currentTimeMillis() - 60000L);
+            final LocalChecksumIndex index = new LocalChecksumIndex(journal);
+            for(int i = 0; i < 5; i++) {
+                index.compute(file, HashAlgorithm.md5);
+            }
+            assertEquals(5, Files.readAllLines(Paths.get(journal.getAbsolute())).size());
+            final LocalChecksumIndex reloaded = new LocalChecksumIndex(journal);
+            assertEquals(1, reloaded.size());
+            assertEquals(1, Files.readAllLines(Paths.get(journal.getAbsolute())).size());
+            assertNotSame(Checksum.NONE, reloaded.find(file, HashAlgorithm.md5));
+        }
+        finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            this.write(file, "content", System.currentTimeMillis() - 60000L);
+            assertNotSame(Checksum.NONE, LocalChecksumIndex.disabled().compute(file, HashAlgorithm.md5));
+            assertSame(Checksum.NONE, LocalChecksumIndex.disabled().find(file, HashAlgorithm.md5));
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAlgorithms() throws Exception {
+        final Local journal = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            this.write(file, "content", System.currentTimeMillis() - 60000L);
+            final LocalChecksumIndex index = new LocalChecksumIndex(journal);
+            final Checksum md5 = index.compute(file, HashAlgorithm.md5);
+            final Checksum sha256 = index.compute(file, HashAlgorithm.sha256);
+            assertEquals(md5, index.find(file, HashAlgorithm.md5));
+            assertEquals(sha256, index.find(file, HashAlgorithm.sha256));
+            assertEquals(2, index.size());
+            index.shutdown();
+            final LocalChecksumIndex reloaded = new LocalChecksumIndex(journal);
+            assertEquals(md5, reloaded.find(file, HashAlgorithm.md5));
+            assertEquals(sha256, reloaded.find(file, HashAlgorithm.sha256));
+        }
+        finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testRacyModificationDate() throws Exception {
+        final Local journal = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        try {
+            // Modification date not before checksum is computed
+            this.write(file, "content", System.currentTimeMillis() + 60000L);
+            final LocalChecksumIndex index = new LocalChecksumIndex(journal);
+            assertNotSame(Checksum.NONE, index.compute(file, HashAlgorithm.md5));
+            assertSame(Checksum.NONE, index.find(file, HashAlgorithm.md5));
+        }
+        finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    private void write(final Local file, final String content, final long modified) throws Exception {
+        try (OutputStream out = file.getOutputStream(false)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        Files.setLastModifiedTime(Paths.get(file.getAbsolute()), FileTime.fromMillis(modified));
+    }
+}
@@ -0,0 +1,87 @@
+package ch.cyberduck.core.local;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class SegmentedFileTest {
+
+    @Test
+    public void testWriteSegments() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final TransferStatus first = new TransferStatus().segment(true).skip(0L).length(3L);
+        final TransferStatus second = new TransferStatus().segment(true).skip(3L).length(3L);
+        final List<TransferStatus> segments = Arrays.asList(first, second);
+        final SegmentedFile target = new SegmentedFile(file, 6L, segments);
+        try {
+            // Write out of order
+            final OutputStream out2 = target.getOutputStream(second.getOffset());
+            assertEquals(6L, Files.size(Paths.get(file.getAbsolute())));
+            assertTrue(SegmentedFile.journal(file).exists());
+            out2.write("def".getBytes(StandardCharsets.UTF_8));
+            out2.close();
+            target.complete(second);
+            final OutputStream out1 = target.getOutputStream(first.getOffset());
+            out1.write("abc".getBytes(StandardCharsets.UTF_8));
+            out1.close();
+            target.complete(first);
+            assertEquals("abcdef", new String(Files.readAllBytes(Paths.get(file.getAbsolute())), StandardCharsets.UTF_8));
+            target.finish();
+            assertFalse(SegmentedFile.journal(file).exists());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        final Local file = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final List<TransferStatus> segments = Arrays.asList(
+            new TransferStatus().segment(true).skip(0L).length(3L),
+            new TransferStatus().segment(true).skip(3L).length(3L),
+            new TransferStatus().segment(true).skip(6L).length(1L));
+        try {
+            final SegmentedFile target = new SegmentedFile(file, 7L, segments);
+            target.getOutputStream(3L).close();
+            target.complete(segments.get(1));
+            final BitSet completed = new SegmentedFile(file, 7L, segments).load();
+            assertFalse(completed.get(0));
+            assertTrue(completed.get(1));
+            assertFalse(completed.get(2));
+            // Different length
+            assertTrue(new SegmentedFile(file, 8L, segments).load().isEmpty());
+        }
+        finally {
+            SegmentedFile.journal(file).delete();
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ch.cyberduck.core.pool;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConnectionLimitTest {
+
+    @Test
+    public void testIncreaseWhileThroughputImproves() {
+        final AdaptiveConnectionLimit limit = new AdaptiveConnectionLimit(2, 20);
+        int max = 0;
+        for(int i = 0; i < 50; i++) {
+            // Throughput limited by latency per connection until bandwidth of 6 connections is reached
+            final int connections = limit.getLimit();
+            limit.sample(Math.min(connections, 6) * 100d, connections, 0);
+            if(i > 30) {
+                max = Math.max(max, limit.getLimit());
+                assertTrue(limit.getLimit() >= 6);
+            }
+        }
+        // Probing with one additional connection only
+        assertTrue(max <= 7);
+    }
+
+    @Test
+    public void testCeiling() {
+        final AdaptiveConnectionLimit limit = new AdaptiveConnectionLimit(2, 4);
+        for(int i = 0; i < 50; i++) {
+            limit.sample(limit.getLimit() * 100d, 1, 0);
+            assertTrue(limit.getLimit() <= 4);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void testDecreaseOnFailures() {
+        final AdaptiveConnectionLimit limit = new AdaptiveConnectionLimit(8, 10);
+        assertEquals(6, limit.sample(800d, 5, 5));
+        assertEquals(4, limit.sample(800d, 5, 5));
+        assertEquals(3, limit.sample(800d, 5, 5));
+        assertEquals(2, limit.sample(800d, 5, 5));
+        assertEquals(1, limit.sample(800d, 5, 5));
+        assertEquals(1, limit.sample(800d, 5, 5));
+        // Single failure not regarded
+        assertEquals(1, limit.sample(800d, 20, 1));
+    }
+
+    @Test
+    public void testIdle() {
+        final AdaptiveConnectionLimit limit = new AdaptiveConnectionLimit(2, 10);
+        for(int i = 0; i < 10; i++) {
+            assertEquals(2, limit.sample(0d, 0, 0));
+        }
+    }
+}
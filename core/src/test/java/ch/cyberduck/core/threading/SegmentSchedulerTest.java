@@ -0,0 +1,137 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentSchedulerTest {
+
+    @Test
+    public void testInterleave() throws Exception {
+        final SegmentScheduler scheduler = new SegmentScheduler("segment", 1);
+        final ThreadPool a = scheduler.pool("a");
+        final ThreadPool b = scheduler.pool("b");
+        final CountDownLatch block = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final List<Future<String>> futures = new ArrayList<>();
+        futures.add(a.execute(() -> {
+            block.await();
+            order.add("a1");
+            return "a1";
+        }));
+        futures.add(a.execute(() -> {
+            order.add("a2");
+            return "a2";
+        }));
+        futures.add(a.execute(() -> {
+            order.add("a3");
+            return "a3";
+        }));
+        futures.add(b.execute(() -> {
+            order.add("b1");
+            return "b1";
+        }));
+        futures.add(b.execute(() -> {
+            order.add("b2");
+            return "b2";
+        }));
+        block.countDown();
+        for(Future<String> f : futures) {
+            f.get();
+        }
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3", "b2"), order);
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        final SegmentScheduler scheduler = new SegmentScheduler("segment", 3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final List<Future<Void>> futures = new ArrayList<>();
+        final List<ThreadPool> pools = new ArrayList<>();
+        for(int file = 0; file < 5; file++) {
+            final ThreadPool pool = scheduler.pool(file);
+            pools.add(pool);
+            for(int part = 0; part < 10; part++) {
+                futures.add(pool.execute(() -> {
+                    max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(2L);
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+        }
+        for(Future<Void> f : futures) {
+            f.get();
+        }
+        for(ThreadPool pool : pools) {
+            pool.shutdown(true);
+        }
+        assertTrue(max.get() <= 3);
+        assertEquals(0, scheduler.getRunning());
+        scheduler.shutdown(true);
+    }
+
+    @Test
+    public void testShutdownPool() throws Exception {
+        final SegmentScheduler scheduler = new SegmentScheduler("segment", 1);
+        final ThreadPool a = scheduler.pool("a");
+        final ThreadPool b = scheduler.pool("b");
+        final CountDownLatch block = new CountDownLatch(1);
+        final Future<Boolean> first = b.execute(() -> {
+            block.await();
+            return true;
+        });
+        final Future<Boolean> pending = a.execute(() -> true);
+        final Future<Boolean> other = b.execute(() -> true);
+        a.shutdown(false);
+        block.countDown();
+        assertTrue(first.get());
+        assertTrue(other.get());
+        try {
+            pending.get();
+            fail();
+        }
+        catch(CancellationException e) {
+            // Expected
+        }
+        try {
+            a.execute(() -> true);
+            fail();
+        }
+        catch(RejectedExecutionException e) {
+            // Expected
+        }
+        // Other pools still accept tasks
+        assertTrue(scheduler.pool("c").execute(() -> true).get());
+        scheduler.shutdown(true);
+    }
+}
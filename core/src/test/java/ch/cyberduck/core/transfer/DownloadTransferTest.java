@@ -3,6 +3,7 @@ package ch.cyberduck.core.transfer;
 import ch.cyberduck.core.*;
 import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.filter.DownloadRegexFilter;
+import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.local.LocalTouchFactory;
 import ch.cyberduck.core.notification.DisabledNotificationService;
@@ -13,6 +14,7 @@ import ch.cyberduck.core.transfer.download.DownloadFilterOptions;
 import ch.cyberduck.core.transfer.download.DownloadRegexPriorityComparator;
 import ch.cyberduck.core.transfer.download.ResumeFilter;
 import ch.cyberduck.core.transfer.symlink.DownloadSymlinkResolver;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
 import ch.cyberduck.core.worker.SingleTransferWorker;
 
 import org.apache.commons.io.IOUtils;
@@ -25,6 +27,7 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -374,4 +377,109 @@ public class DownloadTransferTest {
         assertEquals(new TransferItem(new Path("/f", EnumSet.of(Path.Type.directory)), new Local(System.getProperty("java.io.tmpdir"), "f")), list.get(0));
         assertTrue(list.contains(new TransferItem(new Path("/f", EnumSet.of(Path.Type.file)), new Local(System.getProperty("java.io.tmpdir"), "f"))));
     }
+
+    @Test
+    public void testConnectionBandwidth() {
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), new Path("/t", EnumSet.of(Path.Type.file)), new NullLocal("l"));
+        assertSame(t.getBandwidth(), t.getConnectionBandwidth(new NullSession(new Host(new TestProtocol()))));
+        PreferencesFactory.get().setProperty("queue.connections.bandwidth.bytes", 1024);
+        try {
+            final NullSession session = new NullSession(new Host(new TestProtocol()));
+            final BandwidthThrottle throttle = t.getConnectionBandwidth(session);
+            assertEquals(1024f, throttle.getRate(), 0f);
+            assertSame(t.getBandwidth(), throttle.getParent());
+            // Reused for further files with same connection
+            assertSame(throttle, t.getConnectionBandwidth(session));
+            assertNotSame(throttle, t.getConnectionBandwidth(new NullSession(new Host(new TestProtocol()))));
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.connections.bandwidth.bytes");
+        }
+    }
+
+    @Test
+    public void testListRecursiveWithVaultAutodetect() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final AtomicInteger recursive = new AtomicInteger();
+        final AtomicInteger single = new AtomicInteger();
+        final PathCache cache = new PathCache(Integer.MAX_VALUE);
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), root, new NullLocal("l")).withCache(cache);
+        PreferencesFactory.get().setProperty("queue.listing.recursive", true);
+        try {
+            for(int i = 0; i < 2; i++) {
+                // New connection from pool for every listing
+                final Session<?> session = new NullSession(new Host(new TestProtocol())) {
+                    @Override
+                    public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                        single.incrementAndGet();
+                        return new AttributedList<>();
+                    }
+
+                    @Override
+                    public boolean isRecursive(final Path directory) {
+                        return true;
+                    }
+
+                    @Override
+                    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) {
+                        recursive.incrementAndGet();
+                        final AttributedList<Path> list = new AttributedList<>();
+                        list.add(new Path("/t/a/f", EnumSet.of(Path.Type.file)));
+                        return list;
+                    }
+                }.withRegistry(new DefaultVaultRegistry(new DisabledPasswordStore(), new DisabledPasswordCallback()));
+                if(i == 0) {
+                    assertEquals(1, t.list(session, root, new NullLocal("l"), new DisabledListProgressListener()).size());
+                    assertTrue(cache.isCached(new Path("/t/a", EnumSet.of(Path.Type.directory))));
+                    // Evicted from cache
+                    cache.remove(new Path("/t/a", EnumSet.of(Path.Type.directory)));
+                }
+                else {
+                    t.list(session, new Path("/t/a", EnumSet.of(Path.Type.directory)), new NullLocal("l", "a"), new DisabledListProgressListener());
+                }
+            }
+            assertEquals(1, recursive.get());
+            assertEquals(1, single.get());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.listing.recursive");
+        }
+    }
+
+    @Test
+    public void testListRecursiveVaultFound() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final AtomicInteger single = new AtomicInteger();
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), root, new NullLocal("l"));
+        final Session<?> session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                single.incrementAndGet();
+                final AttributedList<Path> list = new AttributedList<>();
+                list.add(new Path("/t/v", EnumSet.of(Path.Type.directory)));
+                return list;
+            }
+
+            @Override
+            public boolean isRecursive(final Path directory) {
+                return true;
+            }
+
+            @Override
+            public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) {
+                final AttributedList<Path> list = new AttributedList<>();
+                list.add(new Path("/t/v/" + DefaultVaultRegistry.DEFAULT_MASTERKEY_FILE_NAME, EnumSet.of(Path.Type.file)));
+                return list;
+            }
+        }.withRegistry(new DefaultVaultRegistry(new DisabledPasswordStore(), new DisabledPasswordCallback()));
+        PreferencesFactory.get().setProperty("queue.listing.recursive", true);
+        try {
+            // List per directory to decrypt contents of vault found
+            assertEquals(1, t.list(session, root, new NullLocal("l"), new DisabledListProgressListener()).size());
+            assertEquals(1, single.get());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.listing.recursive");
+        }
+    }
 }
@@ -6,12 +6,15 @@ import ch.cyberduck.core.Host;
 import ch.cyberduck.core.LocalAttributes;
 import ch.cyberduck.core.NullLocal;
 import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.NullWriteFeature;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.Permission;
 import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Find;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.DisabledUploadSymlinkResolver;
 
@@ -160,4 +163,76 @@ public class OverwriteFilterTest {
         );
         f.prepare(new Path("a", EnumSet.of(Path.Type.directory)), new NullLocal(System.getProperty("java.io.tmpdir")), new TransferStatus().exists(true), new DisabledProgressListener());
     }
+
+    @Test
+    public void testSegments() throws Exception {
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Write.class) {
+                    return (T) new NullWriteFeature(this) {
+                        @Override
+                        public boolean concurrent() {
+                            return true;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final OverwriteFilter f = new OverwriteFilter(new DisabledUploadSymlinkResolver(), session,
+            new UploadFilterOptions().withSegments(true));
+        final Path file = new Path("/t", EnumSet.of(Path.Type.file));
+        final long length = 3 * PreferencesFactory.get().getLong("queue.upload.segments.threshold") + 1L;
+        final NullLocal local = new NullLocal("/t") {
+            @Override
+            public LocalAttributes attributes() {
+                return new LocalAttributes("/t") {
+                    @Override
+                    public long getSize() {
+                        return length;
+                    }
+                };
+            }
+
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+        };
+        final TransferStatus status = f.prepare(file, local, new TransferStatus(), new DisabledProgressListener());
+        assertFalse(status.isSegmented());
+        f.apply(file, local, status, new DisabledProgressListener());
+        assertTrue(status.isSegmented());
+        // Segments written to temporary file
+        final Path temporary = status.getRename().remote;
+        assertNotNull(temporary);
+        assertNotEquals(file, temporary);
+        assertEquals(file, status.getDisplayname().remote);
+        long offset = 0L;
+        for(TransferStatus segment : status.getSegments()) {
+            assertTrue(segment.isSegment());
+            assertTrue(segment.isAppend());
+            assertEquals(temporary, segment.getRename().remote);
+            assertEquals(offset, segment.getOffset());
+            offset += segment.getLength();
+        }
+        assertEquals(length, offset);
+    }
+
+    @Test
+    public void testNoSegmentsWithoutConcurrentWrite() throws Exception {
+        final OverwriteFilter f = new OverwriteFilter(new DisabledUploadSymlinkResolver(), new NullSession(new Host(new TestProtocol())),
+            new UploadFilterOptions().withSegments(true));
+        final Path file = new Path("/t", EnumSet.of(Path.Type.file));
+        final TransferStatus status = new TransferStatus().length(PreferencesFactory.get().getLong("queue.upload.segments.threshold") * 2);
+        f.apply(file, new NullLocal("/t") {
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+        }, status, new DisabledProgressListener());
+        assertFalse(status.isSegmented());
+    }
 }
@@ -2,20 +2,27 @@ package ch.cyberduck.core.transfer.upload;
 
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
 import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.LocalAttributes;
 import ch.cyberduck.core.NullLocal;
+import ch.cyberduck.core.NullMoveFeature;
 import ch.cyberduck.core.NullSession;
 import ch.cyberduck.core.NullWriteFeature;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.features.AttributesFinder;
+import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.features.Find;
+import ch.cyberduck.core.features.Move;
 import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
+import ch.cyberduck.core.shared.DefaultFindFeature;
 import ch.cyberduck.core.shared.DefaultUploadFeature;
+import ch.cyberduck.core.transfer.TransferOptions;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.DisabledUploadSymlinkResolver;
 
@@ -23,6 +30,8 @@ import org.junit.Test;
 
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -268,4 +277,93 @@ public class ResumeFilterTest {
         assertTrue(f.accept(t, l, new TransferStatus().exists(true)));
         assertFalse(f.prepare(t, l, new TransferStatus().exists(true), new DisabledProgressListener()).isAppend());
     }
+
+    @Test
+    public void testResumeInterruptedSegmentedUpload() throws Exception {
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "t", EnumSet.of(Path.Type.file));
+        final long length = 3 * PreferencesFactory.get().getLong("queue.upload.segments.threshold") + 1L;
+        // Files on server
+        final Set<Path> remote = new HashSet<>();
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path parent, final ListProgressListener listener) {
+                return new AttributedList<Path>(remote);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Write.class) {
+                    return (T) new NullWriteFeature(this) {
+                        @Override
+                        public boolean concurrent() {
+                            return true;
+                        }
+                    };
+                }
+                if(type == Move.class) {
+                    return (T) new NullMoveFeature() {
+                        @Override
+                        public Path move(final Path file, final Path renamed, final TransferStatus status, final Delete.Callback callback, final ConnectionCallback connectionCallback) {
+                            remote.remove(file);
+                            renamed.attributes().setSize(file.attributes().getSize());
+                            remote.add(renamed);
+                            return renamed;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final NullLocal local = new NullLocal("t") {
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+
+            @Override
+            public LocalAttributes attributes() {
+                return new LocalAttributes("t") {
+                    @Override
+                    public long getSize() {
+                        return length;
+                    }
+                };
+            }
+        };
+        final UploadFilterOptions options = new UploadFilterOptions().withTemporary(false).withSegments(true)
+            .withPermission(false).withTimestamp(false);
+        final OverwriteFilter overwrite = new OverwriteFilter(new DisabledUploadSymlinkResolver(), session, options);
+        final TransferStatus status = overwrite.prepare(file, local, new TransferStatus().exists(true), new DisabledProgressListener());
+        overwrite.apply(file, local, status, new DisabledProgressListener());
+        assertTrue(status.isSegmented());
+        final Path temporary = status.getRename().remote;
+        // Interrupted after writing last segment with unwritten ranges before
+        temporary.attributes().setSize(length);
+        remote.add(temporary);
+        assertFalse(new DefaultFindFeature(session).find(file));
+        final ResumeFilter resume = new ResumeFilter(new DisabledUploadSymlinkResolver(), session, options);
+        // Not skipped as complete
+        assertTrue(resume.accept(file, local, new TransferStatus().exists(true)));
+        final TransferStatus resumed = resume.prepare(file, local, new TransferStatus().exists(true), new DisabledProgressListener());
+        // Not appended to incomplete file
+        assertFalse(resumed.isAppend());
+        assertEquals(0L, resumed.getOffset());
+        assertEquals(length, resumed.getLength());
+        resume.apply(file, local, resumed, new DisabledProgressListener());
+        assertTrue(resumed.isSegmented());
+        assertNotEquals(temporary, resumed.getRename().remote);
+        // All segments complete
+        resumed.getRename().remote.attributes().setSize(length);
+        remote.add(resumed.getRename().remote);
+        resume.complete(resumed.getRename().remote, local, new TransferOptions(), resumed.complete(), new DisabledProgressListener());
+        assertTrue(new DefaultFindFeature(session).find(file));
+        assertFalse(new DefaultFindFeature(session).find(resumed.getRename().remote));
+    }
 }
@@ -0,0 +1,142 @@
+package ch.cyberduck.core.worker;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.DisabledProgressListener;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.NullFilter;
+import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.PasswordCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.pool.SessionPool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentDeleteWorkerTest {
+
+    @Test
+    public void testRun() throws Exception {
+        final List<Path> deleted = Collections.synchronizedList(new ArrayList<Path>());
+        final Session session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Delete.class) {
+                    return (T) new Delete() {
+                        @Override
+                        public void delete(final List<Path> files, final PasswordCallback prompt, final Callback callback) {
+                            synchronized(deleted) {
+                                for(Path file : files) {
+                                    for(Path d : deleted) {
+                                        // Parent must not be deleted before child
+                                        assertFalse(file.isChild(d));
+                                    }
+                                    deleted.add(file);
+                                }
+                            }
+                        }
+
+                        @Override
+                        public boolean isRecursive() {
+                            return false;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) throws NotfoundException {
+                if(file.equals(new Path("/t", EnumSet.of(Path.Type.directory)))) {
+                    return new AttributedList<Path>(Arrays.asList(
+                        new Path("/t/a", EnumSet.of(Path.Type.file)),
+                        new Path("/t/d", EnumSet.of(Path.Type.directory)),
+                        new Path("/t/e", EnumSet.of(Path.Type.directory))
+                    ));
+                }
+                if(file.equals(new Path("/t/d", EnumSet.of(Path.Type.directory)))) {
+                    return new AttributedList<Path>(Arrays.asList(
+                        new Path("/t/d/b", EnumSet.of(Path.Type.file)),
+                        new Path("/t/d/c", EnumSet.of(Path.Type.file))
+                    ));
+                }
+                if(file.equals(new Path("/t/e", EnumSet.of(Path.Type.directory)))) {
+                    return AttributedList.emptyList();
+                }
+                throw new NotfoundException(file.getAbsolute());
+            }
+        };
+        final ConcurrentDeleteWorker worker = new ConcurrentDeleteWorker(new SessionPool.SingleSessionPool(session), new DisabledLoginCallback(),
+            Arrays.asList(new Path("/t", EnumSet.of(Path.Type.directory)), new Path("/f", EnumSet.of(Path.Type.file))), PathCache.empty(),
+            new NullFilter<Path>(), new DisabledProgressListener(), 3, 1);
+        final List<Path> result = worker.run(session);
+        assertEquals(7, result.size());
+        assertEquals(7, deleted.size());
+        assertTrue(deleted.contains(new Path("/f", EnumSet.of(Path.Type.file))));
+        assertTrue(deleted.contains(new Path("/t/e", EnumSet.of(Path.Type.directory))));
+        assertEquals(new Path("/t", EnumSet.of(Path.Type.directory)), deleted.get(deleted.size() - 1));
+        assertTrue(deleted.indexOf(new Path("/t/d", EnumSet.of(Path.Type.directory))) > deleted.indexOf(new Path("/t/d/b", EnumSet.of(Path.Type.file))));
+        assertTrue(deleted.indexOf(new Path("/t/d", EnumSet.of(Path.Type.directory))) > deleted.indexOf(new Path("/t/d/c", EnumSet.of(Path.Type.file))));
+    }
+
+    @Test(expected = NotfoundException.class)
+    public void testFailure() throws Exception {
+        final Session session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Delete.class) {
+                    return (T) new Delete() {
+                        @Override
+                        public void delete(final List<Path> files, final PasswordCallback prompt, final Callback callback) {
+                            fail();
+                        }
+
+                        @Override
+                        public boolean isRecursive() {
+                            return false;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) throws NotfoundException {
+                throw new NotfoundException(file.getAbsolute());
+            }
+        };
+        new ConcurrentDeleteWorker(new SessionPool.SingleSessionPool(session), new DisabledLoginCallback(),
+            Collections.singletonList(new Path("/t", EnumSet.of(Path.Type.directory))), PathCache.empty(),
+            new NullFilter<Path>(), new DisabledProgressListener(), 3, 1).run(session);
+    }
+}
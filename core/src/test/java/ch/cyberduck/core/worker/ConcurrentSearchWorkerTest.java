@@ -0,0 +1,113 @@
+package ch.cyberduck.core.worker;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.DisabledListProgressListener;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+import ch.cyberduck.core.Session;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.ui.browser.SearchFilter;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentSearchWorkerTest {
+
+    private PathCache tree() {
+        final PathCache cache = new PathCache(Integer.MAX_VALUE);
+        final AttributedList<Path> root = new AttributedList<>();
+        root.add(new Path("/t1.png", EnumSet.of(Path.Type.file)));
+        root.add(new Path("/t1.gif", EnumSet.of(Path.Type.file)));
+        root.add(new Path("/folder", EnumSet.of(Path.Type.directory)));
+        root.add(new Path("/folder2", EnumSet.of(Path.Type.directory)));
+        cache.put(new Path("/", EnumSet.of(Path.Type.directory)), root);
+        final AttributedList<Path> folder = new AttributedList<>();
+        folder.add(new Path("/folder/t2.gif", EnumSet.of(Path.Type.file)));
+        folder.add(new Path("/folder/sub", EnumSet.of(Path.Type.directory)));
+        cache.put(new Path("/folder", EnumSet.of(Path.Type.directory)), folder);
+        final AttributedList<Path> sub = new AttributedList<>();
+        sub.add(new Path("/folder/sub/t3.png", EnumSet.of(Path.Type.file)));
+        cache.put(new Path("/folder/sub", EnumSet.of(Path.Type.directory)), sub);
+        cache.put(new Path("/folder2", EnumSet.of(Path.Type.directory)), new AttributedList<Path>());
+        return cache;
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        final Session session = new NullSession(new Host(new TestProtocol()));
+        final AtomicInteger chunks = new AtomicInteger();
+        final AttributedList<Path> found = new ConcurrentSearchWorker(new SessionPool.SingleSessionPool(session), new Path("/", EnumSet.of(Path.Type.directory)),
+            new SearchFilter(".png"), this.tree(), new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path parent, final AttributedList<Path> list) {
+                assertEquals(new Path("/", EnumSet.of(Path.Type.directory)), parent);
+                chunks.incrementAndGet();
+            }
+        }, 3).run(session);
+        assertEquals(4, found.size());
+        assertTrue(found.contains(new Path("/t1.png", EnumSet.of(Path.Type.file))));
+        assertTrue(found.contains(new Path("/folder/sub/t3.png", EnumSet.of(Path.Type.file))));
+        assertTrue(found.contains(new Path("/folder", EnumSet.of(Path.Type.directory))));
+        assertTrue(found.contains(new Path("/folder/sub", EnumSet.of(Path.Type.directory))));
+        assertFalse(found.contains(new Path("/folder2", EnumSet.of(Path.Type.directory))));
+        assertFalse(found.contains(new Path("/t1.gif", EnumSet.of(Path.Type.file))));
+        assertEquals(2, chunks.get());
+    }
+
+    @Test
+    public void testDepth() throws Exception {
+        final Session session = new NullSession(new Host(new TestProtocol()));
+        final AttributedList<Path> found = new ConcurrentSearchWorker(new SessionPool.SingleSessionPool(session), new Path("/", EnumSet.of(Path.Type.directory)),
+            new SearchFilter(".png"), this.tree(), new DisabledListProgressListener(), 3).withDepth(1).run(session);
+        assertEquals(1, found.size());
+        assertTrue(found.contains(new Path("/t1.png", EnumSet.of(Path.Type.file))));
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        final Session session = new NullSession(new Host(new TestProtocol()));
+        final AttributedList<Path> found = new ConcurrentSearchWorker(new SessionPool.SingleSessionPool(session), new Path("/", EnumSet.of(Path.Type.directory)),
+            new SearchFilter(".png"), this.tree(), new DisabledListProgressListener(), 3).withLimit(1).run(session);
+        assertEquals(1, found.size());
+        assertTrue(found.contains(new Path("/t1.png", EnumSet.of(Path.Type.file))));
+    }
+
+    @Test
+    public void testLimitPreferences() throws Exception {
+        final Session session = new NullSession(new Host(new TestProtocol()));
+        PreferencesFactory.get().setProperty("browser.search.limit", 1);
+        PreferencesFactory.get().setProperty("browser.search.depth", 2);
+        try {
+            final AttributedList<Path> found = new ConcurrentSearchWorker(new SessionPool.SingleSessionPool(session), new Path("/", EnumSet.of(Path.Type.directory)),
+                new SearchFilter(".png"), this.tree(), new DisabledListProgressListener(), 3).run(session);
+            assertEquals(1, found.size());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("browser.search.limit");
+            PreferencesFactory.get().deleteProperty("browser.search.depth");
+        }
+    }
+}
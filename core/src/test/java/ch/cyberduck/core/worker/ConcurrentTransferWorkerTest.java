@@ -17,11 +17,13 @@ package ch.cyberduck.core.worker;
 
 import ch.cyberduck.core.*;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.DisabledNotificationService;
 import ch.cyberduck.core.pool.DefaultSessionPool;
 import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.ssl.DefaultX509KeyManager;
 import ch.cyberduck.core.ssl.DisabledX509TrustManager;
 import ch.cyberduck.core.transfer.DisabledTransferErrorCallback;
@@ -41,15 +43,21 @@ import ch.cyberduck.core.vault.DefaultVaultRegistry;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import static org.junit.Assert.*;
 
@@ -270,4 +278,157 @@ public class ConcurrentTransferWorkerTest {
         assertEquals(0, entry.getCount());
         worker.cleanup(true);
     }
+
+    @Test
+    public void testAdaptiveConnections() throws Exception {
+        PreferencesFactory.get().setProperty("queue.connections.adaptive", true);
+        PreferencesFactory.get().setProperty("queue.connections.adaptive.limit", 4);
+        PreferencesFactory.get().setProperty("queue.connections.adaptive.interval", 10);
+        try {
+            final Host host = new Host(new TestProtocol(), "localhost", new Credentials("u", "p"));
+            final Transfer transfer = new UploadTransfer(host,
+                new Path("/t", EnumSet.of(Path.Type.directory)),
+                new NullLocal("l"));
+            final LoginConnectionService connection = new TestLoginConnectionService();
+            final ConcurrentTransferWorker worker = new ConcurrentTransferWorker(
+                new DefaultSessionPool(connection, new DisabledX509TrustManager(), new DefaultX509KeyManager(),
+                    new DefaultVaultRegistry(new DisabledPasswordCallback()),
+                    PathCache.empty(), new DisabledTranscriptListener(), host), SessionPool.DISCONNECTED, transfer, new TransferOptions(), new TransferSpeedometer(transfer), new DisabledTransferPrompt(), new DisabledTransferErrorCallback(),
+                new DisabledLoginCallback(), new DisabledPasswordCallback(), new DisabledProgressListener(), new DisabledStreamListener(), new DisabledNotificationService()
+            );
+            final int workers = 200;
+            final CountDownLatch entry = new CountDownLatch(workers);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger max = new AtomicInteger();
+            for(int i = 0; i < workers; i++) {
+                worker.submit(new TransferWorker.TransferCallable() {
+                    @Override
+                    public TransferStatus call() {
+                        max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        // Throughput increases with number of connections
+                        Uninterruptibles.sleepUninterruptibly(2L, TimeUnit.MILLISECONDS);
+                        transfer.addTransferred(1000L);
+                        running.decrementAndGet();
+                        entry.countDown();
+                        return new TransferStatus().complete();
+                    }
+                });
+            }
+            worker.await();
+            assertEquals(0, entry.getCount());
+            assertTrue(max.get() <= 4);
+            worker.cleanup(true);
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.connections.adaptive");
+            PreferencesFactory.get().deleteProperty("queue.connections.adaptive.limit");
+            PreferencesFactory.get().deleteProperty("queue.connections.adaptive.interval");
+        }
+    }
+
+    @Test
+    public void testOverlap() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path a = new Path(root, "a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path(root, "b", EnumSet.of(Path.Type.directory));
+        final Path a1 = new Path(a, "1", EnumSet.of(Path.Type.file));
+        final Path b1 = new Path(b, "1", EnumSet.of(Path.Type.file));
+        final List<Path> transferred = Collections.synchronizedList(new ArrayList<Path>());
+        final Set<Path> pre = Collections.synchronizedSet(new HashSet<Path>());
+        final CountDownLatch listing = new CountDownLatch(1);
+        final Host host = new Host(new TestProtocol(), "test.cyberduck.ch");
+        final Transfer t = new DownloadTransfer(host, root, new NullLocal("l")) {
+            @Override
+            public List<TransferItem> list(final Session<?> session, final Path directory, final Local local, final ListProgressListener listener) throws BackgroundException {
+                if(directory.equals(root)) {
+                    return Arrays.asList(new TransferItem(a, new NullLocal("a")), new TransferItem(b, new NullLocal("b")));
+                }
+                if(directory.equals(a)) {
+                    return Collections.singletonList(new TransferItem(a1, new NullLocal("a1")));
+                }
+                try {
+                    // Block listing until file in sibling directory is transferred
+                    assertTrue(listing.await(1, TimeUnit.MINUTES));
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                return Collections.singletonList(new TransferItem(b1, new NullLocal("b1")));
+            }
+
+            @Override
+            public void pre(final Session<?> source, final Session<?> destination, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+                for(TransferItem item : files.keySet()) {
+                    pre.add(item.remote);
+                }
+                super.pre(source, destination, files, callback);
+            }
+
+            @Override
+            public Path transfer(final Session<?> source, final Session<?> destination, final Path file, final Local local,
+                                 final TransferOptions options, final TransferStatus status,
+                                 final ConnectionCallback connectionCallback,
+                                 final ProgressListener listener, final StreamListener streamListener) {
+                assertTrue(pre.contains(file));
+                if(!file.equals(root)) {
+                    assertTrue(transferred.contains(file.getParent()));
+                }
+                transferred.add(file);
+                if(file.equals(a1)) {
+                    listing.countDown();
+                }
+                return file;
+            }
+
+            @Override
+            public void post(final Session<?> source, final Session<?> destination, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+                assertEquals(5, transferred.size());
+                assertEquals(5, files.size());
+                super.post(source, destination, files, callback);
+            }
+
+            @Override
+            public AbstractDownloadFilter filter(final Session<?> source, final Session<?> destination, final TransferAction action, final ProgressListener listener) {
+                return new AbstractDownloadFilter(new DisabledDownloadSymlinkResolver(), source, null) {
+                    @Override
+                    public boolean accept(final Path file, final Local local, final TransferStatus parent) {
+                        return true;
+                    }
+
+                    @Override
+                    public TransferStatus prepare(final Path file, final Local local, final TransferStatus parent, final ProgressListener progress) {
+                        return new TransferStatus();
+                    }
+
+                    @Override
+                    public void apply(final Path file, final Local local, final TransferStatus status, final ProgressListener listener) {
+                        //
+                    }
+
+                    @Override
+                    public void complete(final Path file, final Local local, final TransferOptions options, final TransferStatus status, final ProgressListener listener) {
+                        //
+                    }
+                };
+            }
+        };
+        final LoginConnectionService connection = new TestLoginConnectionService();
+        final DefaultSessionPool pool = new DefaultSessionPool(connection, new DisabledX509TrustManager(), new DefaultX509KeyManager(),
+            new DefaultVaultRegistry(new DisabledPasswordCallback()),
+            PathCache.empty(), new DisabledTranscriptListener(), host);
+        final ConcurrentTransferWorker worker = new ConcurrentTransferWorker(
+            pool.withMaxTotal(3), SessionPool.DISCONNECTED, t, new TransferOptions().overlap(true), new TransferSpeedometer(t), new DisabledTransferPrompt() {
+            @Override
+            public TransferAction prompt(final TransferItem file) {
+                return TransferAction.overwrite;
+            }
+        }, new DisabledTransferErrorCallback(),
+            new DisabledLoginCallback(), new DisabledPasswordCallback(), new DisabledProgressListener(), new DisabledStreamListener(), new DisabledNotificationService()
+        );
+        assertTrue(worker.run());
+        assertEquals(new HashSet<Path>(Arrays.asList(root, a, b, a1, b1)), new HashSet<Path>(transferred));
+        assertTrue(transferred.indexOf(a1) < transferred.indexOf(b1));
+        assertTrue(worker.getStatus().isEmpty());
+        worker.cleanup(true);
+    }
 }
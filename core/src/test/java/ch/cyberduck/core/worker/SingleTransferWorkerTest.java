@@ -7,6 +7,7 @@ import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.io.DisabledStreamListener;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.DisabledNotificationService;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.transfer.DisabledTransferErrorCallback;
 import ch.cyberduck.core.transfer.DisabledTransferPrompt;
 import ch.cyberduck.core.transfer.DownloadTransfer;
@@ -18,11 +19,17 @@ import ch.cyberduck.core.transfer.TransferSpeedometer;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.UploadTransfer;
 import ch.cyberduck.core.transfer.download.AbstractDownloadFilter;
+import ch.cyberduck.core.transfer.download.OverwriteFilter;
+import ch.cyberduck.core.transfer.symlink.DownloadSymlinkResolver;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
@@ -283,4 +290,178 @@ public class SingleTransferWorkerTest {
             throw e;
         }
     }
+
+    @Test
+    public void testDownloadPipeline() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path a = new Path(root, "a", EnumSet.of(Path.Type.file));
+        final Path b = new Path(root, "b", EnumSet.of(Path.Type.directory));
+        final Path c = new Path(b, "c", EnumSet.of(Path.Type.file));
+        final Path d = new Path(root, "d", EnumSet.of(Path.Type.file));
+        final NullLocal local = new NullLocal("l") {
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public boolean isDirectory() {
+                return true;
+            }
+
+            @Override
+            public boolean isFile() {
+                return false;
+            }
+
+            @Override
+            public AttributedList<Local> list() {
+                return AttributedList.emptyList();
+            }
+        };
+        final List<Path> transferred = new ArrayList<>();
+        final List<Integer> windows = new ArrayList<>();
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), root, local) {
+            @Override
+            public Path transfer(final Session<?> source, final Session<?> destination, final Path file, Local local,
+                                 final TransferOptions options, final TransferStatus status,
+                                 final ConnectionCallback connectionCallback,
+                                 final ProgressListener listener, final StreamListener streamListener) {
+                transferred.add(file);
+                return file;
+            }
+
+            @Override
+            public void pre(final Session<?> source, final Session<?> destination, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+                windows.add(files.size());
+                super.pre(source, destination, files, callback);
+            }
+
+            @Override
+            public AbstractDownloadFilter filter(final Session<?> source, final Session<?> destination, final TransferAction action, final ProgressListener listener) {
+                return super.filter(source, destination, action, listener).withAttributes(new AttributesFinder() {
+                    @Override
+                    public PathAttributes find(final Path file) {
+                        return file.attributes();
+                    }
+                });
+            }
+        };
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                if(file.equals(root)) {
+                    return new AttributedList<Path>(Arrays.asList(a, b, d));
+                }
+                if(file.equals(b)) {
+                    return new AttributedList<Path>(Collections.singletonList(c));
+                }
+                return AttributedList.emptyList();
+            }
+        };
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline.window", 2);
+        try {
+            final SingleTransferWorker worker = new SingleTransferWorker(session, session, t, new TransferOptions().pipeline(true), new TransferSpeedometer(t), new DisabledTransferPrompt() {
+                @Override
+                public TransferAction prompt(final TransferItem file) {
+                    return TransferAction.overwrite;
+                }
+            }, new DisabledTransferErrorCallback(),
+                new DisabledProgressListener(), new DisabledStreamListener(), new DisabledLoginCallback(), new DisabledPasswordCallback(), new DisabledNotificationService());
+            worker.run();
+            assertTrue(worker.getCache().isEmpty());
+            assertTrue(worker.getStatus().isEmpty());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.transfer.pipeline.window");
+        }
+        assertEquals(Arrays.asList(root, b, c, a, d), transferred);
+        assertEquals(Arrays.asList(2, 2, 1), windows);
+    }
+
+    @Test
+    public void testDownloadPipelineCompleteDirectoryAfterChildren() throws Exception {
+        final Path root = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path a = new Path(root, "a", EnumSet.of(Path.Type.file));
+        final Path b = new Path(root, "b", EnumSet.of(Path.Type.directory));
+        final Path c = new Path(b, "c", EnumSet.of(Path.Type.file));
+        final Path d = new Path(root, "d", EnumSet.of(Path.Type.file));
+        final NullLocal local = new NullLocal("l") {
+            @Override
+            public boolean exists() {
+                return true;
+            }
+
+            @Override
+            public boolean isDirectory() {
+                return true;
+            }
+
+            @Override
+            public boolean isFile() {
+                return false;
+            }
+
+            @Override
+            public AttributedList<Local> list() {
+                return AttributedList.emptyList();
+            }
+        };
+        final List<Path> completed = new ArrayList<>();
+        final Transfer t = new DownloadTransfer(new Host(new TestProtocol()), root, local) {
+            @Override
+            public Path transfer(final Session<?> source, final Session<?> destination, final Path file, Local local,
+                                 final TransferOptions options, final TransferStatus status,
+                                 final ConnectionCallback connectionCallback,
+                                 final ProgressListener listener, final StreamListener streamListener) {
+                status.setComplete();
+                return file;
+            }
+
+            @Override
+            public AbstractDownloadFilter filter(final Session<?> source, final Session<?> destination, final TransferAction action, final ProgressListener listener) {
+                return new OverwriteFilter(new DownloadSymlinkResolver(this.getRoots()), source) {
+                    @Override
+                    public void complete(final Path file, final Local local, final TransferOptions options,
+                                         final TransferStatus status, final ProgressListener listener) {
+                        completed.add(file);
+                    }
+                }.withAttributes(new AttributesFinder() {
+                    @Override
+                    public PathAttributes find(final Path file) {
+                        return file.attributes();
+                    }
+                });
+            }
+        };
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                if(file.equals(root)) {
+                    return new AttributedList<Path>(Arrays.asList(a, b, d));
+                }
+                if(file.equals(b)) {
+                    return new AttributedList<Path>(Collections.singletonList(c));
+                }
+                return AttributedList.emptyList();
+            }
+        };
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline.window", 1);
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline.pending", 1);
+        try {
+            final SingleTransferWorker worker = new SingleTransferWorker(session, session, t, new TransferOptions().pipeline(true), new TransferSpeedometer(t), new DisabledTransferPrompt() {
+                @Override
+                public TransferAction prompt(final TransferItem file) {
+                    return TransferAction.overwrite;
+                }
+            }, new DisabledTransferErrorCallback(),
+                new DisabledProgressListener(), new DisabledStreamListener(), new DisabledLoginCallback(), new DisabledPasswordCallback(), new DisabledNotificationService());
+            worker.run();
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.transfer.pipeline.window");
+            PreferencesFactory.get().deleteProperty("queue.transfer.pipeline.pending");
+        }
+        assertEquals(Arrays.asList(a, c, d, b, root), completed);
+    }
 }
@@ -15,6 +15,10 @@ package ch.cyberduck.core.cryptomator;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ProxyInputStream;
 import org.cryptomator.cryptolib.api.CryptoException;
@@ -23,7 +27,15 @@ import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class CryptoInputStream extends ProxyInputStream {
 
@@ -39,21 +51,52 @@ public class CryptoInputStream extends ProxyInputStream {
     private long chunkIndexOffset;
     private final int chunkSize;
 
+    /**
+     * Number of threads to decrypt chunks read ahead
+     */
+    private final int threads;
+    /**
+     * Chunks read ahead submitted for decryption in order
+     */
+    private final Deque<Future<ByteBuffer>> queue = new ArrayDeque<>();
+    /**
+     * Ciphertext buffers not in use
+     */
+    private final BlockingQueue<ByteBuffer> buffers;
+    private ThreadPool pool;
+    /**
+     * End of proxy stream reached
+     */
+    private boolean eof;
+
     public CryptoInputStream(final InputStream proxy, final Cryptor cryptor, final FileHeader header, final long chunkIndexOffset) {
+        this(proxy, cryptor, header, chunkIndexOffset, PreferencesFactory.get().getInteger("cryptomator.decryption.threads"));
+    }
+
+    /**
+     * @param threads Number of threads to decrypt chunks read ahead. Chunks are decrypted on the reading thread if
+     *                not greater than one.
+     */
+    public CryptoInputStream(final InputStream proxy, final Cryptor cryptor, final FileHeader header, final long chunkIndexOffset, final int threads) {
         super(proxy);
         this.proxy = proxy;
         this.cryptor = cryptor;
         this.header = header;
         this.chunkSize = cryptor.fileContentCryptor().ciphertextChunkSize();
         this.chunkIndexOffset = chunkIndexOffset;
+        this.threads = threads;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, threads * 2));
     }
 
     @Override
     public int read() throws IOException {
         if(!buffer.hasRemaining()) {
-            this.readNextChunk();
+            final int read = this.readNextChunk();
+            if(read == IOUtils.EOF) {
+                return IOUtils.EOF;
+            }
         }
-        return buffer.get();
+        return buffer.get() & 0xff;
     }
 
     @Override
@@ -74,25 +117,159 @@ public class CryptoInputStream extends ProxyInputStream {
         return read;
     }
 
+    /**
+     * Skip whole chunks without decrypting
+     */
     @Override
     public long skip(final long len) throws IOException {
-        return IOUtils.skip(this, len);
+        final int cleartextChunkSize = cryptor.fileContentCryptor().cleartextChunkSize();
+        long skipped = Math.min(len, buffer.remaining());
+        buffer.position(buffer.position() + (int) skipped);
+        while(len - skipped >= cleartextChunkSize) {
+            final long chunk = this.skipNextChunk();
+            if(chunk == 0) {
+                return skipped;
+            }
+            skipped += chunk;
+        }
+        if(len > skipped) {
+            if(this.readNextChunk() == IOUtils.EOF) {
+                return skipped;
+            }
+            final int remaining = (int) Math.min(len - skipped, buffer.remaining());
+            buffer.position(buffer.position() + remaining);
+            skipped += remaining;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return Number of cleartext bytes skipped
+     */
+    private long skipNextChunk() throws IOException {
+        if(!queue.isEmpty()) {
+            // Already read ahead
+            return this.take().remaining();
+        }
+        if(eof) {
+            return 0L;
+        }
+        final long read = IOUtils.skip(proxy, chunkSize);
+        if(read < chunkSize) {
+            eof = true;
+        }
+        if(read == 0) {
+            return 0L;
+        }
+        chunkIndexOffset++;
+        return Math.max(0L, read - (chunkSize - cryptor.fileContentCryptor().cleartextChunkSize()));
     }
 
     private int readNextChunk() throws IOException {
-        final ByteBuffer ciphertextBuf = ByteBuffer.allocate(chunkSize);
+        if(threads > 1) {
+            this.readAhead();
+            if(queue.isEmpty()) {
+                return IOUtils.EOF;
+            }
+            buffer = this.take();
+            return buffer.remaining();
+        }
+        if(eof) {
+            return IOUtils.EOF;
+        }
+        final ByteBuffer ciphertextBuf = this.ciphertext();
         final int read = IOUtils.read(proxy, ciphertextBuf.array());
         if(read == 0) {
+            eof = true;
             return IOUtils.EOF;
         }
-        ciphertextBuf.position(read);
-        ciphertextBuf.flip();
+        ciphertextBuf.limit(read);
         try {
             buffer = cryptor.fileContentCryptor().decryptChunk(ciphertextBuf, chunkIndexOffset++, header, true);
         }
         catch(CryptoException e) {
             throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
         }
+        finally {
+            ciphertextBuf.clear();
+            buffers.offer(ciphertextBuf);
+        }
         return read;
     }
+
+    /**
+     * Read chunks ahead and submit for decryption until number of chunks in progress reaches limit
+     */
+    private void readAhead() throws IOException {
+        if(null == pool) {
+            pool = ThreadPoolFactory.get("decrypt", threads);
+        }
+        while(!eof && queue.size() < threads * 2) {
+            final ByteBuffer ciphertextBuf = this.ciphertext();
+            final int read = IOUtils.read(proxy, ciphertextBuf.array());
+            if(read < chunkSize) {
+                eof = true;
+            }
+            if(read == 0) {
+                buffers.offer(ciphertextBuf);
+                break;
+            }
+            ciphertextBuf.limit(read);
+            final long index = chunkIndexOffset++;
+            queue.add(pool.execute(new Callable<ByteBuffer>() {
+                @Override
+                public ByteBuffer call() throws CryptoException {
+                    try {
+                        return cryptor.fileContentCryptor().decryptChunk(ciphertextBuf, index, header, true);
+                    }
+                    finally {
+                        ciphertextBuf.clear();
+                        buffers.offer(ciphertextBuf);
+                    }
+                }
+            }));
+        }
+    }
+
+    /**
+     * @return Decrypted chunk at head of queue
+     */
+    private ByteBuffer take() throws IOException {
+        try {
+            return queue.poll().get();
+        }
+        catch(InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch(ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if(cause instanceof CryptoException) {
+                throw new IOException(cause.getMessage(), new CryptoAuthenticationException(cause.getMessage(), cause));
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * @return Unused ciphertext buffer
+     */
+    private ByteBuffer ciphertext() {
+        final ByteBuffer ciphertextBuf = buffers.poll();
+        if(null == ciphertextBuf) {
+            return ByteBuffer.allocate(chunkSize);
+        }
+        return ciphertextBuf;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            if(pool != null) {
+                pool.shutdown(false);
+            }
+        }
+    }
 }
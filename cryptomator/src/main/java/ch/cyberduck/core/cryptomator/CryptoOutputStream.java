@@ -18,7 +18,10 @@ package ch.cyberduck.core.cryptomator;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.io.MemorySegementingOutputStream;
 import ch.cyberduck.core.io.StatusOutputStream;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.random.NonceGenerator;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.cryptomator.cryptolib.api.CryptoException;
@@ -26,9 +29,17 @@ import org.cryptomator.cryptolib.api.Cryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
@@ -36,7 +47,17 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
     public CryptoOutputStream(final StatusOutputStream<Reply> proxy, final Cryptor cryptor, final FileHeader header,
                               final NonceGenerator nonces, final long chunkIndexOffset) {
-        super(new MemorySegementingOutputStream(new EncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset),
+        this(proxy, cryptor, header, nonces, chunkIndexOffset, PreferencesFactory.get().getInteger("cryptomator.encryption.threads"));
+    }
+
+    /**
+     * @param threads Number of threads to encrypt chunks in parallel
+     */
+    public CryptoOutputStream(final StatusOutputStream<Reply> proxy, final Cryptor cryptor, final FileHeader header,
+                              final NonceGenerator nonces, final long chunkIndexOffset, final int threads) {
+        super(new MemorySegementingOutputStream(threads > 1 ?
+                new ParallelEncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset, threads) :
+                new EncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset),
                 cryptor.fileContentCryptor().cleartextChunkSize()));
         this.proxy = proxy;
     }
@@ -81,8 +102,8 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
             try {
-                for(int chunkOffset = off; chunkOffset < len; chunkOffset += chunksize) {
-                    int chunkLen = Math.min(chunksize, len - chunkOffset);
+                for(int chunkOffset = off; chunkOffset < off + len; chunkOffset += chunksize) {
+                    int chunkLen = Math.min(chunksize, off + len - chunkOffset);
                     final ByteBuffer encryptedChunk = cryptor.fileContentCryptor().encryptChunk(
                             ByteBuffer.wrap(Arrays.copyOfRange(b, chunkOffset, chunkOffset + chunkLen)),
                             chunkIndexOffset++, header, nonces.next());
@@ -94,4 +115,132 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
             }
         }
     }
+
+    /**
+     * Encrypts chunks on a pool of threads while writing ciphertext in order of chunks. Chunk index and nonce are
+     * assigned in order when a chunk is submitted. Cleartext buffers are reused once a chunk is encrypted.
+     */
+    private static final class ParallelEncryptingOutputStream extends ProxyOutputStream {
+        private final Cryptor cryptor;
+        private final FileHeader header;
+        private final int chunksize;
+        private final NonceGenerator nonces;
+        private final int threads;
+        private long chunkIndexOffset;
+
+        /**
+         * Chunks submitted for encryption in order
+         */
+        private final Deque<Future<ByteBuffer>> queue = new ArrayDeque<>();
+        /**
+         * Cleartext buffers not in use. Limits the number of chunks in memory.
+         */
+        private final BlockingQueue<ByteBuffer> buffers;
+        private ThreadPool pool;
+
+        public ParallelEncryptingOutputStream(final OutputStream proxy, final Cryptor cryptor, final FileHeader header,
+                                              final NonceGenerator nonces, final long chunkIndexOffset, final int threads) {
+            super(proxy);
+            this.cryptor = cryptor;
+            this.header = header;
+            this.chunksize = cryptor.fileContentCryptor().cleartextChunkSize();
+            this.nonces = nonces;
+            this.chunkIndexOffset = chunkIndexOffset;
+            this.threads = threads;
+            this.buffers = new ArrayBlockingQueue<>(threads * 2);
+        }
+
+        @Override
+        public void write(final byte[] b) throws IOException {
+            this.write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if(null == pool) {
+                pool = ThreadPoolFactory.get("encrypt", threads);
+            }
+            for(int chunkOffset = off; chunkOffset < off + len; chunkOffset += chunksize) {
+                final int chunkLen = Math.min(chunksize, off + len - chunkOffset);
+                final ByteBuffer cleartext = this.buffer();
+                cleartext.put(b, chunkOffset, chunkLen).flip();
+                final long index = chunkIndexOffset++;
+                final byte[] nonce = nonces.next();
+                queue.add(pool.execute(new Callable<ByteBuffer>() {
+                    @Override
+                    public ByteBuffer call() throws CryptoException {
+                        try {
+                            return cryptor.fileContentCryptor().encryptChunk(cleartext, index, header, nonce);
+                        }
+                        finally {
+                            cleartext.clear();
+                            buffers.offer(cleartext);
+                        }
+                    }
+                }));
+            }
+        }
+
+        /**
+         * @return Free buffer or new buffer if limit is not reached. Otherwise writes encrypted chunks until a buffer
+         * is available.
+         */
+        private ByteBuffer buffer() throws IOException {
+            while(true) {
+                final ByteBuffer buffer = buffers.poll();
+                if(buffer != null) {
+                    return buffer;
+                }
+                if(queue.size() < threads * 2) {
+                    return ByteBuffer.allocate(chunksize);
+                }
+                this.drain(queue.size() - 1);
+            }
+        }
+
+        /**
+         * Write encrypted chunks in order
+         *
+         * @param remaining Number of chunks to leave in progress
+         */
+        private void drain(final int remaining) throws IOException {
+            while(queue.size() > remaining) {
+                final ByteBuffer encryptedChunk;
+                try {
+                    encryptedChunk = queue.peek().get();
+                }
+                catch(InterruptedException e) {
+                    throw new InterruptedIOException(e.getMessage());
+                }
+                catch(ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof CryptoException) {
+                        throw new IOException(cause.getMessage(), new CryptoAuthenticationException(cause.getMessage(), (CryptoException) cause));
+                    }
+                    throw new IOException(cause.getMessage(), cause);
+                }
+                queue.poll();
+                super.write(encryptedChunk.array(), encryptedChunk.arrayOffset() + encryptedChunk.position(), encryptedChunk.remaining());
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.drain(0);
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.drain(0);
+                super.close();
+            }
+            finally {
+                if(pool != null) {
+                    pool.shutdown(false);
+                }
+            }
+        }
+    }
 }
@@ -64,7 +64,10 @@ public class CryptoReadFeature implements Read {
             final FileHeader header = cryptor.fileHeaderCryptor().decryptHeader(headerBuffer);
             if(status.isAppend()) {
                 IOUtils.closeQuietly(in);
-                final TransferStatus s = new TransferStatus(status).length(-1L);
+                // Ranged read starting with chunk containing offset
+                final TransferStatus s = new TransferStatus(status).length(status.getLength() > 0 ?
+                    this.align(status.getOffset() + status.getLength() - 1) + cryptor.fileContentCryptor().ciphertextChunkSize() - this.align(status.getOffset()) :
+                    -1L);
                 s.setOffset(this.align(status.getOffset()));
                 final CryptoInputStream crypto = new CryptoInputStream(proxy.read(encrypted, s, callback), cryptor, header, this.chunk(status.getOffset()));
                 crypto.skip(this.position(status.getOffset()));
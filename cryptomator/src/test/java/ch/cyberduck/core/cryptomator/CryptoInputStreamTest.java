@@ -0,0 +1,124 @@
+package ch.cyberduck.core.cryptomator;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.DisabledPasswordStore;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.NullSession;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.cryptomator.random.RandomNonceGenerator;
+import ch.cyberduck.core.features.Directory;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.StatusOutputStream;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.core.vault.VaultCredentials;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.cryptomator.cryptolib.api.FileHeader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class CryptoInputStreamTest {
+
+    private CryptoVault getVault() throws Exception {
+        final Path home = new Path("/vault", EnumSet.of(Path.Type.directory));
+        final NullSession session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Directory.class) {
+                    return (T) new Directory() {
+
+                        @Override
+                        public Path mkdir(final Path folder, final String region, final TransferStatus status) {
+                            assertTrue(folder.equals(home) || folder.isChild(home));
+                            return folder;
+                        }
+
+                        @Override
+                        public Directory withWriter(final Write writer) {
+                            return this;
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+        };
+        final CryptoVault vault = new CryptoVault(home);
+        vault.create(session, null, new VaultCredentials("test"), new DisabledPasswordStore());
+        return vault;
+    }
+
+    private byte[] encrypt(final CryptoVault vault, final FileHeader header, final byte[] cleartext) throws Exception {
+        final ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        final CryptoOutputStream<?> stream = new CryptoOutputStream<>(new StatusOutputStream<Void>(cipherText) {
+            @Override
+            public Void getStatus() {
+                return null;
+            }
+        }, vault.getCryptor(), header, new RandomNonceGenerator(), 0, 1);
+        stream.write(cleartext, 0, cleartext.length);
+        stream.close();
+        return cipherText.toByteArray();
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final FileHeader header = vault.getCryptor().fileHeaderCryptor().create();
+        final int chunksize = vault.getCryptor().fileContentCryptor().cleartextChunkSize();
+        final byte[] cleartext = RandomUtils.nextBytes(chunksize * 5 + 100);
+        final byte[] ciphertext = this.encrypt(vault, header, cleartext);
+        for(int threads : new int[]{1, 4}) {
+            for(int offset : new int[]{1, chunksize, chunksize * 3 + 7, cleartext.length}) {
+                final CryptoInputStream in = new CryptoInputStream(new ByteArrayInputStream(ciphertext), vault.getCryptor(), header, 0, threads);
+                assertEquals(offset, in.skip(offset));
+                assertArrayEquals(Arrays.copyOfRange(cleartext, offset, cleartext.length), IOUtils.toByteArray(in));
+                in.close();
+            }
+        }
+    }
+
+    @Test
+    public void testSkipPastEnd() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final FileHeader header = vault.getCryptor().fileHeaderCryptor().create();
+        final byte[] cleartext = RandomUtils.nextBytes(vault.getCryptor().fileContentCryptor().cleartextChunkSize() * 2 + 1);
+        final CryptoInputStream in = new CryptoInputStream(new ByteArrayInputStream(this.encrypt(vault, header, cleartext)), vault.getCryptor(), header, 0, 1);
+        assertEquals(cleartext.length, in.skip(cleartext.length * 2));
+        assertEquals(-1, in.read());
+        in.close();
+    }
+
+    @Test
+    public void testReadAhead() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final FileHeader header = vault.getCryptor().fileHeaderCryptor().create();
+        final byte[] cleartext = RandomUtils.nextBytes(vault.getCryptor().fileContentCryptor().cleartextChunkSize() * 20 + 1);
+        final CryptoInputStream in = new CryptoInputStream(new ByteArrayInputStream(this.encrypt(vault, header, cleartext)), vault.getCryptor(), header, 0, 4);
+        assertEquals(cleartext[0] & 0xff, in.read());
+        assertArrayEquals(Arrays.copyOfRange(cleartext, 1, cleartext.length), IOUtils.toByteArray(in));
+        in.close();
+    }
+}
@@ -0,0 +1,95 @@
+package ch.cyberduck.core.cryptomator;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.cryptomator.random.FastSecureRandomProvider;
+import ch.cyberduck.core.cryptomator.random.RandomNonceGenerator;
+import ch.cyberduck.core.io.VoidStatusOutputStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
+import org.cryptomator.cryptolib.api.Cryptor;
+import org.cryptomator.cryptolib.api.FileHeader;
+import org.cryptomator.cryptolib.v1.Version1CryptorModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of writing to vault with chunks encrypted on the writing thread compared to chunks encrypted in
+ * parallel. Run with <code>java -cp target/test-classes:... ch.cyberduck.core.cryptomator.CryptoOutputStreamBenchmark</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CryptoOutputStreamBenchmark {
+
+    /**
+     * Number of threads to encrypt chunks with
+     */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    /**
+     * Size of data written in bytes
+     */
+    @Param({"67108864"})
+    public int size;
+
+    private Cryptor cryptor;
+    private FileHeader header;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cryptor = new Version1CryptorModule().provideCryptorProvider(FastSecureRandomProvider.get().provide()).createNew();
+        header = cryptor.fileHeaderCryptor().create();
+        // Default buffer size of stream copier
+        buffer = RandomUtils.nextBytes(32768);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        final CryptoOutputStream<Void> out = new CryptoOutputStream<Void>(new VoidStatusOutputStream(new NullOutputStream()),
+            cryptor, header, new RandomNonceGenerator(), 0L, threads);
+        for(int written = 0; written < size; written += buffer.length) {
+            out.write(buffer, 0, buffer.length);
+        }
+        out.close();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CryptoOutputStreamBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -144,4 +144,31 @@ public class CryptoOutputStreamTest {
 
         assertArrayEquals(cleartext, read);
     }
+
+    @Test
+    public void testWriteParallel() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        final FileHeader header = vault.getCryptor().fileHeaderCryptor().create();
+        final CryptoOutputStream<?> stream = new CryptoOutputStream<>(new StatusOutputStream<Void>(cipherText) {
+            @Override
+            public Void getStatus() {
+                return null;
+            }
+        }, vault.getCryptor(), header, new RandomNonceGenerator(), 0, 4);
+
+        final byte[] cleartext = RandomUtils.nextBytes(vault.getCryptor().fileContentCryptor().cleartextChunkSize() * 20 + 1);
+        for(int offset = 0; offset < cleartext.length; offset += 1000) {
+            stream.write(cleartext, offset, Math.min(1000, cleartext.length - offset));
+        }
+        stream.close();
+        assertEquals(vault.toCiphertextSize(cleartext.length) - vault.getCryptor().fileHeaderCryptor().headerSize(), cipherText.size());
+
+        final byte[] read = new byte[cleartext.length];
+        final CryptoInputStream cryptoInputStream = new CryptoInputStream(new ByteArrayInputStream(cipherText.toByteArray()), vault.getCryptor(), header, 0);
+        IOUtils.readFully(cryptoInputStream, read);
+        cryptoInputStream.close();
+
+        assertArrayEquals(cleartext, read);
+    }
 }
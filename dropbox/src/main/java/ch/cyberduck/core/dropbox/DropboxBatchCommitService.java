@@ -0,0 +1,135 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConflictException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.ConnectionTimeoutException;
+import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.exception.QuotaException;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.CancelCallback;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchJobStatus;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchLaunch;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResult;
+import com.dropbox.core.v2.files.UploadSessionFinishBatchResultEntry;
+import com.dropbox.core.v2.files.UploadSessionFinishError;
+
+/**
+ * Commit upload sessions of multiple files with a single request to avoid contention on the namespace lock
+ * obtained for every commit.
+ */
+public class DropboxBatchCommitService implements DropboxUploadBatch.Commit {
+    private static final Logger log = Logger.getLogger(DropboxBatchCommitService.class);
+
+    /**
+     * Maximum number of entries to commit with a single request
+     */
+    public static final int MAXIMUM_BATCH_ENTRIES = 1000;
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final DropboxSession session;
+
+    public DropboxBatchCommitService(final DropboxSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public List<BackgroundException> commit(final List<UploadSessionFinishArg> entries, final CancelCallback cancel) throws BackgroundException {
+        try {
+            final DbxUserFilesRequests client = new DbxUserFilesRequests(session.getClient());
+            final UploadSessionFinishBatchLaunch launch = client.uploadSessionFinishBatch(entries);
+            final UploadSessionFinishBatchResult result;
+            if(launch.isComplete()) {
+                result = launch.getCompleteValue();
+            }
+            else if(launch.isAsyncJobId()) {
+                result = this.poll(client, launch.getAsyncJobIdValue(), cancel);
+            }
+            else {
+                throw new InteroperabilityException(launch.toString());
+            }
+            final List<BackgroundException> failures = new ArrayList<>();
+            for(UploadSessionFinishBatchResultEntry entry : result.getEntries()) {
+                failures.add(entry.isFailure() ? this.map(entry.getFailureValue()) : null);
+            }
+            return failures;
+        }
+        catch(DbxException e) {
+            throw new DropboxExceptionMappingService().map("Upload failed.", e);
+        }
+    }
+
+    /**
+     * Wait for asynchronous commit to finish
+     *
+     * @param job    Asynchronous job identifier
+     * @param cancel Stop waiting for job
+     */
+    private UploadSessionFinishBatchResult poll(final DbxUserFilesRequests client, final String job, final CancelCallback cancel) throws DbxException, BackgroundException {
+        final long timeout = preferences.getLong("dropbox.upload.batch.poll.timeout");
+        final long start = System.currentTimeMillis();
+        while(true) {
+            final UploadSessionFinishBatchJobStatus status = client.uploadSessionFinishBatchCheck(job);
+            if(status.isComplete()) {
+                return status.getCompleteValue();
+            }
+            if(System.currentTimeMillis() - start > timeout) {
+                throw new ConnectionTimeoutException(String.format("Batch commit job %s not complete after %d seconds", job, timeout / 1000), null);
+            }
+            cancel.verify();
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Wait for batch commit job %s in progress", job));
+            }
+            try {
+                Thread.sleep(preferences.getLong("dropbox.upload.batch.poll.interval"));
+            }
+            catch(InterruptedException e) {
+                throw new ConnectionCanceledException(e);
+            }
+        }
+    }
+
+    private BackgroundException map(final UploadSessionFinishError error) {
+        if(error.isPath()) {
+            switch(error.getPathValue().tag()) {
+                case INSUFFICIENT_SPACE:
+                    return new QuotaException(error.toString(), null);
+                case CONFLICT:
+                    return new ConflictException(error.toString());
+                case OTHER:
+                    return new InteroperabilityException(error.toString());
+                default:
+                    return new AccessDeniedException(error.toString());
+            }
+        }
+        return new InteroperabilityException(error.toString());
+    }
+}
@@ -0,0 +1,122 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.StreamProgress;
+import ch.cyberduck.core.io.ThrottledOutputStream;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.util.Date;
+
+import com.dropbox.core.DbxException;
+import com.dropbox.core.v2.files.CommitInfo;
+import com.dropbox.core.v2.files.DbxUserFilesRequests;
+import com.dropbox.core.v2.files.UploadSessionCursor;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+import com.dropbox.core.v2.files.UploadSessionStartUploader;
+import com.dropbox.core.v2.files.WriteMode;
+
+/**
+ * Upload file content with a single request to an upload session closed immediately. The upload session is
+ * committed together with other files uploaded concurrently when enough files are added or with
+ * {@link DropboxBulkFeature} after the transfer.
+ */
+public class DropboxBatchUploadFeature implements Upload<String> {
+    private static final Logger log = Logger.getLogger(DropboxBatchUploadFeature.class);
+
+    private final DropboxSession session;
+    private final DropboxUploadBatch batch;
+
+    private Write<String> writer;
+
+    public DropboxBatchUploadFeature(final DropboxSession session, final Write<String> writer) {
+        this.session = session;
+        this.writer = writer;
+        this.batch = DropboxUploadBatch.get(session.getHost());
+    }
+
+    /**
+     * @return Null as metadata of file is not returned when committed in batch
+     */
+    @Override
+    public String upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                         final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        try {
+            final DbxUserFilesRequests files = new DbxUserFilesRequests(session.getClient());
+            // Close session with first request as no further content is appended
+            final UploadSessionStartUploader start = files.uploadSessionStart(true);
+            new StreamCopier(status, new StreamProgress() {
+                @Override
+                public void progress(final long bytes) {
+                    status.progress(bytes);
+                }
+
+                @Override
+                public void setComplete() {
+                    // Complete when added to batch
+                }
+            })
+                .withOffset(status.getOffset())
+                .withLimit(status.getLength())
+                .withListener(listener)
+                .transfer(local.getInputStream(), new ThrottledOutputStream(start.getOutputStream(), throttle));
+            final String sessionId = start.finish().getSessionId();
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Uploaded %s to session %s to commit in batch", file, sessionId));
+            }
+            batch.add(file, new UploadSessionFinishArg(new UploadSessionCursor(sessionId, status.getLength()),
+                CommitInfo.newBuilder(file.getAbsolute())
+                    .withClientModified(status.getTimestamp() != null ? new Date(status.getTimestamp()) : null)
+                    .withMode(this.mode(status))
+                    .build()), status, new DropboxBatchCommitService(session));
+            status.setComplete();
+            return null;
+        }
+        catch(DbxException e) {
+            throw new DropboxExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+    }
+
+    /**
+     * @return Overwrite existing file or fail with conflict if file has been added in the meantime
+     */
+    protected WriteMode mode(final TransferStatus status) {
+        return status.isExists() ? WriteMode.OVERWRITE : WriteMode.ADD;
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Upload<String> withWriter(final Write<String> writer) {
+        this.writer = writer;
+        return this;
+    }
+}
@@ -0,0 +1,100 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Bulk;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.transfer.Transfer;
+import ch.cyberduck.core.transfer.TransferItem;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Commit upload sessions of files uploaded with {@link DropboxBatchUploadFeature} not yet committed together with
+ * other files after the transfer and fail files with their commit result.
+ */
+public class DropboxBulkFeature implements Bulk<Void> {
+    private static final Logger log = Logger.getLogger(DropboxBulkFeature.class);
+
+    private final DropboxSession session;
+    private final DropboxUploadBatch batch;
+
+    public DropboxBulkFeature(final DropboxSession session) {
+        this(session, DropboxUploadBatch.get(session.getHost()));
+    }
+
+    public DropboxBulkFeature(final DropboxSession session, final DropboxUploadBatch batch) {
+        this.session = session;
+        this.batch = batch;
+    }
+
+    @Override
+    public Void pre(final Transfer.Type type, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) {
+        switch(type) {
+            case upload:
+                for(Map.Entry<TransferItem, TransferStatus> file : files.entrySet()) {
+                    // Discard content uploaded for file in previous attempt not committed
+                    batch.remove(this.target(file));
+                }
+        }
+        return null;
+    }
+
+    @Override
+    public void post(final Transfer.Type type, final Map<TransferItem, TransferStatus> files, final ConnectionCallback callback) throws BackgroundException {
+        switch(type) {
+            case upload:
+                final Map<Path, TransferStatus> uploads = new LinkedHashMap<>();
+                for(Map.Entry<TransferItem, TransferStatus> file : files.entrySet()) {
+                    uploads.put(this.target(file), file.getValue());
+                }
+                final Map<Path, BackgroundException> failures = batch.flush(uploads.keySet(), new DropboxBatchCommitService(session));
+                for(Map.Entry<Path, BackgroundException> failure : failures.entrySet()) {
+                    log.warn(String.format("Failure %s committing upload of %s", failure.getValue(), failure.getKey()));
+                    // Mark file incomplete to upload again when resuming transfer
+                    uploads.get(failure.getKey()).setFailure();
+                }
+                for(BackgroundException failure : failures.values()) {
+                    throw failure;
+                }
+        }
+    }
+
+    /**
+     * @return Remote file uploaded
+     */
+    private Path target(final Map.Entry<TransferItem, TransferStatus> file) {
+        return null == file.getValue().getRename().remote ? file.getKey().remote : file.getValue().getRename().remote;
+    }
+
+    @Override
+    public Bulk<Void> withDelete(final Delete delete) {
+        return this;
+    }
+
+    @Override
+    public Bulk<Void> withCache(final Cache<Path> cache) {
+        return this;
+    }
+}
@@ -24,6 +24,7 @@ import ch.cyberduck.core.PreferencesUseragentProvider;
 import ch.cyberduck.core.UseragentProvider;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
+import ch.cyberduck.core.features.Bulk;
 import ch.cyberduck.core.features.Copy;
 import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.features.Directory;
@@ -133,7 +134,10 @@ public class DropboxSession extends HttpSession<DbxRawClientV2> {
             return (T) new DropboxWriteFeature(this);
         }
         if(type == Upload.class) {
-            return (T) new DropboxUploadFeature(new DropboxWriteFeature(this));
+            return (T) new DropboxThresholdUploadService(this);
+        }
+        if(type == Bulk.class) {
+            return (T) new DropboxBulkFeature(this);
         }
         if(type == Directory.class) {
             return (T) new DropboxDirectoryFeature(this);
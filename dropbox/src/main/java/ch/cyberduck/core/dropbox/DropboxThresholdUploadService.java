@@ -0,0 +1,93 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+public class DropboxThresholdUploadService implements Upload<String> {
+    private static final Logger log = Logger.getLogger(DropboxThresholdUploadService.class);
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final DropboxSession session;
+    private final Long threshold;
+
+    private Write<String> writer;
+
+    public DropboxThresholdUploadService(final DropboxSession session) {
+        this(session, PreferencesFactory.get().getLong("dropbox.upload.batch.threshold"));
+    }
+
+    public DropboxThresholdUploadService(final DropboxSession session, final Long threshold) {
+        this.session = session;
+        this.threshold = threshold;
+        this.writer = new DropboxWriteFeature(session);
+    }
+
+    @Override
+    public String upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                         final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        if(this.isBatchUpload(status)) {
+            return new DropboxBatchUploadFeature(session, writer).upload(file, local, throttle, listener, status, callback);
+        }
+        return new DropboxUploadFeature(writer).upload(file, local, throttle, listener, status, callback);
+    }
+
+    protected boolean isBatchUpload(final TransferStatus status) {
+        if(!preferences.getBoolean("dropbox.upload.batch")) {
+            return false;
+        }
+        if(status.isAppend()) {
+            return false;
+        }
+        if(status.getLength() > threshold) {
+            return false;
+        }
+        if(!(writer instanceof DropboxWriteFeature)) {
+            // Content must be written with writer set such as for encryption in vault
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Skip batch upload with writer %s", writer));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Upload<String> withWriter(final Write<String> writer) {
+        this.writer = writer;
+        return this;
+    }
+}
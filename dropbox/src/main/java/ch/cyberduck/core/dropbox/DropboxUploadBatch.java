@@ -0,0 +1,285 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.CancelCallback;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+
+/**
+ * Upload sessions with all content appended waiting to be committed together. Shared by all sessions of a
+ * bookmark as files are uploaded concurrently with connections from a pool. Adding an upload returns immediately.
+ * A full window of pending uploads is committed in the background. Remaining uploads are committed when flushed
+ * after the transfer, which also returns the failure of every file committed.
+ */
+public class DropboxUploadBatch {
+    private static final Logger log = Logger.getLogger(DropboxUploadBatch.class);
+
+    private static final Map<String, DropboxUploadBatch> bookmarks = new HashMap<>();
+
+    /**
+     * @param bookmark Bookmark
+     * @return Pending commits for bookmark
+     */
+    public static synchronized DropboxUploadBatch get(final Host bookmark) {
+        return bookmarks.computeIfAbsent(bookmark.getUuid(), uuid -> new DropboxUploadBatch(
+            Math.min(DropboxBatchCommitService.MAXIMUM_BATCH_ENTRIES, PreferencesFactory.get().getInteger("dropbox.upload.batch.size"))));
+    }
+
+    /**
+     * Uploads not yet committing in order added
+     */
+    private final LinkedList<Pending> pending = new LinkedList<>();
+
+    /**
+     * Uploads added by file not yet flushed
+     */
+    private final Map<Path, Pending> uploads = new HashMap<>();
+
+    /**
+     * Maximum number of uploads committed together
+     */
+    private final int size;
+
+    /**
+     * Number of windows committing in the background
+     */
+    private int committing;
+
+    /**
+     * Commit full windows in the background. Only allocated while windows are committing.
+     */
+    private ThreadPool pool;
+
+    public DropboxUploadBatch(final int size) {
+        this.size = size;
+    }
+
+    /**
+     * Add upload to batch. Commits a window of pending uploads in the background when full.
+     *
+     * @param file   Remote file
+     * @param entry  Closed upload session and commit information for file
+     * @param status Transfer status of file canceled to withdraw the upload if not yet committing
+     * @param commit Commit window of uploads
+     */
+    public synchronized void add(final Path file, final UploadSessionFinishArg entry, final TransferStatus status, final Commit commit) {
+        this.remove(file);
+        final Pending upload = new Pending(file, entry, status);
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Add %s to batch with %d pending commits", file, pending.size()));
+        }
+        pending.add(upload);
+        uploads.put(file, upload);
+        if(pending.size() >= size) {
+            final List<Pending> window = new ArrayList<>();
+            for(Iterator<Pending> iter = pending.iterator(); iter.hasNext() && window.size() < size; ) {
+                final Pending next = iter.next();
+                next.committing = true;
+                window.add(next);
+                iter.remove();
+            }
+            if(null == pool) {
+                pool = ThreadPoolFactory.get("dropbox-batch", 1);
+            }
+            committing++;
+            pool.execute(() -> {
+                this.commit(window, commit, true);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Withdraw upload of file not yet committing such as from a previous attempt
+     *
+     * @param file Remote file
+     */
+    public synchronized void remove(final Path file) {
+        final Pending upload = uploads.get(file);
+        if(null != upload && !upload.committing) {
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Withdraw upload %s from batch", file));
+            }
+            pending.remove(upload);
+            uploads.remove(file);
+        }
+    }
+
+    /**
+     * Commit pending uploads of files and wait for windows committing in the background containing any of them
+     *
+     * @param files  Remote files
+     * @param commit Commit window of uploads
+     * @return Failure for every file that failed to commit
+     * @throws ConnectionCanceledException Interrupted waiting for commit in the background
+     */
+    public Map<Path, BackgroundException> flush(final Collection<Path> files, final Commit commit) throws ConnectionCanceledException {
+        final List<Pending> flushed = new ArrayList<>();
+        final List<Pending> remaining = new ArrayList<>();
+        synchronized(this) {
+            for(Path file : files) {
+                final Pending upload = uploads.remove(file);
+                if(null == upload) {
+                    continue;
+                }
+                if(!upload.committing) {
+                    pending.remove(upload);
+                    if(upload.status.isCanceled()) {
+                        upload.failure = new ConnectionCanceledException();
+                        upload.done = true;
+                    }
+                    else {
+                        upload.committing = true;
+                        remaining.add(upload);
+                    }
+                }
+                flushed.add(upload);
+            }
+        }
+        for(int i = 0; i < remaining.size(); i += size) {
+            this.commit(remaining.subList(i, Math.min(remaining.size(), i + size)), commit, false);
+        }
+        final Map<Path, BackgroundException> failures = new LinkedHashMap<>();
+        synchronized(this) {
+            for(Pending upload : flushed) {
+                while(!upload.done) {
+                    try {
+                        this.wait();
+                    }
+                    catch(InterruptedException e) {
+                        throw new ConnectionCanceledException(e);
+                    }
+                }
+                if(null != upload.failure) {
+                    failures.put(upload.file, upload.failure);
+                }
+            }
+            if(0 == committing && null != pool) {
+                // Release thread until further windows are full
+                pool.shutdown(false);
+                pool = null;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * @param background Committed in background thread
+     */
+    private void commit(final List<Pending> window, final Commit commit, final boolean background) {
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Commit batch of %d uploads", window.size()));
+        }
+        final List<UploadSessionFinishArg> entries = new ArrayList<>();
+        for(Pending next : window) {
+            entries.add(next.entry);
+        }
+        try {
+            final List<BackgroundException> failures = commit.commit(entries, new CancelCallback() {
+                @Override
+                public void verify() throws ConnectionCanceledException {
+                    for(Pending next : window) {
+                        if(!next.status.isCanceled()) {
+                            return;
+                        }
+                    }
+                    // Stop waiting when all uploads in window are canceled
+                    throw new ConnectionCanceledException();
+                }
+            });
+            if(failures.size() != window.size()) {
+                throw new InteroperabilityException(String.format("Unexpected %d results for %d uploads", failures.size(), window.size()));
+            }
+            for(int i = 0; i < window.size(); i++) {
+                if(null != failures.get(i)) {
+                    log.warn(String.format("Failure %s committing upload for %s", failures.get(i), window.get(i).file));
+                }
+                window.get(i).failure = failures.get(i);
+            }
+        }
+        catch(BackgroundException e) {
+            log.warn(String.format("Failure %s committing batch of %d uploads", e, window.size()));
+            for(Pending next : window) {
+                next.failure = e;
+            }
+        }
+        finally {
+            synchronized(this) {
+                for(Pending next : window) {
+                    next.done = true;
+                }
+                if(background) {
+                    committing--;
+                }
+                this.notifyAll();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public interface Commit {
+        /**
+         * @param entries Upload sessions to commit together
+         * @param cancel  Stop waiting for commit to complete
+         * @return Failure or null if committed for every entry in same order
+         * @throws BackgroundException Failure committing all entries
+         */
+        List<BackgroundException> commit(List<UploadSessionFinishArg> entries, CancelCallback cancel) throws BackgroundException;
+    }
+
+    private static final class Pending {
+        private final Path file;
+        private final UploadSessionFinishArg entry;
+        private final TransferStatus status;
+
+        /**
+         * Removed from pending uploads to commit
+         */
+        private boolean committing;
+        private boolean done;
+        private BackgroundException failure;
+
+        private Pending(final Path file, final UploadSessionFinishArg entry, final TransferStatus status) {
+            this.file = file;
+            this.entry = entry;
+            this.status = status;
+        }
+    }
+}
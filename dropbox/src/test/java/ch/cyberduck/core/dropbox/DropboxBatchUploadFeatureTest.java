@@ -0,0 +1,141 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AbstractDropboxTest;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.ConflictException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.DisabledStreamListener;
+import ch.cyberduck.core.shared.DefaultHomeFinderService;
+import ch.cyberduck.core.transfer.Transfer;
+import ch.cyberduck.core.transfer.TransferItem;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.test.IntegrationTest;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.dropbox.core.v2.files.WriteMode;
+
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class DropboxBatchUploadFeatureTest extends AbstractDropboxTest {
+
+    @Test
+    public void testMode() {
+        final DropboxBatchUploadFeature feature = new DropboxBatchUploadFeature(session, new DropboxWriteFeature(session));
+        assertEquals(WriteMode.OVERWRITE, feature.mode(new TransferStatus().exists(true)));
+        assertEquals(WriteMode.ADD, feature.mode(new TransferStatus().exists(false)));
+    }
+
+    @Test
+    public void testUploadConcurrently() throws Exception {
+        final Path home = new DefaultHomeFinderService(session).find();
+        final List<Path> files = new ArrayList<>();
+        final List<Future<TransferStatus>> uploads = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for(int i = 0; i < 3; i++) {
+                final Path test = new Path(home, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+                files.add(test);
+                uploads.add(executor.submit(new Callable<TransferStatus>() {
+                    @Override
+                    public TransferStatus call() throws Exception {
+                        return upload(test, RandomUtils.nextBytes(1024), new TransferStatus());
+                    }
+                }));
+            }
+            final Map<TransferItem, TransferStatus> statuses = new HashMap<>();
+            for(int i = 0; i < files.size(); i++) {
+                statuses.put(new TransferItem(files.get(i)), uploads.get(i).get());
+            }
+            // Commit after transfer
+            new DropboxBulkFeature(session).post(Transfer.Type.upload, statuses, new DisabledConnectionCallback());
+            for(TransferStatus status : statuses.values()) {
+                assertTrue(status.isComplete());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        for(Path test : files) {
+            assertTrue(new DropboxFindFeature(session).find(test));
+            assertEquals(1024L, new DropboxAttributesFinderFeature(session).find(test).getSize());
+        }
+        new DropboxDeleteFeature(session).delete(files, new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
+    @Test
+    public void testUploadConflict() throws Exception {
+        final Path test = new Path(new DefaultHomeFinderService(session).find(), UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        this.commit(test, this.upload(test, RandomUtils.nextBytes(1), new TransferStatus()));
+        final TransferStatus status = new TransferStatus().exists(false);
+        try {
+            this.commit(test, this.upload(test, RandomUtils.nextBytes(2), status));
+            fail();
+        }
+        catch(ConflictException e) {
+            // Added in the meantime
+            assertFalse(status.isComplete());
+        }
+        assertEquals(1L, new DropboxAttributesFinderFeature(session).find(test).getSize());
+        this.commit(test, this.upload(test, RandomUtils.nextBytes(2), new TransferStatus().exists(true)));
+        assertEquals(2L, new DropboxAttributesFinderFeature(session).find(test).getSize());
+        new DropboxDeleteFeature(session).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
+    private void commit(final Path file, final TransferStatus status) throws Exception {
+        new DropboxBulkFeature(session).post(Transfer.Type.upload,
+            Collections.singletonMap(new TransferItem(file), status), new DisabledConnectionCallback());
+    }
+
+    private TransferStatus upload(final Path file, final byte[] content, final TransferStatus status) throws Exception {
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(content, out);
+        IOUtils.closeQuietly(out);
+        status.setLength(content.length);
+        try {
+            new DropboxBatchUploadFeature(session, new DropboxWriteFeature(session)).upload(file, local,
+                new BandwidthThrottle(BandwidthThrottle.UNLIMITED), new DisabledStreamListener(), status, new DisabledConnectionCallback());
+        }
+        finally {
+            local.delete();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,75 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.StatusOutputStream;
+import ch.cyberduck.core.ssl.DefaultX509KeyManager;
+import ch.cyberduck.core.ssl.DisabledX509TrustManager;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DropboxThresholdUploadServiceTest {
+
+    @Test
+    public void testBatchUpload() {
+        final DropboxSession session = new DropboxSession(new Host(new DropboxProtocol(), "test.cyberduck.ch"),
+            new DisabledX509TrustManager(), new DefaultX509KeyManager());
+        final DropboxThresholdUploadService service = new DropboxThresholdUploadService(session, 1024L);
+        assertTrue(service.isBatchUpload(new TransferStatus().length(1024L)));
+        assertFalse(service.isBatchUpload(new TransferStatus().length(1025L)));
+        // Resume upload session of file
+        assertFalse(service.isBatchUpload(new TransferStatus().length(1L).append(true)));
+    }
+
+    @Test
+    public void testBatchUploadWithWriter() {
+        final DropboxSession session = new DropboxSession(new Host(new DropboxProtocol(), "test.cyberduck.ch"),
+            new DisabledX509TrustManager(), new DefaultX509KeyManager());
+        final DropboxThresholdUploadService service = new DropboxThresholdUploadService(session, 1024L);
+        // Writer set such as for encryption in vault
+        service.withWriter(new Write<String>() {
+            @Override
+            public StatusOutputStream<String> write(final Path file, final TransferStatus status, final ConnectionCallback callback) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Append append(final Path file, final Long length, final Cache<Path> cache) {
+                return Write.notfound;
+            }
+
+            @Override
+            public boolean temporary() {
+                return false;
+            }
+
+            @Override
+            public boolean random() {
+                return false;
+            }
+        });
+        assertFalse(service.isBatchUpload(new TransferStatus().length(1L)));
+    }
+}
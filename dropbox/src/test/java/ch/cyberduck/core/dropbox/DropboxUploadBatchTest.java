@@ -0,0 +1,222 @@
+package ch.cyberduck.core.dropbox;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConflictException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.threading.CancelCallback;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.dropbox.core.v2.files.CommitInfo;
+import com.dropbox.core.v2.files.UploadSessionCursor;
+import com.dropbox.core.v2.files.UploadSessionFinishArg;
+
+import static org.junit.Assert.*;
+
+public class DropboxUploadBatchTest {
+
+    @Test
+    public void testAddWithoutCommit() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(10);
+        final RecordingCommit commit = new RecordingCommit();
+        for(String file : new String[]{"/a", "/b", "/c"}) {
+            new Upload(batch, file, new TransferStatus(), commit).call();
+        }
+        assertTrue(commit.windows.isEmpty());
+        assertEquals(3, batch.size());
+        assertTrue(batch.flush(files("/a", "/b", "/c"), commit).isEmpty());
+        assertEquals(1, commit.windows.size());
+        assertEquals(Arrays.asList("/a", "/b", "/c"), commit.windows.get(0));
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testBatchSizeLargerThanConnections() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(5);
+        final RecordingCommit commit = new RecordingCommit();
+        // Two connections
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final List<String> files = new ArrayList<>();
+        try {
+            final List<Future<Void>> uploads = new ArrayList<>();
+            for(int i = 0; i < 7; i++) {
+                final String file = String.format("/f%d", i);
+                files.add(file);
+                uploads.add(executor.submit(new Upload(batch, file, new TransferStatus(), commit)));
+            }
+            for(Future<Void> upload : uploads) {
+                // Returns without waiting for commit
+                upload.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(batch.flush(files(files.toArray(new String[files.size()])), commit).isEmpty());
+        // Full window committed in background and remaining files when flushed
+        assertEquals(2, commit.windows.size());
+        final List<Integer> sizes = new ArrayList<>();
+        for(List<String> window : commit.windows) {
+            sizes.add(window.size());
+        }
+        Collections.sort(sizes);
+        assertEquals(Arrays.asList(2, 5), sizes);
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testRetryReplacesPendingUpload() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(10);
+        final RecordingCommit commit = new RecordingCommit();
+        new Upload(batch, "/a", new TransferStatus(), commit).call();
+        new Upload(batch, "/a", new TransferStatus(), commit).call();
+        assertEquals(1, batch.size());
+        batch.flush(files("/a"), commit);
+        assertEquals(Collections.singletonList(Collections.singletonList("/a")), commit.windows);
+    }
+
+    @Test
+    public void testFailureMappedToFile() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(2);
+        final RecordingCommit commit = new RecordingCommit() {
+            @Override
+            protected BackgroundException result(final UploadSessionFinishArg entry) {
+                if(entry.getCommit().getPath().equals("/b")) {
+                    return new ConflictException(entry.getCommit().getPath());
+                }
+                return null;
+            }
+        };
+        // Committed in background with full window
+        new Upload(batch, "/a", new TransferStatus(), commit).call();
+        new Upload(batch, "/b", new TransferStatus(), commit).call();
+        // Committed when flushed
+        new Upload(batch, "/c", new TransferStatus(), commit).call();
+        final Map<Path, BackgroundException> failures = batch.flush(files("/a", "/b", "/c"), commit);
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(new Path("/b", EnumSet.of(Path.Type.file))) instanceof ConflictException);
+        assertEquals(2, commit.windows.size());
+    }
+
+    @Test
+    public void testFailureCommitRequest() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(10);
+        final DropboxUploadBatch.Commit commit = new DropboxUploadBatch.Commit() {
+            @Override
+            public List<BackgroundException> commit(final List<UploadSessionFinishArg> entries, final CancelCallback cancel) throws BackgroundException {
+                throw new InteroperabilityException("Failure");
+            }
+        };
+        new Upload(batch, "/a", new TransferStatus(), commit).call();
+        new Upload(batch, "/b", new TransferStatus(), commit).call();
+        final Map<Path, BackgroundException> failures = batch.flush(files("/a", "/b"), commit);
+        assertEquals(2, failures.size());
+        for(BackgroundException failure : failures.values()) {
+            assertTrue(failure instanceof InteroperabilityException);
+        }
+    }
+
+    @Test
+    public void testCancelBeforeCommit() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(2);
+        final RecordingCommit commit = new RecordingCommit();
+        final TransferStatus status = new TransferStatus();
+        new Upload(batch, "/a", status, commit).call();
+        status.setCanceled();
+        final Map<Path, BackgroundException> failures = batch.flush(files("/a"), commit);
+        assertTrue(failures.get(new Path("/a", EnumSet.of(Path.Type.file))) instanceof ConnectionCanceledException);
+        assertTrue(commit.windows.isEmpty());
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testFlushOnlyFilesGiven() throws Exception {
+        final DropboxUploadBatch batch = new DropboxUploadBatch(10);
+        final RecordingCommit commit = new RecordingCommit();
+        new Upload(batch, "/a", new TransferStatus(), commit).call();
+        new Upload(batch, "/b", new TransferStatus(), commit).call();
+        batch.flush(files("/a"), commit);
+        assertEquals(Collections.singletonList(Collections.singletonList("/a")), commit.windows);
+        // Uploaded with other transfer
+        assertEquals(1, batch.size());
+    }
+
+    private static List<Path> files(final String... names) {
+        final List<Path> files = new ArrayList<>();
+        for(String name : names) {
+            files.add(new Path(name, EnumSet.of(Path.Type.file)));
+        }
+        return files;
+    }
+
+    private static final class Upload implements Callable<Void> {
+        private final DropboxUploadBatch batch;
+        private final String file;
+        private final TransferStatus status;
+        private final DropboxUploadBatch.Commit commit;
+
+        private Upload(final DropboxUploadBatch batch, final String file, final TransferStatus status, final DropboxUploadBatch.Commit commit) {
+            this.batch = batch;
+            this.file = file;
+            this.status = status;
+            this.commit = commit;
+        }
+
+        @Override
+        public Void call() {
+            batch.add(new Path(file, EnumSet.of(Path.Type.file)),
+                new UploadSessionFinishArg(new UploadSessionCursor("session", 0L), CommitInfo.newBuilder(file).build()),
+                status, commit);
+            return null;
+        }
+    }
+
+    private static class RecordingCommit implements DropboxUploadBatch.Commit {
+        private final List<List<String>> windows = Collections.synchronizedList(new ArrayList<List<String>>());
+
+        @Override
+        public List<BackgroundException> commit(final List<UploadSessionFinishArg> entries, final CancelCallback cancel) throws BackgroundException {
+            final List<String> window = new ArrayList<>();
+            final List<BackgroundException> results = new ArrayList<>();
+            for(UploadSessionFinishArg entry : entries) {
+                window.add(entry.getCommit().getPath());
+                results.add(this.result(entry));
+            }
+            windows.add(window);
+            return results;
+        }
+
+        protected BackgroundException result(final UploadSessionFinishArg entry) {
+            return null;
+        }
+    }
+}
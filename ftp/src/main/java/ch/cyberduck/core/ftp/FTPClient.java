@@ -174,26 +174,46 @@ public class FTPClient extends FTPSClient {
     }
 
     public List<String> list(final FTPCmd command, final String pathname) throws IOException {
+        final ArrayList<String> results = new ArrayList<String>();
+        try(final BufferedReader reader = this.open(command, pathname)) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                results.add(line);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Open data connection for listing command to read lines as received from the server.
+     *
+     * @return Reader for lines on data connection. Closing the reader closes the data connection and completes
+     * the pending command
+     */
+    public BufferedReader open(final FTPCmd command, final String pathname) throws IOException {
         this.pret(command, pathname);
 
-        Socket socket = _openDataConnection_(command, pathname);
+        final Socket socket = _openDataConnection_(command, pathname);
 
-        BufferedReader reader = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), getControlEncoding()));
-        ArrayList<String> results = new ArrayList<String>();
-        String line;
-        while((line = reader.readLine()) != null) {
-            _commandSupport_.fireReplyReceived(-1, line);
-            results.add(line);
-        }
-
-        reader.close();
-        socket.close();
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), getControlEncoding())) {
+            @Override
+            public String readLine() throws IOException {
+                final String line = super.readLine();
+                if(line != null) {
+                    _commandSupport_.fireReplyReceived(-1, line);
+                }
+                return line;
+            }
 
-        if(!this.completePendingCommand()) {
-            throw new FTPException(this.getReplyCode(), this.getReplyString());
-        }
-        return results;
+            @Override
+            public void close() throws IOException {
+                super.close();
+                socket.close();
+                if(!FTPClient.this.completePendingCommand()) {
+                    throw new FTPException(FTPClient.this.getReplyCode(), FTPClient.this.getReplyString());
+                }
+            }
+        };
     }
 
     /**
@@ -18,10 +18,20 @@ package ch.cyberduck.core.ftp.list;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.util.List;
 
 public interface FTPDataResponseReader {
 
-    AttributedList<Path> read(Path parent, List<String> replies, ListProgressListener listener) throws FTPInvalidListException;
+    AttributedList<Path> read(Path parent, List<String> replies, ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException;
+
+    /**
+     * Parse lines as read from the data connection. The listener is notified with chunks of entries parsed.
+     *
+     * @param replies Lines from data connection
+     */
+    AttributedList<Path> read(Path parent, BufferedReader replies, ListProgressListener listener) throws IOException, FTPInvalidListException, ConnectionCanceledException;
 }
@@ -21,41 +21,81 @@ import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.Permission;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.ftp.parser.FTPExtendedFile;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPFileEntryParser;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class FTPListResponseReader implements FTPDataResponseReader {
     private static final Logger log = Logger.getLogger(FTPListResponseReader.class);
 
     private final FTPFileEntryParser parser;
     private final boolean lenient;
+    /**
+     * Number of entries parsed before notifying listener
+     */
+    private final int chunksize;
 
     public FTPListResponseReader(final FTPFileEntryParser parser) {
         this(parser, false);
     }
 
     public FTPListResponseReader(final FTPFileEntryParser parser, final boolean lenient) {
+        this(parser, lenient, PreferencesFactory.get().getInteger("ftp.listing.chunksize"));
+    }
+
+    public FTPListResponseReader(final FTPFileEntryParser parser, final boolean lenient, final int chunksize) {
         this.parser = parser;
         this.lenient = lenient;
+        this.chunksize = chunksize;
     }
 
     @Override
-    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener) throws FTPInvalidListException {
-        final AttributedList<Path> children = new AttributedList<Path>();
-        // At least one entry successfully parsed
-        boolean success = false;
+    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException {
         // Call hook for those implementors which need to perform some action upon the list after it has been created
         // from the server stream, but before any clients see the list
         parser.preParse(replies);
-        for(String line : replies) {
+        return this.read(directory, replies.iterator(), listener);
+    }
+
+    @Override
+    public AttributedList<Path> read(final Path directory, final BufferedReader replies, final ListProgressListener listener) throws IOException, FTPInvalidListException, ConnectionCanceledException {
+        final String first = replies.readLine();
+        if(null == first) {
+            return this.read(directory, Collections.<String>emptyIterator(), listener);
+        }
+        // Pre-parse hook only applied to first line where parsers expect header lines like total count or dataset
+        // information. Remaining lines are parsed as received without buffering the whole listing
+        final List<String> header = parser.preParse(new ArrayList<String>(Collections.singletonList(first)));
+        try {
+            return this.read(directory, Stream.concat(header.stream(), replies.lines()).iterator(), listener);
+        }
+        catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private AttributedList<Path> read(final Path directory, final Iterator<String> replies, final ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException {
+        final AttributedList<Path> children = new AttributedList<Path>();
+        // At least one entry successfully parsed
+        boolean success = false;
+        while(replies.hasNext()) {
+            final String line = replies.next();
             final FTPFile f = parser.parseFTPEntry(line);
             if(null == f) {
                 continue;
@@ -159,6 +199,9 @@ public class FTPListResponseReader implements FTPDataResponseReader {
                 parsed.attributes().setModificationDate(timestamp.getTimeInMillis());
             }
             children.add(parsed);
+            if(children.size() % chunksize == 0) {
+                listener.chunk(directory, children);
+            }
         }
         if(!success) {
             throw new FTPInvalidListException(children);
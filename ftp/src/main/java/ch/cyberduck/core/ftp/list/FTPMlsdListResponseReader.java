@@ -20,6 +20,7 @@ import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.Permission;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.date.InvalidDateException;
 import ch.cyberduck.core.date.MDTMMillisecondsDateFormatter;
 import ch.cyberduck.core.date.MDTMSecondsDateFormatter;
@@ -28,28 +29,55 @@ import ch.cyberduck.core.preferences.PreferencesFactory;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class FTPMlsdListResponseReader implements FTPDataResponseReader {
     private static final Logger log = Logger.getLogger(FTPMlsdListResponseReader.class);
 
+    /**
+     * Number of entries parsed before notifying listener
+     */
+    private final int chunksize;
+
     public FTPMlsdListResponseReader() {
-        //
+        this(PreferencesFactory.get().getInteger("ftp.listing.chunksize"));
+    }
+
+    public FTPMlsdListResponseReader(final int chunksize) {
+        this.chunksize = chunksize;
+    }
+
+    @Override
+    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException {
+        return this.read(directory, replies.iterator(), listener);
     }
 
     @Override
-    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener) throws FTPInvalidListException {
+    public AttributedList<Path> read(final Path directory, final BufferedReader replies, final ListProgressListener listener) throws IOException, FTPInvalidListException, ConnectionCanceledException {
+        try {
+            return this.read(directory, replies.lines().iterator(), listener);
+        }
+        catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private AttributedList<Path> read(final Path directory, final Iterator<String> replies, final ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException {
         final AttributedList<Path> children = new AttributedList<Path>();
         // At least one entry successfully parsed
         boolean success = false;
-        for(String line : replies) {
+        while(replies.hasNext()) {
+            final String line = replies.next();
             final Map<String, Map<String, String>> file = this.parseFacts(line);
             if(null == file) {
                 log.error(String.format("Error parsing line %s", line));
@@ -72,18 +100,19 @@ public class FTPMlsdListResponseReader implements FTPDataResponseReader {
                     continue;
                 }
                 final Path parsed;
-                if("dir".equals(facts.get("type").toLowerCase(Locale.ROOT))) {
+                final String type = facts.get("type").toLowerCase(Locale.ROOT);
+                if("dir".equals(type)) {
                     parsed = new Path(directory, PathNormalizer.name(f.getKey()), EnumSet.of(Path.Type.directory));
                 }
-                else if("file".equals(facts.get("type").toLowerCase(Locale.ROOT))) {
+                else if("file".equals(type)) {
                     parsed = new Path(directory, PathNormalizer.name(f.getKey()), EnumSet.of(Path.Type.file));
                 }
-                else if(facts.get("type").toLowerCase(Locale.ROOT).matches("os\\.unix=slink:.*")) {
+                else if(type.startsWith("os.unix=slink:")) {
                     parsed = new Path(directory, PathNormalizer.name(f.getKey()), EnumSet.of(Path.Type.file, Path.Type.symboliclink));
                     // Parse symbolic link target in Type=OS.unix=slink:/foobar;Perm=;Unique=keVO1+4G4; foobar
-                    final String[] type = facts.get("type").split(":");
-                    if(type.length == 2) {
-                        final String target = type[1];
+                    final String[] segments = facts.get("type").split(":");
+                    if(segments.length == 2) {
+                        final String target = segments[1];
                         if(target.startsWith(String.valueOf(Path.DELIMITER))) {
                             parsed.setSymlinkTarget(new Path(PathNormalizer.normalize(target), EnumSet.of(Path.Type.file)));
                         }
@@ -164,6 +193,9 @@ public class FTPMlsdListResponseReader implements FTPDataResponseReader {
                     parsed.attributes().setCreationDate(this.parseTimestamp(facts.get("create")));
                 }
                 children.add(parsed);
+                if(success && children.size() % chunksize == 0) {
+                    listener.chunk(directory, children);
+                }
             }
         }
         if(!success) {
@@ -232,28 +264,57 @@ public class FTPMlsdListResponseReader implements FTPDataResponseReader {
      * @return Parsed keys and values
      */
     protected Map<String, Map<String, String>> parseFacts(final String line) {
-        final Pattern p = Pattern.compile("\\s?(\\S+\\=\\S+;)*\\s(.*)");
-        final Matcher result = p.matcher(line);
-        final Map<String, Map<String, String>> file = new HashMap<String, Map<String, String>>();
-        if(result.matches()) {
-            final String filename = result.group(2);
-            final Map<String, String> facts = new HashMap<String, String>();
-            for(String fact : result.group(1).split(";")) {
-                String key = StringUtils.substringBefore(fact, "=");
-                if(StringUtils.isBlank(key)) {
-                    continue;
+        // Hand written scanner for facts and filename separated by a single space to avoid matching a regular
+        // expression for every line in large directory listings
+        if(line.length() > 0 && Character.isWhitespace(line.charAt(0))) {
+            // Optional leading space
+            final Map<String, Map<String, String>> file = this.parseFacts(line, 1);
+            if(null != file) {
+                return file;
+            }
+            // Empty series of facts
+            return Collections.singletonMap(line.substring(1), new HashMap<String, String>());
+        }
+        final Map<String, Map<String, String>> file = this.parseFacts(line, 0);
+        if(null == file) {
+            log.warn(String.format("No match for %s", line));
+        }
+        return file;
+    }
+
+    /**
+     * @param start Offset of series of facts in line
+     * @return Null if no valid series of facts is followed by a space and the filename
+     */
+    private Map<String, Map<String, String>> parseFacts(final String line, final int start) {
+        final int length = line.length();
+        int end = start;
+        while(end < length && !Character.isWhitespace(line.charAt(end))) {
+            end++;
+        }
+        if(end == length) {
+            return null;
+        }
+        final Map<String, String> facts = new HashMap<String, String>();
+        if(end > start) {
+            // Series of keyword=value pairs each followed by semi-colon
+            final int separator = line.indexOf('=', start + 1);
+            if(line.charAt(end - 1) != ';' || separator == -1 || separator > end - 3) {
+                return null;
+            }
+            for(int offset = start; offset < end; ) {
+                int next = line.indexOf(';', offset);
+                if(next == -1 || next > end) {
+                    next = end;
                 }
-                String value = StringUtils.substringAfter(fact, "=");
-                if(StringUtils.isBlank(value)) {
-                    continue;
+                final int equals = line.indexOf('=', offset);
+                if(equals > offset && equals < next - 1) {
+                    final String key = line.substring(offset, equals);
+                    facts.put(key.toLowerCase(Locale.ROOT), line.substring(equals + 1, next));
                 }
-                facts.put(key.toLowerCase(Locale.ROOT), value);
+                offset = next + 1;
             }
-            file.put(filename, facts);
-            return file;
         }
-        log.warn(String.format("No match for %s", line));
-        return null;
+        return Collections.singletonMap(line.substring(end + 1), facts);
     }
-
 }
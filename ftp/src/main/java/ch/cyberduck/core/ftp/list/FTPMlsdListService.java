@@ -30,8 +30,8 @@ import ch.cyberduck.core.ftp.FTPSession;
 
 import org.apache.commons.net.ftp.FTPCmd;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.List;
 
 public class FTPMlsdListService implements ListService {
 
@@ -54,18 +54,18 @@ public class FTPMlsdListService implements ListService {
                 // data connection in type ASCII or type EBCDIC.
                 throw new FTPException(session.getClient().getReplyCode(), session.getClient().getReplyString());
             }
-            final List<String> list = new DataConnectionActionExecutor(session).data(new DataConnectionAction<List<String>>() {
+            return new DataConnectionActionExecutor(session).data(new DataConnectionAction<AttributedList<Path>>() {
                 @Override
-                public List<String> execute() throws BackgroundException {
-                    try {
-                        return session.getClient().list(FTPCmd.MLSD);
+                public AttributedList<Path> execute() throws BackgroundException {
+                    // Parse lines as received on data connection
+                    try(final BufferedReader replies = session.getClient().open(FTPCmd.MLSD, null)) {
+                        return reader.read(directory, replies, listener);
                     }
                     catch(IOException e) {
                         throw new FTPExceptionMappingService().map(e);
                     }
                 }
             }, listener);
-            return reader.read(directory, list, listener);
         }
         catch(IOException e) {
             throw new FTPExceptionMappingService().map("Listing directory {0} failed", e, directory);
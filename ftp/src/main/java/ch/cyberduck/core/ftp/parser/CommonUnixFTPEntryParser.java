@@ -65,6 +65,19 @@ public abstract class CommonUnixFTPEntryParser extends ConfigurableFTPFileEntryP
     }
 
     protected FTPFile parseFTPEntry(String typeStr, String usr, String grp, long filesize, String datestr, String name, String endtoken) {
+        final FTPExtendedFile file = this.parseFTPEntry(typeStr.charAt(0), usr, grp, filesize, datestr, name, endtoken);
+        int g = 4;
+        for(int access = 0; access < 3; access++, g += 4) {
+            this.setPermission(file, access, group(g).charAt(0), group(g + 1).charAt(0), group(g + 2).charAt(0));
+        }
+        return file;
+    }
+
+    /**
+     * @param typeChar Type character
+     * @return File without permissions set
+     */
+    protected FTPExtendedFile parseFTPEntry(char typeChar, String usr, String grp, long filesize, String datestr, String name, String endtoken) {
         final FTPExtendedFile file = new FTPExtendedFile();
         int type;
         try {
@@ -75,7 +88,7 @@ public abstract class CommonUnixFTPEntryParser extends ConfigurableFTPFileEntryP
         }
 
         // bcdlfmpSs-
-        switch(typeStr.charAt(0)) {
+        switch(typeChar) {
             case 'd':
                 type = FTPFile.DIRECTORY_TYPE;
                 break;
@@ -95,31 +108,6 @@ public abstract class CommonUnixFTPEntryParser extends ConfigurableFTPFileEntryP
         file.setType(type);
         file.setUser(usr);
         file.setGroup(grp);
-
-        int g = 4;
-        for(int access = 0; access < 3; access++, g += 4) {
-            // Use != '-' to avoid having to check for suid and sticky bits.
-            file.setPermission(access, FTPFile.READ_PERMISSION, (!group(g).equals("-")));
-            file.setPermission(access, FTPFile.WRITE_PERMISSION, (!group(g + 1).equals("-")));
-
-            String execPerm = group(g + 2);
-            if(execPerm.equals("-")) {
-                file.setPermission(access, FTPFile.EXECUTE_PERMISSION, false);
-            }
-            else {
-                file.setPermission(access, FTPFile.EXECUTE_PERMISSION, Character.isLowerCase(execPerm.charAt(0)));
-                if(0 == access) {
-                    file.setSetuid(execPerm.charAt(0) == 's' || execPerm.charAt(0) == 'S');
-                }
-                if(1 == access) {
-                    file.setSetgid(execPerm.charAt(0) == 's' || execPerm.charAt(0) == 'S');
-                }
-                if(2 == access) {
-                    file.setSticky(execPerm.charAt(0) == 't' || execPerm.charAt(0) == 'T');
-                }
-            }
-        }
-
         file.setSize(filesize);
 
         if(null == endtoken) {
@@ -148,4 +136,31 @@ public abstract class CommonUnixFTPEntryParser extends ConfigurableFTPFileEntryP
         }
         return file;
     }
+
+    /**
+     * @param access  User, group or world access
+     * @param read    Read permission character
+     * @param write   Write permission character
+     * @param execute Execute permission character including setuid, setgid and sticky bits
+     */
+    protected void setPermission(final FTPExtendedFile file, final int access, final char read, final char write, final char execute) {
+        // Use != '-' to avoid having to check for suid and sticky bits.
+        file.setPermission(access, FTPFile.READ_PERMISSION, read != '-');
+        file.setPermission(access, FTPFile.WRITE_PERMISSION, write != '-');
+        if(execute == '-') {
+            file.setPermission(access, FTPFile.EXECUTE_PERMISSION, false);
+        }
+        else {
+            file.setPermission(access, FTPFile.EXECUTE_PERMISSION, Character.isLowerCase(execute));
+            if(0 == access) {
+                file.setSetuid(execute == 's' || execute == 'S');
+            }
+            if(1 == access) {
+                file.setSetgid(execute == 's' || execute == 'S');
+            }
+            if(2 == access) {
+                file.setSticky(execute == 't' || execute == 'T');
+            }
+        }
+    }
 }
@@ -67,6 +67,10 @@ public class LaxUnixFTPEntryParser extends CommonUnixFTPEntryParser {
 
     @Override
     public FTPFile parseFTPEntry(String entry) {
+        final FTPFile parsed = this.parseCommonFTPEntry(entry);
+        if(parsed != null) {
+            return parsed;
+        }
         if(matches(entry)) {
             String typeStr = group(1);
             String usr = group(16);
@@ -99,4 +103,143 @@ public class LaxUnixFTPEntryParser extends CommonUnixFTPEntryParser {
         }
         return null;
     }
+
+    /**
+     * Scan common format of <code>ls -l</code> with user, group, size in bytes and standard date format without
+     * matching the regular expression for every line.
+     *
+     * @param entry Line from directory listing
+     * @return Null if the line does not match the common format and must be parsed with the regular expression
+     */
+    protected FTPFile parseCommonFTPEntry(final String entry) {
+        final int length = entry.length();
+        // Type and permissions
+        if(length < 11 || "bcdlfmpSs-".indexOf(entry.charAt(0)) == -1) {
+            return null;
+        }
+        for(int i = 1; i < 10; i += 3) {
+            if("r-".indexOf(entry.charAt(i)) == -1
+                || "w-".indexOf(entry.charAt(i + 1)) == -1
+                || "xsStTL-".indexOf(entry.charAt(i + 2)) == -1) {
+                return null;
+            }
+        }
+        int offset = 10;
+        if(entry.charAt(offset) == '+') {
+            offset++;
+        }
+        // Hard link count
+        final int links = skip(entry, offset);
+        if(links == offset) {
+            return null;
+        }
+        offset = digits(entry, links);
+        if(offset == links) {
+            return null;
+        }
+        // User
+        final int user = skip(entry, offset);
+        if(user == offset) {
+            return null;
+        }
+        offset = token(entry, user);
+        final String usr = entry.substring(user, offset);
+        // Group
+        final int group = skip(entry, offset);
+        if(group == offset) {
+            return null;
+        }
+        offset = token(entry, group);
+        final String grp = entry.substring(group, offset);
+        // File size in bytes
+        final int size = skip(entry, offset);
+        if(size == offset) {
+            return null;
+        }
+        offset = digits(entry, size);
+        if(offset == size || offset - size > 18) {
+            return null;
+        }
+        long filesize = 0;
+        for(int i = size; i < offset; i++) {
+            filesize = filesize * 10 + entry.charAt(i) - '0';
+        }
+        // Month name and day
+        final int month = skip(entry, offset);
+        if(month == offset || Character.isDigit(entry.charAt(month))) {
+            return null;
+        }
+        offset = token(entry, month);
+        final int day = skip(entry, offset);
+        if(day == offset) {
+            return null;
+        }
+        offset = token(entry, day);
+        // Year or time
+        final int time = skip(entry, offset);
+        if(time == offset) {
+            return null;
+        }
+        offset = token(entry, time);
+        final int name;
+        if(offset - time == 4 && digits(entry, time) == offset) {
+            // Year followed by one or two spaces
+            name = offset + 1 < length && isWhitespace(entry.charAt(offset + 1)) ? offset + 2 : offset + 1;
+        }
+        else if(offset - time >= 4 && offset - time <= 5 && entry.charAt(offset - 3) == ':'
+            && digits(entry, time) == offset - 3 && digits(entry, offset - 2) == offset) {
+            // Time for recent standard format
+            name = offset + 1;
+        }
+        else {
+            return null;
+        }
+        if(token(entry, skip(entry, name)) == skip(entry, name)) {
+            // Missing filename
+            return null;
+        }
+        final String datestr = entry.substring(month, token(entry, day)) + " " + entry.substring(time, offset);
+        final FTPExtendedFile file = this.parseFTPEntry(entry.charAt(0), usr, grp, filesize, datestr, entry.substring(name), StringUtils.EMPTY);
+        for(int access = 0; access < 3; access++) {
+            this.setPermission(file, access, entry.charAt(1 + access * 3), entry.charAt(2 + access * 3), entry.charAt(3 + access * 3));
+        }
+        return file;
+    }
+
+    /**
+     * @return Index of first character that is not whitespace
+     */
+    private static int skip(final String entry, int offset) {
+        while(offset < entry.length() && isWhitespace(entry.charAt(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return Index of first whitespace character
+     */
+    private static int token(final String entry, int offset) {
+        while(offset < entry.length() && !isWhitespace(entry.charAt(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return Index of first character that is not a digit
+     */
+    private static int digits(final String entry, int offset) {
+        while(offset < entry.length() && entry.charAt(offset) >= '0' && entry.charAt(offset) <= '9') {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return True for characters matching \s in regular expression
+     */
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
 }
@@ -28,10 +28,13 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.BufferedReader;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -243,4 +246,27 @@ public class FTPListResponseReaderTest {
         assertNull(list.get(2).getSymlinkTarget());
         assertFalse(list.get(2).isSymbolicLink());
     }
+
+    @Test
+    public void testReadStream() throws Exception {
+        final Path directory = new Path("/", EnumSet.of(Path.Type.directory));
+        final AtomicInteger chunks = new AtomicInteger();
+        final AttributedList<Path> list = new FTPListResponseReader(new FTPParserSelector().getParser("UNIX"), false, 2)
+            .read(directory, new BufferedReader(new StringReader(
+                "total 12\r\n" +
+                    "drwxr-xr-x    3 ftp      ftp           512 Mar 15  2004 .\r\n" +
+                    "drwxr-xr-x    3 ftp      ftp           512 Mar 15  2004 doc\r\n" +
+                    "-rw-r--r--   1 ftp      ftp      1234567890 Sep  6 22:27 f\r\n" +
+                    "-rw-r--r--   1 ftp      ftp           12 Sep  6 22:27 g\r\n")), new DisabledListProgressListener() {
+                @Override
+                public void chunk(final Path parent, final AttributedList<Path> list) {
+                    assertEquals(directory, parent);
+                    assertEquals(2 * chunks.incrementAndGet(), list.size());
+                }
+            });
+        assertEquals(3, list.size());
+        assertEquals(1, chunks.get());
+        assertTrue(list.get(0).isDirectory());
+        assertEquals(1234567890L, list.get(1).attributes().getSize());
+    }
 }
@@ -25,13 +25,15 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.BufferedReader;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.EnumSet;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 @Category(IntegrationTest.class)
 public class FTPMlsdListResponseReaderTest {
@@ -291,4 +293,60 @@ public class FTPMlsdListResponseReaderTest {
             .read(directory, Arrays.asList(replies), new DisabledListProgressListener());
         assertEquals(2, children.size());
     }
+
+    @Test
+    public void testReadStream() throws Exception {
+        final Path directory = new Path("/www", EnumSet.of(Path.Type.directory));
+        final AtomicInteger chunks = new AtomicInteger();
+        final AttributedList<Path> children = new FTPMlsdListResponseReader(1)
+            .read(directory, new BufferedReader(new StringReader(
+                "Type=cdir;Perm=el;Unique=keVO1+ZF4; test\r\n" +
+                    "Type=file;Size=3;Modify=20130130224433;Perm=awr;Unique=keVO1+8G4; writable\r\n" +
+                    "Type=dir;Perm=cpmel;Unique=keVO1+7G4; incoming\r\n")), new DisabledListProgressListener() {
+                @Override
+                public void chunk(final Path parent, final AttributedList<Path> list) {
+                    assertEquals(directory, parent);
+                    assertEquals(chunks.incrementAndGet(), list.size());
+                }
+            });
+        assertEquals(2, children.size());
+        assertEquals(2, chunks.get());
+        assertEquals(3L, children.get(0).attributes().getSize());
+        assertTrue(children.get(1).isDirectory());
+    }
+
+    @Test
+    public void testParseFacts() {
+        final FTPMlsdListResponseReader reader = new FTPMlsdListResponseReader();
+        assertEquals("file", reader.parseFacts("Type=file;Perm=awr; writable").get("writable").get("type"));
+        assertEquals("awr", reader.parseFacts(" Type=file;Perm=awr; writable").get("writable").get("perm"));
+        assertEquals("OS.unix=slink:/foobar", reader.parseFacts("Type=OS.unix=slink:/foobar;Perm=;Unique=keVO1+4G4; foobar").get("foobar").get("type"));
+        assertFalse(reader.parseFacts("Type=OS.unix=slink:/foobar;Perm=;Unique=keVO1+4G4; foobar").get("foobar").containsKey("perm"));
+        assertTrue(reader.parseFacts("Type=file;Perm=awr;  leading space").containsKey(" leading space"));
+        assertNull(reader.parseFacts("Type=file;Perm=awr;"));
+        assertNull(reader.parseFacts("Type=file writable"));
+    }
+
+    @Test
+    public void testParseFactsEmpty() {
+        final FTPMlsdListResponseReader reader = new FTPMlsdListResponseReader();
+        assertTrue(reader.parseFacts(" filename").get("filename").isEmpty());
+        assertTrue(reader.parseFacts(" file name").get("file name").isEmpty());
+        assertTrue(reader.parseFacts(" ").get("").isEmpty());
+        // Not a valid series of facts after leading space
+        assertTrue(reader.parseFacts(" Type=file writable").get("Type=file writable").isEmpty());
+        assertTrue(reader.parseFacts(" Type=file; writable").containsKey("writable"));
+    }
+
+    @Test
+    public void testParseFactsMalformed() {
+        final FTPMlsdListResponseReader reader = new FTPMlsdListResponseReader();
+        assertNull(reader.parseFacts(""));
+        assertNull(reader.parseFacts("filename"));
+        assertNull(reader.parseFacts("=file; filename"));
+        assertNull(reader.parseFacts("Type=; filename"));
+        assertNull(reader.parseFacts("Type=file;Perm=awr"));
+        assertEquals("r", reader.parseFacts("Type=file;;Perm=r; filename").get("filename").get("perm"));
+        assertFalse(reader.parseFacts("Type=file;=r; filename").get("filename").containsKey(""));
+    }
 }
@@ -0,0 +1,84 @@
+package ch.cyberduck.core.ftp.parser;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LaxUnixFTPEntryParserTest {
+
+    @Test
+    public void testParseCommonFTPEntry() {
+        final LaxUnixFTPEntryParser parser = new LaxUnixFTPEntryParser();
+        // Only match regular expression
+        final LaxUnixFTPEntryParser regex = new LaxUnixFTPEntryParser() {
+            @Override
+            protected FTPFile parseCommonFTPEntry(final String entry) {
+                return null;
+            }
+        };
+        for(String line : new String[]{
+            "drw-rw-rw-   1 user      ftp             0  DEC 11 20:56 ADMIN_Documentation",
+            "drwxr-xr-x    3 ftp      ftp           512 Mar 15  2004 doc",
+            "-rw-r--r--   1 ftp      ftp      1234567890 Sep  6 22:27 file with spaces",
+            "-rw-r--r--   1 ftp      ftp           12 Sep  6 2:27  leading space",
+            "-rwsrwSr-T 1 dkocher dkocher         0 Sep  6 22:27 t",
+            "lrwxrwxrwx    1 mk basicgrp       27 Sep 23  2004 www -> /www/basic/mk",
+            "drwx------+ 11 mi       public       198 Dec 17 12:29 unsorted",
+            "-rw-r--r--   1 ftp      ftp           12 Sep  6  2004   two leading spaces"
+        }) {
+            final FTPFile expected = regex.parseFTPEntry(line);
+            assertNotNull(line, expected);
+            final FTPFile parsed = parser.parseCommonFTPEntry(line);
+            assertNotNull(line, parsed);
+            assertEquals(line, expected.getName(), parsed.getName());
+            assertEquals(line, expected.getLink(), parsed.getLink());
+            assertEquals(line, expected.getType(), parsed.getType());
+            assertEquals(line, expected.getUser(), parsed.getUser());
+            assertEquals(line, expected.getGroup(), parsed.getGroup());
+            assertEquals(line, expected.getSize(), parsed.getSize());
+            assertEquals(line, expected.getTimestamp().getTimeInMillis(), parsed.getTimestamp().getTimeInMillis());
+            for(int access = FTPFile.USER_ACCESS; access <= FTPFile.WORLD_ACCESS; access++) {
+                for(int permission = FTPFile.READ_PERMISSION; permission <= FTPFile.EXECUTE_PERMISSION; permission++) {
+                    assertEquals(line, expected.hasPermission(access, permission), parsed.hasPermission(access, permission));
+                }
+            }
+            assertEquals(line, ((FTPExtendedFile) expected).isSetuid(), ((FTPExtendedFile) parsed).isSetuid());
+            assertEquals(line, ((FTPExtendedFile) expected).isSetgid(), ((FTPExtendedFile) parsed).isSetgid());
+            assertEquals(line, ((FTPExtendedFile) expected).isSticky(), ((FTPExtendedFile) parsed).isSticky());
+        }
+    }
+
+    @Test
+    public void testFallbackRegularExpression() {
+        final LaxUnixFTPEntryParser parser = new LaxUnixFTPEntryParser();
+        for(String line : new String[]{
+            // Human readable size
+            "-rw-r--r--   1 ftp      ftp         15.6k Sep  6 22:27 f",
+            // Missing group
+            "-rw-r--r--   1 ftp           12 Sep  6 22:27 f",
+            // Numeric date
+            "-rw-r--r--   1 ftp      ftp           12 2019-01-01 22:27 f"
+        }) {
+            assertNull(line, parser.parseCommonFTPEntry(line));
+            assertNotNull(line, parser.parseFTPEntry(line));
+        }
+        assertNull(parser.parseCommonFTPEntry("total 12"));
+        assertNull(parser.parseFTPEntry("total 12"));
+    }
+}
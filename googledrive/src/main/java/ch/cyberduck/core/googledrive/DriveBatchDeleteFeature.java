@@ -83,6 +83,9 @@ public class DriveBatchDeleteFeature implements Delete {
             catch(IOException e) {
                 throw new DriveExceptionMappingService().map(e);
             }
+            for(Path file : files) {
+                fileid.cache(file, null);
+            }
             for(BackgroundException e : failures) {
                 throw e;
             }
@@ -15,6 +15,7 @@ package ch.cyberduck.core.googledrive;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
@@ -33,6 +34,19 @@ public class DriveDefaultListService extends AbstractDriveListService {
         this.fileid = fileid;
     }
 
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        final AttributedList<Path> list = super.list(directory, listener);
+        for(Path file : list) {
+            if(file.attributes().isDuplicate()) {
+                // Ignore trashed files
+                continue;
+            }
+            fileid.cache(file, file.attributes().getVersionId());
+        }
+        return list;
+    }
+
     protected String query(final Path directory, final ListProgressListener listener) throws BackgroundException {
         return String.format("'%s' in parents", fileid.getFileid(directory, listener));
     }
@@ -18,6 +18,7 @@ package ch.cyberduck.core.googledrive;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.DisabledListProgressListener;
+import ch.cyberduck.core.FileidCache;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
@@ -32,10 +33,13 @@ public class DriveFileidProvider implements IdProvider {
 
     private final DriveSession session;
 
+    private final FileidCache index;
+
     private Cache<Path> cache = PathCache.empty();
 
     public DriveFileidProvider(final DriveSession session) {
         this.session = session;
+        this.index = FileidCache.get(session.getHost());
     }
 
     @Override
@@ -58,6 +62,10 @@ public class DriveFileidProvider implements IdProvider {
                 }
             }
         }
+        final String cached = index.get(file);
+        if(StringUtils.isNotBlank(cached)) {
+            return this.set(file, cached);
+        }
         if(DriveHomeFinderService.TEAM_DRIVES_NAME.equals(file.getParent())) {
             final Path found = new DriveTeamDrivesListService(session).withCache(cache).list(file.getParent(), listener).find(
                 new SimplePathPredicate(file)
@@ -67,19 +75,53 @@ public class DriveFileidProvider implements IdProvider {
             }
             return this.set(file, found.attributes().getVersionId());
         }
-        final AttributedList<Path> list = new FileidDriveListService(session, this, file).list(file.getParent(), new DisabledListProgressListener());
+        AttributedList<Path> list;
+        try {
+            list = new FileidDriveListService(session, this, file).list(file.getParent(), new DisabledListProgressListener());
+        }
+        catch(NotfoundException e) {
+            if(null == index.get(file.getParent())) {
+                throw e;
+            }
+            // Identifier of parent from index may no longer be valid
+            this.invalidate(file.getParent());
+            list = new FileidDriveListService(session, this, file).list(file.getParent(), new DisabledListProgressListener());
+        }
+        index.put(list);
         final Path found = list.find(new IgnoreTrashedPathPredicate(file));
         if(null == found) {
+            index.remove(file);
             throw new NotfoundException(file.getAbsolute());
         }
         return this.set(file, found.attributes().getVersionId());
     }
 
+    /**
+     * Drop identifier of file and contained files from index and file attributes
+     */
+    private void invalidate(final Path file) {
+        index.remove(file);
+        file.attributes().setVersionId(null);
+    }
+
     protected String set(final Path file, final String id) {
         file.attributes().setVersionId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
+    /**
+     * Save index of identifiers for bookmark if enabled
+     */
+    public void save() {
+        index.save();
+    }
+
     @Override
     public DriveFileidProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
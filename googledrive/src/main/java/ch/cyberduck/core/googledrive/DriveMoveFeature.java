@@ -82,6 +82,9 @@ public class DriveMoveFeature implements Move {
                 .setFields("id, parents")
                 .setSupportsTeamDrives(PreferencesFactory.get().getBoolean("googledrive.teamdrive.enable"))
                 .execute();
+            // Invalidate source including files contained if a folder
+            fileid.cache(file, null);
+            fileid.cache(renamed, id);
             return new Path(renamed.getParent(), renamed.getName(), renamed.getType(),
                 new DriveAttributesFinderFeature(session, fileid).find(renamed));
         }
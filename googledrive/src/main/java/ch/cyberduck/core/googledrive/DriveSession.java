@@ -86,6 +86,7 @@ public class DriveSession extends HttpSession<Drive> {
 
     @Override
     protected void logout() throws BackgroundException {
+        fileid.save();
         try {
             transport.shutdown();
         }
@@ -160,6 +160,7 @@ public class DriveWriteFeature extends AbstractHttpWriteFeature<VersionId> imple
                                                 final String value = reader.nextString();
                                                 switch(name) {
                                                     case "id":
+                                                        DriveWriteFeature.this.fileid.cache(file, value);
                                                         return new VersionId(value);
                                                 }
                                             }
@@ -21,9 +21,11 @@ import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.s3.S3BucketListService;
 import ch.cyberduck.core.s3.S3LocationFeature;
 import ch.cyberduck.core.s3.S3ObjectListService;
+import ch.cyberduck.core.s3.S3PartitionedObjectListService;
 
 public class GoogleStorageListService implements ListService {
     private final GoogleStorageSession session;
@@ -40,6 +42,21 @@ public class GoogleStorageListService implements ListService {
         return new S3ObjectListService(session).list(directory, listener);
     }
 
+    @Override
+    public boolean isRecursive(final Path directory) {
+        return !directory.isRoot();
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        if(PreferencesFactory.get().getInteger("s3.listing.partitions") > 1) {
+            return new S3PartitionedObjectListService(session).list(directory, listener);
+        }
+        // Omit delimiter to list all keys with prefix
+        return new S3ObjectListService(session).list(directory, listener, null,
+            PreferencesFactory.get().getInteger("s3.listing.chunksize"));
+    }
+
     @Override
     public ListService withCache(final Cache<Path> cache) {
         return this;
@@ -24,6 +24,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.onedrive.features.GraphAttributesFinderFeature;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.webloc.UrlFileWriter;
@@ -83,6 +84,10 @@ public class GraphItemListService implements ListService {
         catch(OneDriveRuntimeException e) { // this catches iterator.hasNext() which in return should fail fast
             throw new GraphExceptionMappingService().map("Listing directory {0} failed", e.getCause(), directory);
         }
+        final IdProvider fileid = session.getFeature(IdProvider.class);
+        for(Path child : children) {
+            fileid.cache(child, child.attributes().getVersionId());
+        }
         return children;
     }
 
@@ -35,6 +35,7 @@ import ch.cyberduck.core.features.Read;
 import ch.cyberduck.core.features.Search;
 import ch.cyberduck.core.features.Timestamp;
 import ch.cyberduck.core.features.Touch;
+import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpSession;
 import ch.cyberduck.core.oauth.OAuth2ErrorResponseInterceptor;
@@ -52,6 +53,7 @@ import ch.cyberduck.core.onedrive.features.GraphReadFeature;
 import ch.cyberduck.core.onedrive.features.GraphSearchFeature;
 import ch.cyberduck.core.onedrive.features.GraphTimestampFeature;
 import ch.cyberduck.core.onedrive.features.GraphTouchFeature;
+import ch.cyberduck.core.onedrive.features.GraphUploadService;
 import ch.cyberduck.core.onedrive.features.GraphWriteFeature;
 import ch.cyberduck.core.proxy.Proxy;
 import ch.cyberduck.core.ssl.ThreadLocalHostnameDelegatingTrustManager;
@@ -182,6 +184,7 @@ public abstract class GraphSession extends HttpSession<OneDriveAPI> {
 
     @Override
     protected void logout() throws BackgroundException {
+        fileIdProvider.save();
         try {
             client.getExecutor().close();
         }
@@ -211,6 +214,9 @@ public abstract class GraphSession extends HttpSession<OneDriveAPI> {
         if(type == MultipartWrite.class) {
             return (T) new GraphBufferWriteFeature(this);
         }
+        if(type == Upload.class) {
+            return (T) new GraphUploadService(this);
+        }
         if(type == Delete.class) {
             return (T) new GraphDeleteFeature(this);
         }
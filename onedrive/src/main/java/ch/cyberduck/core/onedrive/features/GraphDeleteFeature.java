@@ -21,6 +21,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
 import ch.cyberduck.core.onedrive.GraphSession;
 
@@ -47,6 +48,7 @@ public class GraphDeleteFeature implements Delete {
             try {
                 final OneDriveItem item = session.toItem(file);
                 item.delete();
+                session.getFeature(IdProvider.class).cache(file, null);
             }
             catch(NotfoundException e) {
                 logger.warn(String.format("Cannot delete %s. Not found.", file));
@@ -17,8 +17,10 @@ package ch.cyberduck.core.onedrive.features;
 
 import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Directory;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
 import ch.cyberduck.core.onedrive.GraphSession;
@@ -42,8 +44,9 @@ public class GraphDirectoryFeature implements Directory<Void> {
         final OneDriveFolder folder = session.toFolder(directory.getParent());
         try {
             final OneDriveFolder.Metadata metadata = folder.create(directory.getName());
-            return new Path(directory.getParent(), directory.getName(), directory.getType(),
-                new GraphAttributesFinderFeature(session).toAttributes(metadata));
+            final PathAttributes attributes = new GraphAttributesFinderFeature(session).toAttributes(metadata);
+            session.getFeature(IdProvider.class).cache(directory, attributes.getVersionId());
+            return new Path(directory.getParent(), directory.getName(), directory.getType(), attributes);
         }
         catch(OneDriveAPIException e) {
             throw new GraphExceptionMappingService().map("Cannot create folder {0}", e, directory);
@@ -17,6 +17,7 @@ package ch.cyberduck.core.onedrive.features;
 
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.FileidCache;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
@@ -32,10 +33,12 @@ import org.apache.commons.lang3.StringUtils;
 public class GraphFileIdProvider implements IdProvider {
 
     private final GraphSession session;
+    private final FileidCache index;
     private Cache<Path> cache = PathCache.empty();
 
     public GraphFileIdProvider(final GraphSession session) {
         this.session = session;
+        this.index = FileidCache.get(session.getHost());
     }
 
     @Override
@@ -52,19 +55,57 @@ public class GraphFileIdProvider implements IdProvider {
                 }
             }
         }
-        final AttributedList<Path> list = session._getFeature(ListService.class).list(file.getParent(), listener);
+        final String cached = index.get(file);
+        if(StringUtils.isNotBlank(cached)) {
+            return this.set(file, cached);
+        }
+        AttributedList<Path> list;
+        try {
+            list = session._getFeature(ListService.class).list(file.getParent(), listener);
+        }
+        catch(NotfoundException e) {
+            if(null == index.get(file.getParent())) {
+                throw e;
+            }
+            // Identifier of parent from index may no longer be valid
+            this.invalidate(file.getParent());
+            list = session._getFeature(ListService.class).list(file.getParent(), listener);
+        }
+        index.put(list);
         final Path found = list.find(new SimplePathPredicate(file));
         if(null == found) {
+            index.remove(file);
             throw new NotfoundException(file.getAbsolute());
         }
         return this.set(file, found.attributes().getVersionId());
     }
 
+    /**
+     * Drop identifier of file and contained files from index and file attributes
+     */
+    private void invalidate(final Path file) {
+        index.remove(file);
+        file.attributes().setVersionId(null);
+    }
+
     protected String set(final Path file, final String id) {
         file.attributes().setVersionId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
+    /**
+     * Save index of identifiers for bookmark if enabled
+     */
+    public void save() {
+        index.save();
+    }
+
     @Override
     public IdProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
@@ -20,6 +20,7 @@ import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.features.Move;
 import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
 import ch.cyberduck.core.onedrive.GraphSession;
@@ -76,6 +77,11 @@ public class GraphMoveFeature implements Move {
         catch(IOException e) {
             throw new DefaultIOExceptionMappingService().map("Cannot rename {0}", e, file);
         }
+        final IdProvider fileid = session.getFeature(IdProvider.class);
+        // Identifier is kept when moving in same drive. Invalidate source including files contained if a folder
+        final String id = file.attributes().getVersionId();
+        fileid.cache(file, null);
+        fileid.cache(renamed, id);
         return new Path(renamed.getParent(), renamed.getName(), renamed.getType(),
             new GraphAttributesFinderFeature(session).find(renamed));
     }
@@ -18,8 +18,10 @@ package ch.cyberduck.core.onedrive.features;
 import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.MimeTypeService;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.features.Touch;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
@@ -49,8 +51,9 @@ public class GraphTouchFeature implements Touch<Void> {
             final OneDriveFile oneDriveFile = new OneDriveFile(session.getClient(), folder,
                 URIEncoder.encode(file.getName()), OneDriveItem.ItemIdentifierType.Path);
             final OneDriveFile.Metadata metadata = oneDriveFile.create(StringUtils.isNotBlank(status.getMime()) ? status.getMime() : MimeTypeService.DEFAULT_CONTENT_TYPE);
-            return new Path(file.getParent(), file.getName(), file.getType(),
-                new GraphAttributesFinderFeature(session).toAttributes(metadata));
+            final PathAttributes attributes = new GraphAttributesFinderFeature(session).toAttributes(metadata);
+            session.getFeature(IdProvider.class).cache(file, attributes.getVersionId());
+            return new Path(file.getParent(), file.getName(), file.getType(), attributes);
         }
         catch(OneDriveAPIException e) {
             throw new GraphExceptionMappingService().map("Cannot create file {0}", e, file);
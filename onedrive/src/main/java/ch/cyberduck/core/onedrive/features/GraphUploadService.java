@@ -0,0 +1,390 @@
+package ch.cyberduck.core.onedrive.features;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.StringAppender;
+import ch.cyberduck.core.URIEncoder;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.IdProvider;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.ThrottledOutputStream;
+import ch.cyberduck.core.onedrive.GraphCommonsHttpRequestExecutor;
+import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
+import ch.cyberduck.core.onedrive.GraphSession;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.shared.DefaultUploadFeature;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Logger;
+import org.nuxeo.onedrive.client.OneDriveAPIException;
+import org.nuxeo.onedrive.client.OneDriveFile;
+import org.nuxeo.onedrive.client.OneDriveFolder;
+import org.nuxeo.onedrive.client.OneDriveItem;
+import org.nuxeo.onedrive.client.OneDriveUploadSession;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Upload to upload session streaming fragments from the local file. The next fragment is read while the current
+ * fragment is sent, bounding memory to two fragments. The upload URL and next expected ranges are saved in the
+ * transfer status parameters to resume with the same upload session when the upload is retried. These parameters are
+ * only held in memory and not saved with the transfer, a transfer resumed later creates a new upload session.
+ */
+public class GraphUploadService implements Upload<Void> {
+    private static final Logger log = Logger.getLogger(GraphUploadService.class);
+
+    /**
+     * Fragment size must be a multiple of 320 KiB
+     */
+    public static final long FRAGMENT_ALIGNMENT = 320 * 1024L;
+    /**
+     * Maximum size of fragment in a single request
+     */
+    public static final long MAXIMUM_FRAGMENT_SIZE = 60 * 1024L * 1024L;
+
+    public static final String UPLOAD_URL = "uploadUrl";
+    public static final String NEXT_EXPECTED_RANGES = "nextExpectedRanges";
+
+    private final GraphSession session;
+    private final Long partsize;
+
+    private Write<Void> writer;
+
+    public GraphUploadService(final GraphSession session) {
+        this(session, PreferencesFactory.get().getLong("onedrive.upload.fragment.size"));
+    }
+
+    public GraphUploadService(final GraphSession session, final Long partsize) {
+        this.session = session;
+        this.partsize = Math.min(MAXIMUM_FRAGMENT_SIZE, Math.max(FRAGMENT_ALIGNMENT, partsize - partsize % FRAGMENT_ALIGNMENT));
+        this.writer = new GraphWriteFeature(session);
+    }
+
+    @Override
+    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        // Full size of file
+        final long size = status.getLength() + status.getOffset();
+        if(0L == size || !(writer instanceof GraphWriteFeature)) {
+            // Content must be written with writer set such as for encryption in vault
+            return new DefaultUploadFeature<Void>(writer).upload(file, local, throttle, listener, status, callback);
+        }
+        final HttpClient client = ((GraphCommonsHttpRequestExecutor) session.getClient().getExecutor()).getClient();
+        final Map<String, String> parameters = new HashMap<>(status.getParameters());
+        status.setParameters(parameters);
+        // Upload session from previous attempt with same transfer status
+        String url = parameters.get(UPLOAD_URL);
+        long offset = 0L;
+        if(null != url) {
+            try {
+                offset = this.resume(client, url, parameters);
+            }
+            catch(BackgroundException e) {
+                log.warn(String.format("Failure %s resuming upload session for %s", e, file));
+                offset = -1L;
+            }
+            if(offset < 0L || offset >= size) {
+                // Session expired or not matching file
+                url = null;
+                offset = 0L;
+            }
+            else if(log.isInfoEnabled()) {
+                log.info(String.format("Resume upload session for %s at offset %d", file, offset));
+            }
+        }
+        if(null == url) {
+            url = this.create(file);
+            parameters.put(UPLOAD_URL, url);
+        }
+        final ThreadPool pool = ThreadPoolFactory.get("fragment", 1);
+        InputStream in = null;
+        try {
+            in = StreamCopier.skip(local.getInputStream(), offset);
+            Future<byte[]> next = this.read(pool, in, Math.min(partsize, size - offset));
+            while(offset < size) {
+                if(status.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                final byte[] content = this.await(next);
+                if(offset + content.length < size) {
+                    // Read next fragment while sending current
+                    next = this.read(pool, in, Math.min(partsize, size - offset - content.length));
+                }
+                this.send(client, file, url, content, offset, size, throttle, parameters);
+                offset += content.length;
+                status.progress(content.length);
+                listener.sent(content.length);
+            }
+            parameters.remove(UPLOAD_URL);
+            parameters.remove(NEXT_EXPECTED_RANGES);
+            // Mark status as complete
+            status.setComplete();
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+            // Cancel future read
+            pool.shutdown(false);
+        }
+    }
+
+    /**
+     * @return Upload URL of new upload session
+     */
+    private String create(final Path file) throws BackgroundException {
+        try {
+            final OneDriveFolder folder = session.toFolder(file.getParent());
+            final OneDriveFile oneDriveFile = new OneDriveFile(session.getClient(), folder,
+                URIEncoder.encode(file.getName()), OneDriveItem.ItemIdentifierType.Path);
+            final OneDriveUploadSession upload = oneDriveFile.createUploadSession();
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Created upload session %s for %s", upload, file));
+            }
+            return upload.getUploadUrl().toString();
+        }
+        catch(OneDriveAPIException e) {
+            throw new GraphExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+    }
+
+    /**
+     * @return Offset of first range expected by upload session or -1 if session is not found
+     */
+    private long resume(final HttpClient client, final String url, final Map<String, String> parameters) throws BackgroundException {
+        try {
+            final HttpResponse response = client.execute(new HttpGet(url));
+            try {
+                switch(response.getStatusLine().getStatusCode()) {
+                    case HttpStatus.SC_OK:
+                        this.ranges(response, parameters);
+                        break;
+                    case HttpStatus.SC_NOT_FOUND:
+                        return -1L;
+                    default:
+                        throw new GraphExceptionMappingService().map(this.failure(response));
+                }
+            }
+            finally {
+                EntityUtils.consume(response.getEntity());
+            }
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map(e);
+        }
+        final String ranges = parameters.get(NEXT_EXPECTED_RANGES);
+        if(StringUtils.isBlank(ranges)) {
+            return -1L;
+        }
+        return Long.parseLong(StringUtils.substringBefore(StringUtils.split(ranges, ',')[0], "-"));
+    }
+
+    private void send(final HttpClient client, final Path file, final String url, final byte[] content,
+                      final long offset, final long size, final BandwidthThrottle throttle,
+                      final Map<String, String> parameters) throws BackgroundException {
+        final String range = String.format("bytes %d-%d/%d", offset, offset + content.length - 1, size);
+        final HttpPut request = new HttpPut(url);
+        request.setEntity(new ByteArrayEntity(content) {
+            @Override
+            public void writeTo(final OutputStream out) throws IOException {
+                super.writeTo(new ThrottledOutputStream(out, throttle));
+            }
+        });
+        request.addHeader(HttpHeaders.CONTENT_RANGE, range);
+        try {
+            final HttpResponse response = client.execute(request);
+            try {
+                switch(response.getStatusLine().getStatusCode()) {
+                    case HttpStatus.SC_ACCEPTED:
+                        if(log.isDebugEnabled()) {
+                            log.debug(String.format("Uploaded fragment %s for file %s", range, file));
+                        }
+                        this.ranges(response, parameters);
+                        break;
+                    case HttpStatus.SC_OK:
+                    case HttpStatus.SC_CREATED:
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Completed upload for %s", file));
+                        }
+                        this.cache(response, file);
+                        break;
+                    default:
+                        throw new GraphExceptionMappingService().map("Upload {0} failed", this.failure(response), file);
+                }
+            }
+            finally {
+                EntityUtils.consume(response.getEntity());
+            }
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+    }
+
+    /**
+     * @return Failure with error message from response body
+     */
+    private OneDriveAPIException failure(final HttpResponse response) throws IOException {
+        final StringAppender message = new StringAppender();
+        message.append(response.getStatusLine().getReasonPhrase());
+        if(null != response.getEntity()) {
+            final String body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            try {
+                final JsonElement element = new JsonParser().parse(body);
+                if(element.isJsonObject() && element.getAsJsonObject().has("error")) {
+                    final JsonObject error = element.getAsJsonObject().getAsJsonObject("error");
+                    message.append(error.has("message") ? error.get("message").getAsString() : body);
+                }
+                else {
+                    message.append(body);
+                }
+            }
+            catch(JsonParseException | IllegalStateException | ClassCastException e) {
+                message.append(body);
+            }
+        }
+        return new OneDriveAPIException(message.toString(), response.getStatusLine().getStatusCode());
+    }
+
+    /**
+     * Save next expected ranges from upload session status in response
+     */
+    private void ranges(final HttpResponse response, final Map<String, String> parameters) throws IOException {
+        final JsonObject json = this.parse(response);
+        if(null == json || !json.has(NEXT_EXPECTED_RANGES)) {
+            return;
+        }
+        final JsonArray array = json.getAsJsonArray(NEXT_EXPECTED_RANGES);
+        final List<String> ranges = new ArrayList<>();
+        for(JsonElement element : array) {
+            ranges.add(element.getAsString());
+        }
+        parameters.put(NEXT_EXPECTED_RANGES, StringUtils.join(ranges, ','));
+    }
+
+    /**
+     * Save identifier of uploaded file from drive item in response
+     */
+    private void cache(final HttpResponse response, final Path file) throws IOException {
+        final JsonObject json = this.parse(response);
+        if(null == json || !json.has("id") || !json.has("parentReference")) {
+            return;
+        }
+        final JsonObject parent = json.getAsJsonObject("parentReference");
+        if(!parent.has("driveId")) {
+            return;
+        }
+        session.getFeature(IdProvider.class).cache(file, String.join(String.valueOf(Path.DELIMITER),
+            parent.get("driveId").getAsString(), json.get("id").getAsString()));
+    }
+
+    private JsonObject parse(final HttpResponse response) throws IOException {
+        if(null == response.getEntity()) {
+            return null;
+        }
+        try {
+            final JsonElement element = new JsonParser().parse(new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
+            if(element.isJsonObject()) {
+                return element.getAsJsonObject();
+            }
+            return null;
+        }
+        catch(JsonParseException | IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read fragment from local file in background
+     */
+    private Future<byte[]> read(final ThreadPool pool, final InputStream in, final long length) {
+        return pool.execute(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                final byte[] buffer = new byte[(int) length];
+                IOUtils.readFully(in, buffer);
+                return buffer;
+            }
+        });
+    }
+
+    private byte[] await(final Future<byte[]> future) throws BackgroundException {
+        try {
+            return future.get();
+        }
+        catch(InterruptedException e) {
+            throw new ConnectionCanceledException(e);
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw new DefaultIOExceptionMappingService().map((IOException) e.getCause());
+            }
+            throw new BackgroundException(e.getCause());
+        }
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Upload<Void> withWriter(final Write<Void> writer) {
+        this.writer = writer;
+        return this;
+    }
+}
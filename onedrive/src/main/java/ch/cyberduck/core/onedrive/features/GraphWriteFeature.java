@@ -24,6 +24,7 @@ import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpRange;
 import ch.cyberduck.core.http.HttpResponseOutputStream;
@@ -141,8 +142,11 @@ public class GraphWriteFeature implements Write<Void> {
             else {
                 header = String.format("%d-%d/%d", range.getStart(), range.getEnd(), status.getOffset() + status.getLength());
             }
-            if(upload.uploadFragment(header, content) instanceof OneDriveFile.Metadata) {
+            final Object reply = upload.uploadFragment(header, content);
+            if(reply instanceof OneDriveFile.Metadata) {
                 log.info(String.format("Completed upload for %s", file));
+                session.getFeature(IdProvider.class).cache(file,
+                    new GraphAttributesFinderFeature(session).toAttributes((OneDriveFile.Metadata) reply).getVersionId());
             }
             else {
                 log.debug(String.format("Uploaded fragment %s for file %s", header, file));
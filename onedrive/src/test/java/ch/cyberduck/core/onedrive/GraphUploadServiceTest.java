@@ -0,0 +1,131 @@
+package ch.cyberduck.core.onedrive;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.DisabledStreamListener;
+import ch.cyberduck.core.onedrive.features.GraphDeleteFeature;
+import ch.cyberduck.core.onedrive.features.GraphReadFeature;
+import ch.cyberduck.core.onedrive.features.GraphUploadService;
+import ch.cyberduck.core.shared.DefaultFindFeature;
+import ch.cyberduck.core.shared.DefaultHomeFinderService;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.test.IntegrationTest;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class GraphUploadServiceTest extends AbstractOneDriveTest {
+
+    @Test
+    public void testUploadFragments() throws Exception {
+        final byte[] content = RandomUtils.nextBytes(700 * 1024);
+        final Local local = this.local(content);
+        final Path file = new Path(new DefaultHomeFinderService(session).find(), new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file));
+        final TransferStatus status = new TransferStatus().length(content.length);
+        final RecordingStreamListener listener = new RecordingStreamListener();
+        // Fragment size not a multiple of 320 KiB
+        new GraphUploadService(session, 500 * 1024L).upload(file, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED),
+            listener, status, new DisabledConnectionCallback());
+        assertTrue(status.isComplete());
+        assertEquals(Arrays.asList(320 * 1024L, 320 * 1024L, 60 * 1024L), listener.fragments);
+        assertFalse(status.getParameters().containsKey(GraphUploadService.UPLOAD_URL));
+        assertTrue(new DefaultFindFeature(session).find(file));
+        this.verify(file, content);
+        new GraphDeleteFeature(session).delete(Collections.singletonList(file), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+    }
+
+    @Test
+    public void testUploadResume() throws Exception {
+        final byte[] content = RandomUtils.nextBytes(700 * 1024);
+        final Local local = this.local(content);
+        final Path file = new Path(new DefaultHomeFinderService(session).find(), new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file));
+        final TransferStatus status = new TransferStatus().length(content.length);
+        final GraphUploadService service = new GraphUploadService(session, GraphUploadService.FRAGMENT_ALIGNMENT);
+        try {
+            service.upload(file, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED), new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    // Interrupt after first fragment
+                    status.setCanceled();
+                }
+            }, status, new DisabledConnectionCallback());
+            fail();
+        }
+        catch(ConnectionCanceledException e) {
+            // Expected
+        }
+        assertTrue(status.getParameters().containsKey(GraphUploadService.UPLOAD_URL));
+        assertTrue(status.getParameters().get(GraphUploadService.NEXT_EXPECTED_RANGES).startsWith(
+            String.format("%d-", GraphUploadService.FRAGMENT_ALIGNMENT)));
+        // Retry with upload session from previous attempt
+        final TransferStatus retry = new TransferStatus().length(content.length).withParameters(status.getParameters());
+        final RecordingStreamListener listener = new RecordingStreamListener();
+        service.upload(file, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED), listener, retry, new DisabledConnectionCallback());
+        assertTrue(retry.isComplete());
+        assertEquals(Arrays.asList(320 * 1024L, 60 * 1024L), listener.fragments);
+        this.verify(file, content);
+        new GraphDeleteFeature(session).delete(Collections.singletonList(file), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+    }
+
+    private Local local(final byte[] content) throws Exception {
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        return local;
+    }
+
+    private void verify(final Path file, final byte[] content) throws Exception {
+        final byte[] compare = new byte[content.length];
+        final InputStream stream = new GraphReadFeature(session).read(file, new TransferStatus().length(content.length), new DisabledConnectionCallback());
+        IOUtils.readFully(stream, compare);
+        stream.close();
+        assertArrayEquals(content, compare);
+    }
+
+    private static final class RecordingStreamListener extends DisabledStreamListener {
+        private final List<Long> fragments = new ArrayList<>();
+
+        @Override
+        public void sent(final long bytes) {
+            fragments.add(bytes);
+        }
+    }
+}
@@ -99,7 +99,8 @@ public class SwiftLargeObjectUploadFeature extends HttpUploadFeature<StorageObje
                                 final StreamListener listener,
                                 final TransferStatus status,
                                 final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("multipart", concurrency);
+        // Share limit for concurrent parts with other files in transfer if available
+        final ThreadPool pool = null == status.getScheduler() ? ThreadPoolFactory.get("multipart", concurrency) : status.getScheduler().pool(file);
         final List<Path> existingSegments = new ArrayList<Path>();
         if(status.isAppend()) {
             // Get a lexicographically ordered list of the existing file segments
@@ -82,12 +82,12 @@ import ch.cyberduck.core.transfer.UploadTransfer;
 import ch.cyberduck.core.vault.DefaultVaultRegistry;
 import ch.cyberduck.core.vault.VaultCredentials;
 import ch.cyberduck.core.vault.VaultFactory;
+import ch.cyberduck.core.worker.ConcurrentSearchWorker;
 import ch.cyberduck.core.worker.CopyWorker;
 import ch.cyberduck.core.worker.CreateDirectoryWorker;
 import ch.cyberduck.core.worker.CreateSymlinkWorker;
 import ch.cyberduck.core.worker.CreateVaultWorker;
 import ch.cyberduck.core.worker.MountWorker;
-import ch.cyberduck.core.worker.SearchWorker;
 import ch.cyberduck.core.worker.SessionListWorker;
 import ch.cyberduck.core.worker.TouchWorker;
 import ch.cyberduck.ui.browser.BookmarkColumn;
@@ -209,7 +209,7 @@ public class BrowserController extends WindowController
      * Caching files listings of previously listed directories
      */
     private final Cache<Path> cache
-        = new ReverseLookupCache<Path>(new PathCache(preferences.getInteger("browser.cache.size")), preferences.getInteger("browser.cache.size"));
+        = new ReverseLookupCache<Path>(new PathCache(preferences.getInteger("browser.cache.size"), preferences.getLong("browser.cache.memory")), preferences.getInteger("browser.cache.size"));
 
     private Scheduler scheduler;
 
@@ -1758,12 +1758,20 @@ public class BrowserController extends WindowController
                                 @Override
                                 public void callback(int returncode) {
                                     if(returncode == DEFAULT_OPTION) {
+                                        // Separate connections for stateful protocols not blocking the browser
+                                        final boolean stateful = pool.getHost().getProtocol().isStateful();
+                                        final SessionPool search = stateful ?
+                                            SessionPoolFactory.create(BrowserController.this, cache, pool.getHost()) : pool;
                                         // Delay render until path is cached in the background
-                                        background(new WorkerBackgroundAction<AttributedList<Path>>(BrowserController.this, pool,
-                                            new SearchWorker(workdir, filenameFilter, cache, listener) {
+                                        background(new WorkerBackgroundAction<AttributedList<Path>>(BrowserController.this, search,
+                                            new ConcurrentSearchWorker(search, workdir, filenameFilter, cache, listener) {
                                                 @Override
                                                 public void cleanup(final AttributedList<Path> list) {
                                                     super.cleanup(list);
+                                                    if(stateful) {
+                                                        // Close connections opened for search
+                                                        search.shutdown();
+                                                    }
                                                     // Set filter with search result
                                                     setFilter(new RecursiveSearchFilter(list));
                                                     // Reload browser
@@ -70,6 +70,7 @@ import ch.cyberduck.core.importer.Transmit4BookmarkCollection;
 import ch.cyberduck.core.local.Application;
 import ch.cyberduck.core.local.BrowserLauncherFactory;
 import ch.cyberduck.core.local.DefaultLocalDirectoryFeature;
+import ch.cyberduck.core.local.LocalChecksumIndex;
 import ch.cyberduck.core.local.TemporaryFileServiceFactory;
 import ch.cyberduck.core.notification.NotificationServiceFactory;
 import ch.cyberduck.core.oauth.OAuth2TokenListenerRegistry;
@@ -1215,6 +1216,8 @@ public class MainController extends BundleController implements NSApplication.De
         this.invalidate();
         // Clear temporary files
         TemporaryFileServiceFactory.get().shutdown();
+        // Close checksum index
+        LocalChecksumIndex.get().shutdown();
         //Terminating rendezvous discovery
         RendezvousFactory.instance().quit();
         // Remove notifications from center
@@ -623,7 +623,7 @@ public final class TransferController extends WindowController implements Transf
      */
     public void start(final Transfer transfer, final TransferOptions options, final TransferCallback callback) {
         final ProgressController progress = transferTableModel.getController(transfer);
-        final Cache<Path> cache = new PathCache(preferences.getInteger("transfer.cache.size"));
+        final Cache<Path> cache = new PathCache(preferences.getInteger("transfer.cache.size"), preferences.getLong("transfer.cache.memory"));
         final Host source = transfer.getSource();
         final Host destination = transfer.getDestination();
         final TransferBackgroundAction action = new TransferCollectionBackgroundAction(this,
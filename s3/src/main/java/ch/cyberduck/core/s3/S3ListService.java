@@ -22,11 +22,15 @@ import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.VersioningConfiguration;
 import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.exception.UnsupportedException;
 import ch.cyberduck.core.features.Versioning;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.log4j.Logger;
 import org.jets3t.service.model.MultipartUpload;
@@ -36,6 +40,9 @@ import java.util.EnumSet;
 public class S3ListService implements ListService {
     private static final Logger log = Logger.getLogger(S3ListService.class);
 
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
     private final S3Session session;
 
     private final PathContainerService containerService
@@ -83,6 +90,46 @@ public class S3ListService implements ListService {
         }
     }
 
+    @Override
+    public boolean isRecursive(final Path directory) {
+        return !directory.isRoot();
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        final Path bucket = containerService.getContainer(directory);
+        final VersioningConfiguration versioning = null != session.getFeature(Versioning.class) ? session.getFeature(Versioning.class).getConfiguration(
+            bucket
+        ) : VersioningConfiguration.empty();
+        if(versioning.isEnabled()) {
+            // Previous versions and delete markers only returned in listing per directory
+            throw new UnsupportedException(String.format("Versioning enabled for %s", bucket));
+        }
+        final AttributedList<Path> objects;
+        if(preferences.getInteger("s3.listing.partitions") > 1) {
+            objects = new S3PartitionedObjectListService(session).list(directory, listener);
+        }
+        else {
+            // Omit delimiter to list all keys with prefix
+            objects = new S3ObjectListService(session).list(directory, listener, null,
+                preferences.getInteger("s3.listing.chunksize"));
+        }
+        try {
+            for(MultipartUpload upload : new S3DefaultMultipartService(session).find(directory)) {
+                final PathAttributes attributes = new PathAttributes();
+                attributes.setVersionId(upload.getUploadId());
+                attributes.setModificationDate(upload.getInitiatedDate().getTime());
+                attributes.setRegion(bucket.attributes().getRegion());
+                objects.add(new Path(String.format("%s%s", bucket.getAbsolute(), PathNormalizer.normalize(upload.getObjectKey())),
+                    EnumSet.of(Path.Type.file, Path.Type.upload), attributes));
+            }
+        }
+        catch(AccessDeniedException | InteroperabilityException e) {
+            log.warn(String.format("Ignore failure listing incomplete multipart uploads. %s", e.getDetail()));
+        }
+        return objects;
+    }
+
     @Override
     public ListService withCache(final Cache<Path> cache) {
         return this;
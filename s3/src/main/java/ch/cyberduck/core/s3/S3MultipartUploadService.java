@@ -31,6 +31,7 @@ import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
 import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.Checksum;
 import ch.cyberduck.core.io.ChecksumComputeFactory;
 import ch.cyberduck.core.io.HashAlgorithm;
 import ch.cyberduck.core.io.StreamListener;
@@ -51,9 +52,14 @@ import org.jets3t.service.model.MultipartUpload;
 import org.jets3t.service.model.S3Object;
 import org.jets3t.service.model.StorageObject;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -79,6 +85,14 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
 
     private final Integer concurrency;
 
+    /**
+     * Payload hash value for requests signed without hashing the content
+     */
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private final boolean unsigned
+        = PreferencesFactory.get().getBoolean("s3.upload.multipart.payload.unsigned");
+
     public S3MultipartUploadService(final S3Session session, final Write<StorageObject> writer) {
         this(session, writer, PreferencesFactory.get().getLong("s3.upload.multipart.size"),
             PreferencesFactory.get().getInteger("s3.upload.multipart.concurrency"));
@@ -96,7 +110,8 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
     @Override
     public StorageObject upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                                 final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("multipart", concurrency);
+        // Share limit for concurrent parts with other files in transfer if available
+        final ThreadPool pool = null == status.getScheduler() ? ThreadPoolFactory.get("multipart", concurrency) : status.getScheduler().pool(file);
         try {
             MultipartUpload multipart = null;
             try {
@@ -256,7 +271,15 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                 status.setNonces(overall.getNonces());
                 switch(session.getSignatureVersion()) {
                     case AWS4HMACSHA256:
-                        status.setChecksum(writer.checksum(file).compute(local.getInputStream(), status));
+                        if(unsigned && session.getHost().getProtocol().isSecure()) {
+                            // Skip reading part to compute SHA-256 hash of payload before upload
+                            status.setMetadata(Collections.singletonMap("x-amz-content-sha256", UNSIGNED_PAYLOAD));
+                        }
+                        else {
+                            // Without TLS the part is read twice as the SHA-256 payload hash must be known
+                            // to sign the request before sending the content
+                            status.setChecksum(writer.checksum(file).compute(local.getInputStream(), status));
+                        }
                         break;
                 }
                 status.setSegment(true);
@@ -287,6 +310,49 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
         }, overall));
     }
 
+    @Override
+    protected InputStream decorate(final InputStream in, final MessageDigest digest) throws IOException {
+        if(null == digest) {
+            return super.decorate(in, null);
+        }
+        else {
+            return new DigestInputStream(super.decorate(in, digest), digest);
+        }
+    }
+
+    /**
+     * @return MD5 digest to verify parts signed with unsigned payload regardless of user preference
+     */
+    @Override
+    protected MessageDigest digest() throws IOException {
+        MessageDigest digest = null;
+        if(unsigned || PreferencesFactory.get().getBoolean("queue.upload.checksum.calculate")) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            }
+            catch(NoSuchAlgorithmException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Verify MD5 hash of part computed while uploading with ETag returned for part
+     */
+    @Override
+    protected void post(final Path file, final MessageDigest digest, final StorageObject part) throws BackgroundException {
+        if(null != part.getServerSideEncryptionAlgorithm()) {
+            log.warn(String.format("Skip checksum verification for %s with server side encryption enabled", file));
+            return;
+        }
+        if(null == part.getETag()) {
+            log.warn(String.format("Skip checksum verification for %s with missing ETag", file));
+            return;
+        }
+        this.verify(file, digest, Checksum.parse(StringUtils.remove(part.getETag(), '"')));
+    }
+
     @Override
     public Upload<StorageObject> withWriter(final Write<StorageObject> writer) {
         this.writer = writer;
@@ -0,0 +1,565 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AbstractPath;
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.PathNormalizer;
+import ch.cyberduck.core.URIEncoder;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.apache.log4j.Logger;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.StorageObjectsChunk;
+import org.jets3t.service.model.StorageObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lists all keys with the prefix of a directory without delimiter. The key space is split into lexicographic ranges
+ * listed concurrently each starting after the upper boundary of the previous range. Boundaries are taken from the
+ * common prefixes of the first level. When the first level does not fit in a single page, the number of keys in ranges
+ * beyond the first page is estimated by probing a page of keys at the start of each range and splitting ranges found
+ * to hold more keys with characters found in keys listed.
+ */
+public class S3PartitionedObjectListService extends S3AbstractListService implements ListService {
+    private static final Logger log = Logger.getLogger(S3PartitionedObjectListService.class);
+
+    /**
+     * Lexicographic order of keys in listing
+     */
+    static final Comparator<String> UTF8_BINARY_ORDER = (o1, o2) -> {
+        final byte[] b1 = o1.getBytes(StandardCharsets.UTF_8);
+        final byte[] b2 = o2.getBytes(StandardCharsets.UTF_8);
+        for(int i = 0; i < Math.min(b1.length, b2.length); i++) {
+            final int c = Integer.compare(b1[i] & 0xff, b2[i] & 0xff);
+            if(c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(b1.length, b2.length);
+    };
+
+    /**
+     * Number of pages listed per partition to estimate distribution of keys
+     */
+    private static final int PROBES = 4;
+
+    /**
+     * Maximum number of ranges to split a range into with more keys than listed in a page
+     */
+    private static final int FANOUT = 4;
+
+    /**
+     * Number of characters in keys to read as digits of position in key space
+     */
+    private static final int PRECISION = 8;
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final PathContainerService containerService
+        = new S3PathContainerService();
+
+    private final S3Session session;
+    private final S3AttributesFinderFeature attributes;
+
+    private final int partitions;
+
+    public S3PartitionedObjectListService(final S3Session session) {
+        this(session, PreferencesFactory.get().getInteger("s3.listing.partitions"));
+    }
+
+    /**
+     * @param partitions Maximum number of key ranges listed concurrently
+     */
+    public S3PartitionedObjectListService(final S3Session session, final int partitions) {
+        this.session = session;
+        this.attributes = new S3AttributesFinderFeature(session);
+        this.partitions = partitions;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        final ThreadPool pool = ThreadPoolFactory.get("list", partitions);
+        try {
+            final String prefix = this.createPrefix(directory);
+            final Path bucket = containerService.getContainer(directory);
+            final int chunksize = preferences.getInteger("s3.listing.chunksize");
+            final List<String> boundaries = this.partition(pool, bucket, prefix, chunksize);
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("List %d key ranges in %s with boundaries %s", boundaries.size() + 1, directory, boundaries));
+            }
+            final AtomicBoolean hasDirectoryPlaceholder = new AtomicBoolean(containerService.isContainer(directory));
+            final List<Future<AttributedList<Path>>> ranges = new ArrayList<>();
+            String lower = null;
+            for(String upper : boundaries) {
+                ranges.add(this.submit(pool, bucket, directory, prefix, lower, upper, chunksize, hasDirectoryPlaceholder));
+                lower = upper;
+            }
+            ranges.add(this.submit(pool, bucket, directory, prefix, lower, null, chunksize, hasDirectoryPlaceholder));
+            final AttributedList<Path> children = new AttributedList<Path>();
+            // Ranges are in order of keys
+            for(Future<AttributedList<Path>> future : ranges) {
+                try {
+                    children.addAll(future.get());
+                }
+                catch(InterruptedException e) {
+                    log.error("Listing key range failed with interrupt failure");
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    log.warn(String.format("Listing key range failed with execution failure %s", e.getMessage()));
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+                listener.chunk(directory, children);
+            }
+            if(!hasDirectoryPlaceholder.get() && children.isEmpty()) {
+                throw new NotfoundException(directory.getAbsolute());
+            }
+            return children;
+        }
+        catch(ServiceException e) {
+            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+        }
+        finally {
+            // Cancel future tasks
+            pool.shutdown(false);
+        }
+    }
+
+    /**
+     * @param prefix Key prefix of directory
+     * @return Sorted boundaries splitting key space with prefix
+     */
+    protected List<String> partition(final ThreadPool pool, final Path bucket, final String prefix, final int chunksize) throws ServiceException, BackgroundException {
+        if(partitions <= 1) {
+            return new ArrayList<>();
+        }
+        String level = prefix;
+        while(true) {
+            final StorageObjectsChunk chunk = this.chunk(bucket, level, String.valueOf(Path.DELIMITER), chunksize, null);
+            final List<String> candidates = new ArrayList<>(Arrays.asList(chunk.getCommonPrefixes()));
+            if(null != chunk.getPriorLastKey()) {
+                // Probe remaining keys of first level beyond first page
+                final TreeSet<Character> alphabet = new TreeSet<>();
+                for(StorageObject object : chunk.getObjects()) {
+                    alphabet(alphabet, level, object.getKey());
+                }
+                for(String key : candidates) {
+                    alphabet(alphabet, level, key);
+                }
+                candidates.add(chunk.getPriorLastKey());
+                return this.probe(pool, bucket, level, boundaries(candidates, partitions), alphabet, chunksize);
+            }
+            if(1 == candidates.size() && this.isEmpty(chunk, level)) {
+                // Descend into single common prefix
+                level = candidates.get(0);
+                continue;
+            }
+            return boundaries(candidates, partitions);
+        }
+    }
+
+    private boolean isEmpty(final StorageObjectsChunk chunk, final String prefix) {
+        for(StorageObject object : chunk.getObjects()) {
+            if(!object.getKey().equals(prefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimate number of keys in ranges by listing a page of keys at the start of each range. Ranges with more keys
+     * than fit in a page are split further until the number of probes is exhausted.
+     *
+     * @param prefix     Key prefix
+     * @param splits     Initial boundaries
+     * @param alphabet   Characters found in keys after prefix
+     * @param chunksize  Number of keys in page
+     * @return Boundaries for ranges with about equal number of keys
+     */
+    protected List<String> probe(final ThreadPool pool, final Path bucket, final String prefix, final List<String> splits,
+                                 final SortedSet<Character> alphabet, final int chunksize) throws BackgroundException {
+        final List<Range> ranges = new ArrayList<>();
+        String lower = null;
+        for(String upper : splits) {
+            ranges.add(new Range(lower, upper));
+            lower = upper;
+        }
+        ranges.add(new Range(lower, null));
+        int budget = partitions * PROBES;
+        while(budget > 0) {
+            final List<Range> pending = new ArrayList<>();
+            for(Range range : ranges) {
+                if(!range.isProbed()) {
+                    pending.add(range);
+                }
+            }
+            if(pending.isEmpty()) {
+                break;
+            }
+            final List<Future<Page>> pages = new ArrayList<>();
+            for(Range range : pending.subList(0, Math.min(budget, pending.size()))) {
+                pages.add(pool.execute(new BackgroundExceptionCallable<Page>() {
+                    @Override
+                    public Page call() throws BackgroundException {
+                        try {
+                            return new Page(range, chunk(bucket, prefix, null, chunksize, range.lower));
+                        }
+                        catch(ServiceException e) {
+                            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, bucket);
+                        }
+                    }
+                }));
+            }
+            budget -= pages.size();
+            final List<Range> dense = new ArrayList<>();
+            for(Future<Page> future : pages) {
+                final Page page;
+                try {
+                    page = future.get();
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+                for(StorageObject object : page.chunk.getObjects()) {
+                    alphabet(alphabet, prefix, object.getKey());
+                }
+                if(page.count()) {
+                    dense.add(page.range);
+                }
+            }
+            if(dense.isEmpty()) {
+                break;
+            }
+            // Split remainder of ranges with more keys than listed in page
+            final int count = Math.max(2, Math.min(FANOUT, budget / dense.size()));
+            for(Range range : dense) {
+                final int index = ranges.indexOf(range);
+                final List<Range> remainder = new ArrayList<>();
+                String l = range.last;
+                for(String u : split(prefix, range.last, range.upper, alphabet, count - 1)) {
+                    remainder.add(new Range(l, u));
+                    l = u;
+                }
+                remainder.add(new Range(l, range.upper));
+                // Keys listed in page up to last key
+                range.upper = range.last;
+                ranges.addAll(index + 1, remainder);
+            }
+        }
+        return this.balance(ranges, chunksize);
+    }
+
+    /**
+     * @param ranges    Ranges with estimated number of keys
+     * @param chunksize Number of keys assumed for ranges not probed
+     * @return Boundaries for up to the maximum number of partitions depending on total number of keys
+     */
+    private List<String> balance(final List<Range> ranges, final int chunksize) {
+        long total = 0L;
+        for(Range range : ranges) {
+            total += range.weight(chunksize);
+        }
+        // Do not split less keys than fit in a single page
+        final long count = Math.min(partitions, Math.max(1L, (total + chunksize - 1) / chunksize));
+        final List<String> boundaries = new ArrayList<>();
+        if(count <= 1) {
+            return boundaries;
+        }
+        long sum = 0L;
+        for(Range range : ranges) {
+            if(null == range.upper) {
+                break;
+            }
+            sum += range.weight(chunksize);
+            if(sum * count >= total * (boundaries.size() + 1)) {
+                boundaries.add(range.upper);
+                if(boundaries.size() == count - 1) {
+                    break;
+                }
+            }
+        }
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Estimated %d keys in %d probed ranges", total, ranges.size()));
+        }
+        return boundaries;
+    }
+
+    private static void alphabet(final SortedSet<Character> alphabet, final String prefix, final String key) {
+        for(int i = prefix.length(); i < key.length(); i++) {
+            alphabet.add(key.charAt(i));
+        }
+    }
+
+    /**
+     * @param prefix   Key prefix
+     * @param lower    Exclusive lower boundary
+     * @param upper    Exclusive upper boundary or null
+     * @param alphabet Characters found in keys
+     * @param count    Maximum number of keys
+     * @return Keys in order evenly spaced between lower and upper in key space of characters from alphabet
+     */
+    static List<String> split(final String prefix, final String lower, final String upper, final SortedSet<Character> alphabet, final int count) {
+        final List<Character> characters = new ArrayList<>(alphabet);
+        final int base = characters.size();
+        if(base < 2) {
+            return new ArrayList<>();
+        }
+        final double from = position(prefix, lower, characters);
+        final double to = null == upper ? 1d : position(prefix, upper, characters);
+        if(to <= from) {
+            return new ArrayList<>();
+        }
+        // Number of characters required to distinguish keys
+        final int length = Math.min(PRECISION, Math.max(1, (int) Math.ceil(Math.log((count + 1) / (to - from)) / Math.log(base)) + 1));
+        final TreeSet<String> splits = new TreeSet<>(UTF8_BINARY_ORDER);
+        for(int i = 1; i <= count; i++) {
+            double fraction = from + (to - from) * i / (count + 1);
+            final StringBuilder key = new StringBuilder(prefix);
+            for(int j = 0; j < length; j++) {
+                fraction *= base;
+                final int digit = Math.min(base - 1, (int) fraction);
+                fraction -= digit;
+                key.append(characters.get(digit));
+            }
+            final String split = key.toString();
+            if(UTF8_BINARY_ORDER.compare(split, lower) <= 0) {
+                continue;
+            }
+            if(null != upper && UTF8_BINARY_ORDER.compare(split, upper) >= 0) {
+                continue;
+            }
+            splits.add(split);
+        }
+        return new ArrayList<>(splits);
+    }
+
+    /**
+     * @param prefix     Key prefix
+     * @param key        Key
+     * @param characters Sorted characters used as digits
+     * @return Position of key in key space as fraction between 0 and 1 reading characters after prefix as digits
+     */
+    static double position(final String prefix, final String key, final List<Character> characters) {
+        final int base = characters.size();
+        double position = 0d;
+        double scale = 1d;
+        for(int i = prefix.length(); i < Math.min(key.length(), prefix.length() + PRECISION); i++) {
+            scale /= base;
+            final char c = key.charAt(i);
+            if(c < characters.get(0)) {
+                break;
+            }
+            if(c > characters.get(base - 1)) {
+                position += base * scale;
+                break;
+            }
+            // Index of largest character not greater than character in key
+            int digit = 0;
+            for(int j = 0; j < base; j++) {
+                if(characters.get(j) <= c) {
+                    digit = j;
+                }
+            }
+            position += digit * scale;
+        }
+        return position;
+    }
+
+    /**
+     * @param candidates Keys to choose boundaries from
+     * @param partitions Maximum number of ranges
+     * @return Distinct boundaries in key order evenly spaced from candidates
+     */
+    static List<String> boundaries(final List<String> candidates, final int partitions) {
+        final TreeSet<String> sorted = new TreeSet<>(UTF8_BINARY_ORDER);
+        sorted.addAll(candidates);
+        final List<String> distinct = new ArrayList<>(sorted);
+        if(distinct.size() < partitions) {
+            return distinct;
+        }
+        final List<String> boundaries = new ArrayList<>();
+        for(int i = 1; i < partitions; i++) {
+            boundaries.add(distinct.get(i * distinct.size() / partitions));
+        }
+        return boundaries;
+    }
+
+    /**
+     * List page of keys in bucket
+     *
+     * @param delimiter    Delimiter or null to list keys at any depth
+     * @param priorLastKey List keys after or null to start with first key
+     */
+    protected StorageObjectsChunk chunk(final Path bucket, final String prefix, final String delimiter, final int chunksize,
+                                        final String priorLastKey) throws ServiceException {
+        return session.getClient().listObjectsChunked(
+            PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix, delimiter,
+            chunksize, priorLastKey, false);
+    }
+
+    /**
+     * Key range with exclusive lower and inclusive upper boundary
+     */
+    private static final class Range {
+        private final String lower;
+        private String upper;
+        /**
+         * Number of keys found or -1 if not probed
+         */
+        private long keys = -1L;
+        /**
+         * Last key in page when more keys in range than listed
+         */
+        private String last;
+
+        Range(final String lower, final String upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        boolean isProbed() {
+            return keys != -1L;
+        }
+
+        long weight(final int chunksize) {
+            return this.isProbed() ? keys : chunksize;
+        }
+    }
+
+    private static final class Page {
+        private final Range range;
+        private final StorageObjectsChunk chunk;
+
+        Page(final Range range, final StorageObjectsChunk chunk) {
+            this.range = range;
+            this.chunk = chunk;
+        }
+
+        /**
+         * Count keys of page in range
+         *
+         * @return True if range has more keys than listed in page
+         */
+        boolean count() {
+            long keys = 0L;
+            for(StorageObject object : chunk.getObjects()) {
+                if(null != range.upper && UTF8_BINARY_ORDER.compare(object.getKey(), range.upper) > 0) {
+                    range.keys = keys;
+                    return false;
+                }
+                keys++;
+                range.last = object.getKey();
+            }
+            range.keys = keys;
+            if(null == range.last || null == chunk.getPriorLastKey()) {
+                return false;
+            }
+            return null == range.upper || UTF8_BINARY_ORDER.compare(range.last, range.upper) < 0;
+        }
+    }
+
+    /**
+     * @param lower Exclusive lower boundary or null to start with first key
+     * @param upper Inclusive upper boundary or null to list until last key
+     */
+    private Future<AttributedList<Path>> submit(final ThreadPool pool, final Path bucket, final Path directory, final String prefix,
+                                                final String lower, final String upper, final int chunksize,
+                                                final AtomicBoolean hasDirectoryPlaceholder) {
+        return pool.execute(new BackgroundExceptionCallable<AttributedList<Path>>() {
+            @Override
+            public AttributedList<Path> call() throws BackgroundException {
+                final AttributedList<Path> children = new AttributedList<Path>();
+                try {
+                    // Start listing after given key
+                    String priorLastKey = lower;
+                    do {
+                        final StorageObjectsChunk chunk = S3PartitionedObjectListService.this.chunk(bucket, prefix, null, chunksize, priorLastKey);
+                        for(StorageObject object : chunk.getObjects()) {
+                            if(null != upper && UTF8_BINARY_ORDER.compare(object.getKey(), upper) > 0) {
+                                // Remaining keys listed in next range
+                                return children;
+                            }
+                            final String key = PathNormalizer.normalize(object.getKey());
+                            if(String.valueOf(Path.DELIMITER).equals(key)) {
+                                log.warn(String.format("Skipping prefix %s", key));
+                                continue;
+                            }
+                            if(new Path(bucket, key, EnumSet.of(Path.Type.directory)).equals(directory)) {
+                                // Placeholder object, skip
+                                hasDirectoryPlaceholder.set(true);
+                                continue;
+                            }
+                            final EnumSet<AbstractPath.Type> types = object.getKey().endsWith(String.valueOf(Path.DELIMITER))
+                                ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file);
+                            final PathAttributes attr = attributes.toAttributes(object);
+                            // Copy bucket location
+                            attr.setRegion(bucket.attributes().getRegion());
+                            children.add(new Path(String.format("%s%s", bucket.getAbsolute(), key), types, attr));
+                        }
+                        priorLastKey = chunk.getPriorLastKey();
+                    }
+                    while(priorLastKey != null);
+                    return children;
+                }
+                catch(ServiceException e) {
+                    throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+                }
+            }
+        });
+    }
+
+    @Override
+    public ListService withCache(final Cache<Path> cache) {
+        attributes.withCache(cache);
+        return this;
+    }
+}
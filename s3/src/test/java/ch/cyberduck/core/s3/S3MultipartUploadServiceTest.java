@@ -7,6 +7,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ChecksumException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.io.BandwidthThrottle;
@@ -20,17 +21,20 @@ import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
 import org.jets3t.service.model.S3Object;
+import org.jets3t.service.model.StorageObject;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -148,6 +152,57 @@ public class S3MultipartUploadServiceTest extends AbstractS3Test {
         local.delete();
     }
 
+    @Test
+    public void testMultiplePartsUnsignedPayload() throws Exception {
+        final S3MultipartUploadService m = new S3MultipartUploadService(session, new S3WriteFeature(session, new S3DisabledMultipartService()), 5242880L, 5);
+        final Path container = new Path("test-eu-central-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final Path test = new Path(container, UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final int length = 5242881;
+        final byte[] content = RandomUtils.nextBytes(length);
+        final AtomicInteger reads = new AtomicInteger();
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString()) {
+            @Override
+            public InputStream getInputStream() throws AccessDeniedException {
+                reads.incrementAndGet();
+                return super.getInputStream();
+            }
+        };
+        IOUtils.write(content, local.getOutputStream(false));
+        final TransferStatus status = new TransferStatus();
+        status.setLength(content.length);
+        m.upload(test, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED), new DisabledStreamListener(), status, null);
+        assertEquals((long) content.length, status.getOffset(), 0L);
+        assertTrue(status.isComplete());
+        // Each part is read once only
+        assertEquals(2, reads.get());
+        assertEquals(content.length, new S3AttributesFinderFeature(session).find(test).getSize());
+        new S3DefaultDeleteFeature(session).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
+        local.delete();
+    }
+
+    @Test(expected = ChecksumException.class)
+    public void testVerifyPartChecksumMismatch() throws Exception {
+        final S3MultipartUploadService m = new S3MultipartUploadService(session, new S3WriteFeature(session, new S3DisabledMultipartService()), 5242880L, 5);
+        final MessageDigest digest = MessageDigest.getInstance("MD5");
+        digest.update(RandomUtils.nextBytes(1000));
+        final StorageObject part = new StorageObject();
+        part.setETag("\"d41d8cd98f00b204e9800998ecf8427e\"");
+        m.post(new Path("/b/f", EnumSet.of(Path.Type.file)), digest, part);
+    }
+
+    @Test
+    public void testVerifyPartChecksum() throws Exception {
+        final S3MultipartUploadService m = new S3MultipartUploadService(session, new S3WriteFeature(session, new S3DisabledMultipartService()), 5242880L, 5);
+        final MessageDigest digest = MessageDigest.getInstance("MD5");
+        final StorageObject part = new StorageObject();
+        part.setETag("\"d41d8cd98f00b204e9800998ecf8427e\"");
+        m.post(new Path("/b/f", EnumSet.of(Path.Type.file)), digest, part);
+        final StorageObject encrypted = new StorageObject();
+        encrypted.setETag("\"a\"");
+        encrypted.setServerSideEncryptionAlgorithm("aws:kms");
+        m.post(new Path("/b/f", EnumSet.of(Path.Type.file)), MessageDigest.getInstance("MD5"), encrypted);
+    }
+
     @Test
     public void testAppendSecondPart() throws Exception {
         final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
@@ -0,0 +1,144 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.jets3t.service.StorageObjectsChunk;
+import org.jets3t.service.model.StorageObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class S3PartitionedObjectListServiceTest {
+
+    @Test
+    public void testBoundaries() {
+        assertEquals(Arrays.asList("a/", "b/", "c/"),
+            S3PartitionedObjectListService.boundaries(Arrays.asList("c/", "a/", "b/", "a/"), 8));
+        assertEquals(Arrays.asList("c/", "e/", "g/"),
+            S3PartitionedObjectListService.boundaries(Arrays.asList("a/", "b/", "c/", "d/", "e/", "f/", "g/", "h/"), 4));
+        assertTrue(S3PartitionedObjectListService.boundaries(Collections.emptyList(), 4).isEmpty());
+    }
+
+    @Test
+    public void testSplit() {
+        final TreeSet<Character> digits = new TreeSet<>(Arrays.asList('0', '1', '2', '3', '4', '5', '6', '7', '8', '9'));
+        assertEquals(Arrays.asList("p/32", "p/55", "p/77"), S3PartitionedObjectListService.split("p/", "p/100999", null, digits, 3));
+        assertEquals(Arrays.asList("p/138", "p/175", "p/212"), S3PartitionedObjectListService.split("p/", "p/101999", "p/25", digits, 3));
+        assertTrue(S3PartitionedObjectListService.split("p/", "p/2", "p/1", digits, 3).isEmpty());
+        assertTrue(S3PartitionedObjectListService.split("p/", "p/1", null, new TreeSet<>(Collections.singleton('1')), 3).isEmpty());
+    }
+
+    @Test
+    public void testPosition() {
+        final List<Character> hex = Arrays.asList('0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f');
+        assertEquals(0d, S3PartitionedObjectListService.position("p/", "p/", hex), 0d);
+        assertEquals(0.5d, S3PartitionedObjectListService.position("p/", "p/8", hex), 0d);
+        assertEquals(0.5d, S3PartitionedObjectListService.position("p/", "p/80", hex), 0d);
+        assertEquals(1d, S3PartitionedObjectListService.position("p/", "p/z", hex), 0d);
+        assertTrue(S3PartitionedObjectListService.position("p/", "p/8f", hex) < S3PartitionedObjectListService.position("p/", "p/9", hex));
+    }
+
+    @Test
+    public void testPartitionSkewedKeyspace() throws Exception {
+        final TreeSet<String> keys = new TreeSet<>(S3PartitionedObjectListService.UTF8_BINARY_ORDER);
+        // Most keys with same first digit
+        for(int i = 0; i < 50000; i++) {
+            keys.add(String.format("p/1%05d", i));
+        }
+        for(int c = 2; c <= 9; c++) {
+            for(int i = 0; i < 10; i++) {
+                keys.add(String.format("p/%d%02d", c, i));
+            }
+        }
+        final List<String> boundaries = this.partition(keys, 8);
+        assertEquals(7, boundaries.size());
+        final List<Integer> ranges = ranges(keys, boundaries);
+        assertEquals(keys.size(), ranges.stream().mapToInt(Integer::intValue).sum());
+        for(Integer range : ranges) {
+            // Evenly distributed would be 6260 keys in each range
+            assertTrue(String.valueOf(ranges), range < keys.size() / 4);
+        }
+    }
+
+    @Test
+    public void testPartitionFewKeys() throws Exception {
+        final TreeSet<String> keys = new TreeSet<>(S3PartitionedObjectListService.UTF8_BINARY_ORDER);
+        for(int i = 0; i < 2500; i++) {
+            keys.add(String.format("p/%04d", i));
+        }
+        // Do not split in more ranges than pages required
+        assertEquals(Arrays.asList("p/0999", "p/1999"), this.partition(keys, 8));
+    }
+
+    private List<String> partition(final TreeSet<String> keys, final int partitions) throws Exception {
+        final S3PartitionedObjectListService service = new S3PartitionedObjectListService(new S3Session(new Host(new S3Protocol())), partitions) {
+            @Override
+            protected StorageObjectsChunk chunk(final Path bucket, final String prefix, final String delimiter, final int chunksize, final String priorLastKey) {
+                // Keys without delimiter after prefix
+                final List<StorageObject> objects = new ArrayList<>();
+                final Iterator<String> iter = (null == priorLastKey ? keys : keys.tailSet(priorLastKey, false)).iterator();
+                while(iter.hasNext() && objects.size() < chunksize) {
+                    final String key = iter.next();
+                    if(key.startsWith(prefix)) {
+                        objects.add(new StorageObject(key));
+                    }
+                }
+                return new StorageObjectsChunk(prefix, delimiter, objects.toArray(new StorageObject[0]), new String[0],
+                    iter.hasNext() ? objects.get(objects.size() - 1).getKey() : null);
+            }
+        };
+        final ThreadPool pool = ThreadPoolFactory.get("list", partitions);
+        try {
+            return service.partition(pool, new Path("/b", EnumSet.of(Path.Type.directory, Path.Type.volume)), "p/", 1000);
+        }
+        finally {
+            pool.shutdown(false);
+        }
+    }
+
+    private static List<Integer> ranges(final TreeSet<String> keys, final List<String> boundaries) {
+        final List<Integer> ranges = new ArrayList<>();
+        String lower = null;
+        for(String upper : boundaries) {
+            ranges.add((null == lower ? keys.headSet(upper, true) : keys.subSet(lower, false, upper, true)).size());
+            lower = upper;
+        }
+        ranges.add((null == lower ? keys : keys.tailSet(lower, false)).size());
+        return ranges;
+    }
+
+    @Test
+    public void testOrder() {
+        // Supplementary characters sort after characters in the upper range of the basic multilingual plane
+        assertTrue(S3PartitionedObjectListService.UTF8_BINARY_ORDER.compare("😀", "～") > 0);
+        assertTrue("😀".compareTo("～") < 0);
+        assertTrue(S3PartitionedObjectListService.UTF8_BINARY_ORDER.compare("a/", "a/b") < 0);
+        assertEquals(0, S3PartitionedObjectListService.UTF8_BINARY_ORDER.compare("a", "a"));
+    }
+}
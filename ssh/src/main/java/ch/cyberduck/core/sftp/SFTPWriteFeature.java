@@ -53,7 +53,11 @@ public class SFTPWriteFeature extends AppendWriteFeature<Void> {
     public StatusOutputStream<Void> write(final Path file, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
         try {
             final EnumSet<OpenMode> flags;
-            if(status.isAppend()) {
+            if(status.isSegment()) {
+                // Segments written concurrently to the same temporary file with positional writes. Never truncate.
+                flags = EnumSet.of(OpenMode.CREAT, OpenMode.WRITE);
+            }
+            else if(status.isAppend()) {
                 if(status.isExists()) {
                     // No append flag. Otherwise the offset field of SSH_FXP_WRITE requests is ignored.
                     flags = EnumSet.of(OpenMode.WRITE);
@@ -129,4 +133,9 @@ public class SFTPWriteFeature extends AppendWriteFeature<Void> {
     public boolean random() {
         return true;
     }
+
+    @Override
+    public boolean concurrent() {
+        return true;
+    }
 }
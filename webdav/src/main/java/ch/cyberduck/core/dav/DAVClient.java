@@ -18,6 +18,7 @@ package ch.cyberduck.core.dav;
  * feedback@cyberduck.ch
  */
 
+import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.http.HttpMethodReleaseInputStream;
 
 import org.apache.commons.lang3.StringUtils;
@@ -31,19 +32,31 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.log4j.Logger;
 
+import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import com.github.sardine.DavResource;
 import com.github.sardine.impl.SardineImpl;
 import com.github.sardine.impl.handler.VoidResponseHandler;
 import com.github.sardine.impl.methods.HttpPropFind;
+import com.github.sardine.model.Allprop;
+import com.github.sardine.model.Creationdate;
+import com.github.sardine.model.Displayname;
+import com.github.sardine.model.Getcontentlength;
+import com.github.sardine.model.Getcontenttype;
+import com.github.sardine.model.Getetag;
+import com.github.sardine.model.Getlastmodified;
 import com.github.sardine.model.Multistatus;
+import com.github.sardine.model.Prop;
 import com.github.sardine.model.Propfind;
+import com.github.sardine.model.Resourcetype;
 import com.github.sardine.model.Response;
 import com.github.sardine.util.SardineUtil;
 
@@ -99,6 +112,60 @@ public class DAVClient extends SardineImpl {
         return resources;
     }
 
+    /**
+     * List resources with default and custom properties passing resources to callback while response is parsed
+     *
+     * @param depth    Negative for infinity
+     * @param props    Custom properties to request in addition to default properties
+     * @param callback Called for every resource in response
+     */
+    public void list(final String url, final int depth, final Set<QName> props, final StreamingPropFindResponseHandler.Callback callback) throws IOException, BackgroundException {
+        final Propfind body = new Propfind();
+        final Prop prop = new Prop();
+        prop.setGetcontentlength(new Getcontentlength());
+        prop.setGetlastmodified(new Getlastmodified());
+        prop.setCreationdate(new Creationdate());
+        prop.setDisplayname(new Displayname());
+        prop.setGetcontenttype(new Getcontenttype());
+        prop.setResourcetype(new Resourcetype());
+        prop.setGetetag(new Getetag());
+        for(QName name : props) {
+            prop.getAny().add(SardineUtil.createElement(name));
+        }
+        body.setProp(prop);
+        this.propfind(url, depth, body, callback);
+    }
+
+    /**
+     * List resources passing resources to callback while response is parsed
+     *
+     * @param depth    Negative for infinity
+     * @param allProp  Request all properties
+     * @param callback Called for every resource in response
+     */
+    public void list(final String url, final int depth, final boolean allProp, final StreamingPropFindResponseHandler.Callback callback) throws IOException, BackgroundException {
+        if(allProp) {
+            final Propfind body = new Propfind();
+            body.setAllprop(new Allprop());
+            this.propfind(url, depth, body, callback);
+        }
+        else {
+            this.list(url, depth, Collections.<QName>emptySet(), callback);
+        }
+    }
+
+    protected void propfind(final String url, final int depth, final Propfind body, final StreamingPropFindResponseHandler.Callback callback) throws IOException, BackgroundException {
+        HttpPropFind entity = new HttpPropFind(url);
+        entity.setDepth(depth < 0 ? "infinity" : Integer.toString(depth));
+        entity.setEntity(new StringEntity(SardineUtil.toXml(body), StandardCharsets.UTF_8));
+        try {
+            this.execute(entity, new StreamingPropFindResponseHandler(callback));
+        }
+        catch(StreamingPropFindResponseHandler.CallbackException e) {
+            throw e.getFailure();
+        }
+    }
+
     @Override
     public ContentLengthStatusInputStream get(final String url, final List<Header> headers) throws IOException {
         HttpGet get = new HttpGet(url);
@@ -24,15 +24,19 @@ import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.PathNormalizer;
+import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.InteroperabilityException;
 import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.exception.UnsupportedException;
 import ch.cyberduck.core.http.HttpExceptionMappingService;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.EnumSet;
-import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,6 +46,9 @@ import com.github.sardine.impl.SardineException;
 public class DAVListService implements ListService {
     private static final Logger log = Logger.getLogger(DAVListService.class);
 
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
     private final DAVSession session;
     private final DAVAttributesFinderFeature attributes;
 
@@ -58,23 +65,31 @@ public class DAVListService implements ListService {
     public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
         try {
             final AttributedList<Path> children = new AttributedList<Path>();
-            for(final DavResource resource : this.list(directory)) {
-                // Try to parse as RFC 2396
-                final String href = PathNormalizer.normalize(resource.getHref().getPath(), true);
-                if(href.equals(directory.getAbsolute())) {
-                    log.warn(String.format("Ignore resource %s", href));
-                    // Do not include self
-                    if(resource.isDirectory()) {
-                        continue;
+            final int chunksize = preferences.getInteger("webdav.listing.chunksize");
+            this.list(directory, 1, new StreamingPropFindResponseHandler.Callback() {
+                @Override
+                public void resource(final DavResource resource) throws BackgroundException {
+                    // Try to parse as RFC 2396
+                    final String href = PathNormalizer.normalize(resource.getHref().getPath(), true);
+                    if(href.equals(directory.getAbsolute())) {
+                        log.warn(String.format("Ignore resource %s", href));
+                        // Do not include self
+                        if(resource.isDirectory()) {
+                            return;
+                        }
+                        throw new NotfoundException(directory.getAbsolute());
+                    }
+                    final PathAttributes attr = attributes.toAttributes(resource);
+                    final Path file = new Path(directory, PathNormalizer.name(href),
+                        resource.isDirectory() ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file), attr);
+                    children.add(file);
+                    if(children.size() % chunksize == 0) {
+                        // Notify with children parsed so far while response is still read
+                        listener.chunk(directory, children);
                     }
-                    throw new NotfoundException(directory.getAbsolute());
                 }
-                final PathAttributes attr = attributes.toAttributes(resource);
-                final Path file = new Path(directory, PathNormalizer.name(href),
-                    resource.isDirectory() ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file), attr);
-                children.add(file);
-                listener.chunk(directory, children);
-            }
+            });
+            listener.chunk(directory, children);
             return children;
         }
         catch(SardineException e) {
@@ -85,12 +100,63 @@ public class DAVListService implements ListService {
         }
     }
 
-    protected List<DavResource> list(final Path directory) throws IOException {
-        return session.getClient().list(new DAVPathEncoder().encode(directory), 1,
+    @Override
+    public boolean isRecursive(final Path directory) {
+        // Servers may refuse PROPFIND with infinite depth
+        return preferences.getBoolean("webdav.listing.infinity");
+    }
+
+    @Override
+    public AttributedList<Path> listRecursive(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        try {
+            final AttributedList<Path> descendants = new AttributedList<Path>();
+            final int chunksize = preferences.getInteger("webdav.listing.chunksize");
+            this.list(directory, -1, new StreamingPropFindResponseHandler.Callback() {
+                @Override
+                public void resource(final DavResource resource) throws BackgroundException {
+                    final String href = PathNormalizer.normalize(resource.getHref().getPath(), true);
+                    if(href.equals(directory.getAbsolute())) {
+                        // Do not include self
+                        if(resource.isDirectory()) {
+                            return;
+                        }
+                        throw new NotfoundException(directory.getAbsolute());
+                    }
+                    final PathAttributes attr = attributes.toAttributes(resource);
+                    descendants.add(new Path(href,
+                        resource.isDirectory() ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file), attr));
+                    if(descendants.size() % chunksize == 0) {
+                        listener.chunk(directory, descendants);
+                    }
+                }
+            });
+            listener.chunk(directory, descendants);
+            return descendants;
+        }
+        catch(SardineException e) {
+            final BackgroundException failure = new DAVExceptionMappingService().map("Listing directory {0} failed", e, directory);
+            if(failure instanceof AccessDeniedException || failure instanceof InteroperabilityException) {
+                // Server does not allow PROPFIND with infinite depth. Failure is repeated when listing per directory
+                // if access is denied to directory.
+                throw new UnsupportedException(failure.getDetail());
+            }
+            throw failure;
+        }
+        catch(IOException e) {
+            throw new HttpExceptionMappingService().map(e, directory);
+        }
+    }
+
+    /**
+     * @param depth    Depth of PROPFIND request or negative for infinity
+     * @param callback Called for every resource in response
+     */
+    protected void list(final Path directory, final int depth, final StreamingPropFindResponseHandler.Callback callback) throws IOException, BackgroundException {
+        session.getClient().list(new DAVPathEncoder().encode(directory), depth,
             Stream.of(
                 DAVTimestampFeature.LAST_MODIFIED_CUSTOM_NAMESPACE,
                 DAVTimestampFeature.LAST_MODIFIED_SERVER_CUSTOM_NAMESPACE).
-                collect(Collectors.toSet()));
+                collect(Collectors.toSet()), callback);
     }
 
     @Override
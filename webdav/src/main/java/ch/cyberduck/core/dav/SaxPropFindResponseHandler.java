@@ -18,6 +18,7 @@ package ch.cyberduck.core.dav;
 import org.w3c.dom.Element;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -56,12 +57,29 @@ public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
             xmlReader.parse(new InputSource(stream));
             return handler.getMultistatus();
         }
+        catch(SAXException e) {
+            if(e.getException() instanceof IOException) {
+                // Failure handling response
+                throw (IOException) e.getException();
+            }
+            throw new IOException("Not a valid DAV response", e);
+        }
         catch(Exception e) {
             throw new IOException("Not a valid DAV response", e);
         }
     }
 
-    private static final class SaxHandler extends DefaultHandler {
+    /**
+     * Called for every response element parsed from the multistatus response
+     *
+     * @param multistatus Multistatus response
+     * @param response    Response for single resource
+     */
+    protected void response(final Multistatus multistatus, final Response response) throws IOException {
+        multistatus.getResponse().add(response);
+    }
+
+    private final class SaxHandler extends DefaultHandler {
 
         private Multistatus multistatus;
 
@@ -85,7 +103,6 @@ public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
             switch(localName) {
                 case "response":
                     response = new Response();
-                    multistatus.getResponse().add(response);
                     break;
                 case "propstat":
                     propstat = new Propstat();
@@ -112,8 +129,16 @@ public class SaxPropFindResponseHandler extends MultiStatusResponseHandler {
         }
 
         @Override
-        public void endElement(final String uri, final String localName, final String qName) {
-            if(localName.equals("status")) {
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if(localName.equals("response")) {
+                try {
+                    SaxPropFindResponseHandler.this.response(multistatus, response);
+                }
+                catch(IOException e) {
+                    throw new SAXException(e);
+                }
+            }
+            else if(localName.equals("status")) {
                 propstat.setStatus(data.toString());
             }
             else if(localName.equals("creationdate")) {
@@ -0,0 +1,85 @@
+package ch.cyberduck.core.dav;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.BackgroundException;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.model.Multistatus;
+import com.github.sardine.model.Response;
+
+/**
+ * Passes resources to the callback while the multistatus response is parsed instead of collecting all responses
+ * first.
+ */
+public class StreamingPropFindResponseHandler extends SaxPropFindResponseHandler {
+    private static final Logger log = Logger.getLogger(StreamingPropFindResponseHandler.class);
+
+    private final Callback callback;
+
+    public StreamingPropFindResponseHandler(final Callback callback) {
+        this.callback = callback;
+    }
+
+    @Override
+    protected void response(final Multistatus multistatus, final Response response) throws IOException {
+        final DavResource resource;
+        try {
+            resource = new DavResource(response);
+        }
+        catch(URISyntaxException e) {
+            log.warn(String.format("Ignore resource with invalid URI %s", response.getHref().get(0)));
+            return;
+        }
+        try {
+            callback.resource(resource);
+        }
+        catch(BackgroundException e) {
+            // Abort reading response
+            throw new CallbackException(e);
+        }
+    }
+
+    public interface Callback {
+        /**
+         * @param resource Resource parsed from response
+         */
+        void resource(DavResource resource) throws BackgroundException;
+    }
+
+    /**
+     * Failure in callback passed through HTTP client
+     */
+    public static final class CallbackException extends IOException {
+        private static final long serialVersionUID = 5425880376434409036L;
+
+        private final BackgroundException failure;
+
+        public CallbackException(final BackgroundException failure) {
+            super(failure);
+            this.failure = failure;
+        }
+
+        public BackgroundException getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ch.cyberduck.core.dav;
+
+/*
+ * Copyright (c) 2002-2019 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.model.Multistatus;
+
+import static org.junit.Assert.*;
+
+public class StreamingPropFindResponseHandlerTest {
+
+    private InputStream multistatus() {
+        return IOUtils.toInputStream("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<D:multistatus xmlns:D=\"DAV:\">\n" +
+            "<D:response><D:href>/d/</D:href><D:propstat><D:prop><D:resourcetype><D:collection/></D:resourcetype></D:prop>" +
+            "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>\n" +
+            "<D:response><D:href>/d/f</D:href><D:propstat><D:prop><D:resourcetype/><D:getcontentlength>3</D:getcontentlength></D:prop>" +
+            "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>\n" +
+            "<D:response><D:href>/d/s/</D:href><D:propstat><D:prop><D:resourcetype><D:collection/></D:resourcetype></D:prop>" +
+            "<D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>\n" +
+            "</D:multistatus>", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testResource() throws Exception {
+        final List<DavResource> resources = new ArrayList<>();
+        final Multistatus multistatus = new StreamingPropFindResponseHandler(new StreamingPropFindResponseHandler.Callback() {
+            @Override
+            public void resource(final DavResource resource) {
+                resources.add(resource);
+            }
+        }).getMultistatus(this.multistatus());
+        // Responses are not retained
+        assertTrue(multistatus.getResponse().isEmpty());
+        assertEquals(3, resources.size());
+        assertEquals("/d/", resources.get(0).getHref().getPath());
+        assertTrue(resources.get(0).isDirectory());
+        assertEquals("/d/f", resources.get(1).getHref().getPath());
+        assertFalse(resources.get(1).isDirectory());
+        assertEquals(Long.valueOf(3L), resources.get(1).getContentLength());
+        assertTrue(resources.get(2).isDirectory());
+    }
+
+    @Test
+    public void testCallbackFailure() throws Exception {
+        final List<DavResource> resources = new ArrayList<>();
+        try {
+            new StreamingPropFindResponseHandler(new StreamingPropFindResponseHandler.Callback() {
+                @Override
+                public void resource(final DavResource resource) throws ConnectionCanceledException {
+                    resources.add(resource);
+                    throw new ConnectionCanceledException();
+                }
+            }).getMultistatus(this.multistatus());
+            fail();
+        }
+        catch(StreamingPropFindResponseHandler.CallbackException e) {
+            assertTrue(e.getFailure() instanceof ConnectionCanceledException);
+        }
+        // Stop parsing after failure
+        assertEquals(1, resources.size());
+    }
+
+    @Test
+    public void testCollect() throws Exception {
+        final Multistatus multistatus = new SaxPropFindResponseHandler().getMultistatus(this.multistatus());
+        assertEquals(3, multistatus.getResponse().size());
+    }
+}
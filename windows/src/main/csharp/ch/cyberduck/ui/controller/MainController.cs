@@ -903,6 +903,8 @@ namespace Ch.Cyberduck.Ui.Controller
         {
             // Clear temporary files
             TemporaryFileServiceFactory.get().shutdown();
+            // Close checksum index
+            LocalChecksumIndex.get().shutdown();
             try
             {
                 RendezvousFactory.instance().quit();